@@ -0,0 +1,231 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Concurrency headroom of the redirect path: how many clients a server
+ * handles before its tail latency breaks an SLO
+ *
+ * Runs the same redirect load as RedirectLoadTest at increasing numbers of
+ * concurrent clients (each one sends its next request when the previous one
+ * is answered). Requests are sent with the asynchronous HttpClient, so
+ * thousands of clients don't need thousands of threads in the load generator.
+ *
+ * After each level the server's live threads, heap and direct buffer memory
+ * are read from /actuator/metrics, which both the servlet application and
+ * the reactive variant (reactive/) expose. Start both with the same -Xmx
+ * (see README) to compare them at equal memory.
+ *
+ * The headroom is the highest level whose p99 stays within the SLO with
+ * less than 1% errors (timeouts, connection errors or 5xx).
+ *
+ * Run it with the single-file source launcher (no build needed):
+ *   java load-test/ConcurrencyHeadroomTest.java [baseUrl] [levels] [secondsPerLevel] [codes] [p99SloMillis]
+ *
+ * Defaults: http://localhost:8080 50,200,800,3200 20 1000 100
+ */
+public class ConcurrencyHeadroomTest {
+
+    private static final Pattern SHORT_CODE = Pattern.compile("\"shortCode\":\"([A-Za-z0-9]+)\"");
+    private static final Pattern METRIC_VALUE = Pattern.compile("\"value\":([0-9.Ee+-]+)");
+
+    // Requests slower than this count as errors
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int[] levels = Arrays.stream((args.length > 1 ? args[1] : "50,200,800,3200").split(","))
+                .mapToInt(level -> Integer.parseInt(level.trim()))
+                .toArray();
+        int secondsPerLevel = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        int codeCount = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+        double sloMillis = args.length > 4 ? Double.parseDouble(args[4]) : 100;
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        String[] codes = createShortCodes(client, baseUrl, codeCount);
+        System.out.printf("Created %d short codes, %ds per level, p99 SLO %.0f ms%n",
+                codes.length, secondsPerLevel, sloMillis);
+
+        // Warm up at the lowest level before measuring
+        run(client, baseUrl, codes, levels[0], Math.min(5, secondsPerLevel));
+
+        int headroom = 0;
+        System.out.printf("%8s %10s %8s %9s %9s %9s %8s %9s %10s%n",
+                "clients", "req/s", "errors", "p50 ms", "p99 ms", "p99.9 ms", "threads", "heap MB", "direct MB");
+        for (int level : levels) {
+            Result result = run(client, baseUrl, codes, level, secondsPerLevel);
+            double throughput = result.requests / (double) secondsPerLevel;
+            double p99 = result.percentile(99);
+            double threads = metric(client, baseUrl, "jvm.threads.live", null);
+            double heapMb = metric(client, baseUrl, "jvm.memory.used", "area:heap") / (1 << 20);
+            double directMb = metric(client, baseUrl, "jvm.buffer.memory.used", "id:direct") / (1 << 20);
+
+            System.out.printf("%8d %10.0f %8d %9.2f %9.2f %9.2f %8.0f %9.1f %10.1f%n",
+                    level, throughput, result.errors, result.percentile(50), p99, result.percentile(99.9),
+                    threads, heapMb, directMb);
+            System.out.printf("{\"clients\":%d,\"throughput\":%.1f,\"requests\":%d,\"errors\":%d,"
+                            + "\"p50\":%.3f,\"p99\":%.3f,\"p999\":%.3f,\"threads\":%.0f,\"heapMb\":%.1f,\"directMb\":%.1f}%n",
+                    level, throughput, result.requests, result.errors, result.percentile(50), p99,
+                    result.percentile(99.9), threads, heapMb, directMb);
+
+            boolean withinSlo = p99 <= sloMillis && result.errors < 0.01 * Math.max(1, result.requests);
+            if (!withinSlo) {
+                break;
+            }
+            headroom = level;
+        }
+        System.out.printf("headroom=%d clients (p99 <= %.0f ms, errors < 1%%)%n", headroom, sloMillis);
+    }
+
+    private static String[] createShortCodes(HttpClient client, String baseUrl, int count) throws Exception {
+        List<String> codes = new ArrayList<>(count);
+        for (int created = 0; created < count; created += 1000) {
+            StringBuilder body = new StringBuilder("{\"urls\":[");
+            int batch = Math.min(1000, count - created);
+            for (int i = 0; i < batch; i++) {
+                body.append(i == 0 ? "" : ",")
+                        .append("{\"url\":\"https://example.com/headroom/").append(created + i).append("\"}");
+            }
+            body.append("]}");
+
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/shorten/bulk"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                    .build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            // Writes are rate limited: wait as long as the server asks, then send the batch again
+            while (response.statusCode() == 429) {
+                long retryAfter = response.headers().firstValueAsLong("Retry-After").orElse(1);
+                Thread.sleep(retryAfter * 1000);
+                response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            }
+
+            Matcher matcher = SHORT_CODE.matcher(response.body());
+            while (matcher.find()) {
+                codes.add(matcher.group(1));
+            }
+        }
+        return codes.toArray(new String[0]);
+    }
+
+    /**
+     * Keep "clients" requests in flight for the given time
+     */
+    private static Result run(HttpClient client, String baseUrl, String[] codes,
+                              int clients, int durationSeconds) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(durationSeconds).toNanos();
+        AtomicLong errors = new AtomicLong();
+        Client[] all = new Client[clients];
+        CountDownLatch done = new CountDownLatch(clients);
+
+        for (int c = 0; c < clients; c++) {
+            all[c] = new Client(client, baseUrl, codes, deadline, errors, done);
+            all[c].next();
+        }
+        done.await();
+
+        int total = Arrays.stream(all).mapToInt(c -> c.count).sum();
+        long[] latencies = new long[total];
+        int position = 0;
+        for (Client c : all) {
+            System.arraycopy(c.samples, 0, latencies, position, c.count);
+            position += c.count;
+        }
+        Arrays.sort(latencies);
+        return new Result(total, errors.get(), latencies);
+    }
+
+    /**
+     * One client: a chain of requests, each sent when the previous one completes
+     * The chain is sequential, so samples need no synchronization.
+     */
+    private static final class Client {
+
+        private final HttpClient client;
+        private final String baseUrl;
+        private final String[] codes;
+        private final long deadline;
+        private final AtomicLong errors;
+        private final CountDownLatch done;
+        private long[] samples = new long[1024];
+        private int count;
+
+        Client(HttpClient client, String baseUrl, String[] codes, long deadline,
+               AtomicLong errors, CountDownLatch done) {
+            this.client = client;
+            this.baseUrl = baseUrl;
+            this.codes = codes;
+            this.deadline = deadline;
+            this.errors = errors;
+            this.done = done;
+        }
+
+        void next() {
+            if (System.nanoTime() >= deadline) {
+                done.countDown();
+                return;
+            }
+            String code = codes[ThreadLocalRandom.current().nextInt(codes.length)];
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/" + code))
+                    .timeout(REQUEST_TIMEOUT)
+                    .GET()
+                    .build();
+
+            long start = System.nanoTime();
+            CompletableFuture<HttpResponse<Void>> response = client.sendAsync(request, HttpResponse.BodyHandlers.discarding());
+            response.whenComplete((result, failure) -> {
+                if (failure != null || result.statusCode() >= 500) {
+                    errors.incrementAndGet();
+                }
+                if (count == samples.length) {
+                    samples = Arrays.copyOf(samples, samples.length * 2);
+                }
+                samples[count++] = System.nanoTime() - start;
+                next();
+            });
+        }
+    }
+
+    /**
+     * One value from the server's /actuator/metrics (NaN if it can't be read)
+     */
+    private static double metric(HttpClient client, String baseUrl, String name, String tag) {
+        try {
+            String uri = baseUrl + "/actuator/metrics/" + name + (tag == null ? "" : "?tag=" + tag);
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(uri)).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            Matcher matcher = METRIC_VALUE.matcher(response.body());
+            return matcher.find() ? Double.parseDouble(matcher.group(1)) : Double.NaN;
+        } catch (Exception e) {
+            return Double.NaN;
+        }
+    }
+
+    private record Result(long requests, long errors, long[] sortedLatenciesNanos) {
+
+        double percentile(double percentile) {
+            if (sortedLatenciesNanos.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * sortedLatenciesNanos.length) - 1;
+            index = Math.max(0, Math.min(index, sortedLatenciesNanos.length - 1));
+            return sortedLatenciesNanos[index] / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop load test for the redirect path
+ *
+ * Creates a set of short URLs through the bulk endpoint, then runs a fixed
+ * number of concurrent clients that request random short codes (without
+ * following the redirect) for a fixed duration. Prints throughput and
+ * latency percentiles, plus one JSON line for scripts.
+ *
+ * Run it with the single-file source launcher (no build needed):
+ *   java load-test/RedirectLoadTest.java [baseUrl] [concurrency] [durationSeconds] [codes] [missRatio]
+ *
+ * Defaults: http://localhost:8080 200 30 1000 0.0
+ * missRatio is the share of requests for codes that don't exist (404 path).
+ */
+public class RedirectLoadTest {
+
+    private static final Pattern SHORT_CODE = Pattern.compile("\"shortCode\":\"([A-Za-z0-9]+)\"");
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int durationSeconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        int codeCount = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+        double missRatio = args.length > 4 ? Double.parseDouble(args[4]) : 0.0;
+
+        HttpClient client = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        String[] codes = createShortCodes(client, baseUrl, codeCount);
+        System.out.printf("Created %d short codes, running %d clients for %ds (miss ratio %.2f)%n",
+                codes.length, concurrency, durationSeconds, missRatio);
+
+        // Warm up for a few seconds before measuring
+        run(client, baseUrl, codes, concurrency, Math.min(5, durationSeconds), missRatio);
+        Result result = run(client, baseUrl, codes, concurrency, durationSeconds, missRatio);
+
+        double throughput = result.requests / (double) durationSeconds;
+        System.out.printf("requests=%d errors=%d throughput=%.0f req/s%n", result.requests, result.errors, throughput);
+        System.out.printf("latency ms: p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f%n",
+                result.percentile(50), result.percentile(90), result.percentile(99),
+                result.percentile(99.9), result.percentile(100));
+        System.out.printf("{\"concurrency\":%d,\"durationSeconds\":%d,\"requests\":%d,\"errors\":%d,"
+                        + "\"throughput\":%.1f,\"p50\":%.3f,\"p99\":%.3f,\"p999\":%.3f}%n",
+                concurrency, durationSeconds, result.requests, result.errors, throughput,
+                result.percentile(50), result.percentile(99), result.percentile(99.9));
+    }
+
+    private static String[] createShortCodes(HttpClient client, String baseUrl, int count) throws Exception {
+        List<String> codes = new ArrayList<>(count);
+        for (int created = 0; created < count; created += 1000) {
+            StringBuilder body = new StringBuilder("{\"urls\":[");
+            int batch = Math.min(1000, count - created);
+            for (int i = 0; i < batch; i++) {
+                body.append(i == 0 ? "" : ",")
+                        .append("{\"url\":\"https://example.com/load-test/").append(created + i).append("\"}");
+            }
+            body.append("]}");
+
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/shorten/bulk"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                    .build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            // Writes are rate limited: wait as long as the server asks, then send the batch again
+            while (response.statusCode() == 429) {
+                long retryAfter = response.headers().firstValueAsLong("Retry-After").orElse(1);
+                Thread.sleep(retryAfter * 1000);
+                response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            }
+
+            Matcher matcher = SHORT_CODE.matcher(response.body());
+            while (matcher.find()) {
+                codes.add(matcher.group(1));
+            }
+        }
+        return codes.toArray(new String[0]);
+    }
+
+    private static Result run(HttpClient client, String baseUrl, String[] codes,
+                              int concurrency, int durationSeconds, double missRatio) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(durationSeconds).toNanos();
+        AtomicLong errors = new AtomicLong();
+        long[][] latencies = new long[concurrency][];
+        int[] counts = new int[concurrency];
+        CountDownLatch done = new CountDownLatch(concurrency);
+
+        for (int t = 0; t < concurrency; t++) {
+            int worker = t;
+            Thread thread = new Thread(() -> {
+                long[] samples = new long[1 << 16];
+                int count = 0;
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    while (System.nanoTime() < deadline) {
+                        String code = random.nextDouble() < missRatio
+                                ? "missing" + random.nextInt(1_000_000)
+                                : codes[random.nextInt(codes.length)];
+                        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/" + code)).GET().build();
+
+                        long start = System.nanoTime();
+                        try {
+                            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                            if (status >= 500) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        if (count == samples.length) {
+                            samples = Arrays.copyOf(samples, samples.length * 2);
+                        }
+                        samples[count++] = System.nanoTime() - start;
+                    }
+                } finally {
+                    latencies[worker] = samples;
+                    counts[worker] = count;
+                    done.countDown();
+                }
+            });
+            thread.start();
+        }
+        done.await();
+
+        int total = Arrays.stream(counts).sum();
+        long[] all = new long[total];
+        int position = 0;
+        for (int t = 0; t < concurrency; t++) {
+            System.arraycopy(latencies[t], 0, all, position, counts[t]);
+            position += counts[t];
+        }
+        Arrays.sort(all);
+        return new Result(total, errors.get(), all);
+    }
+
+    private record Result(long requests, long errors, long[] sortedLatenciesNanos) {
+
+        double percentile(double percentile) {
+            if (sortedLatenciesNanos.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * sortedLatenciesNanos.length) - 1;
+            index = Math.max(0, Math.min(index, sortedLatenciesNanos.length - 1));
+            return sortedLatenciesNanos[index] / 1_000_000.0;
+        }
+    }
+}
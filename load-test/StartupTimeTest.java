@@ -0,0 +1,140 @@
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Time-to-first-redirect and memory of a freshly started instance
+ *
+ * Starts the given command (the application) several times and measures,
+ * from the moment the process is started:
+ * - firstResponse: the first answer on the redirect path (GET of an unknown
+ *   code, 404), i.e. when the instance could take redirect traffic
+ * - firstRedirect: creating one short URL and getting its 302 back, i.e.
+ *   when the whole write and read path has been initialized
+ * - rss: resident memory of the process right after the first redirect
+ *   (read from /proc, so Linux only)
+ *
+ * The process is stopped after each run. Prints each run, the median of all
+ * runs, and one JSON line for scripts. The application's own output is discarded.
+ *
+ * Run it with the single-file source launcher (no build needed):
+ *   java load-test/StartupTimeTest.java [baseUrl] [runs] -- command...
+ *
+ * e.g.
+ *   java load-test/StartupTimeTest.java http://localhost:8080 5 -- java -jar target/url-shortener-0.0.1-SNAPSHOT.jar
+ */
+public class StartupTimeTest {
+
+    private static final Pattern SHORT_CODE = Pattern.compile("\"shortCode\":\"([A-Za-z0-9]+)\"");
+    private static final Pattern VM_RSS = Pattern.compile("VmRSS:\\s+(\\d+) kB");
+
+    // How long a run may take before it counts as failed
+    private static final Duration TIMEOUT = Duration.ofSeconds(120);
+
+    public static void main(String[] args) throws Exception {
+        int separator = Arrays.asList(args).indexOf("--");
+        if (separator < 0 || separator == args.length - 1) {
+            System.err.println("Usage: java load-test/StartupTimeTest.java [baseUrl] [runs] -- command...");
+            System.exit(1);
+        }
+        String baseUrl = separator > 0 ? args[0] : "http://localhost:8080";
+        int runs = separator > 1 ? Integer.parseInt(args[1]) : 5;
+        List<String> command = Arrays.asList(args).subList(separator + 1, args.length);
+
+        HttpClient client = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofSeconds(1))
+                .build();
+
+        System.out.printf("Starting %s %d times%n", String.join(" ", command), runs);
+        long[] firstResponse = new long[runs];
+        long[] firstRedirect = new long[runs];
+        long[] rss = new long[runs];
+        for (int run = 0; run < runs; run++) {
+            Result result = measure(client, baseUrl, command);
+            firstResponse[run] = result.firstResponseMillis;
+            firstRedirect[run] = result.firstRedirectMillis;
+            rss[run] = result.rssMegabytes;
+            System.out.printf("run %d: firstResponse=%d ms firstRedirect=%d ms rss=%d MB%n",
+                    run + 1, result.firstResponseMillis, result.firstRedirectMillis, result.rssMegabytes);
+        }
+
+        System.out.printf("median: firstResponse=%d ms firstRedirect=%d ms rss=%d MB%n",
+                median(firstResponse), median(firstRedirect), median(rss));
+        System.out.printf("{\"runs\":%d,\"firstResponseMillis\":%d,\"firstRedirectMillis\":%d,\"rssMegabytes\":%d}%n",
+                runs, median(firstResponse), median(firstRedirect), median(rss));
+    }
+
+    private static Result measure(HttpClient client, String baseUrl, List<String> command) throws Exception {
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            // Poll the redirect path until the server answers
+            HttpRequest probe = HttpRequest.newBuilder(URI.create(baseUrl + "/startupProbe")).GET().build();
+            while (true) {
+                if (System.nanoTime() - start > TIMEOUT.toNanos() || !process.isAlive()) {
+                    throw new IllegalStateException("The application didn't start (exit code "
+                            + (process.isAlive() ? "-" : process.exitValue()) + ")");
+                }
+                try {
+                    client.send(probe, HttpResponse.BodyHandlers.discarding());
+                    break;
+                } catch (ConnectException e) {
+                    Thread.sleep(20);
+                }
+            }
+            long firstResponse = System.nanoTime() - start;
+
+            HttpResponse<String> created = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/shorten"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"url\":\"https://example.com/startup\"}"))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            Matcher matcher = SHORT_CODE.matcher(created.body());
+            if (!matcher.find()) {
+                throw new IllegalStateException("Shortening failed: " + created.statusCode() + " " + created.body());
+            }
+            HttpResponse<Void> redirect = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/" + matcher.group(1)))
+                    .GET().build(), HttpResponse.BodyHandlers.discarding());
+            if (redirect.statusCode() / 100 != 3) {
+                throw new IllegalStateException("Expected a redirect, got " + redirect.statusCode());
+            }
+            long firstRedirect = System.nanoTime() - start;
+
+            return new Result(TimeUnit.NANOSECONDS.toMillis(firstResponse), TimeUnit.NANOSECONDS.toMillis(firstRedirect),
+                    rssMegabytes(process.pid()));
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static long rssMegabytes(long pid) throws IOException {
+        Matcher matcher = VM_RSS.matcher(Files.readString(Path.of("/proc", Long.toString(pid), "status")));
+        return matcher.find() ? Long.parseLong(matcher.group(1)) / 1024 : -1;
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private record Result(long firstResponseMillis, long firstRedirectMillis, long rssMegabytes) {
+    }
+}
@@ -0,0 +1,40 @@
+package com.urlshortener.reactive;
+
+import com.urlshortener.config.BulkProperties;
+import com.urlshortener.config.ExpiryProperties;
+import com.urlshortener.config.HitCountProperties;
+import com.urlshortener.config.RedirectProperties;
+import com.urlshortener.config.ShortCodeCacheProperties;
+import com.urlshortener.config.ShortCodeProperties;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+
+/**
+ * Reactive variant of the URL shortener
+ *
+ * Same API as the servlet application (see ApiRoutes), served by Spring WebFlux
+ * on Netty: a few event loop threads handle every connection, and no thread
+ * ever waits for the database, since R2DBC calls return Mono/Flux.
+ *
+ * @SpringBootApplication scans com.urlshortener.reactive only; the shared
+ * classes compiled from the servlet application (DTOs, exceptions, helpers)
+ * aren't Spring components.
+ *
+ * @EnableConfigurationProperties binds the servlet application's property
+ * classes, so both variants read the same urlshortener.* settings.
+ */
+@SpringBootApplication
+@EnableConfigurationProperties({
+        BulkProperties.class,
+        ExpiryProperties.class,
+        HitCountProperties.class,
+        RedirectProperties.class,
+        ShortCodeCacheProperties.class,
+        ShortCodeProperties.class})
+public class ReactiveUrlShortenerApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(ReactiveUrlShortenerApplication.class, args);
+    }
+}
@@ -0,0 +1,72 @@
+package com.urlshortener.reactive.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.urlshortener.cache.RedirectTargetExpiry;
+import com.urlshortener.config.ShortCodeCacheProperties;
+import com.urlshortener.dto.RedirectTarget;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache of short code -> redirect target, for the reactive variant
+ *
+ * Same policy as the servlet application's ShortCodeCache (urlshortener.cache.*,
+ * RedirectTargetExpiry), but built on Caffeine's AsyncCache: a miss stores the
+ * pending lookup itself, so concurrent misses for the same code share one
+ * query and no thread waits for it.
+ */
+@Component
+@Slf4j
+public class ReactiveShortCodeCache {
+
+    private final AsyncCache<String, Optional<RedirectTarget>> cache;
+
+    public ReactiveShortCodeCache(ShortCodeCacheProperties properties, MeterRegistry meterRegistry) {
+        if (properties.isEnabled()) {
+            this.cache = Caffeine.newBuilder()
+                    .maximumSize(properties.getMaxSize())
+                    .expireAfter(new RedirectTargetExpiry(
+                            properties.getTtl().toNanos(), properties.getNegativeTtl().toNanos()))
+                    .recordStats()
+                    .buildAsync();
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, "shortCodes");
+            log.info("Short code cache enabled (maxSize={}, ttl={}, negativeTtl={})",
+                    properties.getMaxSize(), properties.getTtl(), properties.getNegativeTtl());
+        } else {
+            this.cache = null;
+            log.info("Short code cache disabled");
+        }
+    }
+
+    /**
+     * Get the redirect target for a short code, loading it on a miss
+     *
+     * The loader is only subscribed to on a cache miss, and its result
+     * (including Optional.empty() for unknown codes) is cached. A failed
+     * load is not cached.
+     */
+    public Mono<Optional<RedirectTarget>> get(String shortCode,
+                                              Function<String, Mono<Optional<RedirectTarget>>> loader) {
+        if (cache == null) {
+            return loader.apply(shortCode);
+        }
+        return Mono.fromFuture(() -> cache.get(shortCode, (code, executor) -> loader.apply(code).toFuture()));
+    }
+
+    /**
+     * Store a freshly created mapping
+     * Also replaces any not-found entry a client may have caused before the code existed
+     */
+    public void put(String shortCode, RedirectTarget target) {
+        if (cache != null) {
+            cache.synchronous().put(shortCode, Optional.of(target));
+        }
+    }
+}
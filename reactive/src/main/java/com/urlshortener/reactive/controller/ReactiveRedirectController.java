@@ -0,0 +1,41 @@
+package com.urlshortener.reactive.controller;
+
+import com.urlshortener.config.RedirectProperties;
+import com.urlshortener.constants.ApiRoutes;
+import com.urlshortener.controller.RedirectResponses;
+import com.urlshortener.reactive.service.ReactiveUrlService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * Redirect endpoint of the reactive variant
+ *
+ * Answers exactly like the servlet RedirectController (same statuses and
+ * Cache-Control headers, via RedirectResponses). Clicks are counted, but no
+ * click events (referrer, client type) are recorded.
+ */
+@RestController
+public class ReactiveRedirectController {
+
+    private final ReactiveUrlService urlService;
+    private final RedirectResponses redirectResponses;
+
+    public ReactiveRedirectController(ReactiveUrlService urlService, RedirectProperties redirectProperties) {
+        this.urlService = urlService;
+        this.redirectResponses = new RedirectResponses(redirectProperties);
+    }
+
+    /**
+     * Redirect to original URL
+     * GET /{shortCode}
+     *
+     * Unknown codes get a plain 404 and expired ones a plain 410 Gone
+     */
+    @GetMapping(ApiRoutes.REDIRECT_URL)
+    public Mono<ResponseEntity<Void>> redirect(@PathVariable(ApiRoutes.URL_INFO_PATH_VARIABLE) String shortCode) {
+        return urlService.redirectUrl(shortCode).map(redirectResponses::toResponse);
+    }
+}
@@ -0,0 +1,215 @@
+package com.urlshortener.reactive.controller;
+
+import com.urlshortener.config.BulkProperties;
+import com.urlshortener.constants.ApiRoutes;
+import com.urlshortener.dto.BulkUrlRequest;
+import com.urlshortener.dto.BulkUrlResponse;
+import com.urlshortener.dto.BulkUrlResult;
+import com.urlshortener.dto.ShortenOptions;
+import com.urlshortener.dto.ShortenOutcome;
+import com.urlshortener.dto.UrlRequest;
+import com.urlshortener.dto.UrlResponse;
+import com.urlshortener.dto.UrlSummary;
+import com.urlshortener.exception.InvalidRequestException;
+import com.urlshortener.reactive.service.ReactiveUrlService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Valid;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * REST controller of the reactive variant
+ *
+ * Same endpoints, request and response bodies as the servlet UrlController
+ * (shorten, bulk shorten, URL info with ETag). Handlers return a Mono, so
+ * the event loop thread is released while the database works.
+ *
+ * Click statistics and import/export are only available in the servlet application.
+ */
+@RestController
+@RequestMapping(ApiRoutes.API_BASE_PATH)
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class ReactiveUrlController {
+
+    private final ReactiveUrlService urlService;
+    private final Validator validator;
+    private final BulkProperties bulkProperties;
+
+    /**
+     * Shorten a URL
+     * POST /api/v1/shorten
+     */
+    @PostMapping("/shorten")
+    public Mono<ResponseEntity<UrlResponse>> shortenUrl(
+            @Valid @RequestBody UrlRequest request,
+            ServerWebExchange exchange) {
+
+        log.debug("Received request to shorten URL: {}", request.getUrl());
+
+        String baseUrl = getBaseUrl(exchange);
+        return urlService.shortenUrl(request.getUrl(), ShortenOptions.of(request))
+                .map(url -> ResponseEntity.status(HttpStatus.CREATED).body(buildUrlResponse(url, baseUrl)));
+    }
+
+    /**
+     * Shorten many URLs in one request
+     * POST /api/v1/shorten/bulk
+     *
+     * Each item is validated like a single UrlRequest; invalid items are
+     * reported in the results instead of failing the whole request.
+     * Returns 200 OK with one result per item, in request order.
+     */
+    @PostMapping("/shorten/bulk")
+    public Mono<ResponseEntity<BulkUrlResponse>> shortenUrls(
+            @Valid @RequestBody BulkUrlRequest request,
+            ServerWebExchange exchange) {
+
+        List<UrlRequest> items = request.getUrls();
+        log.debug("Received request to shorten {} URLs", items.size());
+
+        if (items.size() > bulkProperties.getMaxItems()) {
+            return Mono.error(new InvalidRequestException("Too many URLs in one request: " + items.size()
+                    + " (maximum is " + bulkProperties.getMaxItems() + ")"));
+        }
+
+        // Validate each item; only valid ones are passed on to the service
+        BulkUrlResult[] results = new BulkUrlResult[items.size()];
+        List<Integer> validIndexes = new ArrayList<>(items.size());
+        List<String> validUrls = new ArrayList<>(items.size());
+        List<ShortenOptions> validOptions = new ArrayList<>(items.size());
+
+        for (int i = 0; i < items.size(); i++) {
+            UrlRequest item = items.get(i);
+            String error = validate(item);
+            if (error == null) {
+                validIndexes.add(i);
+                validUrls.add(item.getUrl());
+                validOptions.add(ShortenOptions.of(item));
+            } else {
+                results[i] = BulkUrlResult.builder()
+                        .index(i)
+                        .originalUrl(item == null ? null : item.getUrl())
+                        .error(error)
+                        .build();
+            }
+        }
+
+        String baseUrl = getBaseUrl(exchange);
+        return urlService.shortenUrls(validUrls, validOptions).map(outcomes -> {
+            int succeeded = 0;
+            for (int i = 0; i < outcomes.size(); i++) {
+                int index = validIndexes.get(i);
+                ShortenOutcome outcome = outcomes.get(i);
+                BulkUrlResult.BulkUrlResultBuilder result = BulkUrlResult.builder()
+                        .index(index)
+                        .originalUrl(validUrls.get(i));
+
+                if (outcome.isSuccess()) {
+                    succeeded++;
+                    result.shortCode(outcome.url().shortCode())
+                            .shortUrl(baseUrl + "/" + outcome.url().shortCode())
+                            .expiresAt(outcome.url().expiresAt());
+                } else {
+                    result.error(outcome.error());
+                }
+                results[index] = result.build();
+            }
+
+            return ResponseEntity.ok(BulkUrlResponse.builder()
+                    .total(items.size())
+                    .succeeded(succeeded)
+                    .failed(items.size() - succeeded)
+                    .results(List.of(results))
+                    .build());
+        });
+    }
+
+    /**
+     * Get URL information
+     * GET /api/v1/url/{shortCode}
+     *
+     * With an ETag and Cache-Control: no-cache like the servlet application;
+     * WebFlux answers a matching If-None-Match with 304 Not Modified.
+     */
+    @GetMapping("/url/{" + ApiRoutes.URL_INFO_PATH_VARIABLE + "}")
+    public Mono<ResponseEntity<UrlResponse>> getUrlInfo(
+            @PathVariable(ApiRoutes.URL_INFO_PATH_VARIABLE) String shortCode,
+            ServerWebExchange exchange) {
+
+        log.debug("Getting info for short code: {}", shortCode);
+
+        String baseUrl = getBaseUrl(exchange);
+        return urlService.getUrlInfo(shortCode).map(url -> {
+            UrlResponse response = buildUrlResponse(url, baseUrl);
+            return ResponseEntity.ok()
+                    .eTag(response.etag())
+                    .cacheControl(CacheControl.noCache())
+                    .body(response);
+        });
+    }
+
+    /**
+     * Helper method to build UrlResponse from a URL summary
+     */
+    private UrlResponse buildUrlResponse(UrlSummary url, String baseUrl) {
+        return UrlResponse.builder()
+                .originalUrl(url.originalUrl())
+                .shortUrl(baseUrl + "/" + url.shortCode())
+                .shortCode(url.shortCode())
+                .createdAt(url.createdAt())
+                .hitCount(url.hitCount())
+                .expiresAt(url.expiresAt())
+                .redirectType(url.redirectType())
+                .build();
+    }
+
+    /**
+     * Helper method to validate one bulk item
+     * @return The validation error messages, or null if the item is valid
+     */
+    private String validate(UrlRequest item) {
+        if (item == null) {
+            return "URL cannot be empty";
+        }
+        Set<ConstraintViolation<UrlRequest>> violations = validator.validate(item);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .reduce((first, second) -> first + "; " + second)
+                .orElse(null);
+    }
+
+    /**
+     * Helper method to get base URL from request
+     */
+    private String getBaseUrl(ServerWebExchange exchange) {
+        URI uri = exchange.getRequest().getURI();
+        String scheme = uri.getScheme();
+        String serverName = uri.getHost();
+        int serverPort = uri.getPort();
+
+        if (serverPort == -1 || (scheme.equals("http") && serverPort == 80) ||
+            (scheme.equals("https") && serverPort == 443)) {
+            return scheme + "://" + serverName;
+        } else {
+            return scheme + "://" + serverName + ":" + serverPort;
+        }
+    }
+}
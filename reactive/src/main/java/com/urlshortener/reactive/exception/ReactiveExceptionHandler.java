@@ -0,0 +1,152 @@
+package com.urlshortener.reactive.exception;
+
+import com.urlshortener.dto.ErrorResponse;
+import com.urlshortener.exception.InvalidRequestException;
+import com.urlshortener.exception.UrlNotFoundException;
+import com.urlshortener.util.RateLimitedLogger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebInputException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Exception handler of the reactive variant
+ *
+ * Keeps the error contract of the servlet GlobalExceptionHandler: the same
+ * ErrorResponse body, statuses and messages for the same failures. Only the
+ * exception types differ, since WebFlux reports bad requests with its own:
+ * - WebExchangeBindException instead of MethodArgumentNotValidException
+ * - ServerWebInputException instead of HttpMessageNotReadableException
+ */
+@RestControllerAdvice
+@Slf4j
+public class ReactiveExceptionHandler {
+
+    // Unknown codes are client errors that can arrive in floods, so they are rate limited
+    private static final RateLimitedLogger NOT_FOUND_LOG = new RateLimitedLogger(log, 10, Duration.ofSeconds(1));
+
+    /**
+     * Handle UrlNotFoundException
+     */
+    @ExceptionHandler(UrlNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleUrlNotFoundException(
+            UrlNotFoundException ex,
+            ServerWebExchange exchange) {
+
+        NOT_FOUND_LOG.info("URL not found: {}", ex.getMessage());
+        return error(HttpStatus.NOT_FOUND, "URL Not Found", ex.getMessage(), exchange);
+    }
+
+    /**
+     * Handle InvalidRequestException
+     */
+    @ExceptionHandler(InvalidRequestException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidRequestException(
+            InvalidRequestException ex,
+            ServerWebExchange exchange) {
+
+        log.warn("Invalid request: {}", ex.getMessage());
+        return error(HttpStatus.BAD_REQUEST, "Bad Request", ex.getMessage(), exchange);
+    }
+
+    /**
+     * Handle validation errors (@Valid request bodies)
+     */
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<ErrorResponse> handleValidationException(
+            WebExchangeBindException ex,
+            ServerWebExchange exchange) {
+
+        // Extract validation errors
+        Map<String, String> errors = new HashMap<>();
+        ex.getBindingResult().getAllErrors().forEach((error) -> {
+            String fieldName = ((FieldError) error).getField();
+            String errorMessage = error.getDefaultMessage();
+            errors.put(fieldName, errorMessage);
+        });
+
+        String errorMessage = errors.toString();
+        log.error("Validation failed: {}", errorMessage);
+        return error(HttpStatus.BAD_REQUEST, "Validation Failed", errorMessage, exchange);
+    }
+
+    /**
+     * Handle request bodies that can't be read
+     *
+     * Malformed JSON, or a value of the wrong type (e.g. an unknown redirectType)
+     */
+    @ExceptionHandler(ServerWebInputException.class)
+    public ResponseEntity<ErrorResponse> handleServerWebInputException(
+            ServerWebInputException ex,
+            ServerWebExchange exchange) {
+
+        log.warn("Unreadable request: {}", ex.getMostSpecificCause().getMessage());
+        return error(HttpStatus.BAD_REQUEST, "Bad Request", "Malformed request body", exchange);
+    }
+
+    /**
+     * Handle errors WebFlux raises with a status of their own (e.g. 405, 415),
+     * which the servlet container would answer before reaching a controller
+     */
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<ErrorResponse> handleResponseStatusException(
+            ResponseStatusException ex,
+            ServerWebExchange exchange) {
+
+        HttpStatusCode status = ex.getStatusCode();
+        HttpStatus httpStatus = HttpStatus.resolve(status.value());
+        log.warn("Request failed with {}: {}", status, ex.getReason());
+        return error(status, httpStatus != null ? httpStatus.getReasonPhrase() : status.toString(),
+                ex.getReason(), exchange);
+    }
+
+    /**
+     * Handle general runtime exceptions
+     */
+    @ExceptionHandler(RuntimeException.class)
+    public ResponseEntity<ErrorResponse> handleRuntimeException(
+            RuntimeException ex,
+            ServerWebExchange exchange) {
+
+        log.error("Runtime exception occurred", ex);
+        return error(HttpStatus.INTERNAL_SERVER_ERROR, "Internal Server Error", ex.getMessage(), exchange);
+    }
+
+    /**
+     * Handle all other exceptions
+     */
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<ErrorResponse> handleGenericException(
+            Exception ex,
+            ServerWebExchange exchange) {
+
+        log.error("Unexpected error occurred", ex);
+        return error(HttpStatus.INTERNAL_SERVER_ERROR, "Internal Server Error",
+                "An unexpected error occurred", exchange);
+    }
+
+    private static ResponseEntity<ErrorResponse> error(HttpStatusCode status, String error, String message,
+                                                       ServerWebExchange exchange) {
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .message(message)
+                .error(error)
+                .status(status.value())
+                .timestamp(LocalDateTime.now())
+                .path(exchange.getRequest().getPath().value())
+                .build();
+
+        return ResponseEntity.status(status).body(errorResponse);
+    }
+}
@@ -0,0 +1,147 @@
+package com.urlshortener.reactive.hitcount;
+
+import com.urlshortener.config.HitCountProperties;
+import com.urlshortener.hitcount.PendingHits;
+import com.urlshortener.reactive.repository.UrlR2dbcRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Write-behind hit counter of the reactive variant
+ *
+ * Works like the servlet application's HitCountAggregator and shares its
+ * PendingHits: record() only increments a striped counter, and flush() writes
+ * all deltas with one statement batch every urlshortener.hits.flush-interval
+ * (or early once urlshortener.hits.max-pending-codes codes are pending), then
+ * drops idle codes without losing hits that race with it. The flush is a
+ * Mono on a Reactor timer instead of a task on a scheduler thread, and
+ * at most one flush runs at a time.
+ */
+@Component
+@Slf4j
+public class ReactiveHitCounter {
+
+    // Longest wait for the last flush when the application stops
+    private static final Duration SHUTDOWN_FLUSH_TIMEOUT = Duration.ofSeconds(10);
+
+    private final UrlR2dbcRepository urlRepository;
+    private final Duration flushInterval;
+    private final int maxPendingCodes;
+
+    private final ConcurrentHashMap<String, PendingHits> pendingByShortCode = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushing = new AtomicBoolean();
+    private Disposable scheduledFlush;
+
+    public ReactiveHitCounter(UrlR2dbcRepository urlRepository, HitCountProperties properties) {
+        this.urlRepository = urlRepository;
+        this.flushInterval = properties.getFlushInterval();
+        this.maxPendingCodes = properties.getMaxPendingCodes();
+    }
+
+    /**
+     * Start the periodic flush
+     */
+    @PostConstruct
+    public void start() {
+        scheduledFlush = Flux.interval(flushInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> flush())
+                .subscribe();
+    }
+
+    /**
+     * Count one hit for a short code
+     */
+    public void record(String shortCode) {
+        while (true) {
+            PendingHits pendingHits = pendingByShortCode.get(shortCode);
+            if (pendingHits == null) {
+                pendingHits = pendingByShortCode.computeIfAbsent(shortCode, code -> new PendingHits());
+                if (pendingByShortCode.size() >= maxPendingCodes) {
+                    flush().subscribe();
+                }
+            }
+            if (pendingHits.increment()) {
+                return;
+            }
+            // Retired by a flush between get() and the increment: it is out of the map, count the hit anew
+        }
+    }
+
+    /**
+     * Hits recorded for a short code that are not yet in the database
+     */
+    public long pendingHits(String shortCode) {
+        PendingHits pendingHits = pendingByShortCode.get(shortCode);
+        return pendingHits == null ? 0 : pendingHits.pending();
+    }
+
+    /**
+     * Write all pending hits to the database
+     * Completes right away if another flush is still running (the next one picks the hits up)
+     */
+    public Mono<Void> flush() {
+        return Mono.defer(() -> {
+            if (!flushing.compareAndSet(false, true)) {
+                return Mono.empty();
+            }
+
+            Map<String, Long> deltas = new HashMap<>();
+            List<PendingHits> flushedEntries = new ArrayList<>();
+
+            pendingByShortCode.forEach((shortCode, pendingHits) -> {
+                if (pendingHits.retireIfIdle()) {
+                    // Idle since the last flush: drop it (hits from now on go to a new entry)
+                    pendingByShortCode.remove(shortCode, pendingHits);
+                    pendingHits.retired();
+                    return;
+                }
+                long delta = pendingHits.prepareFlush();
+                if (delta > 0) {
+                    deltas.put(shortCode, delta);
+                    flushedEntries.add(pendingHits);
+                }
+            });
+
+            if (deltas.isEmpty()) {
+                flushing.set(false);
+                return Mono.empty();
+            }
+
+            return urlRepository.addHitCounts(deltas)
+                    .doOnSuccess(done -> {
+                        // Only mark hits as flushed once they are committed, so a failed flush is retried
+                        flushedEntries.forEach(PendingHits::confirmFlush);
+                        log.debug("Flushed hit counts for {} short codes", deltas.size());
+                    })
+                    .onErrorResume(e -> {
+                        log.error("Failed to flush hit counts, will retry on next flush", e);
+                        return Mono.empty();
+                    })
+                    .doFinally(signal -> flushing.set(false));
+        });
+    }
+
+    /**
+     * Drain pending hits before the application stops
+     */
+    @PreDestroy
+    public void shutdown() {
+        log.info("Flushing pending hit counts before shutdown");
+        scheduledFlush.dispose();
+        flush().block(SHUTDOWN_FLUSH_TIMEOUT);
+    }
+}
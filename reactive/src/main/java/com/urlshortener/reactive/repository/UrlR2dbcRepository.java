@@ -0,0 +1,105 @@
+package com.urlshortener.reactive.repository;
+
+import com.urlshortener.dto.RedirectTarget;
+import com.urlshortener.dto.UrlSummary;
+import com.urlshortener.entity.RedirectType;
+import io.r2dbc.spi.Readable;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Non-blocking access to the urls table
+ *
+ * Plain SQL through Spring's DatabaseClient: every method returns at once, and
+ * the result is emitted when the database answers. The queries are the ones
+ * the JPA repository runs, so they use the same indexes (see db/migration).
+ */
+@Repository
+public class UrlR2dbcRepository {
+
+    private final DatabaseClient databaseClient;
+
+    public UrlR2dbcRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * Where a short code redirects to (read from the covering index ix_urls_redirect_target)
+     */
+    public Mono<RedirectTarget> findRedirectTarget(String shortCode) {
+        return databaseClient.sql("SELECT original_url, expires_at, redirect_type FROM urls WHERE short_code = :shortCode")
+                .bind("shortCode", shortCode)
+                .map(row -> new RedirectTarget(
+                        row.get("original_url", String.class),
+                        row.get("expires_at", LocalDateTime.class),
+                        redirectType(row)))
+                .one();
+    }
+
+    /**
+     * Everything about a short code, for the info endpoint
+     */
+    public Mono<UrlSummary> findSummary(String shortCode) {
+        return databaseClient.sql("SELECT short_code, original_url, created_at, hit_count, expires_at, redirect_type "
+                        + "FROM urls WHERE short_code = :shortCode")
+                .bind("shortCode", shortCode)
+                .map(row -> new UrlSummary(
+                        row.get("short_code", String.class),
+                        row.get("original_url", String.class),
+                        row.get("created_at", LocalDateTime.class),
+                        row.get("hit_count", Long.class),
+                        row.get("expires_at", LocalDateTime.class),
+                        redirectType(row)))
+                .one();
+    }
+
+    /**
+     * Insert a new URL with its ID from urls_seq
+     * Fails with DuplicateKeyException if the short code is taken
+     */
+    public Mono<UrlSummary> insert(String shortCode, String originalUrl, LocalDateTime createdAt,
+                                   LocalDateTime expiresAt, RedirectType redirectType) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(
+                        "INSERT INTO urls (id, original_url, short_code, created_at, hit_count, expires_at, redirect_type) "
+                                + "VALUES (NEXT VALUE FOR urls_seq, :originalUrl, :shortCode, :createdAt, 0, :expiresAt, :redirectType)")
+                .bind("originalUrl", originalUrl)
+                .bind("shortCode", shortCode)
+                .bind("createdAt", createdAt);
+        spec = expiresAt != null ? spec.bind("expiresAt", expiresAt) : spec.bindNull("expiresAt", LocalDateTime.class);
+        spec = redirectType != null ? spec.bind("redirectType", redirectType.name()) : spec.bindNull("redirectType", String.class);
+
+        return spec.then()
+                .thenReturn(new UrlSummary(shortCode, originalUrl, createdAt, 0L, expiresAt, redirectType));
+    }
+
+    /**
+     * Add hit count deltas, one UPDATE per short code, sent as a single statement batch
+     */
+    public Mono<Void> addHitCounts(Map<String, Long> deltas) {
+        return databaseClient.inConnectionMany(connection -> {
+            Statement statement = connection.createStatement(
+                    "UPDATE urls SET hit_count = hit_count + $1 WHERE short_code = $2");
+            boolean first = true;
+            for (Map.Entry<String, Long> delta : deltas.entrySet()) {
+                if (!first) {
+                    statement.add();
+                }
+                statement.bind(0, delta.getValue()).bind(1, delta.getKey());
+                first = false;
+            }
+            return Flux.from(statement.execute()).flatMap(Result::getRowsUpdated);
+        }).then();
+    }
+
+    private static RedirectType redirectType(Readable row) {
+        String redirectType = row.get("redirect_type", String.class);
+        return redirectType == null ? null : RedirectType.valueOf(redirectType);
+    }
+}
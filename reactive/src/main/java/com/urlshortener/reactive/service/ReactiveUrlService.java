@@ -0,0 +1,50 @@
+package com.urlshortener.reactive.service;
+
+import com.urlshortener.dto.RedirectResult;
+import com.urlshortener.dto.ShortenOptions;
+import com.urlshortener.dto.ShortenOutcome;
+import com.urlshortener.dto.UrlSummary;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Non-blocking counterpart of UrlService
+ *
+ * Same operations and results, but every method returns a Mono that completes
+ * when the database has answered, instead of waiting for it on the calling
+ * thread. Errors (e.g. UrlNotFoundException) are signalled through the Mono.
+ */
+public interface ReactiveUrlService {
+
+    /**
+     * Shorten a long URL with its own expiry and/or redirect type
+     * @param originalUrl The original URL to shorten
+     * @param options Expiry and redirect type (null fields: the configured defaults)
+     * @return A summary of the created URL with its short code
+     */
+    Mono<UrlSummary> shortenUrl(String originalUrl, ShortenOptions options);
+
+    /**
+     * Shorten many URLs at once, each with its own options
+     * @param originalUrls The original URLs to shorten (already validated)
+     * @param options One set of options per URL, in the same order
+     * @return One outcome per URL, in the same order
+     */
+    Mono<List<ShortenOutcome>> shortenUrls(List<String> originalUrls, List<ShortenOptions> options);
+
+    /**
+     * Get URL information without incrementing hit count
+     * @param shortCode The short code
+     * @return A read-only summary of the URL (including hits not yet written to the database),
+     *         or UrlNotFoundException
+     */
+    Mono<UrlSummary> getUrlInfo(String shortCode);
+
+    /**
+     * Resolve a short code for a redirect and count the hit
+     * @param shortCode The short code
+     * @return FOUND with the original URL and redirect type, EXPIRED, or NOT_FOUND
+     */
+    Mono<RedirectResult> redirectUrl(String shortCode);
+}
@@ -0,0 +1,149 @@
+package com.urlshortener.reactive.service.impl;
+
+import com.urlshortener.config.ExpiryProperties;
+import com.urlshortener.config.ShortCodeProperties;
+import com.urlshortener.dto.RedirectResult;
+import com.urlshortener.dto.RedirectTarget;
+import com.urlshortener.dto.ShortenOptions;
+import com.urlshortener.dto.ShortenOutcome;
+import com.urlshortener.dto.UrlSummary;
+import com.urlshortener.entity.Url;
+import com.urlshortener.exception.UrlNotFoundException;
+import com.urlshortener.reactive.cache.ReactiveShortCodeCache;
+import com.urlshortener.reactive.hitcount.ReactiveHitCounter;
+import com.urlshortener.reactive.repository.UrlR2dbcRepository;
+import com.urlshortener.reactive.service.ReactiveUrlService;
+import com.urlshortener.util.Base62;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+/**
+ * ReactiveUrlService on R2DBC
+ *
+ * Differences to the servlet UrlServiceImpl:
+ * - Random short codes are inserted right away and regenerated if the insert
+ *   hits the unique index, instead of checking each candidate first: one
+ *   round trip per URL instead of two
+ * - Bulk requests insert up to BULK_CONCURRENCY URLs at a time (the R2DBC pool
+ *   bounds it too) rather than in JDBC batches
+ * - No deduplication, click analytics or Bloom filter (see README)
+ */
+@Service
+@Slf4j
+public class ReactiveUrlServiceImpl implements ReactiveUrlService {
+
+    private static final int MAX_ATTEMPTS = 10;
+    private static final int BULK_CONCURRENCY = 16;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final UrlR2dbcRepository urlRepository;
+    private final ReactiveShortCodeCache shortCodeCache;
+    private final ReactiveHitCounter hitCounter;
+    private final ExpiryProperties expiryProperties;
+    private final int shortCodeLength;
+
+    public ReactiveUrlServiceImpl(UrlR2dbcRepository urlRepository,
+                                  ReactiveShortCodeCache shortCodeCache,
+                                  ReactiveHitCounter hitCounter,
+                                  ExpiryProperties expiryProperties,
+                                  ShortCodeProperties shortCodeProperties) {
+        this.urlRepository = urlRepository;
+        this.shortCodeCache = shortCodeCache;
+        this.hitCounter = hitCounter;
+        this.expiryProperties = expiryProperties;
+        this.shortCodeLength = shortCodeProperties.getLength();
+    }
+
+    @Override
+    public Mono<UrlSummary> shortenUrl(String originalUrl, ShortenOptions options) {
+        ShortenOptions resolved = withDefaultTtl(options);
+        LocalDateTime createdAt = LocalDateTime.now();
+
+        // Mono.defer: every retry draws a new code
+        return Mono.defer(() -> urlRepository.insert(generateShortCode(), originalUrl, createdAt,
+                        resolved.expiresAt(), resolved.redirectType()))
+                .retryWhen(Retry.max(MAX_ATTEMPTS - 1)
+                        .filter(DuplicateKeyException.class::isInstance)
+                        .onRetryExhaustedThrow((spec, signal) ->
+                                new RuntimeException("Unable to generate unique short code")))
+                .doOnNext(url -> {
+                    shortCodeCache.put(url.shortCode(),
+                            new RedirectTarget(url.originalUrl(), url.expiresAt(), url.redirectType()));
+                    log.debug("Created short code {} for {}", url.shortCode(), originalUrl);
+                });
+    }
+
+    @Override
+    public Mono<List<ShortenOutcome>> shortenUrls(List<String> originalUrls, List<ShortenOptions> options) {
+        return Flux.fromStream(IntStream.range(0, originalUrls.size()).boxed())
+                .flatMapSequential(i -> shortenUrl(originalUrls.get(i), options.get(i))
+                        .map(ShortenOutcome::success)
+                        .onErrorResume(e -> {
+                            log.warn("Failed to shorten {}: {}", originalUrls.get(i), e.getMessage());
+                            return Mono.just(ShortenOutcome.failure("Unable to shorten URL"));
+                        }), BULK_CONCURRENCY)
+                .collectList();
+    }
+
+    @Override
+    public Mono<UrlSummary> getUrlInfo(String shortCode) {
+        return urlRepository.findSummary(shortCode)
+                .switchIfEmpty(Mono.error(() -> new UrlNotFoundException("URL not found for short code: " + shortCode)))
+                .map(url -> {
+                    long pending = hitCounter.pendingHits(shortCode);
+                    return pending == 0 ? url : url.withHitCount(url.hitCount() + pending);
+                });
+    }
+
+    @Override
+    public Mono<RedirectResult> redirectUrl(String shortCode) {
+        if (!Base62.isValid(shortCode, Url.MAX_SHORT_CODE_LENGTH)) {
+            // Can't have been issued (wrong length or characters): no cache entry, no query
+            return Mono.just(RedirectResult.NOT_FOUND);
+        }
+        return shortCodeCache.get(shortCode, code -> urlRepository.findRedirectTarget(code)
+                        .map(Optional::of)
+                        .defaultIfEmpty(Optional.empty()))
+                .map(target -> {
+                    if (target.isEmpty()) {
+                        return RedirectResult.NOT_FOUND;
+                    }
+                    if (target.get().isExpired(System.currentTimeMillis())) {
+                        return RedirectResult.EXPIRED;
+                    }
+                    hitCounter.record(shortCode);
+                    return RedirectResult.found(target.get());
+                });
+    }
+
+    /**
+     * Options with urlshortener.expiry.default-ttl applied, if the request set no expiry
+     */
+    private ShortenOptions withDefaultTtl(ShortenOptions options) {
+        if (options.expiresAt() != null || expiryProperties.getDefaultTtl().isZero()) {
+            return options;
+        }
+        return options.withExpiresAt(LocalDateTime.now().plus(expiryProperties.getDefaultTtl()));
+    }
+
+    /**
+     * Generate a random string of the configured length
+     */
+    private String generateShortCode() {
+        StringBuilder sb = new StringBuilder(shortCodeLength);
+        for (int i = 0; i < shortCodeLength; i++) {
+            sb.append(Base62.ALPHABET.charAt(RANDOM.nextInt(Base62.BASE)));
+        }
+        return sb.toString();
+    }
+}
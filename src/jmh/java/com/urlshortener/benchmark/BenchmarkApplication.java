@@ -0,0 +1,96 @@
+package com.urlshortener.benchmark;
+
+import com.urlshortener.UrlShortenerApplication;
+import com.urlshortener.dto.ShortenOutcome;
+import com.urlshortener.service.UrlService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Helpers for benchmarks that need the real application (services, JPA, embedded H2)
+ */
+final class BenchmarkApplication {
+
+    // URLs per bulk call when seeding the table
+    private static final int SEED_BATCH_SIZE = 10_000;
+
+    private BenchmarkApplication() {
+        throw new AssertionError("BenchmarkApplication class should not be instantiated");
+    }
+
+    /**
+     * Start the application without the web server and with quiet logging
+     * @param properties Extra "key=value" properties for this benchmark
+     */
+    static ConfigurableApplicationContext start(String... properties) {
+        // Passed as command line arguments so they override application.properties
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN",
+                "--logging.level.com.urlshortener=WARN",
+                "--spring.jpa.show-sql=false",
+                "--spring.h2.console.enabled=false",
+                "--urlshortener.bulk.max-items=" + SEED_BATCH_SIZE));
+        for (String property : properties) {
+            args.add("--" + property);
+        }
+        
+        return new SpringApplicationBuilder(UrlShortenerApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(new String[0]));
+    }
+
+    /**
+     * Start the application with the web server on a random free port
+     * 
+     * Unlike start(), logging is left as configured, so benchmarks can
+     * measure its cost; pass logging.* properties to change it.
+     * @param properties Extra "key=value" properties for this benchmark
+     */
+    static ConfigurableApplicationContext startWebServer(String... properties) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.main.banner-mode=off",
+                "--server.port=0",
+                "--spring.h2.console.enabled=false",
+                "--urlshortener.bulk.max-items=" + SEED_BATCH_SIZE));
+        for (String property : properties) {
+            args.add("--" + property);
+        }
+        
+        return new SpringApplicationBuilder(UrlShortenerApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .run(args.toArray(new String[0]));
+    }
+
+    /**
+     * Fill the table with the given number of URLs
+     * @return The short codes that were created
+     */
+    static String[] seed(UrlService urlService, int count) {
+        return seed(urlService, count, i -> "https://example.com/benchmark/" + i);
+    }
+
+    /**
+     * Fill the table with the given number of URLs
+     * @param urlOf The URL of the i-th row
+     * @return The short codes that were created
+     */
+    static String[] seed(UrlService urlService, int count, IntFunction<String> urlOf) {
+        List<String> shortCodes = new ArrayList<>(count);
+        for (int created = 0; created < count; created += SEED_BATCH_SIZE) {
+            List<String> urls = new ArrayList<>(SEED_BATCH_SIZE);
+            for (int i = created; i < Math.min(count, created + SEED_BATCH_SIZE); i++) {
+                urls.add(urlOf.apply(i));
+            }
+            for (ShortenOutcome outcome : urlService.shortenUrls(urls)) {
+                shortCodes.add(outcome.url().shortCode());
+            }
+        }
+        return shortCodes.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,230 @@
+package com.urlshortener.benchmark;
+
+import com.urlshortener.service.UrlService;
+import com.urlshortener.util.UrlHasher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Cold start and redirect latency of the prod profile (file-backed H2) with a large urls table
+ *
+ * The database is filled once with plain SQL (target/benchmark-db/rows-N) and
+ * reused by later runs, since writing 50 million rows takes a while.
+ *
+ * - coldStart: a new JVM (one per fork) starts the application on the existing
+ *   database, until it is ready to serve requests
+ * - redirectUrl: redirects of random existing codes with the cache disabled,
+ *   so every lookup is an indexed query against the file
+ *
+ * Quick run: -Djmh.args="FileDatabaseBenchmark -p rows=1000000"
+ */
+public class FileDatabaseBenchmark {
+
+    // Rows per INSERT ... SELECT statement (each one is its own transaction)
+    private static final int FILL_CHUNK = 1_000_000;
+
+    // Random existing codes to pick from in redirectUrl
+    private static final int SAMPLE_SIZE = 1 << 16;
+
+    private static final String COMPLETE_MARKER = "complete";
+
+    // Secondary index definitions in the output of H2's SCRIPT command
+    private static final Pattern CREATE_INDEX = Pattern.compile("^CREATE .*?INDEX (\\S+) ON ");
+
+    /**
+     * The database on disk, filled on first use
+     */
+    @State(Scope.Benchmark)
+    public static class Database {
+
+        @Param({"50000000"})
+        public int rows;
+
+        // The Bloom filter reads every short code at startup
+        @Param({"false"})
+        public boolean bloomFilter;
+
+        Path directory;
+
+        @Setup(Level.Trial)
+        public void create() throws IOException {
+            directory = Paths.get("target", "benchmark-db", "rows-" + rows).toAbsolutePath();
+            if (Files.exists(directory.resolve(COMPLETE_MARKER))) {
+                return;
+            }
+            deleteRecursively(directory);
+            Files.createDirectories(directory);
+            fill();
+            Files.createFile(directory.resolve(COMPLETE_MARKER));
+        }
+
+        ConfigurableApplicationContext startApplication(String... extraProperties) {
+            String[] properties = {
+                    "spring.profiles.active=prod",
+                    // Same settings as application-prod.properties, in the benchmark directory
+                    "spring.datasource.url=jdbc:h2:file:" + directory.resolve("urlshortener")
+                            + ";DB_CLOSE_ON_EXIT=FALSE;CACHE_SIZE=262144",
+                    "urlshortener.bloom-filter.enabled=" + bloomFilter,
+                    "urlshortener.bloom-filter.expected-insertions=" + rows};
+            String[] all = new String[properties.length + extraProperties.length];
+            System.arraycopy(properties, 0, all, 0, properties.length);
+            System.arraycopy(extraProperties, 0, all, properties.length, extraProperties.length);
+            return BenchmarkApplication.start(all);
+        }
+
+        /**
+         * Create the schema (Flyway) and write the rows with INSERT ... SELECT
+         * The secondary indexes are dropped while filling and built afterwards,
+         * which is several times faster than updating them row by row.
+         */
+        private void fill() {
+            long start = System.nanoTime();
+            try (ConfigurableApplicationContext context = startApplication()) {
+                JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+                List<String> createIndexes = new ArrayList<>();
+                for (String statement : jdbcTemplate.queryForList("SCRIPT NODATA TABLE urls", String.class)) {
+                    Matcher matcher = CREATE_INDEX.matcher(statement);
+                    if (matcher.find()) {
+                        createIndexes.add(statement);
+                        jdbcTemplate.execute("DROP INDEX " + matcher.group(1));
+                    }
+                }
+
+                for (long from = 1; from <= rows; from += FILL_CHUNK) {
+                    long to = Math.min(rows, from + FILL_CHUNK - 1);
+                    // Same codes as shortCodeOfRow(): first 8 bytes of SHA-256(row number), in hex
+                    jdbcTemplate.update("INSERT INTO urls (id, original_url, short_code, created_at, hit_count) "
+                            + "SELECT X, 'https://example.com/benchmark/' || X, "
+                            + "LEFT(RAWTOHEX(HASH('SHA-256', CAST(X AS VARCHAR))), 16), "
+                            + "DATEADD(SECOND, X, TIMESTAMP '2020-01-01 00:00:00'), 0 "
+                            + "FROM SYSTEM_RANGE(?, ?)", from, to);
+                    System.out.printf("Filled %,d of %,d rows (%d s)%n",
+                            to, rows, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start));
+                }
+                for (String createIndex : createIndexes) {
+                    jdbcTemplate.execute(createIndex);
+                    System.out.printf("Created index (%d s): %s%n",
+                            TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start), createIndex);
+                }
+                // New URLs get IDs after the generated ones
+                jdbcTemplate.execute("ALTER SEQUENCE urls_seq RESTART WITH " + (rows + 1));
+                jdbcTemplate.execute("ANALYZE");
+            }
+        }
+    }
+
+    /**
+     * An application started once per trial, for latency measurements
+     */
+    @State(Scope.Benchmark)
+    public static class RunningApplication {
+
+        ConfigurableApplicationContext context;
+        UrlService urlService;
+        String[] shortCodes;
+
+        @Setup(Level.Trial)
+        public void start(Database database) {
+            context = database.startApplication("urlshortener.cache.enabled=false");
+            urlService = context.getBean(UrlService.class);
+
+            shortCodes = new String[SAMPLE_SIZE];
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < shortCodes.length; i++) {
+                shortCodes[i] = shortCodeOfRow(random.nextLong(1, database.rows + 1L));
+            }
+            if (urlService.redirectUrl(shortCodes[0]).isEmpty()) {
+                throw new IllegalStateException("Generated short codes don't match the database");
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            context.close();
+        }
+    }
+
+    /**
+     * Holds the context started by coldStart, so it can be closed outside the measurement
+     */
+    @State(Scope.Thread)
+    public static class StartedApplication {
+
+        ConfigurableApplicationContext context;
+
+        @TearDown(Level.Iteration)
+        public void stop() {
+            if (context != null) {
+                context.close();
+                context = null;
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(5)
+    public ConfigurableApplicationContext coldStart(Database database, StartedApplication started) {
+        started.context = database.startApplication();
+        return started.context;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 5)
+    @Measurement(iterations = 5, time = 5)
+    @Fork(1)
+    public Optional<String> redirectUrl(RunningApplication application) {
+        String[] shortCodes = application.shortCodes;
+        return application.urlService.redirectUrl(shortCodes[ThreadLocalRandom.current().nextInt(shortCodes.length)]);
+    }
+
+    /**
+     * Short code of a generated row, as computed by the fill SQL
+     */
+    static String shortCodeOfRow(long row) {
+        byte[] hash = UrlHasher.hash(Long.toString(row));
+        return HexFormat.of().formatHex(hash, 0, 8);
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.urlshortener.benchmark;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+/**
+ * One HTTP client per benchmark thread, so threads don't share a connection pool
+ *
+ * Redirects are not followed: the benchmarks measure the 3xx response itself.
+ */
+@State(Scope.Thread)
+public class HttpClientState {
+
+    private HttpClient httpClient;
+
+    @Setup
+    public void setUp() {
+        httpClient = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
+
+    /**
+     * Send a GET request and return the status code (the body is discarded)
+     */
+    int get(String url) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).GET().build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
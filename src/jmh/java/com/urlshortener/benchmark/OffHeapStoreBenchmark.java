@@ -0,0 +1,100 @@
+package com.urlshortener.benchmark;
+
+import com.urlshortener.dto.RedirectResult;
+import com.urlshortener.offheap.OffHeapRedirectStore;
+import com.urlshortener.service.UrlService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redirect lookups over the whole table: JPA vs the short code cache vs the off-heap store
+ *
+ * path picks what answers redirectUrl:
+ * - "jpa": cache disabled, every lookup is a query (embedded H2)
+ * - "cache": the on-heap short code cache, large enough for every code and warmed up
+ * - "offheap": the off-heap store (urlshortener.offheap.enabled)
+ *
+ * Setup also prints the memory the redirect data takes per link: the heap
+ * the cache grows by while it is filled, and the direct memory the off-heap
+ * store uses (its slabs are allocated in larger steps). URLs are spread over 1000
+ * hosts with paths of about 40 characters, like typical links.
+ * Run with -t N to measure N concurrent callers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class OffHeapStoreBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int tableSize;
+
+    @Param({"jpa", "cache", "offheap"})
+    public String path;
+
+    private ConfigurableApplicationContext context;
+    private UrlService urlService;
+    private String[] shortCodes;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start(
+                "urlshortener.cache.enabled=" + !path.equals("jpa"),
+                "urlshortener.cache.max-size=" + tableSize,
+                "urlshortener.offheap.enabled=" + path.equals("offheap"),
+                "urlshortener.offheap.expected-entries=" + tableSize,
+                "urlshortener.heavy-hitters.enabled=false",
+                // Sequence codes need no existence check, which keeps seeding fast
+                "urlshortener.short-code.strategy=sequence");
+        urlService = context.getBean(UrlService.class);
+
+        shortCodes = BenchmarkApplication.seed(urlService, tableSize,
+                i -> "https://www.host" + (i % 1000) + ".example/articles/2024/" + i + "/a-typical-article-slug");
+
+        // Every code once, so the cache is full and everything is JIT-compiled
+        long heapBefore = usedHeap();
+        for (String shortCode : shortCodes) {
+            urlService.redirectUrl(shortCode);
+        }
+        long heapAfter = usedHeap();
+
+        OffHeapRedirectStore store = context.getBean(OffHeapRedirectStore.class);
+        System.out.printf("%n%s, %d links: heap grew by %d bytes per link, off-heap store uses %d bytes per link%n",
+                path, tableSize, (heapAfter - heapBefore) / tableSize,
+                store.size() == 0 ? 0 : store.usedBytes() / store.size());
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public RedirectResult redirectUrl() {
+        return urlService.redirectUrl(shortCodes[ThreadLocalRandom.current().nextInt(shortCodes.length)], null, null);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
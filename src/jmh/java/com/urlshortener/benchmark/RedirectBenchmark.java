@@ -0,0 +1,112 @@
+package com.urlshortener.benchmark;
+
+import com.urlshortener.dto.UrlSummary;
+import com.urlshortener.service.UrlService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Redirect and info lookups against tableSize stored URLs
+ *
+ * storageEngine picks where they are stored: "jpa" (embedded H2 table) or
+ * "log" (embedded log engine in a temporary directory).
+ * cacheEnabled=false measures the storage path (every lookup reaches the engine).
+ * redirectUnknownUrl measures the not-found path (codes that were never issued).
+ * Run with -t N to measure N concurrent callers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RedirectBenchmark {
+
+    @Param({"10000", "100000"})
+    public int tableSize;
+
+    @Param({"true", "false"})
+    public boolean cacheEnabled;
+
+    @Param({"jpa", "log"})
+    public String storageEngine;
+
+    private ConfigurableApplicationContext context;
+    private UrlService urlService;
+    private String[] shortCodes;
+    private String[] unknownShortCodes;
+    private Path storageDirectory;
+
+    @Setup
+    public void setUp() throws IOException {
+        storageDirectory = Files.createTempDirectory("redirect-benchmark");
+        context = BenchmarkApplication.start(
+                "urlshortener.storage.engine=" + storageEngine,
+                "urlshortener.storage.log.directory=" + storageDirectory,
+                "urlshortener.cache.enabled=" + cacheEnabled,
+                "urlshortener.cache.max-size=" + tableSize,
+                // Sequence codes need no existence check, which keeps seeding fast
+                "urlshortener.short-code.strategy=sequence");
+        urlService = context.getBean(UrlService.class);
+        shortCodes = BenchmarkApplication.seed(urlService, tableSize);
+        
+        // One character longer than any issued code, so none of them exist
+        unknownShortCodes = new String[shortCodes.length];
+        for (int i = 0; i < shortCodes.length; i++) {
+            unknownShortCodes[i] = shortCodes[i] + "Z";
+        }
+        
+        // Touch every code once, so the cache (if enabled) starts out warm
+        // and the database path is JIT-compiled before warmup iterations begin
+        for (String shortCode : shortCodes) {
+            urlService.redirectUrl(shortCode);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+        try (Stream<Path> files = Files.walk(storageDirectory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public Optional<String> redirectUrl() {
+        return urlService.redirectUrl(randomShortCode());
+    }
+
+    @Benchmark
+    public Optional<String> redirectUnknownUrl() {
+        return urlService.redirectUrl(unknownShortCodes[ThreadLocalRandom.current().nextInt(unknownShortCodes.length)]);
+    }
+
+    @Benchmark
+    public UrlSummary getUrlInfo() {
+        return urlService.getUrlInfo(randomShortCode());
+    }
+
+    private String randomShortCode() {
+        return shortCodes[ThreadLocalRandom.current().nextInt(shortCodes.length)];
+    }
+}
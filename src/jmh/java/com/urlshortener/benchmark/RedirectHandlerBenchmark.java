@@ -0,0 +1,118 @@
+package com.urlshortener.benchmark;
+
+import com.urlshortener.controller.FastRedirectFilter;
+import com.urlshortener.service.UrlService;
+import jakarta.servlet.Filter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.DispatcherServlet;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redirects through RedirectController (Spring MVC) vs FastRedirectFilter
+ *
+ * fastPath picks the handler (urlshortener.redirect.fast-path).
+ * - http: a real request through the embedded server, as a client sees it
+ * - inProcess: the handler alone, called with mock request and response
+ *   objects; the DispatcherServlet for fastPath=false, the filter for
+ *   fastPath=true. Leaves out the network and Tomcat, so the difference
+ *   between the two handlers is easier to see.
+ *
+ * Logging is off and every code is cached, so both measure the handler, not the lookup.
+ * Run with -t N to measure N concurrent clients.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RedirectHandlerBenchmark {
+
+    private static final int TABLE_SIZE = 10_000;
+
+    @Param({"false", "true"})
+    public boolean fastPath;
+
+    private ConfigurableApplicationContext context;
+    private String baseUrl;
+    private String[] shortCodes;
+    private DispatcherServlet dispatcherServlet;
+    private Filter fastRedirectFilter;
+
+    @Setup
+    public void setUp() throws Exception {
+        context = BenchmarkApplication.startWebServer(
+                "logging.level.root=WARN",
+                "logging.level.com.urlshortener=WARN",
+                "spring.jpa.show-sql=false",
+                "urlshortener.logging.access-log=false",
+                "urlshortener.redirect.fast-path=" + fastPath);
+        baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort() + "/";
+        UrlService urlService = context.getBean(UrlService.class);
+        shortCodes = BenchmarkApplication.seed(urlService, TABLE_SIZE);
+        for (String shortCode : shortCodes) {
+            urlService.redirectUrl(shortCode);
+        }
+
+        // One real request, so the server initializes its DispatcherServlet
+        HttpClientState client = new HttpClientState();
+        client.setUp();
+        client.get(baseUrl + shortCodes[0]);
+
+        dispatcherServlet = context.getBean(DispatcherServlet.class);
+        if (fastPath) {
+            fastRedirectFilter = context.getBeansOfType(FilterRegistrationBean.class).values().stream()
+                    .map(FilterRegistrationBean::getFilter)
+                    .filter(FastRedirectFilter.class::isInstance)
+                    .findFirst()
+                    .orElseThrow();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int http(HttpClientState client) throws IOException, InterruptedException {
+        return client.get(baseUrl + randomShortCode());
+    }
+
+    @Benchmark
+    public int inProcess() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/" + randomShortCode());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        if (fastPath) {
+            fastRedirectFilter.doFilter(request, response, (req, res) -> {
+                throw new IllegalStateException("Not handled by the fast path: " + request.getRequestURI());
+            });
+        } else {
+            dispatcherServlet.service(request, response);
+        }
+        return response.getStatus();
+    }
+
+    private String randomShortCode() {
+        return shortCodes[ThreadLocalRandom.current().nextInt(shortCodes.length)];
+    }
+}
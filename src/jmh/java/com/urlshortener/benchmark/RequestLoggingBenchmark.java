@@ -0,0 +1,87 @@
+package com.urlshortener.benchmark;
+
+import com.urlshortener.service.UrlService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP redirects through the embedded web server with different logging setups
+ *
+ * logging picks the setup:
+ * - "off": WARN only, no access log (the floor)
+ * - "debug": DEBUG application logging, SQL logging and an access-log record
+ *   for every request, all written synchronously (the old development setup)
+ * - "async": the async-logging profile used in prod (sampled access log,
+ *   no SQL logging, bounded asynchronous appender)
+ *
+ * Log output goes to the console of the forked JVM, which JMH forwards.
+ * Run with -t N to measure N concurrent clients.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestLoggingBenchmark {
+
+    private static final int TABLE_SIZE = 10_000;
+
+    @Param({"off", "debug", "async"})
+    public String logging;
+
+    private ConfigurableApplicationContext context;
+    private String baseUrl;
+    private String[] shortCodes;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.startWebServer(loggingProperties(logging));
+        baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort() + "/";
+        shortCodes = BenchmarkApplication.seed(context.getBean(UrlService.class), TABLE_SIZE);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int redirect(HttpClientState client) throws IOException, InterruptedException {
+        return client.get(baseUrl + shortCodes[ThreadLocalRandom.current().nextInt(shortCodes.length)]);
+    }
+
+    private static String[] loggingProperties(String logging) {
+        return switch (logging) {
+            case "off" -> new String[] {
+                    "logging.level.root=WARN",
+                    "logging.level.com.urlshortener=WARN",
+                    "spring.jpa.show-sql=false",
+                    "urlshortener.logging.access-log=false"};
+            case "debug" -> new String[] {
+                    "logging.level.com.urlshortener=DEBUG",
+                    "spring.jpa.show-sql=true",
+                    "spring.jpa.properties.hibernate.format_sql=true",
+                    "urlshortener.logging.access-log-sample-rate=1.0"};
+            case "async" -> new String[] {
+                    "spring.profiles.active=async-logging"};
+            default -> throw new IllegalArgumentException("Unknown logging setup: " + logging);
+        };
+    }
+}
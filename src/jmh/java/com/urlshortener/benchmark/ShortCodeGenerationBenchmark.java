@@ -0,0 +1,60 @@
+package com.urlshortener.benchmark;
+
+import com.urlshortener.service.ShortCodeGenerator;
+import com.urlshortener.service.UrlService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Short code generation for each ShortCodeGenerator strategy
+ *
+ * "random" includes its database existence check per candidate, so its cost
+ * depends on tableSize; "sequence" only touches the database once per block.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShortCodeGenerationBenchmark {
+
+    @Param({"random", "sequence"})
+    public String strategy;
+
+    @Param({"0", "100000"})
+    public int tableSize;
+
+    private ConfigurableApplicationContext context;
+    private ShortCodeGenerator shortCodeGenerator;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start("urlshortener.short-code.strategy=" + strategy);
+        BenchmarkApplication.seed(context.getBean(UrlService.class), tableSize);
+        shortCodeGenerator = context.getBean(ShortCodeGenerator.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String generate() {
+        return shortCodeGenerator.generate();
+    }
+}
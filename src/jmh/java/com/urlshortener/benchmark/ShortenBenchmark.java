@@ -0,0 +1,81 @@
+package com.urlshortener.benchmark;
+
+import com.urlshortener.dto.ShortenOutcome;
+import com.urlshortener.dto.UrlSummary;
+import com.urlshortener.service.UrlService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shortening throughput (URLs per millisecond), single and bulk
+ *
+ * The table keeps growing during the run, starting from tableSize rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShortenBenchmark {
+
+    private static final int BULK_SIZE = 100;
+
+    @Param({"random", "sequence"})
+    public String strategy;
+
+    @Param({"10000"})
+    public int tableSize;
+
+    private final AtomicLong counter = new AtomicLong();
+    private ConfigurableApplicationContext context;
+    private UrlService urlService;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start("urlshortener.short-code.strategy=" + strategy);
+        urlService = context.getBean(UrlService.class);
+        BenchmarkApplication.seed(urlService, tableSize);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public UrlSummary shortenUrl() {
+        return urlService.shortenUrl(nextUrl());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BULK_SIZE)
+    public List<ShortenOutcome> shortenUrlsBulk() {
+        List<String> urls = new ArrayList<>(BULK_SIZE);
+        for (int i = 0; i < BULK_SIZE; i++) {
+            urls.add(nextUrl());
+        }
+        return urlService.shortenUrls(urls);
+    }
+
+    private String nextUrl() {
+        return "https://example.com/shorten-benchmark/" + counter.incrementAndGet();
+    }
+}
@@ -2,6 +2,7 @@ package com.urlshortener;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 /**
  * Main Spring Boot Application Class
@@ -10,8 +11,11 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  * - @Configuration: Tags the class as a source of bean definitions
  * - @EnableAutoConfiguration: Tells Spring Boot to auto-configure based on dependencies
  * - @ComponentScan: Tells Spring to scan for components in this package and sub-packages
+ * 
+ * @ConfigurationPropertiesScan picks up our @ConfigurationProperties classes (see the config package)
  */
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class UrlShortenerApplication {
 
     public static void main(String[] args) {
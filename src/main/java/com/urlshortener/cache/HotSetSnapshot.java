@@ -0,0 +1,178 @@
+package com.urlshortener.cache;
+
+import com.urlshortener.dto.RedirectTarget;
+import com.urlshortener.entity.RedirectType;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary snapshot file of the hottest short codes and their redirect targets
+ *
+ * File layout:
+ * [32-byte header][count * 4-byte record offsets][records]
+ *
+ * Header: [int magic][int version][long createdAtMillis][int count][12 bytes unused]
+ * Record: [byte code length][code (ASCII)][long expiresAtMillis]
+ *         [byte redirect type ordinal, -1 for the default][int URL length][URL (UTF-8)]
+ *
+ * The offsets table lets a reader jump to any record, so several threads can
+ * decode different ranges of one memory-mapped file at the same time.
+ * Records are in rank order, hottest first.
+ *
+ * A snapshot is written to a temporary file that then replaces the old one,
+ * so a reader never sees a half-written file. A MappedByteBuffer is limited to
+ * 2 GB, which is far more than a hot set needs.
+ */
+final class HotSetSnapshot {
+
+    private static final int MAGIC = 0x55524C48; // "URLH"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+
+    // Header fields
+    private static final int MAGIC_AT = 0;
+    private static final int VERSION_AT = 4;
+    private static final int CREATED_AT = 8;
+    private static final int COUNT_AT = 16;
+
+    /**
+     * Receives the records of a snapshot
+     */
+    @FunctionalInterface
+    interface RecordConsumer {
+        void accept(String shortCode, RedirectTarget target);
+    }
+
+    private final ByteBuffer buffer;
+    private final long createdAtMillis;
+    private final int count;
+
+    private HotSetSnapshot(ByteBuffer buffer, long createdAtMillis, int count) {
+        this.buffer = buffer;
+        this.createdAtMillis = createdAtMillis;
+        this.count = count;
+    }
+
+    /**
+     * Write the entries (in iteration order) to a snapshot file, replacing any existing one
+     */
+    static void write(Path path, Map<String, RedirectTarget> entries, long createdAtMillis) throws IOException {
+        List<byte[]> codes = new ArrayList<>(entries.size());
+        List<byte[]> urls = new ArrayList<>(entries.size());
+        List<RedirectTarget> targets = new ArrayList<>(entries.size());
+        entries.forEach((shortCode, target) -> {
+            codes.add(shortCode.getBytes(StandardCharsets.US_ASCII));
+            urls.add(target.originalUrl().getBytes(StandardCharsets.UTF_8));
+            targets.add(target);
+        });
+
+        int count = codes.size();
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(createdAtMillis);
+                out.writeInt(count);
+                out.write(new byte[HEADER_SIZE - COUNT_AT - 4]);
+
+                long offset = HEADER_SIZE + 4L * count;
+                for (int i = 0; i < count; i++) {
+                    out.writeInt(Math.toIntExact(offset));
+                    offset += recordSize(codes.get(i), urls.get(i));
+                }
+
+                for (int i = 0; i < count; i++) {
+                    RedirectType redirectType = targets.get(i).redirectType();
+                    out.writeByte(codes.get(i).length);
+                    out.write(codes.get(i));
+                    out.writeLong(targets.get(i).expiresAtMillis());
+                    out.writeByte(redirectType == null ? -1 : redirectType.ordinal());
+                    out.writeInt(urls.get(i).length);
+                    out.write(urls.get(i));
+                }
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Map a snapshot file into memory and check its header
+     * Records are only decoded by read()
+     */
+    static HotSetSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE || fileSize > Integer.MAX_VALUE) {
+                throw new IOException("Not a hot-set snapshot: " + path);
+            }
+            // The mapping stays valid after the channel is closed
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            int count = buffer.getInt(COUNT_AT);
+            if (buffer.getInt(MAGIC_AT) != MAGIC
+                    || buffer.getInt(VERSION_AT) != VERSION
+                    || count < 0
+                    || HEADER_SIZE + 4L * count > fileSize) {
+                throw new IOException("Not a hot-set snapshot (or an unsupported version): " + path);
+            }
+            return new HotSetSnapshot(buffer, buffer.getLong(CREATED_AT), count);
+        }
+    }
+
+    long createdAtMillis() {
+        return createdAtMillis;
+    }
+
+    int size() {
+        return count;
+    }
+
+    /**
+     * Decode the records from index from (inclusive) to index to (exclusive)
+     *
+     * Only uses absolute reads on its own view of the buffer, so threads can
+     * read different ranges concurrently. A damaged file ends in a
+     * RuntimeException (usually IndexOutOfBoundsException).
+     */
+    void read(int from, int to, RecordConsumer consumer) {
+        ByteBuffer view = buffer.duplicate();
+        RedirectType[] redirectTypes = RedirectType.values();
+        for (int i = from; i < to; i++) {
+            int at = view.getInt(HEADER_SIZE + 4 * i);
+
+            byte[] code = new byte[view.get(at) & 0xFF];
+            view.get(at + 1, code);
+            at += 1 + code.length;
+
+            long expiresAtMillis = view.getLong(at);
+            byte redirectType = view.get(at + 8);
+            byte[] url = new byte[view.getInt(at + 9)];
+            view.get(at + 13, url);
+
+            consumer.accept(new String(code, StandardCharsets.US_ASCII), new RedirectTarget(
+                    new String(url, StandardCharsets.UTF_8),
+                    expiresAtMillis,
+                    redirectType < 0 ? null : redirectTypes[redirectType]));
+        }
+    }
+
+    private static int recordSize(byte[] code, byte[] url) {
+        return 1 + code.length + 8 + 1 + 4 + url.length;
+    }
+}
@@ -0,0 +1,170 @@
+package com.urlshortener.cache;
+
+import com.urlshortener.config.HotSetProperties;
+import com.urlshortener.dto.RedirectTarget;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Warms the short code cache after a restart from a snapshot of the hot set
+ *
+ * Without it, every redirect after a deploy misses the cache and goes to the
+ * database until the popular codes are cached again, which shows as a p99 spike.
+ * - Every urlshortener.hot-set.snapshot-interval (and on shutdown) the hottest
+ *   cached codes are written to a snapshot file (see HotSetSnapshot), ranked by
+ *   how often they were used recently (ShortCodeCache.hottest())
+ * - At startup the last snapshot is memory-mapped and loaded into the cache
+ *   by several threads. This runs as an ApplicationRunner, so the readiness
+ *   probe (/actuator/health/readiness) only reports UP once it is done.
+ *
+ * Short codes don't change once they are issued, so a snapshot can only be
+ * wrong about URLs that expired or were deleted since it was written. Expired
+ * ones are skipped, and a snapshot older than urlshortener.hot-set.max-age is
+ * ignored altogether. A missing or damaged snapshot just means a cold start.
+ */
+@Component
+@Slf4j
+public class HotSetWarmer implements ApplicationRunner {
+
+    private final ShortCodeCache shortCodeCache;
+    private final TaskScheduler taskScheduler;
+    private final HotSetProperties properties;
+    private final Path file;
+
+    private ScheduledFuture<?> scheduledSnapshot;
+
+    public HotSetWarmer(ShortCodeCache shortCodeCache,
+                        TaskScheduler taskScheduler,
+                        HotSetProperties properties) {
+        this.shortCodeCache = shortCodeCache;
+        this.taskScheduler = taskScheduler;
+        this.properties = properties;
+        this.file = Path.of(properties.getFile());
+    }
+
+    /**
+     * Load the last snapshot, then start writing new ones
+     * (not before, so a failed start can't replace a good snapshot with an empty one)
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        load();
+        scheduledSnapshot = taskScheduler.scheduleWithFixedDelay(this::snapshot, properties.getSnapshotInterval());
+    }
+
+    /**
+     * Write the current hot set to the snapshot file
+     * Keeps the previous snapshot when nothing is cached
+     */
+    public void snapshot() {
+        try {
+            long start = System.nanoTime();
+            Map<String, RedirectTarget> hottest = shortCodeCache.hottest(properties.getSize());
+            if (hottest.isEmpty()) {
+                return;
+            }
+            HotSetSnapshot.write(file, hottest, System.currentTimeMillis());
+            log.debug("Wrote hot-set snapshot of {} short codes in {} ms",
+                    hottest.size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to write hot-set snapshot to {}", file, e);
+        }
+    }
+
+    /**
+     * Write a last snapshot before the application stops
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (scheduledSnapshot != null) {
+            scheduledSnapshot.cancel(false);
+            snapshot();
+        }
+    }
+
+    private void load() {
+        long start = System.nanoTime();
+        HotSetSnapshot snapshot;
+        try {
+            snapshot = HotSetSnapshot.open(file);
+        } catch (NoSuchFileException e) {
+            log.info("No hot-set snapshot at {}, starting with a cold cache", file);
+            return;
+        } catch (IOException e) {
+            log.warn("Can't read hot-set snapshot {}, starting with a cold cache", file, e);
+            return;
+        }
+
+        Duration age = Duration.ofMillis(System.currentTimeMillis() - snapshot.createdAtMillis());
+        if (age.compareTo(properties.getMaxAge()) > 0) {
+            log.info("Hot-set snapshot {} is {} old, ignoring it", file, age);
+            return;
+        }
+
+        int count = snapshot.size();
+        int threads = Math.max(1, Math.min(loadThreads(), count));
+        int chunk = (count + threads - 1) / threads;
+        long nowMillis = System.currentTimeMillis();
+        AtomicInteger loaded = new AtomicInteger();
+
+        List<Callable<Void>> tasks = new ArrayList<>(threads);
+        for (int from = 0; from < count; from += chunk) {
+            int rangeStart = from;
+            int rangeEnd = Math.min(count, from + chunk);
+            tasks.add(() -> {
+                snapshot.read(rangeStart, rangeEnd, (shortCode, target) -> {
+                    if (!target.isExpired(nowMillis)) {
+                        shortCodeCache.put(shortCode, target);
+                        loaded.incrementAndGet();
+                    }
+                });
+                return null;
+            });
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads,
+                runnable -> new Thread(runnable, "hot-set-loader-" + threadNumber.incrementAndGet()));
+        try {
+            for (Future<Void> result : executor.invokeAll(tasks)) {
+                result.get();
+            }
+            log.info("Warmed short code cache with {} of {} hot codes from {} ({} old) in {} ms using {} threads",
+                    loaded.get(), count, file, age, (System.nanoTime() - start) / 1_000_000, threads);
+        } catch (ExecutionException e) {
+            log.warn("Hot-set snapshot {} is damaged, loaded {} codes before the error", file, loaded.get(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private int loadThreads() {
+        return properties.getLoadThreads() > 0
+                ? properties.getLoadThreads()
+                : Runtime.getRuntime().availableProcessors();
+    }
+}
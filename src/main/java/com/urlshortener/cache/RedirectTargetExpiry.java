@@ -0,0 +1,54 @@
+package com.urlshortener.cache;
+
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.urlshortener.dto.RedirectTarget;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caffeine expiry policy of cached redirect targets
+ *
+ * - Found entries live for the TTL, but never past the URL's own expiry
+ * - Not-found entries (Optional.empty()) and already expired URLs live for the negative TTL
+ * - Reads don't extend an entry's lifetime
+ *
+ * Shared by ShortCodeCache and the cache of the reactive variant (see reactive/).
+ */
+public final class RedirectTargetExpiry implements Expiry<String, Optional<RedirectTarget>> {
+
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+
+    public RedirectTargetExpiry(long ttlNanos, long negativeTtlNanos) {
+        this.ttlNanos = ttlNanos;
+        this.negativeTtlNanos = negativeTtlNanos;
+    }
+
+    @Override
+    public long expireAfterCreate(String key, Optional<RedirectTarget> value, long currentTime) {
+        if (value.isEmpty()) {
+            return negativeTtlNanos;
+        }
+        long expiresAtMillis = value.get().expiresAtMillis();
+        if (expiresAtMillis == RedirectTarget.NEVER) {
+            return ttlNanos;
+        }
+        long untilExpiryMillis = expiresAtMillis - System.currentTimeMillis();
+        return untilExpiryMillis > 0
+                ? Math.min(ttlNanos, TimeUnit.MILLISECONDS.toNanos(untilExpiryMillis))
+                : negativeTtlNanos;
+    }
+
+    @Override
+    public long expireAfterUpdate(String key, Optional<RedirectTarget> value,
+                                  long currentTime, long currentDuration) {
+        return expireAfterCreate(key, value, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(String key, Optional<RedirectTarget> value,
+                                long currentTime, long currentDuration) {
+        return currentDuration;
+    }
+}
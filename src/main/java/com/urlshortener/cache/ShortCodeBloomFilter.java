@@ -0,0 +1,134 @@
+package com.urlshortener.cache;
+
+import com.urlshortener.config.BloomFilterProperties;
+import com.urlshortener.storage.UrlStorageEngine;
+import com.urlshortener.util.StringHash;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter of all issued short codes
+ *
+ * Lets the redirect path reject codes that were never issued (scanners,
+ * typos, bots guessing codes) without touching the cache or the database:
+ * - mightContain() == false: the code definitely doesn't exist
+ * - mightContain() == true: the code probably exists, look it up as usual
+ *
+ * The filter is filled from the database at startup and every new short code
+ * is added before its row is written, so it never reports an existing code
+ * as missing. Until the startup load is done every code counts as "might exist".
+ *
+ * Bits live in an AtomicLongArray, so adds and lookups are lock-free and
+ * allocate nothing. Codes are never removed; a code that is gone only costs
+ * a normal lookup.
+ */
+@Component
+@Slf4j
+public class ShortCodeBloomFilter implements ApplicationRunner {
+
+    private final UrlStorageEngine storageEngine;
+    private final boolean enabled;
+    private final long expectedInsertions;
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private final AtomicLong insertions = new AtomicLong();
+    private volatile boolean loaded;
+
+    public ShortCodeBloomFilter(UrlStorageEngine storageEngine, BloomFilterProperties properties) {
+        this.storageEngine = storageEngine;
+        this.enabled = properties.isEnabled();
+        this.expectedInsertions = Math.max(1, properties.getExpectedInsertions());
+
+        if (enabled) {
+            // Standard sizing: m = -n ln(p) / ln(2)^2 bits, k = m/n ln(2) hash functions
+            double p = properties.getFalsePositiveProbability();
+            long words = (long) Math.ceil(-expectedInsertions * Math.log(p) / (Math.log(2) * Math.log(2)) / Long.SIZE);
+            this.bits = new AtomicLongArray(Math.toIntExact(Math.max(1, words)));
+            this.bitCount = (long) bits.length() * Long.SIZE;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+        } else {
+            this.bits = null;
+            this.bitCount = 0;
+            this.hashCount = 0;
+        }
+    }
+
+    /**
+     * Load all existing short codes (streamed, so memory use doesn't depend on the table size)
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            log.info("Short code Bloom filter disabled");
+            return;
+        }
+
+        long start = System.nanoTime();
+        storageEngine.forEachShortCode(this::add);
+        long count = insertions.get();
+        loaded = true;
+
+        log.info("Short code Bloom filter loaded {} codes in {} ms ({} KB, {} hash functions)",
+                count, (System.nanoTime() - start) / 1_000_000, bitCount / 8 / 1024, hashCount);
+    }
+
+    /**
+     * Record an issued short code
+     * Call this before the code is stored, so lookups never miss it
+     */
+    public void add(String shortCode) {
+        if (!enabled) {
+            return;
+        }
+
+        long hash1 = StringHash.hash64(shortCode);
+        long hash2 = Long.rotateLeft(hash1, 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+            setBit(bit);
+        }
+
+        if (insertions.incrementAndGet() == expectedInsertions + 1) {
+            log.warn("More than {} short codes in the Bloom filter, its false positive rate is rising; "
+                    + "increase urlshortener.bloom-filter.expected-insertions", expectedInsertions);
+        }
+    }
+
+    /**
+     * False only if the short code was definitely never issued
+     */
+    public boolean mightContain(String shortCode) {
+        if (!enabled || !loaded) {
+            return true;
+        }
+
+        long hash1 = StringHash.hash64(shortCode);
+        long hash2 = Long.rotateLeft(hash1, 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void setBit(long bit) {
+        int index = (int) (bit >>> 6);
+        long mask = 1L << bit;
+        long word;
+        do {
+            word = bits.get(index);
+            if ((word & mask) != 0) {
+                return;
+            }
+        } while (!bits.compareAndSet(index, word, word | mask));
+    }
+}
@@ -0,0 +1,162 @@
+package com.urlshortener.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.urlshortener.dto.RedirectTarget;
+import com.urlshortener.config.ShortCodeCacheProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache of short code -> redirect target (original URL and expiry)
+ *
+ * Sits in front of the repository on the redirect path so that hot codes
+ * are resolved from memory without a JPA query or transaction.
+ *
+ * - Size-based eviction (Caffeine's W-TinyLFU keeps the hottest codes)
+ * - TTL-based eviction, with a separate shorter TTL for not-found entries
+ * - Negative caching: unknown codes are stored as Optional.empty() so that
+ *   repeated lookups of missing codes don't hit the database either
+ * - URLs with an expiry leave the cache when they expire; expired URLs are
+ *   cached for the not-found TTL (the reaper deletes them soon after),
+ *   see RedirectTargetExpiry
+ * - Hits, misses and evictions are published as cache.* metrics (cache="shortCodes")
+ * - Hot codes can be pinned (see pin()): they are answered from a separate
+ *   map that eviction never touches
+ */
+@Component
+@Slf4j
+public class ShortCodeCache {
+
+    private final Cache<String, Optional<RedirectTarget>> cache;
+
+    // Pinned codes, looked up before the cache; values are Optional so a hit allocates nothing
+    private final ConcurrentHashMap<String, Optional<RedirectTarget>> pinned = new ConcurrentHashMap<>();
+    // The codes last passed to pin(), hottest first (the map above has no order)
+    private volatile List<String> pinnedOrder = List.of();
+
+    public ShortCodeCache(ShortCodeCacheProperties properties, MeterRegistry meterRegistry) {
+        if (properties.isEnabled()) {
+            this.cache = Caffeine.newBuilder()
+                    .maximumSize(properties.getMaxSize())
+                    .expireAfter(new RedirectTargetExpiry(
+                            properties.getTtl().toNanos(), properties.getNegativeTtl().toNanos()))
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, "shortCodes");
+            meterRegistry.gaugeMapSize("urlshortener.cache.pinned", Tags.empty(), pinned);
+            log.info("Short code cache enabled (maxSize={}, ttl={}, negativeTtl={})",
+                    properties.getMaxSize(), properties.getTtl(), properties.getNegativeTtl());
+        } else {
+            this.cache = null;
+            log.info("Short code cache disabled");
+        }
+    }
+
+    /**
+     * Get the redirect target for a short code, loading it on a miss
+     *
+     * The loader is only called on a cache miss and its result (including
+     * Optional.empty() for unknown codes) is cached.
+     * Concurrent misses for the same code result in a single load.
+     * Pinned codes are answered without touching the cache (or its statistics).
+     */
+    public Optional<RedirectTarget> get(String shortCode, Function<String, Optional<RedirectTarget>> loader) {
+        if (cache == null) {
+            return loader.apply(shortCode);
+        }
+        Optional<RedirectTarget> pinnedTarget = pinned.get(shortCode);
+        if (pinnedTarget != null) {
+            return pinnedTarget;
+        }
+        return cache.get(shortCode, loader);
+    }
+
+    /**
+     * Store a freshly created mapping
+     * Also replaces any not-found entry a client may have caused before the code existed
+     */
+    public void put(String shortCode, RedirectTarget target) {
+        if (cache != null) {
+            cache.put(shortCode, Optional.of(target));
+            pinned.computeIfPresent(shortCode, (code, current) -> Optional.of(target));
+        }
+    }
+
+    /**
+     * The most frequently used cached short codes that resolve to a URL, hottest first
+     *
+     * Pinned codes come first, in the order they were pinned. The rest are ranked by Caffeine's frequency
+     * sketch, which counts recent accesses and halves all counts periodically,
+     * so codes that were popular long ago drop out.
+     * Not-found entries are skipped. Empty when the cache is disabled.
+     */
+    public Map<String, RedirectTarget> hottest(int limit) {
+        Map<String, RedirectTarget> hottest = new LinkedHashMap<>();
+        if (cache == null) {
+            return hottest;
+        }
+        for (String shortCode : pinnedOrder) {
+            if (hottest.size() >= limit) {
+                return hottest;
+            }
+            Optional<RedirectTarget> target = pinned.get(shortCode);
+            if (target != null) {
+                target.ifPresent(value -> hottest.put(shortCode, value));
+            }
+        }
+        cache.policy().eviction().ifPresent(eviction -> eviction.hottest(limit).forEach((shortCode, target) -> {
+            if (hottest.size() < limit) {
+                target.ifPresent(value -> hottest.putIfAbsent(shortCode, value));
+            }
+        }));
+        return hottest;
+    }
+
+    /**
+     * Pin exactly these short codes (replacing the previous set), e.g. the heavy hitters
+     * The order is kept for hottest(), so pass the hottest codes first.
+     *
+     * A code is only pinned while the cache holds a target for it; the value is
+     * copied from there. Pinned lookups don't refresh the cache entry, so it
+     * expires after the TTL as usual and the code is unpinned at the next call.
+     * The next lookup loads it again, and the call after that pins it again,
+     * so a pinned target is never older than the TTL plus the pin interval.
+     */
+    public void pin(List<String> shortCodes) {
+        if (cache == null) {
+            return;
+        }
+        pinned.keySet().retainAll(new HashSet<>(shortCodes));
+        pinnedOrder = List.copyOf(shortCodes);
+        for (String shortCode : shortCodes) {
+            Optional<RedirectTarget> target = cache.policy().getIfPresentQuietly(shortCode);
+            if (target != null && target.isPresent()) {
+                pinned.put(shortCode, target);
+            } else {
+                pinned.remove(shortCode);
+            }
+        }
+    }
+
+    /**
+     * Drop a short code from the cache
+     */
+    public void invalidate(String shortCode) {
+        if (cache != null) {
+            pinned.remove(shortCode);
+            cache.invalidate(shortCode);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.urlshortener.clicks;
+
+import com.urlshortener.config.ClickProperties;
+import com.urlshortener.entity.ClickBucket;
+import com.urlshortener.entity.ClickBucketId;
+import com.urlshortener.entity.ReferrerBucket;
+import com.urlshortener.entity.ReferrerBucketId;
+import com.urlshortener.metrics.UrlMetrics;
+import com.urlshortener.repository.ClickBucketRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Click analytics pipeline
+ *
+ * Producer side (request threads): publish() puts a click into the
+ * ClickEventBuffer and returns right away. A full buffer drops the click
+ * and counts it (urlshortener.clicks.dropped), so redirects never wait.
+ *
+ * Consumer side (one scheduled task at a time):
+ * - every urlshortener.clicks.drain-interval the buffer is emptied into
+ *   per-minute and per-hour buckets (and per-hour referrer counts) in memory
+ * - every urlshortener.clicks.flush-interval those buckets are added to the
+ *   database with batched JDBC and minute buckets past their retention are deleted
+ * - pending clicks are drained and written when the application shuts down
+ *
+ * If a write fails the buckets are kept and retried on the next flush.
+ * Clicks still in memory when the process dies without a clean shutdown are lost.
+ */
+@Component
+@Slf4j
+public class ClickAggregator {
+
+    // Upper bound for one drain, so a full buffer can't stall the scheduler thread
+    private static final int MAX_DRAIN_PER_RUN = 1 << 20;
+
+    private final ClickEventBuffer buffer;
+    private final ClickBucketRepository clickBucketRepository;
+    private final TaskScheduler taskScheduler;
+    private final UrlMetrics urlMetrics;
+    private final ClickProperties properties;
+
+    // Only touched by the consumer, under consumerLock
+    private final Map<ClickBucketId, ClickBucket> pendingBuckets = new HashMap<>();
+    private final Map<ReferrerBucketId, ReferrerBucket> pendingReferrers = new HashMap<>();
+    private final Map<String, Set<String>> referrerHostsByCode = new HashMap<>();
+    private final ReentrantLock consumerLock = new ReentrantLock();
+    private long lastFlushNanos = System.nanoTime();
+    private LocalDateTime lastCleanupHour;
+
+    private ScheduledFuture<?> scheduledDrain;
+
+    public ClickAggregator(ClickEventBuffer buffer,
+                           ClickBucketRepository clickBucketRepository,
+                           TaskScheduler taskScheduler,
+                           UrlMetrics urlMetrics,
+                           ClickProperties properties) {
+        this.buffer = buffer;
+        this.clickBucketRepository = clickBucketRepository;
+        this.taskScheduler = taskScheduler;
+        this.urlMetrics = urlMetrics;
+        this.properties = properties;
+    }
+
+    /**
+     * Start the consumer on Spring's task scheduler
+     */
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            log.info("Click analytics disabled");
+            return;
+        }
+        scheduledDrain = taskScheduler.scheduleWithFixedDelay(this::drainAndMaybeFlush, properties.getDrainInterval());
+        log.info("Click analytics enabled (buffer capacity {})", buffer.capacity());
+    }
+
+    /**
+     * Publish a click (called on the redirect path)
+     * Never blocks; the click is dropped if the buffer is full
+     */
+    public void publish(String shortCode, String referrer, String userAgent) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        if (!buffer.offer(shortCode, System.currentTimeMillis(), referrer, userAgent)) {
+            urlMetrics.recordClickDropped();
+        }
+    }
+
+    /**
+     * Drain the buffer into memory, and write to the database once per flush interval
+     */
+    void drainAndMaybeFlush() {
+        consumerLock.lock();
+        try {
+            drain();
+            if (System.nanoTime() - lastFlushNanos >= properties.getFlushInterval().toNanos()) {
+                flush();
+            }
+        } catch (RuntimeException e) {
+            log.error("Click consumer failed, will retry", e);
+        } finally {
+            consumerLock.unlock();
+        }
+    }
+
+    /**
+     * Drain everything and write it to the database now
+     */
+    public void flushNow() {
+        consumerLock.lock();
+        try {
+            drain();
+            flush();
+        } finally {
+            consumerLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduledDrain == null) {
+            return;
+        }
+        log.info("Writing pending click statistics before shutdown");
+        scheduledDrain.cancel(false);
+        try {
+            flushNow();
+        } catch (RuntimeException e) {
+            log.error("Failed to write pending click statistics", e);
+        }
+    }
+
+    private void drain() {
+        // Back-pressure: while the database can't keep up, let the buffer fill and drop
+        if (pendingBuckets.size() >= properties.getMaxPendingBuckets()) {
+            return;
+        }
+        buffer.drain(this::aggregate, MAX_DRAIN_PER_RUN);
+    }
+
+    private void aggregate(String shortCode, long timestampMillis, String referrer, String userAgent) {
+        UserAgentClass userAgentClass = UserAgentClass.of(userAgent);
+        boolean referred = referrer != null && !referrer.isEmpty();
+
+        for (ClickGranularity granularity : ClickGranularity.values()) {
+            ClickBucketId id = new ClickBucketId(shortCode, granularity, granularity.bucketStart(timestampMillis));
+            ClickBucket bucket = pendingBuckets.computeIfAbsent(id, ClickBucket::new);
+            bucket.setClicks(bucket.getClicks() + 1);
+            if (userAgentClass == UserAgentClass.BOT) {
+                bucket.setBotClicks(bucket.getBotClicks() + 1);
+            } else if (userAgentClass == UserAgentClass.MOBILE) {
+                bucket.setMobileClicks(bucket.getMobileClicks() + 1);
+            }
+            if (referred) {
+                bucket.setReferredClicks(bucket.getReferredClicks() + 1);
+            }
+        }
+
+        if (referred) {
+            String host = referrerHost(shortCode, referrer);
+            ReferrerBucketId id = new ReferrerBucketId(shortCode, ClickGranularity.HOUR.bucketStart(timestampMillis), host);
+            ReferrerBucket bucket = pendingReferrers.computeIfAbsent(id, ReferrerBucket::new);
+            bucket.setClicks(bucket.getClicks() + 1);
+        }
+    }
+
+    /**
+     * Host of a Referer header value, limited to maxReferrersPerCode distinct hosts
+     * per short code and flush (anything else is counted as "(other)")
+     */
+    private String referrerHost(String shortCode, String referrer) {
+        String host;
+        try {
+            host = URI.create(referrer).getHost();
+        } catch (IllegalArgumentException e) {
+            host = null;
+        }
+        if (host == null || host.length() > ReferrerBucketId.MAX_HOST_LENGTH) {
+            return ReferrerBucketId.OTHER_HOST;
+        }
+        host = host.toLowerCase(Locale.ROOT);
+
+        // Hosts seen before in this flush are always kept, new ones only while under the limit
+        Set<String> hosts = referrerHostsByCode.computeIfAbsent(shortCode, code -> new HashSet<>());
+        if (hosts.contains(host) || (hosts.size() < properties.getMaxReferrersPerCode() && hosts.add(host))) {
+            return host;
+        }
+        return ReferrerBucketId.OTHER_HOST;
+    }
+
+    private void flush() {
+        lastFlushNanos = System.nanoTime();
+        if (!pendingBuckets.isEmpty() || !pendingReferrers.isEmpty()) {
+            clickBucketRepository.addClicks(pendingBuckets.values(), pendingReferrers.values());
+            log.debug("Wrote {} click buckets and {} referrer buckets",
+                    pendingBuckets.size(), pendingReferrers.size());
+
+            // Only forget the counts once they are committed, so a failed write is retried
+            pendingBuckets.clear();
+            pendingReferrers.clear();
+            referrerHostsByCode.clear();
+        }
+        deleteExpiredMinuteBuckets();
+    }
+
+    /**
+     * Delete per-minute buckets older than the retention, at most once an hour
+     */
+    private void deleteExpiredMinuteBuckets() {
+        LocalDateTime hour = lastHour();
+        if (hour.equals(lastCleanupHour)) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now(ZoneOffset.UTC).minus(properties.getMinuteRetention());
+        int deleted = clickBucketRepository.deleteBucketsBefore(ClickGranularity.MINUTE, cutoff);
+        lastCleanupHour = hour;
+        if (deleted > 0) {
+            log.info("Deleted {} per-minute click buckets older than {}", deleted, properties.getMinuteRetention());
+        }
+    }
+
+    private static LocalDateTime lastHour() {
+        return ClickGranularity.HOUR.bucketStart(System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,133 @@
+package com.urlshortener.clicks;
+
+import com.urlshortener.config.ClickProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded, lock-free ring buffer of click events
+ *
+ * Many producers (request threads) and one consumer (ClickAggregator).
+ * Based on Dmitry Vyukov's bounded MPMC queue: every slot has a sequence
+ * number that tells whether it is free for the producer at position p
+ * (sequence == p) or holds the event published at p (sequence == p + 1).
+ *
+ * - offer() claims a slot with one CAS, writes the event fields into
+ *   preallocated arrays and publishes it by advancing the slot's sequence.
+ *   It never blocks: when the buffer is full it returns false right away.
+ * - drain() is single-consumer, so it needs no CAS at all.
+ *
+ * Events are stored field by field (no event object), so publishing
+ * a click allocates nothing. Referrer and User-Agent are stored as the
+ * raw header strings and only parsed on the consumer side.
+ */
+@Component
+public class ClickEventBuffer {
+
+    /**
+     * Receives drained events (called on the consumer thread)
+     */
+    @FunctionalInterface
+    public interface ClickEventHandler {
+        void onClick(String shortCode, long timestampMillis, String referrer, String userAgent);
+    }
+
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final String[] shortCodes;
+    private final long[] timestamps;
+    private final String[] referrers;
+    private final String[] userAgents;
+
+    // Next position to publish to (shared by producers)
+    private final AtomicLong tail = new AtomicLong();
+    // Next position to consume (consumer only)
+    private long head;
+
+    public ClickEventBuffer(ClickProperties properties) {
+        int capacity = Integer.highestOneBit(Math.max(2, properties.getBufferSize()) * 2 - 1);
+        this.mask = capacity - 1;
+        this.sequences = new AtomicLongArray(capacity);
+        this.shortCodes = new String[capacity];
+        this.timestamps = new long[capacity];
+        this.referrers = new String[capacity];
+        this.userAgents = new String[capacity];
+
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Publish a click event
+     * @return false if the buffer is full (the event is not stored)
+     */
+    public boolean offer(String shortCode, long timestampMillis, String referrer, String userAgent) {
+        long position = tail.get();
+        int index;
+        while (true) {
+            index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                // The slot still holds an event from one lap ago: full
+                return false;
+            } else {
+                // Another producer took this position, retry with the current tail
+                position = tail.get();
+            }
+        }
+
+        shortCodes[index] = shortCode;
+        timestamps[index] = timestampMillis;
+        referrers[index] = referrer;
+        userAgents[index] = userAgent;
+        // Volatile write: the fields above are visible to the consumer once it sees this
+        sequences.set(index, position + 1);
+        return true;
+    }
+
+    /**
+     * Hand up to maxEvents published events to the handler, oldest first
+     * Must only be called from one thread at a time
+     * @return The number of events drained
+     */
+    public int drain(ClickEventHandler handler, int maxEvents) {
+        int drained = 0;
+        while (drained < maxEvents) {
+            int index = (int) head & mask;
+            if (sequences.get(index) != head + 1) {
+                // Not published yet (empty, or a producer is still writing it)
+                break;
+            }
+
+            handler.onClick(shortCodes[index], timestamps[index], referrers[index], userAgents[index]);
+
+            // Release references and hand the slot back to producers for the next lap
+            shortCodes[index] = null;
+            referrers[index] = null;
+            userAgents[index] = null;
+            sequences.set(index, head + mask + 1);
+            head++;
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * Approximate number of events waiting to be drained
+     */
+    public int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
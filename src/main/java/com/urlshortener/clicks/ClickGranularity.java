@@ -0,0 +1,31 @@
+package com.urlshortener.clicks;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Size of a click statistics bucket
+ */
+public enum ClickGranularity {
+
+    MINUTE(60),
+    HOUR(3600);
+
+    private final long seconds;
+
+    ClickGranularity(long seconds) {
+        this.seconds = seconds;
+    }
+
+    public long getSeconds() {
+        return seconds;
+    }
+
+    /**
+     * Start (UTC) of the bucket that contains the given time
+     */
+    public LocalDateTime bucketStart(long epochMillis) {
+        long epochSecond = Math.floorDiv(epochMillis, 1000);
+        return LocalDateTime.ofEpochSecond(epochSecond - Math.floorMod(epochSecond, seconds), 0, ZoneOffset.UTC);
+    }
+}
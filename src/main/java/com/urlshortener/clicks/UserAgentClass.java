@@ -0,0 +1,50 @@
+package com.urlshortener.clicks;
+
+import java.util.Locale;
+
+/**
+ * Coarse class of the client that followed a short link
+ *
+ * Only the class is kept, never the User-Agent string itself.
+ */
+public enum UserAgentClass {
+
+    BROWSER,
+    MOBILE,
+    BOT,
+    OTHER;
+
+    // Substrings (lower case) that identify crawlers, monitors and scripted clients
+    private static final String[] BOT_MARKERS = {
+            "bot", "crawl", "spider", "slurp", "preview", "monitor",
+            "curl", "wget", "python", "java/", "okhttp", "go-http-client", "httpclient"
+    };
+
+    private static final String[] MOBILE_MARKERS = {"mobi", "android", "iphone", "ipad"};
+
+    /**
+     * Classify a User-Agent header value (null or blank means OTHER)
+     */
+    public static UserAgentClass of(String userAgent) {
+        if (userAgent == null || userAgent.isBlank()) {
+            return OTHER;
+        }
+        String value = userAgent.toLowerCase(Locale.ROOT);
+        if (containsAny(value, BOT_MARKERS)) {
+            return BOT;
+        }
+        if (containsAny(value, MOBILE_MARKERS)) {
+            return MOBILE;
+        }
+        return value.startsWith("mozilla/") || value.startsWith("opera") ? BROWSER : OTHER;
+    }
+
+    private static boolean containsAny(String value, String[] markers) {
+        for (String marker : markers) {
+            if (value.contains(marker)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
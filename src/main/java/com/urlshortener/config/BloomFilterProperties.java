@@ -0,0 +1,28 @@
+package com.urlshortener.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration for the Bloom filter of issued short codes
+ *
+ * Bound from the "urlshortener.bloom-filter" prefix, e.g.
+ * urlshortener.bloom-filter.expected-insertions=1000000
+ * urlshortener.bloom-filter.false-positive-probability=0.01
+ */
+@Data
+@ConfigurationProperties(prefix = "urlshortener.bloom-filter")
+public class BloomFilterProperties {
+
+    // Turn the filter off (every unknown code goes to the cache and the database)
+    // The filter only knows codes written through this instance, so turn it off
+    // when several instances share one database
+    private boolean enabled = true;
+
+    // Number of short codes the filter is sized for
+    // More codes still work, but the false positive rate goes up
+    private long expectedInsertions = 1_000_000;
+
+    // Share of unknown codes that still go on to a cache/database lookup
+    private double falsePositiveProbability = 0.01;
+}
@@ -0,0 +1,23 @@
+package com.urlshortener.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration for bulk operations
+ *
+ * Bound from the "urlshortener.bulk" prefix, e.g.
+ * urlshortener.bulk.max-items=10000
+ * urlshortener.bulk.chunk-size=500
+ */
+@Data
+@ConfigurationProperties(prefix = "urlshortener.bulk")
+public class BulkProperties {
+
+    // Maximum number of URLs accepted in one bulk request
+    private int maxItems = 10_000;
+
+    // Number of rows written (and committed) per transaction
+    // Keep it equal to spring.jpa.properties.hibernate.jdbc.batch_size so each chunk is one JDBC batch
+    private int chunkSize = 500;
+}
@@ -0,0 +1,45 @@
+package com.urlshortener.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration for the click analytics pipeline
+ *
+ * Bound from the "urlshortener.clicks" prefix, e.g.
+ * urlshortener.clicks.buffer-size=65536
+ * urlshortener.clicks.flush-interval=5s
+ * urlshortener.clicks.minute-retention=24h
+ */
+@Data
+@ConfigurationProperties(prefix = "urlshortener.clicks")
+public class ClickProperties {
+
+    // Turn click analytics off (redirects then publish no events)
+    private boolean enabled = true;
+
+    // Capacity of the click event ring buffer (rounded up to a power of two)
+    // Events arriving while it is full are dropped and counted
+    private int bufferSize = 65_536;
+
+    // How often the consumer empties the ring buffer into in-memory buckets
+    private Duration drainInterval = Duration.ofMillis(100);
+
+    // How often the in-memory buckets are written to the database
+    private Duration flushInterval = Duration.ofSeconds(5);
+
+    // Stop draining (and let the buffer drop events) when this many buckets
+    // are waiting to be written, e.g. while the database is unavailable
+    private int maxPendingBuckets = 100_000;
+
+    // Distinct referrer hosts kept per short code and flush; the rest count as "other"
+    private int maxReferrersPerCode = 50;
+
+    // How long per-minute buckets are kept (per-hour buckets are kept forever)
+    private Duration minuteRetention = Duration.ofHours(24);
+
+    // Number of statements sent per JDBC batch
+    private int batchSize = 500;
+}
@@ -0,0 +1,19 @@
+package com.urlshortener.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration for deduplication of identical long URLs
+ *
+ * Bound from the "urlshortener.dedupe" prefix, e.g.
+ * urlshortener.dedupe.enabled=true
+ */
+@Data
+@ConfigurationProperties(prefix = "urlshortener.dedupe")
+public class DedupeProperties {
+
+    // Return the existing short code when the same URL is shortened again
+    // Only URLs shortened while this is on are stored with a hash and can be matched
+    private boolean enabled = false;
+}
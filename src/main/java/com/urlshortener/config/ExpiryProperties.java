@@ -0,0 +1,35 @@
+package com.urlshortener.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration for expiring links and the reaper that deletes them
+ *
+ * Bound from the "urlshortener.expiry" prefix, e.g.
+ * urlshortener.expiry.default-ttl=30d
+ * urlshortener.expiry.grace-period=1h
+ * urlshortener.expiry.reap-interval=1m
+ */
+@Data
+@ConfigurationProperties(prefix = "urlshortener.expiry")
+public class ExpiryProperties {
+
+    // Lifetime of URLs created without ttlSeconds or expiresAt (0: they never expire)
+    private Duration defaultTtl = Duration.ZERO;
+
+    // How long an expired URL keeps answering 410 Gone before the reaper deletes it
+    // (after that its code is unknown: 404, and random codes may be issued again)
+    private Duration gracePeriod = Duration.ofHours(1);
+
+    // How often the reaper looks for expired URLs
+    private Duration reapInterval = Duration.ofMinutes(1);
+
+    // URLs deleted per transaction; small batches keep locks and undo logs short
+    private int reapBatchSize = 1_000;
+
+    // Upper bound for one reaper run, so a backlog can't stall the scheduler thread
+    private int maxBatchesPerRun = 100;
+}
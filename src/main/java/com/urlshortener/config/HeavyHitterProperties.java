@@ -0,0 +1,37 @@
+package com.urlshortener.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration for heavy-hitter detection (the short codes redirected most often right now)
+ *
+ * Bound from the "urlshortener.heavy-hitters" prefix, e.g.
+ * urlshortener.heavy-hitters.capacity=1000
+ * urlshortener.heavy-hitters.window=1m
+ * urlshortener.heavy-hitters.windows=5
+ */
+@Data
+@ConfigurationProperties(prefix = "urlshortener.heavy-hitters")
+public class HeavyHitterProperties {
+
+    // Track redirects per short code (the top-N endpoint and cache pinning need it)
+    private boolean enabled = true;
+
+    // Counters per window; codes with more than 1/capacity of a window's redirects are always tracked
+    private int capacity = 1_000;
+
+    // Length of one window
+    private Duration window = Duration.ofMinutes(1);
+
+    // Number of windows kept; the top-N covers the last windows * window (a sliding window)
+    private int windows = 5;
+
+    // Number of top codes pinned in the short code cache (0: no pinning)
+    private int pinTop = 100;
+
+    // How often the pinned codes are updated
+    private Duration pinInterval = Duration.ofSeconds(10);
+}
@@ -0,0 +1,27 @@
+package com.urlshortener.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration for write-behind hit counting
+ *
+ * Bound from the "urlshortener.hits" prefix, e.g.
+ * urlshortener.hits.flush-interval=1s
+ * urlshortener.hits.max-pending-codes=10000
+ */
+@Data
+@ConfigurationProperties(prefix = "urlshortener.hits")
+public class HitCountProperties {
+
+    // How often pending hits are written to the database
+    private Duration flushInterval = Duration.ofSeconds(1);
+
+    // Flush early once this many distinct short codes have pending hits
+    private int maxPendingCodes = 10_000;
+
+    // Number of UPDATE statements sent per JDBC batch
+    private int batchSize = 500;
+}
@@ -0,0 +1,38 @@
+package com.urlshortener.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration for the hot-set snapshot that warms the short code cache after a restart
+ *
+ * Bound from the "urlshortener.hot-set" prefix, e.g.
+ * urlshortener.hot-set.enabled=true
+ * urlshortener.hot-set.file=./data/hot-set.snapshot
+ * urlshortener.hot-set.size=10000
+ */
+@Data
+@ConfigurationProperties(prefix = "urlshortener.hot-set")
+public class HotSetProperties {
+
+    // Write snapshots and load the last one at startup
+    // Off by default: the in-memory database starts empty, so there is nothing to warm
+    private boolean enabled = false;
+
+    // Where the snapshot is written (replaced atomically on every write)
+    private String file = "./data/hot-set.snapshot";
+
+    // Number of short codes in a snapshot (the most frequently used cached codes)
+    private int size = 10_000;
+
+    // How often a snapshot is written; a last one is written on shutdown
+    private Duration snapshotInterval = Duration.ofMinutes(5);
+
+    // Older snapshots are ignored at startup
+    private Duration maxAge = Duration.ofDays(1);
+
+    // Threads that load the snapshot at startup (0: one per CPU)
+    private int loadThreads = 0;
+}
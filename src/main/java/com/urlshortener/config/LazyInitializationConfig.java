@@ -0,0 +1,29 @@
+package com.urlshortener.config;
+
+import com.urlshortener.expiry.ExpiredUrlReaper;
+import com.urlshortener.metrics.UrlMetrics;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Beans that are created at startup even with spring.main.lazy-initialization=true
+ * (fast-start profile)
+ *
+ * - ExpiredUrlReaper: nothing else uses it, so a lazy reaper would never start
+ * - UrlMetrics: every meter is registered at startup, so dashboards see
+ *   them (at zero) before the first request
+ *
+ * Everything else is safe to create on first use: HitCountAggregator and
+ * ClickAggregator start their flushes when the first redirect needs them,
+ * and ShortCodeBloomFilter and HotSetWarmer (ApplicationRunners) are always
+ * run at startup, together with the storage engine and cache they fill.
+ */
+@Configuration
+public class LazyInitializationConfig {
+
+    @Bean
+    static LazyInitializationExcludeFilter eagerBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(ExpiredUrlReaper.class, UrlMetrics.class);
+    }
+}
@@ -0,0 +1,37 @@
+package com.urlshortener.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration for the access log and the asynchronous log appender
+ *
+ * Bound from the "urlshortener.logging" prefix, e.g.
+ * urlshortener.logging.access-log-sample-rate=0.01
+ * urlshortener.logging.async-queue-size=8192
+ */
+@Data
+@ConfigurationProperties(prefix = "urlshortener.logging")
+public class LoggingProperties {
+
+    // Write one access-log record per request (logger com.urlshortener.access, see AccessLogFilter)
+    private boolean accessLog = true;
+
+    // Share of requests that get an access-log record (1.0: all of them, 0.01: one in a hundred)
+    // Failed (5xx) and slow requests are always logged
+    private double accessLogSampleRate = 1.0;
+
+    // Requests that take longer than this are always logged
+    private Duration accessLogSlowThreshold = Duration.ofSeconds(1);
+
+    // The settings below are read by logback-spring.xml (async-logging profile)
+
+    // Capacity of the queue between application threads and the console writer
+    private int asyncQueueSize = 8192;
+
+    // Once fewer than this many slots are free, DEBUG and INFO events are dropped
+    // (WARN and ERROR are kept until the queue is full); -1: a fifth of the queue
+    private int asyncDiscardingThreshold = -1;
+}
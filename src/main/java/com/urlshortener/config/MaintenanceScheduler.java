@@ -0,0 +1,43 @@
+package com.urlshortener.config;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * A separate thread for long-running maintenance jobs
+ *
+ * Log compaction, shard rebalancing and expiry reaping can each take seconds.
+ * On Spring's TaskScheduler they would hold its threads and delay the short,
+ * frequent jobs there (the 100 ms click drain, the hit count flush), whose
+ * buffers then fill up and drop data. So they run here, one at a time.
+ *
+ * Deliberately not a TaskScheduler bean: Spring Boot only auto-configures its
+ * own scheduler (spring.task.scheduling.*, virtual threads) if there is none.
+ */
+@Component
+public class MaintenanceScheduler {
+
+    private final ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+
+    public MaintenanceScheduler() {
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("maintenance-");
+        scheduler.initialize();
+    }
+
+    /**
+     * Run a task repeatedly, with the given delay between the end of one run and the start of the next
+     */
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, Duration delay) {
+        return scheduler.scheduleWithFixedDelay(task, delay);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+    }
+}
@@ -0,0 +1,30 @@
+package com.urlshortener.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration for the off-heap short code -> URL store used by redirects
+ *
+ * Bound from the "urlshortener.offheap" prefix, e.g.
+ * urlshortener.offheap.enabled=true
+ * urlshortener.offheap.expected-entries=100000000
+ */
+@Data
+@ConfigurationProperties(prefix = "urlshortener.offheap")
+public class OffHeapStoreProperties {
+
+    // Keep every mapping in off-heap memory and answer redirects from there
+    // Needs about 80 bytes of direct memory per link (raise -XX:MaxDirectMemorySize)
+    private boolean enabled = false;
+
+    // Number of links the table is sized for at startup (it doubles when it gets full)
+    private long expectedEntries = 1_000_000;
+
+    // Size of one record slab; records never span slabs
+    private int slabBytes = 64 * 1024 * 1024;
+
+    // Distinct schemes and hosts stored once in the prefix dictionary;
+    // URLs of further hosts are stored in full
+    private int maxPrefixes = 1_000_000;
+}
@@ -0,0 +1,44 @@
+package com.urlshortener.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration for rate limiting of the write endpoints (shorten, bulk shorten, import)
+ *
+ * Bound from the "urlshortener.rate-limit" prefix, e.g.
+ * urlshortener.rate-limit.capacity=20
+ * urlshortener.rate-limit.refill-per-second=5
+ * urlshortener.rate-limit.max-concurrent-writes=4
+ */
+@Data
+@ConfigurationProperties(prefix = "urlshortener.rate-limit")
+public class RateLimitProperties {
+
+    // Turn rate limiting off entirely
+    private boolean enabled = true;
+
+    // Token bucket size per client: how many writes a client may send in a burst
+    private int capacity = 20;
+
+    // Tokens added to each client's bucket per second (the sustained write rate)
+    private double refillPerSecond = 5;
+
+    // Tokens taken by one bulk shorten or import request (a single shorten takes one)
+    private int bulkCost = 10;
+
+    // Maximum number of clients with a bucket in memory; the least recently seen are evicted first
+    private long maxClients = 100_000;
+
+    // Buckets of clients that sent nothing for this long are dropped (a new bucket starts full)
+    private Duration clientIdleTimeout = Duration.ofMinutes(10);
+
+    // Write requests running at the same time, over all clients
+    // Kept below the connection pool size, so redirects always find a free connection
+    private int maxConcurrentWrites = 4;
+
+    // Retry-After sent when the global write limit is reached
+    private Duration busyRetryAfter = Duration.ofSeconds(1);
+}
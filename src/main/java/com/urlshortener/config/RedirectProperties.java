@@ -0,0 +1,31 @@
+package com.urlshortener.config;
+
+import com.urlshortener.entity.RedirectType;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration for redirect responses
+ *
+ * Bound from the "urlshortener.redirect" prefix, e.g.
+ * urlshortener.redirect.default-type=FOUND
+ * urlshortener.redirect.permanent-max-age=1d
+ * urlshortener.redirect.fast-path=true
+ */
+@Data
+@ConfigurationProperties(prefix = "urlshortener.redirect")
+public class RedirectProperties {
+
+    // Redirect type of links created without one (see RedirectType)
+    private RedirectType defaultType = RedirectType.FOUND;
+
+    // How long browsers and CDNs may cache a permanent (301/308) redirect
+    // Never longer than the link has left until it expires
+    private Duration permanentMaxAge = Duration.ofDays(1);
+
+    // Answer redirects in a servlet filter ahead of Spring MVC (see FastRedirectFilter)
+    // false: every redirect goes through RedirectController
+    private boolean fastPath = true;
+}
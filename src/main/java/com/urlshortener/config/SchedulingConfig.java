@@ -0,0 +1,16 @@
+package com.urlshortener.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled background jobs (e.g. flushing buffered hit counts)
+ *
+ * Spring Boot auto-configures the TaskScheduler that runs them
+ * (see spring.task.scheduling.* properties). Long-running maintenance jobs
+ * don't use it, they run on the MaintenanceScheduler
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,119 @@
+package com.urlshortener.config;
+
+import com.urlshortener.storage.sharding.ShardRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * DataSource for the sharded storage engine (urlshortener.storage.engine=sharded)
+ *
+ * Replaces Spring Boot's single DataSource with a ShardRoutingDataSource over
+ * one connection pool per configured shard. Every shard is migrated with the
+ * Flyway scripts in db/migration before anything else uses it, so
+ * spring.jpa.hibernate.ddl-auto must be "validate" or "none" (Hibernate would
+ * only see the primary shard).
+ *
+ * Hibernate keeps one pool of IDs for all shards and refills it from
+ * whichever shard the current transaction uses, so the urls_seq sequences
+ * must never hand out the same value twice: shard n (in configuration order)
+ * counts from n * 2^48.
+ *
+ * Deduplication can't be enabled together with sharding: rows are placed by
+ * short code, so the unique URL hash index only holds within one shard, and
+ * two concurrent shortens of the same URL could both succeed on different shards.
+ */
+@Configuration
+@ConditionalOnProperty(name = "urlshortener.storage.engine", havingValue = "sharded")
+@Slf4j
+public class ShardingConfig {
+
+    // IDs per shard: 2^48 (about 2.8 * 10^14), so up to 32768 shards fit in a long
+    private static final int ID_RANGE_BITS = 48;
+
+    @Bean
+    @Primary
+    public ShardRoutingDataSource dataSource(StorageProperties storageProperties,
+                                             DedupeProperties dedupeProperties,
+                                             ObjectProvider<MeterRegistry> meterRegistry) {
+        StorageProperties.Sharding sharding = storageProperties.getSharding();
+        List<StorageProperties.Sharding.Shard> shards = sharding.getShards();
+        validate(shards);
+        if (dedupeProperties.isEnabled()) {
+            throw new IllegalStateException("urlshortener.dedupe.enabled can't be used with the sharded storage engine "
+                    + "(the URL hash is only unique per shard)");
+        }
+
+        Map<Object, Object> dataSources = new LinkedHashMap<>();
+        for (int index = 0; index < shards.size(); index++) {
+            StorageProperties.Sharding.Shard shard = shards.get(index);
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(shard.getUrl())
+                    .username(shard.getUsername())
+                    .password(shard.getPassword())
+                    .build();
+            dataSource.setPoolName("shard-" + shard.getName());
+            dataSource.setMaximumPoolSize(sharding.getPoolSize());
+            // Connection pool metrics per shard (hikaricp.* tagged with the pool name)
+            meterRegistry.ifAvailable(registry ->
+                    dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+
+            Flyway.configure().dataSource(dataSource).load().migrate();
+            moveIdRange(new JdbcTemplate(dataSource), (long) index << ID_RANGE_BITS);
+            log.info("Shard {}{}: {}", shard.getName(), shard.isJoining() ? " (joining)" : "", shard.getUrl());
+            dataSources.put(shard.getName(), dataSource);
+        }
+
+        ShardRoutingDataSource routingDataSource = new ShardRoutingDataSource();
+        routingDataSource.setTargetDataSources(dataSources);
+        routingDataSource.setDefaultTargetDataSource(dataSources.get(shards.get(0).getName()));
+        // An unknown shard name is a bug, not a reason to use the primary shard
+        routingDataSource.setLenientFallback(false);
+        return routingDataSource;
+    }
+
+    /**
+     * Make the shard's urls_seq count from at least the given value
+     * (takes one value, so every start skips one ID block of allocationSize)
+     */
+    private static void moveIdRange(JdbcTemplate jdbcTemplate, long rangeStart) {
+        Long next = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR urls_seq", Long.class);
+        if (next < rangeStart) {
+            jdbcTemplate.execute("ALTER SEQUENCE urls_seq RESTART WITH " + (rangeStart + 1));
+        }
+    }
+
+    private static void validate(List<StorageProperties.Sharding.Shard> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalStateException("The sharded storage engine needs urlshortener.storage.sharding.shards");
+        }
+        if (shards.get(0).isJoining()) {
+            throw new IllegalStateException("The first (primary) shard can't be a joining shard");
+        }
+        Set<String> names = new HashSet<>();
+        for (StorageProperties.Sharding.Shard shard : shards) {
+            if (shard.getName() == null || shard.getUrl() == null) {
+                throw new IllegalStateException("Every shard needs a name and a url");
+            }
+            if (!names.add(shard.getName())) {
+                throw new IllegalStateException("Duplicate shard name: " + shard.getName());
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.urlshortener.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration for the in-process short code cache
+ *
+ * Bound from the "urlshortener.cache" prefix, e.g.
+ * urlshortener.cache.max-size=100000
+ * urlshortener.cache.ttl=10m
+ * urlshortener.cache.negative-ttl=30s
+ */
+@Data
+@ConfigurationProperties(prefix = "urlshortener.cache")
+public class ShortCodeCacheProperties {
+
+    // Turn the cache off entirely (every lookup goes to the database)
+    private boolean enabled = true;
+
+    // Maximum number of short codes kept in memory (found and not-found entries combined)
+    private long maxSize = 100_000;
+
+    // How long a resolved short code stays cached after it was loaded
+    private Duration ttl = Duration.ofMinutes(10);
+
+    // How long an unknown short code is remembered as "not found"
+    // Kept short so a code created on another instance becomes visible quickly
+    private Duration negativeTtl = Duration.ofSeconds(30);
+}
@@ -0,0 +1,30 @@
+package com.urlshortener.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration for short code generation
+ *
+ * Bound from the "urlshortener.short-code" prefix, e.g.
+ * urlshortener.short-code.strategy=sequence
+ * urlshortener.short-code.block-size=1000
+ */
+@Data
+@ConfigurationProperties(prefix = "urlshortener.short-code")
+public class ShortCodeProperties {
+
+    // Which ShortCodeGenerator to use: "random" or "sequence"
+    private String strategy = "random";
+
+    // Length of random short codes
+    private int length = 6;
+
+    // Minimum length of sequence-based short codes
+    // Codes longer than "length" can never collide with random ones, so strategies can be switched safely
+    private int minLength = 7;
+
+    // Number of IDs each instance reserves from the storage engine at a time
+    // With the database engines it must equal the increment of short_code_seq (see the V4 migration)
+    private int blockSize = 1000;
+}
@@ -0,0 +1,105 @@
+package com.urlshortener.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration for where short code -> URL mappings are stored
+ *
+ * Bound from the "urlshortener.storage" prefix, e.g.
+ * urlshortener.storage.engine=log
+ * urlshortener.storage.log.directory=./data
+ */
+@Data
+@ConfigurationProperties(prefix = "urlshortener.storage")
+public class StorageProperties {
+
+    // "jpa": the urls table in the relational database (default)
+    // "log": an embedded append-only log with a memory-mapped index on local disk
+    // "sharded": the urls table split over several databases (see Sharding)
+    private String engine = "jpa";
+
+    private Log log = new Log();
+
+    private Sharding sharding = new Sharding();
+
+    /**
+     * Settings for the embedded log engine
+     */
+    @Data
+    public static class Log {
+
+        // Directory for the log and index files (created if missing)
+        private String directory = "./data";
+
+        // Number of slots each index starts with (it doubles when 70% full)
+        // Each slot takes 24 bytes of the memory-mapped index file
+        private int initialIndexCapacity = 1 << 20;
+
+        // Force new URLs to disk before the request returns
+        // Turning this off is faster, but a power failure can lose the last few URLs
+        // (hit counts are never forced; a crash can lose the last few)
+        private boolean fsync = true;
+
+        // How often to check whether the log needs compacting
+        private Duration compactionCheckInterval = Duration.ofMinutes(1);
+
+        // Compact when at least this share of the log is obsolete records
+        private double compactionGarbageRatio = 0.5;
+
+        // Don't bother compacting logs smaller than this
+        private long compactionMinLogBytes = 64L * 1024 * 1024;
+    }
+
+    /**
+     * Settings for the sharded engine
+     */
+    @Data
+    public static class Sharding {
+
+        // The databases the urls table is split over, e.g.
+        // urlshortener.storage.sharding.shards[0].name=a
+        // urlshortener.storage.sharding.shards[0].url=jdbc:h2:file:./data/shards/a
+        // The first one is the primary shard: it also holds the click statistics and
+        // the ID block sequence, so it has to stay first
+        private List<Shard> shards = new ArrayList<>();
+
+        // Points per shard on the hash ring; more points split the keys more evenly
+        private int virtualNodes = 128;
+
+        // Route by the first N characters of the short code instead of the whole code
+        // (0 = whole code); all codes with the same prefix then live on the same shard
+        private int routingPrefixLength = 0;
+
+        // Maximum connections per shard
+        private int poolSize = 10;
+
+        // URLs read (and moved if their owner changed) per rebalancing step
+        private int rebalanceBatchSize = 1000;
+
+        // Pause between rebalancing steps
+        private Duration rebalanceInterval = Duration.ofMillis(100);
+
+        /**
+         * One database
+         */
+        @Data
+        public static class Shard {
+
+            // Name on the hash ring: renaming a shard moves its keys
+            private String name;
+
+            private String url;
+            private String username = "sa";
+            private String password = "";
+
+            // A newly added shard: the URLs it now owns are moved to it in the background
+            // Set back to false once the log says rebalancing has finished
+            private boolean joining;
+        }
+    }
+}
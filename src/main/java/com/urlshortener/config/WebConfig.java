@@ -0,0 +1,79 @@
+package com.urlshortener.config;
+
+import com.urlshortener.constants.ApiRoutes;
+import com.urlshortener.controller.FastRedirectFilter;
+import com.urlshortener.ratelimit.WriteRateLimitInterceptor;
+import com.urlshortener.ratelimit.WriteRateLimiter;
+import com.urlshortener.service.UrlService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Spring MVC configuration
+ *
+ * Puts the write rate limit in front of the endpoints that create URLs.
+ * Redirects and info lookups are never rate limited.
+ *
+ * Also registers the redirect fast path, a servlet filter that answers
+ * redirects before Spring MVC (urlshortener.redirect.fast-path).
+ */
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final RateLimitProperties rateLimitProperties;
+    private final WriteRateLimiter writeRateLimiter;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (rateLimitProperties.isEnabled()) {
+            registry.addInterceptor(new WriteRateLimitInterceptor(writeRateLimiter, rateLimitProperties))
+                    .addPathPatterns(ApiRoutes.SHORTEN_URL, ApiRoutes.SHORTEN_URL_BULK, ApiRoutes.IMPORT_URLS);
+        }
+    }
+
+    /**
+     * The redirect fast path, right after the access log filter
+     *
+     * Single-segment paths of other handlers (actuator, error page, H2 console)
+     * are passed on to Spring MVC even if they look like short codes.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "urlshortener.redirect.fast-path", havingValue = "true", matchIfMissing = true)
+    public FilterRegistrationBean<FastRedirectFilter> fastRedirectFilter(
+            UrlService urlService,
+            RedirectProperties redirectProperties,
+            @Value("${management.endpoints.web.base-path:/actuator}") String actuatorPath,
+            @Value("${server.error.path:/error}") String errorPath,
+            @Value("${spring.h2.console.path:/h2-console}") String h2ConsolePath) {
+
+        // copyOf: the paths may share a first segment
+        Set<String> reservedPaths = Set.copyOf(List.of(
+                firstSegment(actuatorPath), firstSegment(errorPath), firstSegment(h2ConsolePath)));
+        FilterRegistrationBean<FastRedirectFilter> registration = new FilterRegistrationBean<>(
+                new FastRedirectFilter(urlService, redirectProperties, reservedPaths));
+        registration.addUrlPatterns("/*");
+        // AccessLogFilter runs first (HIGHEST_PRECEDENCE), so fast redirects are still logged
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+
+    /**
+     * "/actuator/x" -> "actuator"
+     */
+    private static String firstSegment(String path) {
+        String trimmed = path.startsWith("/") ? path.substring(1) : path;
+        int slash = trimmed.indexOf('/');
+        return slash < 0 ? trimmed : trimmed.substring(0, slash);
+    }
+}
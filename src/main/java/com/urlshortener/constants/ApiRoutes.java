@@ -12,8 +12,19 @@ public final class ApiRoutes {
     
     // URL Shortener endpoints
     public static final String SHORTEN_URL = API_BASE_PATH + "/shorten";
+    public static final String SHORTEN_URL_BULK = SHORTEN_URL + "/bulk";
     public static final String URL_INFO = API_BASE_PATH + "/url/{shortCode}";
     public static final String URL_INFO_PATH_VARIABLE = "shortCode";
+    public static final String URL_STATS = URL_INFO + "/stats";
+    
+    // Bulk import/export endpoints (newline-delimited JSON)
+    public static final String EXPORT_URLS = API_BASE_PATH + "/urls/export";
+    public static final String IMPORT_URLS = API_BASE_PATH + "/urls/import";
+    public static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+    
+    // Admin endpoints
+    public static final String ADMIN_BASE_PATH = API_BASE_PATH + "/admin";
+    public static final String HOT_SHORT_CODES = ADMIN_BASE_PATH + "/hot-codes";
     
     // Redirect endpoint
     public static final String REDIRECT_URL = "/{" + URL_INFO_PATH_VARIABLE + "}";
@@ -0,0 +1,108 @@
+package com.urlshortener.controller;
+
+import com.urlshortener.config.RedirectProperties;
+import com.urlshortener.dto.RedirectResult;
+import com.urlshortener.entity.RedirectType;
+import com.urlshortener.entity.Url;
+import com.urlshortener.service.UrlService;
+import com.urlshortener.util.Base62;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Answers redirects before the request reaches Spring MVC
+ *
+ * A redirect response is just a status and two headers, but through
+ * RedirectController it pays for the DispatcherServlet, handler mapping
+ * against the catch-all /{shortCode} pattern, argument resolution, a
+ * ResponseEntity and its HttpHeaders. This filter handles the same requests
+ * itself:
+ * - GET or HEAD of /{shortCode}, where the code is checked against the Base62
+ *   character table (Base62.isValid) directly on the request URI, before
+ *   anything is allocated
+ * - The code is resolved by UrlService.redirectUrl, exactly like the
+ *   controller does (hit count, click event, metrics)
+ * - The status, Location and Cache-Control come from RedirectResponses, so
+ *   both paths answer the same way; 404 and 410 have no body either way
+ *
+ * Everything else goes down the filter chain to the existing controllers:
+ * other methods, paths with more than one segment, codes with other
+ * characters (e.g. percent-encoded ones), and reserved single-segment paths
+ * such as /actuator and /error.
+ *
+ * Registered by WebConfig when urlshortener.redirect.fast-path=true.
+ */
+public class FastRedirectFilter implements Filter {
+
+    private final UrlService urlService;
+    private final RedirectResponses redirectResponses;
+    private final Set<String> reservedPaths;
+
+    /**
+     * @param reservedPaths Single-segment paths (without the leading slash) that belong to other handlers
+     */
+    public FastRedirectFilter(UrlService urlService, RedirectProperties redirectProperties, Set<String> reservedPaths) {
+        this.urlService = urlService;
+        this.redirectResponses = new RedirectResponses(redirectProperties);
+        this.reservedPaths = Set.copyOf(reservedPaths);
+    }
+
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain chain)
+            throws IOException, ServletException {
+        HttpServletRequest request = (HttpServletRequest) servletRequest;
+        HttpServletResponse response = (HttpServletResponse) servletResponse;
+
+        String shortCode = shortCode(request);
+        if (shortCode == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        RedirectResult result = urlService.redirectUrl(shortCode,
+                request.getHeader(HttpHeaders.REFERER), request.getHeader(HttpHeaders.USER_AGENT));
+
+        switch (result.status()) {
+            case NOT_FOUND -> response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            case EXPIRED -> response.setStatus(HttpServletResponse.SC_GONE);
+            case FOUND -> {
+                RedirectType type = redirectResponses.redirectType(result);
+                response.setStatus(type.status().value());
+                response.setHeader(HttpHeaders.LOCATION, result.originalUrl());
+                response.setHeader(HttpHeaders.CACHE_CONTROL,
+                        redirectResponses.cacheControl(type, result.expiresAtMillis()));
+            }
+        }
+        response.setContentLength(0);
+    }
+
+    /**
+     * The short code of a redirect request, or null if the request isn't one
+     */
+    private String shortCode(HttpServletRequest request) {
+        String method = request.getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            return null;
+        }
+
+        // The raw URI: a Base62 code never needs percent-encoding
+        String uri = request.getRequestURI();
+        int start = request.getContextPath().length() + 1;
+        if (uri.length() < start || uri.charAt(start - 1) != '/'
+                || !Base62.isValid(uri, start, Url.MAX_SHORT_CODE_LENGTH)) {
+            return null;
+        }
+
+        String shortCode = uri.substring(start);
+        return reservedPaths.contains(shortCode) ? null : shortCode;
+    }
+}
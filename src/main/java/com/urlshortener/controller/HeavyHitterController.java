@@ -0,0 +1,42 @@
+package com.urlshortener.controller;
+
+import com.urlshortener.constants.ApiRoutes;
+import com.urlshortener.dto.HeavyHittersResponse;
+import com.urlshortener.exception.InvalidRequestException;
+import com.urlshortener.heavyhitters.HeavyHitterTracker;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Admin endpoint for the short codes redirected most often right now
+ *
+ * Answered from HeavyHitterTracker's in-memory counters, without a database
+ * query, so it can be polled by dashboards. Like the rest of the API it has no
+ * authentication of its own; keep /api/v1/admin/** off the public ingress.
+ */
+@RestController
+@RequiredArgsConstructor
+public class HeavyHitterController {
+
+    private final HeavyHitterTracker heavyHitterTracker;
+
+    /**
+     * Get the top short codes of the last few minutes
+     * GET /api/v1/admin/hot-codes?limit=10
+     *
+     * @RequestParam limit - Number of codes to return (1 to urlshortener.heavy-hitters.capacity)
+     */
+    @GetMapping(ApiRoutes.HOT_SHORT_CODES)
+    public ResponseEntity<HeavyHittersResponse> getHotShortCodes(@RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1 || limit > heavyHitterTracker.capacity()) {
+            throw new InvalidRequestException("limit must be between 1 and " + heavyHitterTracker.capacity());
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(heavyHitterTracker.top(limit));
+    }
+}
@@ -1,15 +1,14 @@
 package com.urlshortener.controller;
 
 import com.urlshortener.constants.ApiRoutes;
-import com.urlshortener.exception.UrlNotFoundException;
+import com.urlshortener.config.RedirectProperties;
+import com.urlshortener.dto.RedirectResult;
 import com.urlshortener.service.UrlService;
-import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 
 /**
@@ -17,40 +16,47 @@ import org.springframework.web.bind.annotation.RestController;
  * 
  * Separated from main API controller for clarity
  * Handles the short URL redirection functionality
+ * 
+ * Caching: temporary redirects (302, 307) are sent with Cache-Control: no-store,
+ * so every click reaches the server and is counted. Permanent ones (301, 308)
+ * may be cached by browsers and CDNs for urlshortener.redirect.permanent-max-age
+ * (at most until the link expires); repeat clicks answered from a cache
+ * don't reach the server and aren't counted. See RedirectResponses.
+ * 
+ * With urlshortener.redirect.fast-path=true (the default) FastRedirectFilter
+ * answers redirects before they reach this controller; it only sees the
+ * ones the filter passes on.
  */
 @RestController
-@RequiredArgsConstructor
-@Slf4j
 public class RedirectController {
     
     private final UrlService urlService;
+    private final RedirectResponses redirectResponses;
+    
+    public RedirectController(UrlService urlService, RedirectProperties redirectProperties) {
+        this.urlService = urlService;
+        this.redirectResponses = new RedirectResponses(redirectProperties);
+    }
     
     /**
      * Redirect to original URL
      * GET /r/{shortCode}
      * 
-     * Returns a 302 redirect response to the original URL
-     * Also increments the hit count
+     * Returns a redirect response to the original URL: 302 unless the link or
+     * urlshortener.redirect.default-type says otherwise
+     * Also increments the hit count and records a click (referrer and client type)
+     * Unknown codes get a plain 404 and expired ones a plain 410 Gone
+     * (no exception is thrown or logged)
      */
     @GetMapping(ApiRoutes.REDIRECT_URL)
-    public ResponseEntity<Void> redirect(@PathVariable(ApiRoutes.URL_INFO_PATH_VARIABLE) String shortCode) {
-        log.info("Redirecting short code: {}", shortCode);
+    public ResponseEntity<Void> redirect(
+            @PathVariable(ApiRoutes.URL_INFO_PATH_VARIABLE) String shortCode,
+            @RequestHeader(value = HttpHeaders.REFERER, required = false) String referrer,
+            @RequestHeader(value = HttpHeaders.USER_AGENT, required = false) String userAgent) {
+        // Get original URL and increment hit count
+        RedirectResult result = urlService.redirectUrl(shortCode, referrer, userAgent);
         
-        try {
-            // Get original URL and increment hit count
-            String originalUrl = urlService.redirectUrl(shortCode);
-            
-            // Build redirect response
-            HttpHeaders headers = new HttpHeaders();
-            headers.add(HttpHeaders.LOCATION, originalUrl);
-            
-            // Return 302 FOUND status with Location header
-            return new ResponseEntity<>(headers, HttpStatus.FOUND);
-            
-        } catch (UrlNotFoundException e) {
-            log.error("Error redirecting short code: {}", shortCode, e);
-            // Return 404 if URL not found
-            return ResponseEntity.notFound().build();
-        }
+        // 404, 410, or the redirect status with Location and Cache-Control headers
+        return redirectResponses.toResponse(result);
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,97 @@
+package com.urlshortener.controller;
+
+import com.urlshortener.config.RedirectProperties;
+import com.urlshortener.dto.RedirectResult;
+import com.urlshortener.dto.RedirectTarget;
+import com.urlshortener.entity.RedirectType;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turns redirect results into HTTP responses
+ *
+ * - FOUND: the link's redirect type (or urlshortener.redirect.default-type)
+ *   with Location and Cache-Control headers
+ * - EXPIRED: a plain 410 Gone, NOT_FOUND: a plain 404
+ *
+ * Caching: temporary redirects (302, 307) are sent with Cache-Control: no-store,
+ * so every click reaches the server and is counted. Permanent ones (301, 308)
+ * may be cached by browsers and CDNs for urlshortener.redirect.permanent-max-age
+ * (at most until the link expires).
+ *
+ * Only uses ResponseEntity, so the servlet RedirectController and the reactive
+ * variant (see reactive/) answer exactly the same way. FastRedirectFilter
+ * writes the same status and headers straight to the servlet response.
+ */
+public final class RedirectResponses {
+
+    // Immutable and body-less, so one instance serves every 404 (and every 410)
+    private static final ResponseEntity<Void> NOT_FOUND = ResponseEntity.notFound().build();
+    private static final ResponseEntity<Void> GONE = ResponseEntity.status(HttpStatus.GONE).build();
+
+    private static final String NO_STORE = CacheControl.noStore().getHeaderValue();
+
+    private final RedirectType defaultType;
+    private final long permanentMaxAgeSeconds;
+    // Cache-Control of permanent redirects to links that never expire (the same every time)
+    private final String permanentCacheControl;
+
+    public RedirectResponses(RedirectProperties redirectProperties) {
+        this.defaultType = redirectProperties.getDefaultType();
+        this.permanentMaxAgeSeconds = redirectProperties.getPermanentMaxAge().toSeconds();
+        this.permanentCacheControl = cacheControl(permanentMaxAgeSeconds);
+    }
+
+    /**
+     * The response for a redirect result
+     */
+    public ResponseEntity<Void> toResponse(RedirectResult result) {
+        if (result.status() == RedirectResult.Status.NOT_FOUND) {
+            return NOT_FOUND;
+        }
+        if (result.status() == RedirectResult.Status.EXPIRED) {
+            return GONE;
+        }
+
+        RedirectType type = redirectType(result);
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.LOCATION, result.originalUrl());
+        headers.add(HttpHeaders.CACHE_CONTROL, cacheControl(type, result.expiresAtMillis()));
+        return new ResponseEntity<>(headers, type.status());
+    }
+
+    /**
+     * The redirect type of a FOUND result: the link's own, or the configured default
+     */
+    public RedirectType redirectType(RedirectResult result) {
+        return result.redirectType() != null ? result.redirectType() : defaultType;
+    }
+
+    /**
+     * The Cache-Control header value of a redirect of the given type
+     */
+    public String cacheControl(RedirectType type, long expiresAtMillis) {
+        return type.isPermanent() ? permanentCacheControl(expiresAtMillis) : NO_STORE;
+    }
+
+    /**
+     * Cache-Control of a permanent redirect: never cached past the link's expiry
+     */
+    private String permanentCacheControl(long expiresAtMillis) {
+        if (expiresAtMillis == RedirectTarget.NEVER) {
+            return permanentCacheControl;
+        }
+        long secondsLeft = (expiresAtMillis - System.currentTimeMillis()) / 1000;
+        return secondsLeft >= permanentMaxAgeSeconds
+                ? permanentCacheControl
+                : cacheControl(Math.max(0, secondsLeft));
+    }
+
+    private static String cacheControl(long maxAgeSeconds) {
+        return CacheControl.maxAge(maxAgeSeconds, TimeUnit.SECONDS).cachePublic().getHeaderValue();
+    }
+}
@@ -1,19 +1,39 @@
 package com.urlshortener.controller;
 
+import com.urlshortener.clicks.ClickGranularity;
+import com.urlshortener.config.BulkProperties;
 import com.urlshortener.constants.ApiRoutes;
+import com.urlshortener.dto.BulkUrlRequest;
+import com.urlshortener.dto.BulkUrlResponse;
+import com.urlshortener.dto.BulkUrlResult;
+import com.urlshortener.dto.ClickStatsResponse;
+import com.urlshortener.dto.ShortenOptions;
+import com.urlshortener.dto.ShortenOutcome;
 import com.urlshortener.dto.UrlRequest;
 import com.urlshortener.dto.UrlResponse;
-import com.urlshortener.entity.Url;
+import com.urlshortener.dto.UrlSummary;
+import com.urlshortener.exception.InvalidRequestException;
+import com.urlshortener.service.ClickStatsService;
 import com.urlshortener.service.UrlService;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
 /**
  * REST Controller for URL shortening operations
  * 
@@ -32,6 +52,9 @@ import org.springframework.web.bind.annotation.*;
 public class UrlController {
     
     private final UrlService urlService;
+    private final ClickStatsService clickStatsService;
+    private final Validator validator;
+    private final BulkProperties bulkProperties;
     
     /**
      * Shorten a URL
@@ -46,10 +69,8 @@ public class UrlController {
             @Valid @RequestBody UrlRequest request,
             HttpServletRequest httpRequest) {
         
-        log.info("Received request to shorten URL: {}", request.getUrl());
-        
         // Call service to shorten URL
-        Url url = urlService.shortenUrl(request.getUrl());
+        UrlSummary url = urlService.shortenUrl(request.getUrl(), ShortenOptions.of(request));
         
         // Build response with full short URL
         String baseUrl = getBaseUrl(httpRequest);
@@ -59,40 +80,178 @@ public class UrlController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
     
+    /**
+     * Shorten many URLs in one request
+     * POST /api/v1/shorten/bulk
+     * 
+     * Each item is validated like a single UrlRequest; invalid items are
+     * reported in the results instead of failing the whole request.
+     * Returns 200 OK with one result per item, in request order.
+     */
+    @PostMapping("/shorten/bulk")
+    public ResponseEntity<BulkUrlResponse> shortenUrls(
+            @Valid @RequestBody BulkUrlRequest request,
+            HttpServletRequest httpRequest) {
+        
+        List<UrlRequest> items = request.getUrls();
+        log.debug("Received request to shorten {} URLs", items.size());
+        
+        if (items.size() > bulkProperties.getMaxItems()) {
+            throw new InvalidRequestException("Too many URLs in one request: " + items.size()
+                    + " (maximum is " + bulkProperties.getMaxItems() + ")");
+        }
+        
+        // Validate each item; only valid ones are passed on to the service
+        BulkUrlResult[] results = new BulkUrlResult[items.size()];
+        List<Integer> validIndexes = new ArrayList<>(items.size());
+        List<String> validUrls = new ArrayList<>(items.size());
+        List<ShortenOptions> validOptions = new ArrayList<>(items.size());
+        
+        for (int i = 0; i < items.size(); i++) {
+            UrlRequest item = items.get(i);
+            String error = validate(item);
+            if (error == null) {
+                validIndexes.add(i);
+                validUrls.add(item.getUrl());
+                validOptions.add(ShortenOptions.of(item));
+            } else {
+                results[i] = BulkUrlResult.builder()
+                        .index(i)
+                        .originalUrl(item == null ? null : item.getUrl())
+                        .error(error)
+                        .build();
+            }
+        }
+        
+        // Shorten all valid URLs in batches
+        List<ShortenOutcome> outcomes = urlService.shortenUrls(validUrls, validOptions);
+        String baseUrl = getBaseUrl(httpRequest);
+        int succeeded = 0;
+        
+        for (int i = 0; i < outcomes.size(); i++) {
+            int index = validIndexes.get(i);
+            ShortenOutcome outcome = outcomes.get(i);
+            BulkUrlResult.BulkUrlResultBuilder result = BulkUrlResult.builder()
+                    .index(index)
+                    .originalUrl(validUrls.get(i));
+            
+            if (outcome.isSuccess()) {
+                succeeded++;
+                result.shortCode(outcome.url().shortCode())
+                        .shortUrl(baseUrl + "/" + outcome.url().shortCode())
+                        .expiresAt(outcome.url().expiresAt());
+            } else {
+                result.error(outcome.error());
+            }
+            results[index] = result.build();
+        }
+        
+        BulkUrlResponse response = BulkUrlResponse.builder()
+                .total(items.size())
+                .succeeded(succeeded)
+                .failed(items.size() - succeeded)
+                .results(List.of(results))
+                .build();
+        
+        return ResponseEntity.ok(response);
+    }
+    
     /**
      * Get URL information
      * GET /api/v1/url/{shortCode}
      * 
      * @GetMapping - Handles HTTP GET requests
      * @PathVariable - Extracts value from URL path
+     * 
+     * The response has an ETag computed from its fields (the hit count changes it)
+     * and Cache-Control: no-cache, so clients revalidate on every use. A request whose
+     * If-None-Match has the current ETag gets 304 Not Modified without a body
+     * (Spring checks this when the ResponseEntity carries an ETag).
      */
     @GetMapping("/url/{" + ApiRoutes.URL_INFO_PATH_VARIABLE + "}")
     public ResponseEntity<UrlResponse> getUrlInfo(
             @PathVariable(ApiRoutes.URL_INFO_PATH_VARIABLE) String shortCode,
             HttpServletRequest httpRequest) {
         
-        log.info("Getting info for short code: {}", shortCode);
+        log.debug("Getting info for short code: {}", shortCode);
         
-        Url url = urlService.getUrlInfo(shortCode);
+        UrlSummary url = urlService.getUrlInfo(shortCode);
         String baseUrl = getBaseUrl(httpRequest);
         UrlResponse response = buildUrlResponse(url, baseUrl);
         
+        return ResponseEntity.ok()
+                .eTag(response.etag())
+                .cacheControl(CacheControl.noCache())
+                .body(response);
+    }
+    
+    /**
+     * Get click statistics for a short URL
+     * GET /api/v1/url/{shortCode}/stats?granularity=hour&from=2024-01-01T00:00&to=2024-01-02T00:00
+     * 
+     * @RequestParam - Optional query parameters (all times are UTC)
+     * - granularity: minute or hour (default: hour)
+     * - from / to: range to report, default is the last 60 minutes or 24 hours
+     */
+    @GetMapping("/url/{" + ApiRoutes.URL_INFO_PATH_VARIABLE + "}/stats")
+    public ResponseEntity<ClickStatsResponse> getClickStats(
+            @PathVariable(ApiRoutes.URL_INFO_PATH_VARIABLE) String shortCode,
+            @RequestParam(defaultValue = "hour") String granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        
+        log.debug("Getting click stats for short code: {}", shortCode);
+        
+        ClickStatsResponse response = clickStatsService.getClickStats(
+                shortCode, parseGranularity(granularity), from, to);
         return ResponseEntity.ok(response);
     }
     
     /**
-     * Helper method to build UrlResponse from Url entity
+     * Helper method to parse the granularity parameter (case-insensitive)
      */
-    private UrlResponse buildUrlResponse(Url url, String baseUrl) {
+    private ClickGranularity parseGranularity(String granularity) {
+        try {
+            return ClickGranularity.valueOf(granularity.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Unknown granularity: " + granularity + " (use minute or hour)");
+        }
+    }
+    
+    /**
+     * Helper method to build UrlResponse from a URL summary
+     */
+    private UrlResponse buildUrlResponse(UrlSummary url, String baseUrl) {
         return UrlResponse.builder()
-                .originalUrl(url.getOriginalUrl())
-                .shortUrl(baseUrl + "/" + url.getShortCode())
-                .shortCode(url.getShortCode())
-                .createdAt(url.getCreatedAt())
-                .hitCount(url.getHitCount())
+                .originalUrl(url.originalUrl())
+                .shortUrl(baseUrl + "/" + url.shortCode())
+                .shortCode(url.shortCode())
+                .createdAt(url.createdAt())
+                .hitCount(url.hitCount())
+                .expiresAt(url.expiresAt())
+                .redirectType(url.redirectType())
                 .build();
     }
     
+    /**
+     * Helper method to validate one bulk item
+     * @return The validation error messages, or null if the item is valid
+     */
+    private String validate(UrlRequest item) {
+        if (item == null) {
+            return "URL cannot be empty";
+        }
+        Set<ConstraintViolation<UrlRequest>> violations = validator.validate(item);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .reduce((first, second) -> first + "; " + second)
+                .orElse(null);
+    }
+    
     /**
      * Helper method to get base URL from request
      */
@@ -0,0 +1,60 @@
+package com.urlshortener.controller;
+
+import com.urlshortener.constants.ApiRoutes;
+import com.urlshortener.dto.ImportResult;
+import com.urlshortener.service.UrlTransferService;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Controller for streaming bulk import and export of URLs
+ *
+ * Separated from the main API controller because these endpoints work on
+ * raw request/response streams (newline-delimited JSON) instead of
+ * JSON bodies that are fully read into memory
+ */
+@RestController
+@RequiredArgsConstructor
+@Slf4j
+public class UrlTransferController {
+
+    private final UrlTransferService urlTransferService;
+
+    /**
+     * Export all URLs
+     * GET /api/v1/urls/export
+     *
+     * Streams one JSON object per line straight to the response
+     */
+    @GetMapping(value = ApiRoutes.EXPORT_URLS, produces = ApiRoutes.NDJSON_MEDIA_TYPE)
+    public void exportUrls(HttpServletResponse response) throws IOException {
+        log.info("Exporting all URLs");
+
+        response.setContentType(ApiRoutes.NDJSON_MEDIA_TYPE);
+        response.setCharacterEncoding("UTF-8");
+        urlTransferService.exportUrls(response.getOutputStream());
+    }
+
+    /**
+     * Import URLs
+     * POST /api/v1/urls/import
+     *
+     * The request body is read line by line as it arrives (InputStream parameter),
+     * so it is never held in memory as a whole
+     */
+    @PostMapping(value = ApiRoutes.IMPORT_URLS, consumes = ApiRoutes.NDJSON_MEDIA_TYPE)
+    public ResponseEntity<ImportResult> importUrls(InputStream body) throws IOException {
+        log.info("Importing URLs");
+
+        ImportResult result = urlTransferService.importUrls(body);
+        return ResponseEntity.ok(result);
+    }
+}
@@ -0,0 +1,23 @@
+package com.urlshortener.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for a bulk URL shortening request
+ * 
+ * Items are validated one by one (with the same rules as UrlRequest),
+ * so one bad URL doesn't reject the whole request
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkUrlRequest {
+    
+    @NotEmpty(message = "URL list cannot be empty")
+    private List<UrlRequest> urls;
+}
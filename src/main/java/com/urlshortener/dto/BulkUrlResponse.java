@@ -0,0 +1,25 @@
+package com.urlshortener.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for a bulk URL shortening response
+ * 
+ * Results are in the same order as the request items
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkUrlResponse {
+    
+    private int total;
+    private int succeeded;
+    private int failed;
+    private List<BulkUrlResult> results;
+}
@@ -0,0 +1,29 @@
+package com.urlshortener.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO for the result of one item in a bulk request
+ * 
+ * Either shortCode/shortUrl (success) or error (failure) is set
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkUrlResult {
+    
+    private int index;          // Position of the item in the request
+    private String originalUrl;
+    private String shortUrl;
+    private String shortCode;
+    private LocalDateTime expiresAt;
+    private String error;
+}
@@ -0,0 +1,22 @@
+package com.urlshortener.dto;
+
+import com.urlshortener.entity.ClickBucket;
+
+import java.time.LocalDateTime;
+
+/**
+ * Click counts for one minute or hour in a stats response
+ * start is the bucket start in UTC
+ */
+public record ClickStatsBucket(
+        LocalDateTime start,
+        long clicks,
+        long botClicks,
+        long mobileClicks,
+        long referredClicks) {
+    
+    public static ClickStatsBucket from(ClickBucket bucket) {
+        return new ClickStatsBucket(bucket.getId().getBucketStart(), bucket.getClicks(),
+                bucket.getBotClicks(), bucket.getMobileClicks(), bucket.getReferredClicks());
+    }
+}
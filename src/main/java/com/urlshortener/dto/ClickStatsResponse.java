@@ -0,0 +1,32 @@
+package com.urlshortener.dto;
+
+import com.urlshortener.clicks.ClickGranularity;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO for the click statistics of a short URL
+ * 
+ * All times are UTC. Only buckets with clicks are listed.
+ * Clicks from the last few seconds may not be included yet
+ * (see urlshortener.clicks.flush-interval).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ClickStatsResponse {
+    
+    private String shortCode;
+    private ClickGranularity granularity;
+    private LocalDateTime from;         // Inclusive
+    private LocalDateTime to;           // Exclusive
+    private long totalClicks;
+    private List<ClickStatsBucket> buckets;
+    private List<ReferrerCount> topReferrers;
+}
@@ -0,0 +1,13 @@
+package com.urlshortener.dto;
+
+/**
+ * A short code with its estimated number of redirects in the current window
+ *
+ * The estimate is never too low and at most error too high, so the code was
+ * redirected between hits - error and hits times.
+ */
+public record HeavyHitter(
+        String shortCode,
+        long hits,
+        long error) {
+}
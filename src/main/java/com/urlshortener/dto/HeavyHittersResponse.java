@@ -0,0 +1,28 @@
+package com.urlshortener.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO for the short codes redirected most often in the recent past
+ * 
+ * All times are UTC. from is the start of the oldest window that is kept, so
+ * the range is between (windows - 1) and windows window lengths long
+ * (see urlshortener.heavy-hitters.*).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class HeavyHittersResponse {
+    
+    private LocalDateTime from;         // Inclusive
+    private LocalDateTime to;           // Exclusive
+    private long totalRedirects;        // Exact, over all short codes
+    private List<HeavyHitter> shortCodes;
+}
@@ -0,0 +1,21 @@
+package com.urlshortener.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for the result of an NDJSON import
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImportResult {
+    
+    private long imported;  // Rows written
+    private long skipped;   // Short codes that already existed
+    private long rejected;  // Lines that couldn't be parsed or failed validation
+    private long failed;    // Valid rows in chunks that couldn't be written
+}
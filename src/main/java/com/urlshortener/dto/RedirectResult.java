@@ -0,0 +1,29 @@
+package com.urlshortener.dto;
+
+import com.urlshortener.entity.RedirectType;
+
+/**
+ * Outcome of a redirect lookup
+ * 
+ * Only FOUND has an original URL, a redirect type (null: the configured
+ * default) and an expiry. The other outcomes are shared constants, so a
+ * redirect that doesn't go anywhere allocates nothing.
+ */
+public record RedirectResult(Status status, String originalUrl, RedirectType redirectType, long expiresAtMillis) {
+    
+    public enum Status {
+        // Redirect to originalUrl
+        FOUND,
+        // The short code existed but its URL has expired (410 Gone)
+        EXPIRED,
+        // The short code was never issued, or its URL was deleted (404 Not Found)
+        NOT_FOUND
+    }
+    
+    public static final RedirectResult EXPIRED = new RedirectResult(Status.EXPIRED, null, null, 0);
+    public static final RedirectResult NOT_FOUND = new RedirectResult(Status.NOT_FOUND, null, null, 0);
+    
+    public static RedirectResult found(RedirectTarget target) {
+        return new RedirectResult(Status.FOUND, target.originalUrl(), target.redirectType(), target.expiresAtMillis());
+    }
+}
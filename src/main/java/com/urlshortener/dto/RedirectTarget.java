@@ -0,0 +1,43 @@
+package com.urlshortener.dto;
+
+import com.urlshortener.entity.RedirectType;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * What a redirect needs to know about a short code: where it goes, until when, and how
+ * 
+ * redirectType is null for URLs that use the configured default.
+ * 
+ * The expiry is kept as epoch milliseconds (NEVER for URLs without one), so
+ * checking it on every cached redirect is one comparison with the clock,
+ * without any LocalDateTime arithmetic.
+ */
+public record RedirectTarget(String originalUrl, long expiresAtMillis, RedirectType redirectType) {
+    
+    // expiresAtMillis of URLs that never expire
+    public static final long NEVER = Long.MAX_VALUE;
+    
+    /**
+     * Used by JPQL constructor expressions (expiresAt is null for URLs that never expire)
+     */
+    public RedirectTarget(String originalUrl, LocalDateTime expiresAt, RedirectType redirectType) {
+        this(originalUrl, toMillis(expiresAt), redirectType);
+    }
+    
+    /**
+     * Whether the URL has expired at the given time (System.currentTimeMillis())
+     */
+    public boolean isExpired(long nowMillis) {
+        return nowMillis >= expiresAtMillis;
+    }
+    
+    /**
+     * Epoch milliseconds of a local date-time (in the system time zone, like all
+     * LocalDateTime values in this application), or NEVER for null
+     */
+    public static long toMillis(LocalDateTime dateTime) {
+        return dateTime == null ? NEVER : dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,10 @@
+package com.urlshortener.dto;
+
+/**
+ * Number of clicks that came from one referrer host
+ * Built by the repository through a JPQL constructor expression
+ */
+public record ReferrerCount(
+        String host,
+        Long clicks) {
+}
@@ -0,0 +1,39 @@
+package com.urlshortener.dto;
+
+import com.urlshortener.entity.RedirectType;
+
+import java.time.LocalDateTime;
+
+/**
+ * Per-link settings of a shorten request
+ * 
+ * Both are optional: a null expiresAt means the default TTL (if one is
+ * configured), a null redirectType the configured default redirect type.
+ */
+public record ShortenOptions(LocalDateTime expiresAt, RedirectType redirectType) {
+    
+    public static final ShortenOptions DEFAULTS = new ShortenOptions(null, null);
+    
+    /**
+     * Whether nothing was set (only such links are deduplicated: a shared
+     * mapping must not expire or change its caching under another client)
+     */
+    public boolean isDefault() {
+        return expiresAt == null && redirectType == null;
+    }
+    
+    /**
+     * The options of a shorten request
+     * A ttlSeconds is turned into a point in time here; unset fields stay null (the defaults)
+     */
+    public static ShortenOptions of(UrlRequest request) {
+        LocalDateTime expiresAt = request.getTtlSeconds() != null
+                ? LocalDateTime.now().plusSeconds(request.getTtlSeconds())
+                : request.getExpiresAt();
+        return new ShortenOptions(expiresAt, request.getRedirectType());
+    }
+    
+    public ShortenOptions withExpiresAt(LocalDateTime newExpiresAt) {
+        return new ShortenOptions(newExpiresAt, redirectType);
+    }
+}
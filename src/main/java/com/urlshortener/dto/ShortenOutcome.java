@@ -0,0 +1,21 @@
+package com.urlshortener.dto;
+
+/**
+ * Outcome of shortening one URL in a bulk operation
+ * 
+ * Holds the short URL (new or, with deduplication, existing) on success, or an error message on failure
+ */
+public record ShortenOutcome(UrlSummary url, String error) {
+    
+    public static ShortenOutcome success(UrlSummary url) {
+        return new ShortenOutcome(url, null);
+    }
+    
+    public static ShortenOutcome failure(String error) {
+        return new ShortenOutcome(null, error);
+    }
+    
+    public boolean isSuccess() {
+        return url != null;
+    }
+}
@@ -1,11 +1,18 @@
 package com.urlshortener.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.urlshortener.entity.RedirectType;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Future;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
+
 /**
  * DTO for URL shortening request
  * 
@@ -17,6 +24,8 @@ import lombok.NoArgsConstructor;
  * Validation annotations:
  * @NotBlank - Ensures field is not null, empty, or whitespace
  * @Pattern - Validates against a regex pattern
+ * @Positive / @Future - Optional expiry: a lifetime in seconds, or a point in time
+ * @AssertTrue - Cross-field check (at most one of the two expiry fields)
  */
 @Data
 @NoArgsConstructor
@@ -29,4 +38,25 @@ public class UrlRequest {
         message = "URL must start with http:// or https://"
     )
     private String url;
+    
+    // Optional: the link expires this many seconds after it is created
+    @Positive(message = "ttlSeconds must be positive")
+    private Long ttlSeconds;
+    
+    // Optional: the link expires at this time (server-local, e.g. 2030-01-01T00:00:00)
+    @Future(message = "expiresAt must be in the future")
+    private LocalDateTime expiresAt;
+    
+    // Optional: FOUND (302), TEMPORARY_REDIRECT (307), MOVED_PERMANENTLY (301) or PERMANENT_REDIRECT (308)
+    private RedirectType redirectType;
+    
+    public UrlRequest(String url) {
+        this.url = url;
+    }
+    
+    @JsonIgnore
+    @AssertTrue(message = "Set either ttlSeconds or expiresAt, not both")
+    public boolean isExpiryUnambiguous() {
+        return ttlSeconds == null || expiresAt == null;
+    }
 } 
\ No newline at end of file
@@ -1,5 +1,8 @@
 package com.urlshortener.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.urlshortener.entity.RedirectType;
+import com.urlshortener.util.StringHash;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -26,4 +29,17 @@ public class UrlResponse {
     private String shortCode;   // Just the code (e.g., abc123)
     private LocalDateTime createdAt;
     private Long hitCount;
-} 
\ No newline at end of file
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private LocalDateTime expiresAt;   // Only set for expiring links
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private RedirectType redirectType; // Only set for links with their own redirect type
+    
+    /**
+     * ETag of this response: a hash of all its fields (the hit count changes it)
+     */
+    public String etag() {
+        String fields = shortUrl + '\n' + originalUrl + '\n' + createdAt + '\n' + hitCount
+                + '\n' + expiresAt + '\n' + redirectType;
+        return Long.toHexString(StringHash.hash64(fields));
+    }
+}
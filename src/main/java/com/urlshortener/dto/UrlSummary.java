@@ -0,0 +1,42 @@
+package com.urlshortener.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.urlshortener.entity.RedirectType;
+import com.urlshortener.entity.Url;
+
+import java.time.LocalDateTime;
+
+/**
+ * Immutable, read-only view of a shortened URL
+ * 
+ * Lookups return this record instead of the Url entity:
+ * - The repository builds it straight from a JPQL constructor expression,
+ *   so no managed entity (and no dirty-checking snapshot) is created
+ * - It can be shared across threads and cached safely
+ * 
+ * expiresAt is null for URLs that never expire, and redirectType is null for
+ * URLs that use the configured default (both are left out of exports then).
+ */
+public record UrlSummary(
+        String shortCode,
+        String originalUrl,
+        LocalDateTime createdAt,
+        Long hitCount,
+        @JsonInclude(JsonInclude.Include.NON_NULL) LocalDateTime expiresAt,
+        @JsonInclude(JsonInclude.Include.NON_NULL) RedirectType redirectType) {
+    
+    /**
+     * Create a summary from an entity (e.g. one that was just saved)
+     */
+    public static UrlSummary from(Url url) {
+        return new UrlSummary(url.getShortCode(), url.getOriginalUrl(), url.getCreatedAt(), url.getHitCount(),
+                url.getExpiresAt(), url.getRedirectType());
+    }
+    
+    /**
+     * Copy of this summary with a different hit count
+     */
+    public UrlSummary withHitCount(long newHitCount) {
+        return new UrlSummary(shortCode, originalUrl, createdAt, newHitCount, expiresAt, redirectType);
+    }
+}
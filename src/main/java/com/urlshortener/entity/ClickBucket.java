@@ -0,0 +1,48 @@
+package com.urlshortener.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Click counts for one short code in one minute or hour
+ *
+ * @EmbeddedId - The primary key is the composite ClickBucketId
+ *
+ * Rows are written with batched JDBC (see ClickBucketRepositoryCustomImpl);
+ * JPA is only used to create the table and to read statistics.
+ */
+@Entity
+@Table(name = "click_buckets")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClickBucket {
+
+    @EmbeddedId
+    private ClickBucketId id;
+
+    // All clicks in the bucket
+    @Column(name = "clicks", nullable = false)
+    private long clicks;
+
+    // Clicks from crawlers and scripted clients
+    @Column(name = "bot_clicks", nullable = false)
+    private long botClicks;
+
+    // Clicks from mobile browsers
+    @Column(name = "mobile_clicks", nullable = false)
+    private long mobileClicks;
+
+    // Clicks that came with a Referer header
+    @Column(name = "referred_clicks", nullable = false)
+    private long referredClicks;
+
+    public ClickBucket(ClickBucketId id) {
+        this.id = id;
+    }
+}
@@ -0,0 +1,35 @@
+package com.urlshortener.entity;
+
+import com.urlshortener.clicks.ClickGranularity;
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Primary key of a click statistics bucket: short code + granularity + bucket start (UTC)
+ *
+ * @Embeddable - A value type stored in the owning entity's table
+ */
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClickBucketId implements Serializable {
+
+    @Column(name = "short_code", nullable = false, length = Url.MAX_SHORT_CODE_LENGTH)
+    private String shortCode;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "granularity", nullable = false, length = 8)
+    private ClickGranularity granularity;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+}
@@ -0,0 +1,52 @@
+package com.urlshortener.entity;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * How a short URL redirects: the HTTP status and whether clients may cache it
+ *
+ * - Temporary (302, 307): every click comes back to the server, so every
+ *   click is counted. Sent with Cache-Control: no-store.
+ * - Permanent (301, 308): browsers and CDNs may answer repeat clicks from
+ *   their cache for Cache-Control max-age seconds, without reaching the
+ *   server. Those clicks are not counted. Only for links that never change.
+ *
+ * 307 and 308 keep the request method (a POST stays a POST); 301 and 302
+ * may turn it into a GET, which is what browsers do.
+ */
+public enum RedirectType {
+
+    MOVED_PERMANENTLY(HttpStatus.MOVED_PERMANENTLY),
+    FOUND(HttpStatus.FOUND),
+    TEMPORARY_REDIRECT(HttpStatus.TEMPORARY_REDIRECT),
+    PERMANENT_REDIRECT(HttpStatus.PERMANENT_REDIRECT);
+
+    private static final RedirectType[] VALUES = values();
+
+    private final HttpStatus status;
+
+    RedirectType(HttpStatus status) {
+        this.status = status;
+    }
+
+    public HttpStatus status() {
+        return status;
+    }
+
+    public boolean isPermanent() {
+        return this == MOVED_PERMANENTLY || this == PERMANENT_REDIRECT;
+    }
+
+    /**
+     * The redirect type with the given HTTP status code
+     * @throws IllegalArgumentException if the code isn't one of 301, 302, 307 or 308
+     */
+    public static RedirectType ofStatus(int statusCode) {
+        for (RedirectType type : VALUES) {
+            if (type.status.value() == statusCode) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Not a redirect status: " + statusCode);
+    }
+}
@@ -0,0 +1,32 @@
+package com.urlshortener.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Clicks for one short code from one referrer host in one hour
+ *
+ * Written with batched JDBC like ClickBucket.
+ */
+@Entity
+@Table(name = "referrer_buckets")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReferrerBucket {
+
+    @EmbeddedId
+    private ReferrerBucketId id;
+
+    @Column(name = "clicks", nullable = false)
+    private long clicks;
+
+    public ReferrerBucket(ReferrerBucketId id) {
+        this.id = id;
+    }
+}
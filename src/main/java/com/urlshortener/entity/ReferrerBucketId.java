@@ -0,0 +1,34 @@
+package com.urlshortener.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Primary key of a referrer bucket: short code + hour start (UTC) + referrer host
+ */
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReferrerBucketId implements Serializable {
+
+    // Host name stored for referrers that aren't tracked individually
+    public static final String OTHER_HOST = "(other)";
+
+    public static final int MAX_HOST_LENGTH = 255;
+
+    @Column(name = "short_code", nullable = false, length = Url.MAX_SHORT_CODE_LENGTH)
+    private String shortCode;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "referrer_host", nullable = false, length = MAX_HOST_LENGTH)
+    private String referrerHost;
+}
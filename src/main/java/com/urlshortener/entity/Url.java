@@ -1,5 +1,6 @@
 package com.urlshortener.entity;
 
+import com.urlshortener.util.UrlHasher;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -12,9 +13,11 @@ import java.time.LocalDateTime;
  * 
  * JPA Annotations explained:
  * @Entity - Marks this class as a JPA entity (database table)
- * @Table - Specifies the table name in the database
+ * @Table - Specifies the table name (and extra indexes) in the database
  * @Id - Marks the primary key field
  * @GeneratedValue - Tells JPA to auto-generate the ID value
+ * @SequenceGenerator - IDs come from a database sequence, 50 at a time
+ *   (unlike IDENTITY, this lets Hibernate batch inserts)
  * @Column - Customizes column properties
  * 
  * Lombok Annotations:
@@ -23,14 +26,22 @@ import java.time.LocalDateTime;
  * @AllArgsConstructor - Generates constructor with all fields
  */
 @Entity
-@Table(name = "urls")
+@Table(name = "urls", indexes = {
+        // Covering index for the redirect query (original URL, expiry and redirect type read from the index entry)
+        @Index(name = "ix_urls_redirect_target", columnList = "short_code, original_url, expires_at, redirect_type"),
+        // Range scans by creation time
+        @Index(name = "ix_urls_created_at", columnList = "created_at"),
+        // The expiry reaper deletes the earliest expired URLs first
+        @Index(name = "ix_urls_expires_at", columnList = "expires_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Url {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "urls_seq")
+    @SequenceGenerator(name = "urls_seq", sequenceName = "urls_seq", allocationSize = 50)
     private Long id;
     
     // The original long URL
@@ -38,9 +49,16 @@ public class Url {
     private String originalUrl;
     
     // The short code (e.g., "abc123")
-    @Column(name = "short_code", unique = true, nullable = false, length = 10)
+    // Sequence-based codes grow with the keyspace (up to 11 characters), so leave some room
+    @Column(name = "short_code", unique = true, nullable = false, length = MAX_SHORT_CODE_LENGTH)
     private String shortCode;
     
+    // SHA-256 of the original URL, only set when deduplication is enabled
+    // Unique, so two concurrent requests can't both create a mapping for the same URL
+    // (rows without a hash are NULL, which the unique index allows any number of)
+    @Column(name = "url_hash", unique = true, length = UrlHasher.HASH_LENGTH)
+    private byte[] urlHash;
+    
     // Timestamp when the URL was created
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
@@ -49,9 +67,24 @@ public class Url {
     @Column(name = "hit_count", nullable = false)
     private Long hitCount = 0L;
     
+    // When the short URL stops redirecting (null: never)
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+    
+    // Status code and caching of the redirect (null: urlshortener.redirect.default-type)
+    @Enumerated(EnumType.STRING)
+    @Column(name = "redirect_type", length = 20)
+    private RedirectType redirectType;
+    
+    // Maximum length of a short code (matches the column definition)
+    public static final int MAX_SHORT_CODE_LENGTH = 16;
+    
     // Automatically set creation timestamp before persisting
+    // (unless it is already set, e.g. for imported URLs)
     @PrePersist
     protected void onCreate() {
-        this.createdAt = LocalDateTime.now();
+        if (this.createdAt == null) {
+            this.createdAt = LocalDateTime.now();
+        }
     }
 } 
\ No newline at end of file
@@ -1,15 +1,19 @@
 package com.urlshortener.exception;
 
 import com.urlshortener.dto.ErrorResponse;
+import com.urlshortener.util.RateLimitedLogger;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
@@ -24,6 +28,12 @@ import java.util.Map;
 @Slf4j
 public class GlobalExceptionHandler {
     
+    // Unknown codes are client errors that can arrive in floods, so they are rate limited
+    private static final RateLimitedLogger NOT_FOUND_LOG = new RateLimitedLogger(log, 10, Duration.ofSeconds(1));
+    
+    // The same goes for clients that are over their rate limit
+    private static final RateLimitedLogger RATE_LIMIT_LOG = new RateLimitedLogger(log, 10, Duration.ofSeconds(1));
+    
     /**
      * Handle UrlNotFoundException
      */
@@ -32,7 +42,7 @@ public class GlobalExceptionHandler {
             UrlNotFoundException ex,
             HttpServletRequest request) {
         
-        log.error("URL not found: {}", ex.getMessage());
+        NOT_FOUND_LOG.info("URL not found: {}", ex.getMessage());
         
         ErrorResponse errorResponse = ErrorResponse.builder()
                 .message(ex.getMessage())
@@ -45,6 +55,54 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
     }
     
+    /**
+     * Handle InvalidRequestException
+     */
+    @ExceptionHandler(InvalidRequestException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidRequestException(
+            InvalidRequestException ex,
+            HttpServletRequest request) {
+        
+        log.warn("Invalid request: {}", ex.getMessage());
+        
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .message(ex.getMessage())
+                .error("Bad Request")
+                .status(HttpStatus.BAD_REQUEST.value())
+                .timestamp(LocalDateTime.now())
+                .path(request.getRequestURI())
+                .build();
+        
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+    }
+    
+    /**
+     * Handle TooManyRequestsException
+     * 
+     * 429 Too Many Requests; Retry-After tells the client how many seconds to wait
+     */
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ErrorResponse> handleTooManyRequestsException(
+            TooManyRequestsException ex,
+            HttpServletRequest request) {
+        
+        RATE_LIMIT_LOG.warn("Too many requests: {}", request.getRemoteAddr());
+        
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .message(ex.getMessage())
+                .error("Too Many Requests")
+                .status(HttpStatus.TOO_MANY_REQUESTS.value())
+                .timestamp(LocalDateTime.now())
+                .path(request.getRequestURI())
+                .build();
+        
+        // Whole seconds, rounded up so the client never retries too early
+        long retryAfterSeconds = Math.max(1, (ex.getRetryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+                .body(errorResponse);
+    }
+    
     /**
      * Handle validation errors
      * 
@@ -77,6 +135,29 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
     }
     
+    /**
+     * Handle request bodies that can't be read
+     * 
+     * Malformed JSON, or a value of the wrong type (e.g. an unknown redirectType)
+     */
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<ErrorResponse> handleMessageNotReadableException(
+            HttpMessageNotReadableException ex,
+            HttpServletRequest request) {
+        
+        log.warn("Unreadable request body: {}", ex.getMostSpecificCause().getMessage());
+        
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .message("Malformed request body")
+                .error("Bad Request")
+                .status(HttpStatus.BAD_REQUEST.value())
+                .timestamp(LocalDateTime.now())
+                .path(request.getRequestURI())
+                .build();
+        
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+    }
+    
     /**
      * Handle general runtime exceptions
      */
@@ -0,0 +1,14 @@
+package com.urlshortener.exception;
+
+/**
+ * Custom exception thrown when a request is well-formed but can't be accepted
+ * (e.g. a bulk request with too many items)
+ * 
+ * Mapped to 400 Bad Request by GlobalExceptionHandler
+ */
+public class InvalidRequestException extends RuntimeException {
+    
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
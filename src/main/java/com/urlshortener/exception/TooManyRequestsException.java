@@ -0,0 +1,27 @@
+package com.urlshortener.exception;
+
+import java.time.Duration;
+
+/**
+ * Exception thrown when a client sends requests faster than it is allowed to
+ *
+ * Answered with 429 Too Many Requests and a Retry-After header.
+ * Thrown for every rejected request of a flood, so like UrlNotFoundException
+ * it skips the stack trace.
+ */
+public class TooManyRequestsException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public TooManyRequestsException(String message, Duration retryAfter) {
+        super(message, null, false, false);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * How long the client should wait before trying again
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -7,11 +7,15 @@ package com.urlshortener.exception;
  * - Better error handling and messaging
  * - Specific exception handling in controllers
  * - Clean separation of different error types
+ * 
+ * Unknown codes are requested by clients all the time, so this exception
+ * skips the (expensive) stack trace: it always means "not in the database",
+ * never a bug. The redirect path doesn't throw it at all.
  */
 public class UrlNotFoundException extends RuntimeException {
     
     public UrlNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
     
     public UrlNotFoundException(String message, Throwable cause) {
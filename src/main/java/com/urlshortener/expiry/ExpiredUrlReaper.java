@@ -0,0 +1,116 @@
+package com.urlshortener.expiry;
+
+import com.urlshortener.cache.ShortCodeCache;
+import com.urlshortener.config.ExpiryProperties;
+import com.urlshortener.config.MaintenanceScheduler;
+import com.urlshortener.metrics.UrlMetrics;
+import com.urlshortener.offheap.OffHeapRedirectStore;
+import com.urlshortener.repository.ClickBucketRepository;
+import com.urlshortener.repository.ReferrerBucketRepository;
+import com.urlshortener.storage.UrlStorageEngine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Background deletion of expired URLs
+ *
+ * Every urlshortener.expiry.reap-interval the reaper deletes the URLs that
+ * expired more than urlshortener.expiry.grace-period ago (until then they
+ * answer 410 Gone). Deletes go through the storage engine in batches of
+ * reap-batch-size, each its own short transaction found through the index on
+ * expires_at, so the reaper never scans the table or holds many locks. At
+ * most max-batches-per-run batches are deleted per run; a larger backlog is
+ * worked off over the next runs.
+ *
+ * For every deleted URL the cached redirect target and the click statistics
+ * are removed as well. Afterwards the code is unknown (404); random short
+ * codes may be issued again, sequence-based ones never are.
+ */
+@Component
+@Slf4j
+public class ExpiredUrlReaper {
+
+    private final UrlStorageEngine storageEngine;
+    private final ShortCodeCache shortCodeCache;
+    private final OffHeapRedirectStore offHeapRedirectStore;
+    private final ClickBucketRepository clickBucketRepository;
+    private final ReferrerBucketRepository referrerBucketRepository;
+    private final MaintenanceScheduler maintenanceScheduler;
+    private final UrlMetrics urlMetrics;
+    private final ExpiryProperties properties;
+
+    private ScheduledFuture<?> scheduledReap;
+
+    public ExpiredUrlReaper(UrlStorageEngine storageEngine,
+                            ShortCodeCache shortCodeCache,
+                            OffHeapRedirectStore offHeapRedirectStore,
+                            ClickBucketRepository clickBucketRepository,
+                            ReferrerBucketRepository referrerBucketRepository,
+                            MaintenanceScheduler maintenanceScheduler,
+                            UrlMetrics urlMetrics,
+                            ExpiryProperties properties) {
+        this.storageEngine = storageEngine;
+        this.shortCodeCache = shortCodeCache;
+        this.offHeapRedirectStore = offHeapRedirectStore;
+        this.clickBucketRepository = clickBucketRepository;
+        this.referrerBucketRepository = referrerBucketRepository;
+        this.maintenanceScheduler = maintenanceScheduler;
+        this.urlMetrics = urlMetrics;
+        this.properties = properties;
+    }
+
+    /**
+     * Start reaping on the maintenance thread
+     */
+    @PostConstruct
+    public void start() {
+        scheduledReap = maintenanceScheduler.scheduleWithFixedDelay(this::reap, properties.getReapInterval());
+        log.info("Expired URL reaper started (interval {}, grace period {})",
+                properties.getReapInterval(), properties.getGracePeriod());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduledReap != null) {
+            scheduledReap.cancel(false);
+        }
+    }
+
+    /**
+     * Delete the URLs whose grace period is over, one batch at a time
+     * @return The number of deleted URLs
+     */
+    public int reap() {
+        LocalDateTime expiredBefore = LocalDateTime.now().minus(properties.getGracePeriod());
+        int batchSize = properties.getReapBatchSize();
+        int reaped = 0;
+        try {
+            for (int batch = 0; batch < properties.getMaxBatchesPerRun(); batch++) {
+                List<String> shortCodes = storageEngine.deleteExpired(expiredBefore, batchSize);
+                if (!shortCodes.isEmpty()) {
+                    shortCodes.forEach(shortCodeCache::invalidate);
+                    shortCodes.forEach(offHeapRedirectStore::remove);
+                    clickBucketRepository.deleteByShortCodes(shortCodes);
+                    referrerBucketRepository.deleteByShortCodes(shortCodes);
+                    urlMetrics.recordReaped(shortCodes.size());
+                    reaped += shortCodes.size();
+                }
+                if (shortCodes.size() < batchSize) {
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Reaping expired URLs failed, will retry", e);
+        }
+        if (reaped > 0) {
+            log.info("Deleted {} URLs that expired before {}", reaped, expiredBefore);
+        }
+        return reaped;
+    }
+}
@@ -0,0 +1,212 @@
+package com.urlshortener.heavyhitters;
+
+import com.urlshortener.cache.ShortCodeCache;
+import com.urlshortener.config.HeavyHitterProperties;
+import com.urlshortener.dto.HeavyHitter;
+import com.urlshortener.dto.HeavyHittersResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Streaming heavy-hitter detection: which short codes are redirected most right now
+ *
+ * Url.hitCount counts since creation and needs a query per row; this answers
+ * "what is hot in the last few minutes" from memory:
+ * - record() is called for every successful redirect
+ * - Time is split into windows (urlshortener.heavy-hitters.window); each has
+ *   its own Space-Saving summaries (see SpaceSaving), and only the last
+ *   urlshortener.heavy-hitters.windows windows are kept, so the counts slide
+ *   with time. A window is replaced by a fresh one when its slot comes round again.
+ * - Each window is split into one stripe per CPU, each with its own lock and
+ *   its own full-size summary. A redirect counts in a random stripe, so even
+ *   the redirects of one viral code rarely wait for each other. Every stripe
+ *   sees a random sample of the traffic, so a code frequent enough for one
+ *   summary of capacity counters has a counter in each stripe too, and top()
+ *   adds the stripes up like it adds up the windows.
+ * - Memory is fixed: windows * stripes * capacity counters, however many codes exist
+ *
+ * Every urlshortener.heavy-hitters.pin-interval the top pin-top codes are
+ * pinned in the short code cache, so eviction never drops them.
+ */
+@Component
+@Slf4j
+public class HeavyHitterTracker {
+
+    // The number of CPUs, rounded up to a power of two
+    private static final int STRIPES = Math.min(16,
+            Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+
+    /**
+     * Counters of one time window
+     */
+    private static final class Window {
+        final long number;   // currentTimeMillis() / window length
+        final SpaceSaving<String>[] stripes;
+        final LongAdder total = new LongAdder();
+
+        @SuppressWarnings("unchecked")
+        Window(long number, int capacity) {
+            this.number = number;
+            this.stripes = (SpaceSaving<String>[]) new SpaceSaving<?>[STRIPES];
+            for (int i = 0; i < STRIPES; i++) {
+                stripes[i] = new SpaceSaving<>(capacity);
+            }
+        }
+    }
+
+    private final ShortCodeCache shortCodeCache;
+    private final TaskScheduler taskScheduler;
+    private final HeavyHitterProperties properties;
+    private final boolean enabled;
+    private final long windowMillis;
+    private final int windowCount;
+    private final int capacity;
+
+    private final AtomicReferenceArray<Window> windows;
+    private ScheduledFuture<?> scheduledPin;
+
+    public HeavyHitterTracker(ShortCodeCache shortCodeCache,
+                              TaskScheduler taskScheduler,
+                              HeavyHitterProperties properties) {
+        this.shortCodeCache = shortCodeCache;
+        this.taskScheduler = taskScheduler;
+        this.properties = properties;
+        this.enabled = properties.isEnabled();
+        this.windowMillis = Math.max(1, properties.getWindow().toMillis());
+        this.windowCount = Math.max(1, properties.getWindows());
+        this.capacity = Math.max(1, properties.getCapacity());
+        this.windows = new AtomicReferenceArray<>(windowCount);
+    }
+
+    /**
+     * Start pinning the top codes in the cache
+     */
+    @PostConstruct
+    public void start() {
+        if (enabled && properties.getPinTop() > 0) {
+            scheduledPin = taskScheduler.scheduleWithFixedDelay(this::pinTopCodes, properties.getPinInterval());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduledPin != null) {
+            scheduledPin.cancel(false);
+        }
+    }
+
+    /**
+     * Count one redirect of a short code
+     */
+    public void record(String shortCode) {
+        if (!enabled) {
+            return;
+        }
+        Window window = currentWindow(System.currentTimeMillis() / windowMillis);
+        window.total.increment();
+        SpaceSaving<String> stripe = window.stripes[ThreadLocalRandom.current().nextInt(STRIPES)];
+        synchronized (stripe) {
+            stripe.add(shortCode);
+        }
+    }
+
+    /**
+     * The limit short codes with the most redirects in the kept windows, most first
+     *
+     * Counts of the same code in different windows and stripes are added up
+     * (Space-Saving summaries merge by addition). A summary in which a code had
+     * no counter adds nothing to it, so codes near the bottom of the list may be
+     * counted too low; the hot ones have a counter in every summary.
+     */
+    public HeavyHittersResponse top(int limit) {
+        long nowMillis = System.currentTimeMillis();
+        long currentNumber = nowMillis / windowMillis;
+        long oldestNumber = currentNumber;
+        long totalRedirects = 0;
+        Map<String, long[]> merged = new HashMap<>();
+
+        for (int slot = 0; slot < windowCount; slot++) {
+            Window window = windows.get(slot);
+            if (window == null || currentNumber - window.number >= windowCount) {
+                continue;
+            }
+            oldestNumber = Math.min(oldestNumber, window.number);
+            totalRedirects += window.total.sum();
+            for (SpaceSaving<String> stripe : window.stripes) {
+                synchronized (stripe) {
+                    stripe.forEach((shortCode, count, error) -> {
+                        long[] sums = merged.computeIfAbsent(shortCode, code -> new long[2]);
+                        sums[0] += count;
+                        sums[1] += error;
+                    });
+                }
+            }
+        }
+
+        List<HeavyHitter> shortCodes = new ArrayList<>(merged.size());
+        merged.forEach((shortCode, sums) -> shortCodes.add(new HeavyHitter(shortCode, sums[0], sums[1])));
+        shortCodes.sort(Comparator.comparingLong(HeavyHitter::hits).reversed());
+
+        return HeavyHittersResponse.builder()
+                .from(utc(oldestNumber * windowMillis))
+                .to(utc(nowMillis))
+                .totalRedirects(totalRedirects)
+                .shortCodes(List.copyOf(shortCodes.subList(0, Math.min(limit, shortCodes.size()))))
+                .build();
+    }
+
+    /**
+     * Number of counters per window; longer top lists aren't reliable
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    private void pinTopCodes() {
+        try {
+            // Most redirected first, so the hot-set snapshot keeps the top of the list
+            List<String> topCodes = top(properties.getPinTop()).getShortCodes().stream()
+                    .map(HeavyHitter::shortCode)
+                    .toList();
+            shortCodeCache.pin(topCodes);
+        } catch (RuntimeException e) {
+            log.error("Failed to pin hot short codes, will retry", e);
+        }
+    }
+
+    /**
+     * The window for the given window number, replacing the one in its slot if that is older
+     */
+    private Window currentWindow(long number) {
+        int slot = (int) (number % windowCount);
+        Window window = windows.get(slot);
+        while (window == null || window.number < number) {
+            Window fresh = new Window(number, capacity);
+            if (windows.compareAndSet(slot, window, fresh)) {
+                return fresh;
+            }
+            window = windows.get(slot);
+        }
+        return window;
+    }
+
+    private static LocalDateTime utc(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC);
+    }
+}
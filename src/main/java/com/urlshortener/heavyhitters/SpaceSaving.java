@@ -0,0 +1,151 @@
+package com.urlshortener.heavyhitters;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Space-Saving summary: approximate counts of the most frequent keys in fixed memory
+ *
+ * Keeps at most capacity counters. A new key, once all counters are taken,
+ * replaces the key with the smallest count and inherits that count (+1). Its
+ * count can therefore be too high, by at most the inherited part, which is
+ * remembered as its error. Guarantees (n = number of add() calls):
+ * - every key that was added more than n / capacity times has a counter
+ * - a counter is never lower than the key's true count, and at most
+ *   error higher
+ *
+ * The counters form a min-heap on their count, so the smallest one is found
+ * in O(1) and add() costs O(log capacity). Memory doesn't depend on the
+ * number of distinct keys.
+ *
+ * Usage:
+ * SpaceSaving<String> summary = new SpaceSaving<>(1000);
+ * summary.add("abc123");
+ * summary.forEach((key, count, error) -> ...);
+ *
+ * Not thread-safe: HeavyHitterTracker guards each summary with a lock.
+ */
+public final class SpaceSaving<K> {
+
+    /**
+     * Receives one counter of a summary
+     */
+    @FunctionalInterface
+    public interface CounterConsumer<K> {
+        void accept(K key, long count, long error);
+    }
+
+    private static final class Counter<K> {
+        K key;
+        long count;
+        long error;
+        int heapIndex;
+    }
+
+    private final int capacity;
+    private final Map<K, Counter<K>> counters;
+    private final Counter<K>[] heap;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 4 / 3 + 1);
+        this.heap = (Counter<K>[]) new Counter<?>[capacity];
+    }
+
+    /**
+     * Count one occurrence of a key
+     */
+    public void add(K key) {
+        Counter<K> counter = counters.get(key);
+        if (counter != null) {
+            counter.count++;
+            siftDown(counter.heapIndex);
+            return;
+        }
+
+        if (size < capacity) {
+            // A new counter (count 1) is never larger than any other: it moves up
+            counter = new Counter<>();
+            counter.key = key;
+            counter.count = 1;
+            counters.put(key, counter);
+            heap[size] = counter;
+            siftUp(size++);
+            return;
+        }
+
+        // All counters taken: the key takes over the smallest one
+        counter = heap[0];
+        counters.remove(counter.key);
+        counter.key = key;
+        counter.error = counter.count;
+        counter.count++;
+        counters.put(key, counter);
+        siftDown(0);
+    }
+
+    /**
+     * Number of keys with a counter
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * The smallest count in the summary (0 while there are free counters)
+     * A key without a counter occurred at most this many times.
+     */
+    public long minCount() {
+        return size < capacity ? 0 : heap[0].count;
+    }
+
+    /**
+     * Visit all counters (in no particular order)
+     */
+    public void forEach(CounterConsumer<? super K> consumer) {
+        for (int i = 0; i < size; i++) {
+            consumer.accept(heap[i].key, heap[i].count, heap[i].error);
+        }
+    }
+
+    private void siftUp(int index) {
+        Counter<K> counter = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (heap[parent].count <= counter.count) {
+                break;
+            }
+            heap[index] = heap[parent];
+            heap[index].heapIndex = index;
+            index = parent;
+        }
+        heap[index] = counter;
+        counter.heapIndex = index;
+    }
+
+    private void siftDown(int index) {
+        Counter<K> counter = heap[index];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1].count < heap[child].count) {
+                child++;
+            }
+            if (heap[child].count >= counter.count) {
+                break;
+            }
+            heap[index] = heap[child];
+            heap[index].heapIndex = index;
+            index = child;
+        }
+        heap[index] = counter;
+        counter.heapIndex = index;
+    }
+}
@@ -0,0 +1,153 @@
+package com.urlshortener.hitcount;
+
+import com.urlshortener.config.HitCountProperties;
+import com.urlshortener.storage.UrlStorageEngine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind hit counter
+ *
+ * Instead of an UPDATE per redirect, hits are counted in memory and
+ * written to the database in batches:
+ * - record() only increments a striped counter for the short code (no locks, no I/O, see PendingHits)
+ * - flush() runs on the scheduler every urlshortener.hits.flush-interval,
+ *   or early once urlshortener.hits.max-pending-codes codes are pending,
+ *   and applies all deltas with one batched UPDATE
+ * - Pending hits are drained when the application shuts down
+ *
+ * Hits still pending when the process dies without a clean shutdown are lost.
+ */
+@Component
+@Slf4j
+public class HitCountAggregator {
+
+    private final UrlStorageEngine storageEngine;
+    private final TaskScheduler taskScheduler;
+    private final Duration flushInterval;
+    private final int maxPendingCodes;
+
+    private final ConcurrentHashMap<String, PendingHits> pendingByShortCode = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean earlyFlushScheduled = new AtomicBoolean();
+    private ScheduledFuture<?> scheduledFlush;
+
+    public HitCountAggregator(UrlStorageEngine storageEngine,
+                              TaskScheduler taskScheduler,
+                              HitCountProperties properties) {
+        this.storageEngine = storageEngine;
+        this.taskScheduler = taskScheduler;
+        this.flushInterval = properties.getFlushInterval();
+        this.maxPendingCodes = properties.getMaxPendingCodes();
+    }
+
+    /**
+     * Start the periodic flush on Spring's task scheduler
+     */
+    @PostConstruct
+    public void start() {
+        scheduledFlush = taskScheduler.scheduleWithFixedDelay(this::flush, flushInterval);
+    }
+
+    /**
+     * Count one hit for a short code
+     */
+    public void record(String shortCode) {
+        while (true) {
+            PendingHits pendingHits = pendingByShortCode.get(shortCode);
+            if (pendingHits == null) {
+                pendingHits = pendingByShortCode.computeIfAbsent(shortCode, code -> new PendingHits());
+                if (pendingByShortCode.size() >= maxPendingCodes) {
+                    requestEarlyFlush();
+                }
+            }
+            if (pendingHits.increment()) {
+                return;
+            }
+            // Retired by a flush between get() and the increment: it is out of the map, count the hit anew
+        }
+    }
+
+    /**
+     * Hits recorded for a short code that are not yet in the database
+     */
+    public long pendingHits(String shortCode) {
+        PendingHits pendingHits = pendingByShortCode.get(shortCode);
+        return pendingHits == null ? 0 : pendingHits.pending();
+    }
+
+    /**
+     * Write all pending hits to the database
+     *
+     * Codes that received no hits since the previous flush are dropped
+     * from the map, so memory stays proportional to the active codes.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            earlyFlushScheduled.set(false);
+
+            Map<String, Long> deltas = new HashMap<>();
+            List<PendingHits> flushedEntries = new ArrayList<>();
+
+            pendingByShortCode.forEach((shortCode, pendingHits) -> {
+                if (pendingHits.retireIfIdle()) {
+                    // Idle since the last flush: drop it (hits from now on go to a new entry)
+                    pendingByShortCode.remove(shortCode, pendingHits);
+                    pendingHits.retired();
+                    return;
+                }
+                long delta = pendingHits.prepareFlush();
+                if (delta > 0) {
+                    deltas.put(shortCode, delta);
+                    flushedEntries.add(pendingHits);
+                }
+            });
+
+            if (deltas.isEmpty()) {
+                return;
+            }
+
+            storageEngine.addHitCounts(deltas);
+
+            // Only mark hits as flushed once they are committed, so a failed flush is retried
+            flushedEntries.forEach(PendingHits::confirmFlush);
+            log.debug("Flushed hit counts for {} short codes", deltas.size());
+
+        } catch (RuntimeException e) {
+            log.error("Failed to flush hit counts, will retry on next flush", e);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Drain pending hits before the application stops
+     */
+    @PreDestroy
+    public void shutdown() {
+        log.info("Flushing pending hit counts before shutdown");
+        scheduledFlush.cancel(false);
+        flush();
+    }
+
+    private void requestEarlyFlush() {
+        if (earlyFlushScheduled.compareAndSet(false, true)) {
+            taskScheduler.schedule(this::flush, Instant.now());
+        }
+    }
+}
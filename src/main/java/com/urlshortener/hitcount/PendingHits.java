@@ -0,0 +1,202 @@
+package com.urlshortener.hitcount;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hits for one short code that are not yet in the database
+ *
+ * Counting works like a LongAdder: a single counter while the code is quiet,
+ * and once two threads collide on it, one counter per stripe (each on its own
+ * cache line), so the redirects of a viral code don't all hit one cache line.
+ * The counters only ever grow; the flush remembers how much of each it already
+ * wrote, so an increment racing with a flush is never lost.
+ *
+ * An idle entry is retired by swapping every counter from its flushed value to
+ * SEALED, which only succeeds if no hit came in since. An increment that lands
+ * on a sealed counter sees the negative value, so it knows its hit was not
+ * counted: it waits the few microseconds until the flush decides, then either
+ * counts again (the entry stays) or reports the entry as retired (the caller
+ * counts the hit in a new entry). If one swap fails, the ones already made
+ * are undone.
+ *
+ * Only one flush at a time may call prepareFlush(), confirmFlush() and
+ * retireIfIdle(). Shared by HitCountAggregator and the hit counter of the
+ * reactive variant (see reactive/).
+ */
+public final class PendingHits {
+
+    private static final long SEALED = Long.MIN_VALUE;
+
+    // Stripes per busy code: the number of CPUs, rounded up to a power of two
+    private static final int STRIPES = Math.min(64,
+            Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+
+    // Longs per cache line, stripe i lives at index i * PAD
+    private static final int PAD = 8;
+
+    // Installed instead of the stripes while an entry without stripes is being retired
+    private static final AtomicLongArray SEALED_STRIPES = sealedStripes();
+
+    private static final int ACTIVE = 0;
+    private static final int RETIRING = 1;
+    private static final int RETIRED = 2;
+
+    private final AtomicLong base = new AtomicLong();
+    private final AtomicReference<AtomicLongArray> stripes = new AtomicReference<>();
+    private volatile int state = ACTIVE;
+
+    // What the last successful flush wrote, per counter and in total
+    private long flushedBase;
+    private long[] flushedStripes;
+    private volatile long flushed;
+
+    // Snapshot of the flush in progress, becomes the flushed state in confirmFlush()
+    private long preparedBase;
+    private long[] preparedStripes;
+    private long preparedTotal;
+
+    /**
+     * Count one hit, false if the entry was retired and the hit must be counted in a new entry
+     */
+    public boolean increment() {
+        while (true) {
+            long count = base.get();
+            if (count < 0) {
+                if (!awaitRetirement()) {
+                    return false;
+                }
+                continue;
+            }
+            AtomicLongArray counters = stripes.get();
+            if (counters == null) {
+                if (base.compareAndSet(count, count + 1)) {
+                    return true;
+                }
+                // Another thread counted at the same time: spread this code over stripes
+                stripes.compareAndSet(null, new AtomicLongArray(STRIPES * PAD));
+                continue;
+            }
+            int stripe = ThreadLocalRandom.current().nextInt(STRIPES);
+            if (counters.getAndIncrement(stripe * PAD) >= 0) {
+                return true;
+            }
+            if (!awaitRetirement()) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Hits counted but not written yet (approximate while hits come in)
+     */
+    public long pending() {
+        return Math.max(0, total() - flushed);
+    }
+
+    /**
+     * Snapshot the counters for a flush, returning the hits to write
+     */
+    public long prepareFlush() {
+        preparedBase = base.get();
+        AtomicLongArray counters = stripes.get();
+        preparedStripes = counters == null ? null : new long[STRIPES];
+        long total = preparedBase;
+        for (int i = 0; counters != null && i < STRIPES; i++) {
+            preparedStripes[i] = counters.get(i * PAD);
+            total += preparedStripes[i];
+        }
+        preparedTotal = total;
+        return total - flushed;
+    }
+
+    /**
+     * The hits from the last prepareFlush() are in the database
+     */
+    public void confirmFlush() {
+        flushedBase = preparedBase;
+        if (preparedStripes != null) {
+            flushedStripes = preparedStripes;
+        }
+        flushed = preparedTotal;
+    }
+
+    /**
+     * Seal the entry if it has no hits since the last flush
+     * On true the caller removes it from its map and then calls retired()
+     */
+    public boolean retireIfIdle() {
+        if (total() != flushed) {
+            return false;
+        }
+        state = RETIRING;
+        if (base.compareAndSet(flushedBase, SEALED)) {
+            if (stripes.compareAndSet(null, SEALED_STRIPES)) {
+                return true;
+            }
+            AtomicLongArray counters = stripes.get();
+            int sealed = 0;
+            while (sealed < STRIPES && counters.compareAndSet(sealed * PAD, flushedStripe(sealed), SEALED)) {
+                sealed++;
+            }
+            if (sealed == STRIPES) {
+                return true;
+            }
+            // A hit raced in: unseal, increments that saw a sealed counter count again
+            for (int i = 0; i < sealed; i++) {
+                counters.set(i * PAD, flushedStripe(i));
+            }
+            base.set(flushedBase);
+        }
+        state = ACTIVE;
+        return false;
+    }
+
+    /**
+     * The retired entry is out of the map, waiting increments count in a new entry
+     */
+    public void retired() {
+        state = RETIRED;
+    }
+
+    private long total() {
+        long total = base.get();
+        AtomicLongArray counters = stripes.get();
+        if (total < 0 || counters == SEALED_STRIPES) {
+            return flushed;
+        }
+        for (int i = 0; counters != null && i < STRIPES; i++) {
+            long count = counters.get(i * PAD);
+            if (count < 0) {
+                return flushed;
+            }
+            total += count;
+        }
+        return total;
+    }
+
+    private long flushedStripe(int stripe) {
+        return flushedStripes == null ? 0 : flushedStripes[stripe];
+    }
+
+    /**
+     * Wait until the flush sealing this entry decides, true if it stays in use
+     */
+    private boolean awaitRetirement() {
+        int current;
+        while ((current = state) == RETIRING) {
+            Thread.onSpinWait();
+        }
+        return current == ACTIVE;
+    }
+
+    private static AtomicLongArray sealedStripes() {
+        AtomicLongArray counters = new AtomicLongArray(STRIPES * PAD);
+        for (int i = 0; i < STRIPES; i++) {
+            counters.set(i * PAD, SEALED);
+        }
+        return counters;
+    }
+}
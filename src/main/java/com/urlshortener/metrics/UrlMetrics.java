@@ -0,0 +1,160 @@
+package com.urlshortener.metrics;
+
+import com.urlshortener.dto.RedirectResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Application metrics for the URL service
+ *
+ * Every meter is registered once, up front, with all of its tag combinations.
+ * Recording then only updates an existing meter: no Tags, builders or
+ * Timer.Sample objects are created per request, which keeps the redirect
+ * path allocation-free.
+ *
+ * Usage:
+ * long start = System.nanoTime();
+ * ... do the work ...
+ * urlMetrics.recordRedirect(start, result.status());
+ *
+ * Exposed at /actuator/prometheus, e.g. urlshortener_redirect_seconds_bucket
+ */
+@Component
+public class UrlMetrics {
+
+    private final Timer shortenSuccess;
+    private final Timer shortenError;
+    private final Timer redirectFound;
+    private final Timer redirectNotFound;
+    private final Timer redirectExpired;
+    private final Timer infoFound;
+    private final Timer infoNotFound;
+    private final Counter redirectNotFoundCodes;
+    private final Counter infoNotFoundCodes;
+    private final DistributionSummary collisionRetries;
+    private final Counter droppedClicks;
+    private final Counter reapedUrls;
+    private final Counter rateLimitedClient;
+    private final Counter rateLimitedConcurrency;
+
+    public UrlMetrics(MeterRegistry registry) {
+        this.shortenSuccess = timer(registry, "urlshortener.shorten", "Time to shorten a URL", "success");
+        this.shortenError = timer(registry, "urlshortener.shorten", "Time to shorten a URL", "error");
+        this.redirectFound = timer(registry, "urlshortener.redirect", "Time to resolve a short code for a redirect", "found");
+        this.redirectNotFound = timer(registry, "urlshortener.redirect", "Time to resolve a short code for a redirect", "not_found");
+        this.redirectExpired = timer(registry, "urlshortener.redirect", "Time to resolve a short code for a redirect", "expired");
+        this.infoFound = timer(registry, "urlshortener.info", "Time to look up URL details", "found");
+        this.infoNotFound = timer(registry, "urlshortener.info", "Time to look up URL details", "not_found");
+
+        this.redirectNotFoundCodes = notFoundCounter(registry, "redirect");
+        this.infoNotFoundCodes = notFoundCounter(registry, "info");
+
+        this.collisionRetries = DistributionSummary.builder("urlshortener.short_code.collision_retries")
+                .description("Extra attempts needed to find an unused random short code")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1.0)
+                .maximumExpectedValue(10.0)
+                .register(registry);
+
+        this.droppedClicks = Counter.builder("urlshortener.clicks.dropped")
+                .description("Click events dropped because the click buffer was full")
+                .register(registry);
+
+        this.reapedUrls = Counter.builder("urlshortener.expiry.reaped")
+                .description("Expired URLs deleted by the expiry reaper")
+                .register(registry);
+
+        this.rateLimitedClient = rateLimitedCounter(registry, "client_rate");
+        this.rateLimitedConcurrency = rateLimitedCounter(registry, "concurrency");
+    }
+
+    /**
+     * Record one shortenUrl call that started at startNanos (System.nanoTime())
+     */
+    public void recordShorten(long startNanos, boolean success) {
+        (success ? shortenSuccess : shortenError).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record one redirect lookup that started at startNanos (System.nanoTime())
+     */
+    public void recordRedirect(long startNanos, RedirectResult.Status status) {
+        long elapsed = System.nanoTime() - startNanos;
+        switch (status) {
+            case FOUND -> redirectFound.record(elapsed, TimeUnit.NANOSECONDS);
+            case EXPIRED -> redirectExpired.record(elapsed, TimeUnit.NANOSECONDS);
+            case NOT_FOUND -> {
+                redirectNotFound.record(elapsed, TimeUnit.NANOSECONDS);
+                redirectNotFoundCodes.increment();
+            }
+        }
+    }
+
+    /**
+     * Record one URL info lookup that started at startNanos (System.nanoTime())
+     */
+    public void recordInfo(long startNanos, boolean found) {
+        if (found) {
+            infoFound.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        } else {
+            infoNotFound.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            infoNotFoundCodes.increment();
+        }
+    }
+
+    /**
+     * Record how many times a generated short code was already taken
+     */
+    public void recordCollisionRetries(int retries) {
+        collisionRetries.record(retries);
+    }
+
+    /**
+     * Count one click event that didn't fit into the click buffer
+     */
+    public void recordClickDropped() {
+        droppedClicks.increment();
+    }
+
+    /**
+     * Count expired URLs deleted by one reaper batch
+     */
+    public void recordReaped(int count) {
+        reapedUrls.increment(count);
+    }
+
+    /**
+     * Count one write request rejected with 429
+     * @param globalLimit true if all write slots were taken, false if the client was over its rate
+     */
+    public void recordRateLimited(boolean globalLimit) {
+        (globalLimit ? rateLimitedConcurrency : rateLimitedClient).increment();
+    }
+
+    private static Timer timer(MeterRegistry registry, String name, String description, String outcome) {
+        return Timer.builder(name)
+                .description(description)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static Counter notFoundCounter(MeterRegistry registry, String operation) {
+        return Counter.builder("urlshortener.not_found")
+                .description("Lookups of short codes that don't exist")
+                .tag("operation", operation)
+                .register(registry);
+    }
+
+    private static Counter rateLimitedCounter(MeterRegistry registry, String reason) {
+        return Counter.builder("urlshortener.rate_limited")
+                .description("Write requests rejected with 429 Too Many Requests")
+                .tag("reason", reason)
+                .register(registry);
+    }
+}
@@ -0,0 +1,122 @@
+package com.urlshortener.offheap;
+
+import com.urlshortener.config.OffHeapStoreProperties;
+import com.urlshortener.dto.RedirectResult;
+import com.urlshortener.dto.RedirectTarget;
+import com.urlshortener.dto.UrlSummary;
+import com.urlshortener.storage.UrlStorageEngine;
+import com.urlshortener.util.RateLimitedLogger;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * All short code -> URL mappings in off-heap memory (see OffHeapUrlMap), for redirects
+ *
+ * For working sets that don't fit in the short code cache: every link is
+ * loaded from the storage engine at startup and kept up to date by the
+ * services (new links are added, reaped links removed), so a redirect of a
+ * stored code needs neither a cache entry nor a query.
+ *
+ * find() returns null for codes it doesn't hold (codes longer than
+ * OffHeapUrlMap.MAX_KEY_LENGTH, links created by another instance, or any
+ * code while the startup load is still running); the redirect then takes the
+ * usual Bloom filter / cache / storage path. If direct memory runs out, new
+ * links are only logged and take that path too.
+ */
+@Component
+@Slf4j
+public class OffHeapRedirectStore implements ApplicationRunner {
+
+    private static final RateLimitedLogger FAILURE_LOG = new RateLimitedLogger(log, 1, Duration.ofMinutes(1));
+
+    private final UrlStorageEngine storageEngine;
+    private final OffHeapUrlMap map;
+
+    public OffHeapRedirectStore(UrlStorageEngine storageEngine,
+                                OffHeapStoreProperties properties,
+                                MeterRegistry meterRegistry) {
+        this.storageEngine = storageEngine;
+        if (properties.isEnabled()) {
+            this.map = new OffHeapUrlMap(properties.getExpectedEntries(), properties.getSlabBytes(),
+                    properties.getMaxPrefixes());
+            Gauge.builder("urlshortener.offheap.entries", map, OffHeapUrlMap::size)
+                    .description("Links in the off-heap redirect store")
+                    .register(meterRegistry);
+            Gauge.builder("urlshortener.offheap.bytes", map, OffHeapUrlMap::allocatedBytes)
+                    .description("Direct memory allocated by the off-heap redirect store")
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+        } else {
+            this.map = null;
+        }
+    }
+
+    /**
+     * Load all links from the storage engine (streamed)
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        if (map == null) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        storageEngine.forEachSummary(this::put);
+        int size = map.size();
+        log.info("Off-heap redirect store loaded {} links in {} ms ({} MB, {} bytes per link, {} hosts)",
+                size, (System.nanoTime() - start) / 1_000_000, map.allocatedBytes() / 1024 / 1024,
+                size == 0 ? 0 : map.usedBytes() / size, map.prefixCount());
+    }
+
+    /**
+     * The redirect target of a short code as a FOUND result (possibly expired),
+     * or null if the store doesn't hold the code
+     */
+    public RedirectResult find(String shortCode) {
+        return map == null ? null : map.find(shortCode);
+    }
+
+    /**
+     * Add or replace a link
+     */
+    public void put(UrlSummary url) {
+        if (map == null) {
+            return;
+        }
+        try {
+            map.put(url.shortCode(), url.originalUrl(), RedirectTarget.toMillis(url.expiresAt()), url.redirectType());
+        } catch (RuntimeException | OutOfMemoryError e) {
+            FAILURE_LOG.warn("Can't add links to the off-heap redirect store, they are looked up as usual: {}",
+                    e.toString());
+        }
+    }
+
+    /**
+     * Remove a link (e.g. after the reaper deleted it)
+     */
+    public void remove(String shortCode) {
+        if (map != null) {
+            map.remove(shortCode);
+        }
+    }
+
+    /**
+     * Number of links in the store
+     */
+    public int size() {
+        return map == null ? 0 : map.size();
+    }
+
+    /**
+     * Bytes of direct memory the links take (slots and records in use, not what is allocated)
+     */
+    public long usedBytes() {
+        return map == null ? 0 : map.usedBytes();
+    }
+}
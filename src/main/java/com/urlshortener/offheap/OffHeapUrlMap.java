@@ -0,0 +1,633 @@
+package com.urlshortener.offheap;
+
+import com.urlshortener.dto.RedirectResult;
+import com.urlshortener.dto.RedirectTarget;
+import com.urlshortener.entity.RedirectType;
+import com.urlshortener.util.Base62;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Compact short code -> redirect target map outside the Java heap
+ *
+ * Holding every mapping as Url entities or String pairs in a HashMap costs a
+ * few hundred bytes per link (object headers, UTF-16 chars, map nodes), and
+ * the garbage collector has to trace all of it. Here a link costs about
+ * 16 / load bytes of table plus a small record:
+ *
+ * - Key: the short code packed into a long (Base62 value << 4 | length), so
+ *   codes of up to MAX_KEY_LENGTH characters fit and "0a" and "a" stay
+ *   different. 0 never is a valid key and marks an empty slot. Longer codes
+ *   can't be stored; callers fall back to their usual lookup.
+ * - Table: open addressing with linear probing over 16-byte slots
+ *   [long key][long record reference] in direct ByteBuffers of at most 64 MB
+ *   each. Deletes shift the following entries back, so there are no tombstones.
+ * - Records, appended to large direct ByteBuffer slabs:
+ *   [byte flags][varint prefix ID][varint suffix length][long expiresAtMillis, if any][suffix (UTF-8)]
+ *   flags holds the redirect type (ordinal + 1, 0 for the default) and whether
+ *   an expiry follows. The reference is (slab index << 32 | offset).
+ * - Prefixes: the scheme and host ("https://example.com") of a URL are stored
+ *   once in a dictionary and records only keep the rest. Most links point to a
+ *   few thousand hosts. Once maxPrefixes hosts are known, new hosts are stored
+ *   in full in their records.
+ *
+ * Replaced and removed records stay in their slab as garbage until the next
+ * rebuild, which copies the live records into new slabs. Rebuilds happen when
+ * the table is 75% full (doubling it) or when more than half of the record
+ * bytes are garbage; for that moment both copies are in memory.
+ *
+ * Thread safety: writers take a StampedLock. find() reads optimistically
+ * without locking and only takes the read lock if a write got in the way, so
+ * lookups neither block each other nor allocate anything but the result and
+ * its URL string. They decode into scratch buffers from a small shared pool,
+ * not per-thread ones: with virtual threads every request is a new thread.
+ */
+public final class OffHeapUrlMap {
+
+    // 62^10 < 2^60, which leaves 4 bits for the length
+    public static final int MAX_KEY_LENGTH = 10;
+
+    // Longest URL (in UTF-8 bytes) that is stored; longer ones are rejected by put()
+    public static final int MAX_URL_BYTES = 1 << 16;
+
+    private static final int SLOT_SIZE = 16;
+    private static final int SEGMENT_SHIFT = 22; // 4M slots (64 MB) per table segment
+    private static final int MIN_CAPACITY = 1 << 10;
+    private static final double MAX_LOAD = 0.75;
+    private static final int MAX_PREFIX_BYTES = 255;
+
+    // Record flags
+    private static final int TYPE_MASK = 0x07;
+    private static final int HAS_EXPIRY = 0x08;
+
+    private static final RedirectType[] REDIRECT_TYPES = RedirectType.values();
+
+    // Pool of decode buffers, a few per CPU; a lookup that finds none free allocates one
+    private static final int DECODE_BUFFERS = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 8 - 1);
+    private static final int MIN_DECODE_BUFFER = 512;
+    private static final AtomicReferenceArray<byte[]> DECODE_BUFFER_POOL = new AtomicReferenceArray<>(DECODE_BUFFERS);
+
+    private final StampedLock lock = new StampedLock();
+    private final int slabSize;
+    private final int maxPrefixes;
+
+    // Table
+    private ByteBuffer[] segments;
+    private long mask;
+    private int size;
+
+    // Records
+    private ByteBuffer[] slabs;
+    private int slabCount;
+    private int slabPosition;
+    private long recordBytes;
+    private long garbageBytes;
+
+    // Prefix dictionary; ID 0 is the empty prefix
+    private final Map<String, Integer> prefixIds = new HashMap<>();
+    private ByteBuffer prefixBytes;
+    private int[] prefixOffsets;
+    private int[] prefixLengths;
+    private int prefixCount;
+
+    /**
+     * @param expectedEntries Number of entries the table is sized for at first (it grows as needed)
+     * @param slabSize        Bytes per record slab (at most 1 GB)
+     * @param maxPrefixes     Size limit of the scheme/host dictionary
+     */
+    public OffHeapUrlMap(long expectedEntries, int slabSize, int maxPrefixes) {
+        if (slabSize < MAX_URL_BYTES + 32 || slabSize > 1 << 30) {
+            throw new IllegalArgumentException("slabSize must be between 64 KB and 1 GB: " + slabSize);
+        }
+        this.slabSize = slabSize;
+        this.maxPrefixes = Math.max(1, maxPrefixes);
+        this.segments = allocateTable(capacityFor(expectedEntries));
+        this.mask = tableCapacity(segments) - 1;
+        this.slabs = new ByteBuffer[4];
+        this.prefixBytes = allocate(4096);
+        this.prefixOffsets = new int[64];
+        this.prefixLengths = new int[64];
+        this.prefixCount = 1;
+    }
+
+    /**
+     * Pack a short code into a key
+     * @return The key, or 0 if the code is empty, too long or not Base62
+     */
+    public static long key(CharSequence shortCode) {
+        int length = shortCode.length();
+        if (length == 0 || length > MAX_KEY_LENGTH) {
+            return 0;
+        }
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            int digit = Base62.digit(shortCode.charAt(i));
+            if (digit < 0) {
+                return 0;
+            }
+            value = value * Base62.BASE + digit;
+        }
+        return value << 4 | length;
+    }
+
+    /**
+     * Look up the redirect target of a short code
+     * @return A FOUND result (expired or not, the caller decides), or null if the code isn't stored
+     */
+    public RedirectResult find(CharSequence shortCode) {
+        long key = key(shortCode);
+        if (key == 0) {
+            return null;
+        }
+
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                RedirectResult result = read(key);
+                if (lock.validate(stamp)) {
+                    return result;
+                }
+            } catch (RuntimeException e) {
+                // Read while a writer was moving things around; read again under the lock
+            }
+        }
+
+        stamp = lock.readLock();
+        try {
+            return read(key);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Store or replace the target of a short code
+     * @param expiresAtMillis Expiry (RedirectTarget.NEVER for none)
+     * @param redirectType    Redirect type, null for the configured default
+     * @return false if the code can't be packed into a key or the URL is too long
+     */
+    public boolean put(CharSequence shortCode, String originalUrl, long expiresAtMillis, RedirectType redirectType) {
+        long key = key(shortCode);
+        byte[] url = originalUrl.getBytes(StandardCharsets.UTF_8);
+        if (key == 0 || url.length > MAX_URL_BYTES) {
+            return false;
+        }
+
+        long stamp = lock.writeLock();
+        try {
+            // Grow first: if that fails (out of direct memory), the map is left as it was
+            if (size >= (mask + 1) * MAX_LOAD) {
+                rebuild((mask + 1) * 2);
+            }
+            int prefixLength = prefixLength(url);
+            int prefixId = prefixLength == 0 ? 0 : prefixId(url, prefixLength);
+            if (prefixId == 0) {
+                prefixLength = 0;
+            }
+            int flags = (redirectType == null ? 0 : redirectType.ordinal() + 1)
+                    | (expiresAtMillis == RedirectTarget.NEVER ? 0 : HAS_EXPIRY);
+            long ref = appendRecord(flags, prefixId, expiresAtMillis, url, prefixLength, url.length - prefixLength);
+
+            long slot = findSlot(key);
+            ByteBuffer segment = segment(slot);
+            int at = slotOffset(slot);
+            if (segment.getLong(at) == key) {
+                garbageBytes += recordSize(segment.getLong(at + 8), slabs);
+                segment.putLong(at + 8, ref);
+                return true;
+            }
+            segment.putLong(at + 8, ref);
+            segment.putLong(at, key);
+            size++;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Remove a short code
+     * @return false if it wasn't stored
+     */
+    public boolean remove(CharSequence shortCode) {
+        long key = key(shortCode);
+        if (key == 0) {
+            return false;
+        }
+
+        long stamp = lock.writeLock();
+        try {
+            long hole = findSlot(key);
+            ByteBuffer segment = segment(hole);
+            int at = slotOffset(hole);
+            if (segment.getLong(at) != key) {
+                return false;
+            }
+            garbageBytes += recordSize(segment.getLong(at + 8), slabs);
+            size--;
+
+            // Shift back entries whose probe sequence passes the hole
+            long next = (hole + 1) & mask;
+            while (true) {
+                ByteBuffer nextSegment = segment(next);
+                int nextAt = slotOffset(next);
+                long nextKey = nextSegment.getLong(nextAt);
+                if (nextKey == 0) {
+                    break;
+                }
+                long home = hash(nextKey) & mask;
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    ByteBuffer holeSegment = segment(hole);
+                    int holeAt = slotOffset(hole);
+                    holeSegment.putLong(holeAt, nextKey);
+                    holeSegment.putLong(holeAt + 8, nextSegment.getLong(nextAt + 8));
+                    hole = next;
+                }
+                next = (next + 1) & mask;
+            }
+            ByteBuffer holeSegment = segment(hole);
+            holeSegment.putLong(slotOffset(hole), 0);
+            holeSegment.putLong(slotOffset(hole) + 8, 0);
+
+            if (garbageBytes > recordBytes / 2 && garbageBytes > slabSize) {
+                rebuild(mask + 1);
+            }
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Number of stored short codes
+     */
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Off-heap memory in use: the table, all slabs and the prefix dictionary
+     */
+    public long allocatedBytes() {
+        long stamp = lock.readLock();
+        try {
+            return (mask + 1) * SLOT_SIZE + (long) slabCount * slabSize + prefixBytes.capacity();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Off-heap bytes the entries actually need: the table, live records and prefixes
+     * (allocatedBytes() also counts garbage and the unused end of the last slab)
+     */
+    public long usedBytes() {
+        long stamp = lock.readLock();
+        try {
+            return (mask + 1) * SLOT_SIZE + recordBytes - garbageBytes + prefixEnd();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Number of distinct schemes and hosts in the prefix dictionary
+     */
+    public int prefixCount() {
+        long stamp = lock.readLock();
+        try {
+            return prefixCount - 1;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private RedirectResult read(long key) {
+        long slot = hash(key) & mask;
+        for (long probes = 0; probes <= mask; probes++) {
+            ByteBuffer segment = segments[(int) (slot >>> SEGMENT_SHIFT)];
+            int at = slotOffset(slot);
+            long slotKey = segment.getLong(at);
+            if (slotKey == 0) {
+                return null;
+            }
+            if (slotKey == key) {
+                return decode(segment.getLong(at + 8));
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    private RedirectResult decode(long ref) {
+        ByteBuffer slab = slabs[(int) (ref >>> 32)];
+        int at = (int) ref;
+        int flags = slab.get(at++);
+        int prefixId = getVarint(slab, at);
+        at += varintSize(prefixId);
+        int suffixLength = getVarint(slab, at);
+        at += varintSize(suffixLength);
+        long expiresAtMillis = RedirectTarget.NEVER;
+        if ((flags & HAS_EXPIRY) != 0) {
+            expiresAtMillis = slab.getLong(at);
+            at += 8;
+        }
+
+        int prefixLength = prefixLengths[prefixId];
+        int length = prefixLength + suffixLength;
+        if (length > MAX_URL_BYTES) {
+            throw new IllegalStateException("Damaged record");
+        }
+        String url;
+        byte[] buffer = takeDecodeBuffer(length);
+        try {
+            prefixBytes.get(prefixOffsets[prefixId], buffer, 0, prefixLength);
+            slab.get(at, buffer, prefixLength, suffixLength);
+            url = new String(buffer, 0, length, StandardCharsets.UTF_8);
+        } finally {
+            returnDecodeBuffer(buffer);
+        }
+
+        int type = flags & TYPE_MASK;
+        return new RedirectResult(RedirectResult.Status.FOUND, url,
+                type == 0 ? null : REDIRECT_TYPES[type - 1],
+                expiresAtMillis);
+    }
+
+    /**
+     * A free pooled buffer of at least length bytes, starting at a random place in the pool
+     */
+    private static byte[] takeDecodeBuffer(int length) {
+        int start = ThreadLocalRandom.current().nextInt(DECODE_BUFFERS);
+        for (int i = 0; i < DECODE_BUFFERS; i++) {
+            int index = (start + i) & (DECODE_BUFFERS - 1);
+            byte[] buffer = DECODE_BUFFER_POOL.get(index);
+            if (buffer != null && DECODE_BUFFER_POOL.compareAndSet(index, buffer, null)) {
+                if (buffer.length >= length) {
+                    return buffer;
+                }
+                // Too short for this URL: replaced by a larger one below
+                break;
+            }
+        }
+        return new byte[Math.max(length, MIN_DECODE_BUFFER)];
+    }
+
+    /**
+     * Put a buffer back into a free place of the pool (or drop it if there is none)
+     */
+    private static void returnDecodeBuffer(byte[] buffer) {
+        int start = ThreadLocalRandom.current().nextInt(DECODE_BUFFERS);
+        for (int i = 0; i < DECODE_BUFFERS; i++) {
+            int index = (start + i) & (DECODE_BUFFERS - 1);
+            if (DECODE_BUFFER_POOL.get(index) == null && DECODE_BUFFER_POOL.compareAndSet(index, null, buffer)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * The slot holding key, or the empty slot where it would go
+     */
+    private long findSlot(long key) {
+        long slot = hash(key) & mask;
+        while (true) {
+            long slotKey = segment(slot).getLong(slotOffset(slot));
+            if (slotKey == 0 || slotKey == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private long appendRecord(int flags, int prefixId, long expiresAtMillis, byte[] url, int from, int length) {
+        int recordSize = 1 + varintSize(prefixId) + varintSize(length)
+                + ((flags & HAS_EXPIRY) != 0 ? 8 : 0) + length;
+        if (slabCount == 0 || slabPosition + recordSize > slabSize) {
+            addSlab();
+        }
+        ByteBuffer slab = slabs[slabCount - 1];
+        long ref = (long) (slabCount - 1) << 32 | slabPosition;
+
+        int at = slabPosition;
+        slab.put(at++, (byte) flags);
+        at = putVarint(slab, at, prefixId);
+        at = putVarint(slab, at, length);
+        if ((flags & HAS_EXPIRY) != 0) {
+            slab.putLong(at, expiresAtMillis);
+            at += 8;
+        }
+        slab.put(at, url, from, length);
+
+        slabPosition += recordSize;
+        recordBytes += recordSize;
+        return ref;
+    }
+
+    private void addSlab() {
+        if (slabCount == slabs.length) {
+            slabs = Arrays.copyOf(slabs, slabs.length * 2);
+        }
+        slabs[slabCount++] = allocate(slabSize);
+        slabPosition = 0;
+    }
+
+    /**
+     * Copy all live entries into a new table of the given capacity and new slabs
+     * If that fails (e.g. out of direct memory), the old table and slabs are kept.
+     */
+    private void rebuild(long newCapacity) {
+        ByteBuffer[] oldSegments = segments;
+        long oldMask = mask;
+        ByteBuffer[] oldSlabs = slabs;
+        int oldSlabCount = slabCount;
+        int oldSlabPosition = slabPosition;
+        long oldRecordBytes = recordBytes;
+        long oldGarbageBytes = garbageBytes;
+
+        try {
+            segments = allocateTable(newCapacity);
+            mask = newCapacity - 1;
+            slabs = new ByteBuffer[Math.max(4, slabCount)];
+            slabCount = 0;
+            recordBytes = 0;
+            garbageBytes = 0;
+            copyEntries(oldSegments, oldMask + 1, oldSlabs);
+        } catch (RuntimeException | OutOfMemoryError e) {
+            segments = oldSegments;
+            mask = oldMask;
+            slabs = oldSlabs;
+            slabCount = oldSlabCount;
+            slabPosition = oldSlabPosition;
+            recordBytes = oldRecordBytes;
+            garbageBytes = oldGarbageBytes;
+            throw e;
+        }
+    }
+
+    private void copyEntries(ByteBuffer[] oldSegments, long oldCapacity, ByteBuffer[] oldSlabs) {
+        for (long slot = 0; slot < oldCapacity; slot++) {
+            ByteBuffer segment = oldSegments[(int) (slot >>> SEGMENT_SHIFT)];
+            int at = slotOffset(slot);
+            long key = segment.getLong(at);
+            if (key == 0) {
+                continue;
+            }
+            long oldRef = segment.getLong(at + 8);
+            ByteBuffer oldSlab = oldSlabs[(int) (oldRef >>> 32)];
+            int recordSize = recordSize(oldSlab, (int) oldRef);
+            if (slabCount == 0 || slabPosition + recordSize > slabSize) {
+                addSlab();
+            }
+            long ref = (long) (slabCount - 1) << 32 | slabPosition;
+            slabs[slabCount - 1].put(slabPosition, oldSlab, (int) oldRef, recordSize);
+            slabPosition += recordSize;
+            recordBytes += recordSize;
+
+            long newSlot = findSlot(key);
+            segment(newSlot).putLong(slotOffset(newSlot) + 8, ref);
+            segment(newSlot).putLong(slotOffset(newSlot), key);
+        }
+    }
+
+    private static int recordSize(long ref, ByteBuffer[] slabs) {
+        return recordSize(slabs[(int) (ref >>> 32)], (int) ref);
+    }
+
+    private static int recordSize(ByteBuffer slab, int at) {
+        int flags = slab.get(at);
+        int prefixId = getVarint(slab, at + 1);
+        int suffixLength = getVarint(slab, at + 1 + varintSize(prefixId));
+        return 1 + varintSize(prefixId) + varintSize(suffixLength)
+                + ((flags & HAS_EXPIRY) != 0 ? 8 : 0) + suffixLength;
+    }
+
+    /**
+     * Length of the scheme and host at the start of a URL ("https://example.com"), 0 if there is none
+     * '/' and ':' never occur inside multi-byte UTF-8 characters, so the bytes can be scanned directly.
+     */
+    private static int prefixLength(byte[] url) {
+        int hostStart = -1;
+        for (int i = 0; i + 2 < url.length && i < MAX_PREFIX_BYTES; i++) {
+            if (url[i] == ':' && url[i + 1] == '/' && url[i + 2] == '/') {
+                hostStart = i + 3;
+                break;
+            }
+        }
+        if (hostStart < 0) {
+            return 0;
+        }
+        int end = hostStart;
+        while (end < url.length && url[end] != '/') {
+            end++;
+        }
+        return end <= MAX_PREFIX_BYTES ? end : 0;
+    }
+
+    /**
+     * ID of a prefix in the dictionary, adding it if there is room (0: not in the dictionary)
+     */
+    private int prefixId(byte[] url, int length) {
+        String prefix = new String(url, 0, length, StandardCharsets.UTF_8);
+        Integer id = prefixIds.get(prefix);
+        if (id != null) {
+            return id;
+        }
+        if (prefixCount > maxPrefixes) {
+            return 0;
+        }
+
+        int offset = prefixEnd();
+        if (offset + length > prefixBytes.capacity()) {
+            ByteBuffer grown = allocate(Math.max(prefixBytes.capacity() * 2, offset + length));
+            grown.put(0, prefixBytes, 0, offset);
+            prefixBytes = grown;
+        }
+        prefixBytes.put(offset, url, 0, length);
+        if (prefixCount == prefixOffsets.length) {
+            prefixOffsets = Arrays.copyOf(prefixOffsets, prefixCount * 2);
+            prefixLengths = Arrays.copyOf(prefixLengths, prefixCount * 2);
+        }
+        prefixOffsets[prefixCount] = offset;
+        prefixLengths[prefixCount] = length;
+        prefixIds.put(prefix, prefixCount);
+        return prefixCount++;
+    }
+
+    private int prefixEnd() {
+        return prefixOffsets[prefixCount - 1] + prefixLengths[prefixCount - 1];
+    }
+
+    private ByteBuffer segment(long slot) {
+        return segments[(int) (slot >>> SEGMENT_SHIFT)];
+    }
+
+    private static int slotOffset(long slot) {
+        return (int) (slot & ((1 << SEGMENT_SHIFT) - 1)) * SLOT_SIZE;
+    }
+
+    private static long hash(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 29);
+    }
+
+    private static long capacityFor(long expectedEntries) {
+        long needed = (long) Math.ceil(Math.max(1, expectedEntries) / MAX_LOAD);
+        return Math.max(MIN_CAPACITY, Long.highestOneBit(needed - 1) << 1);
+    }
+
+    private static ByteBuffer[] allocateTable(long capacity) {
+        int segmentSlots = (int) Math.min(capacity, 1L << SEGMENT_SHIFT);
+        ByteBuffer[] table = new ByteBuffer[(int) (capacity / segmentSlots)];
+        for (int i = 0; i < table.length; i++) {
+            table[i] = allocate(segmentSlots * SLOT_SIZE);
+        }
+        return table;
+    }
+
+    private static long tableCapacity(ByteBuffer[] table) {
+        return (long) table.length * (table[0].capacity() / SLOT_SIZE);
+    }
+
+    private static ByteBuffer allocate(int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+
+    private static int varintSize(int value) {
+        return value < 1 << 7 ? 1 : value < 1 << 14 ? 2 : value < 1 << 21 ? 3 : value < 1 << 28 ? 4 : 5;
+    }
+
+    private static int putVarint(ByteBuffer buffer, int at, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put(at++, (byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put(at++, (byte) value);
+        return at;
+    }
+
+    private static int getVarint(ByteBuffer buffer, int at) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = buffer.get(at++);
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Damaged record");
+    }
+}
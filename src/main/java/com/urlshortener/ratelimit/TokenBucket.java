@@ -0,0 +1,61 @@
+package com.urlshortener.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket
+ *
+ * Instead of a token count and a last-refill time (two fields that would need
+ * a lock to update together), the whole state is one long: the time at which
+ * the bucket will be full again. Taking n tokens moves that time n refill
+ * intervals into the future; the request is allowed as long as it stays
+ * within capacity refill intervals from now. A compare-and-set loop makes
+ * concurrent callers safe without blocking (this formulation is also known
+ * as the generic cell rate algorithm, GCRA).
+ *
+ * Usage:
+ * TokenBucket bucket = new TokenBucket(20, 5.0, System.nanoTime());
+ * long waitNanos = bucket.tryConsume(1, System.nanoTime());
+ * if (waitNanos > 0) ... reject, retry in waitNanos ...
+ */
+public final class TokenBucket {
+
+    private final long nanosPerToken;
+    private final long burstNanos;
+
+    // The time (System.nanoTime()) at which the bucket is full again
+    private final AtomicLong fullAt;
+
+    /**
+     * @param capacity        Maximum number of tokens (the burst size)
+     * @param refillPerSecond Tokens added per second
+     * @param nowNanos        The current System.nanoTime(); the bucket starts full
+     */
+    public TokenBucket(int capacity, double refillPerSecond, long nowNanos) {
+        this.nanosPerToken = Math.max(1, (long) (1_000_000_000L / refillPerSecond));
+        this.burstNanos = capacity * nanosPerToken;
+        this.fullAt = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Take tokens from the bucket if it holds enough of them
+     * @param tokens   Number of tokens to take
+     * @param nowNanos The current System.nanoTime()
+     * @return 0 if the tokens were taken, otherwise the nanoseconds until enough tokens are available
+     */
+    public long tryConsume(int tokens, long nowNanos) {
+        long cost = tokens * nanosPerToken;
+        while (true) {
+            long current = fullAt.get();
+            // A bucket that was full in the past is just full now
+            long next = Math.max(current, nowNanos) + cost;
+            long overdraft = next - nowNanos - burstNanos;
+            if (overdraft > 0) {
+                return overdraft;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.urlshortener.ratelimit;
+
+import com.urlshortener.config.RateLimitProperties;
+import com.urlshortener.constants.ApiRoutes;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Applies the WriteRateLimiter to write endpoints, before their controller runs
+ *
+ * Registered for the shorten, bulk shorten and import routes (see WebConfig).
+ * Only POST requests count; CORS preflights (OPTIONS) pass through.
+ * A single shorten takes one token, bulk shorten and import take bulkCost.
+ *
+ * Clients are told apart by request.getRemoteAddr(). Behind a proxy or load
+ * balancer, set server.forward-headers-strategy=native so that address is
+ * taken from X-Forwarded-For; otherwise all clients share the proxy's bucket.
+ *
+ * A rejected request throws TooManyRequestsException, which
+ * GlobalExceptionHandler turns into 429 with Retry-After.
+ */
+@RequiredArgsConstructor
+public class WriteRateLimitInterceptor implements HandlerInterceptor {
+
+    // Request attribute marking a request that holds a write slot
+    private static final String WRITE_SLOT_ATTRIBUTE = WriteRateLimitInterceptor.class.getName() + ".writeSlot";
+
+    private final WriteRateLimiter writeRateLimiter;
+    private final RateLimitProperties properties;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!"POST".equals(request.getMethod())) {
+            return true;
+        }
+
+        writeRateLimiter.acquire(request.getRemoteAddr(), cost(request));
+        request.setAttribute(WRITE_SLOT_ATTRIBUTE, Boolean.TRUE);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                Object handler, Exception ex) {
+        if (request.getAttribute(WRITE_SLOT_ATTRIBUTE) != null) {
+            request.removeAttribute(WRITE_SLOT_ATTRIBUTE);
+            writeRateLimiter.release();
+        }
+    }
+
+    private int cost(HttpServletRequest request) {
+        String path = request.getServletPath();
+        if (path.equals(ApiRoutes.SHORTEN_URL_BULK) || path.equals(ApiRoutes.IMPORT_URLS)) {
+            return properties.getBulkCost();
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,88 @@
+package com.urlshortener.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.urlshortener.config.RateLimitProperties;
+import com.urlshortener.exception.TooManyRequestsException;
+import com.urlshortener.metrics.UrlMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Limits write requests per client and in total
+ *
+ * Two independent limits:
+ * - Per client: a TokenBucket per client key (usually the IP address).
+ *   The buckets live in a Caffeine cache bounded by maxClients and
+ *   clientIdleTimeout, so a flood of distinct addresses can't grow memory
+ *   without bound. An evicted client simply starts again with a full bucket.
+ * - Global: at most maxConcurrentWrites writes run at the same time.
+ *   Writes never wait for a slot (a waiting write would hold a request
+ *   thread); they are rejected instead. Because this limit is below the
+ *   connection pool size, redirects and info lookups always find a free
+ *   database connection, however many clients are writing.
+ *
+ * Both throw TooManyRequestsException (429) with the time to wait.
+ *
+ * Usage:
+ * writeRateLimiter.acquire(clientKey, 1);
+ * try { ... write ... } finally { writeRateLimiter.release(); }
+ */
+@Component
+@Slf4j
+public class WriteRateLimiter {
+
+    private final RateLimitProperties properties;
+    private final UrlMetrics urlMetrics;
+    private final Cache<String, TokenBucket> buckets;
+    private final Semaphore writeSlots;
+
+    public WriteRateLimiter(RateLimitProperties properties, UrlMetrics urlMetrics) {
+        this.properties = properties;
+        this.urlMetrics = urlMetrics;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxClients())
+                .expireAfterAccess(properties.getClientIdleTimeout())
+                .build();
+        this.writeSlots = new Semaphore(properties.getMaxConcurrentWrites());
+        log.info("Write rate limit: {} requests burst, {}/s per client, {} concurrent writes",
+                properties.getCapacity(), properties.getRefillPerSecond(), properties.getMaxConcurrentWrites());
+    }
+
+    /**
+     * Take a global write slot and tokens from the client's bucket
+     * @param clientKey Identifies the client, e.g. its IP address
+     * @param tokens    Cost of the request
+     * @throws TooManyRequestsException if the client is over its rate, or all write slots are taken
+     */
+    public void acquire(String clientKey, int tokens) {
+        // The slot is taken first, so a request turned away for lack of slots
+        // doesn't use up the client's tokens
+        if (!writeSlots.tryAcquire()) {
+            urlMetrics.recordRateLimited(true);
+            throw new TooManyRequestsException("Server busy, too many concurrent write requests",
+                    properties.getBusyRetryAfter());
+        }
+
+        long now = System.nanoTime();
+        TokenBucket bucket = buckets.get(clientKey,
+                key -> new TokenBucket(properties.getCapacity(), properties.getRefillPerSecond(), now));
+        long waitNanos = bucket.tryConsume(tokens, now);
+        if (waitNanos > 0) {
+            writeSlots.release();
+            urlMetrics.recordRateLimited(false);
+            throw new TooManyRequestsException("Rate limit exceeded, too many write requests",
+                    Duration.ofNanos(waitNanos));
+        }
+    }
+
+    /**
+     * Give back the write slot taken by a successful acquire()
+     */
+    public void release() {
+        writeSlots.release();
+    }
+}
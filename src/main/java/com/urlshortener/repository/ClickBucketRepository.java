@@ -0,0 +1,50 @@
+package com.urlshortener.repository;
+
+import com.urlshortener.clicks.ClickGranularity;
+import com.urlshortener.entity.ClickBucket;
+import com.urlshortener.entity.ClickBucketId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for per-minute and per-hour click counts
+ * 
+ * Buckets are written through ClickBucketRepositoryCustom (batched JDBC)
+ */
+@Repository
+public interface ClickBucketRepository extends JpaRepository<ClickBucket, ClickBucketId>, ClickBucketRepositoryCustom {
+    
+    /**
+     * Find the buckets of one short code in [from, to), oldest first
+     * Buckets without clicks don't exist, so the result can have gaps
+     */
+    @Query("SELECT b FROM ClickBucket b WHERE b.id.shortCode = :shortCode AND b.id.granularity = :granularity "
+            + "AND b.id.bucketStart >= :from AND b.id.bucketStart < :to ORDER BY b.id.bucketStart")
+    List<ClickBucket> findBuckets(String shortCode, ClickGranularity granularity,
+                                  LocalDateTime from, LocalDateTime to);
+    
+    /**
+     * Delete all buckets of a granularity that started before the given time
+     * @return The number of deleted buckets
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ClickBucket b WHERE b.id.granularity = :granularity AND b.id.bucketStart < :before")
+    int deleteBucketsBefore(ClickGranularity granularity, LocalDateTime before);
+    
+    /**
+     * Delete all buckets of the given short codes (e.g. URLs that were reaped after expiring)
+     * @return The number of deleted buckets
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ClickBucket b WHERE b.id.shortCode IN :shortCodes")
+    int deleteByShortCodes(Collection<String> shortCodes);
+}
@@ -0,0 +1,21 @@
+package com.urlshortener.repository;
+
+import com.urlshortener.entity.ClickBucket;
+import com.urlshortener.entity.ReferrerBucket;
+
+import java.util.Collection;
+
+/**
+ * Hand-written JDBC operations for click statistics (see ClickBucketRepositoryCustomImpl)
+ */
+public interface ClickBucketRepositoryCustom {
+    
+    /**
+     * Add click counts to their buckets, creating buckets that don't exist yet
+     * Every count in the given objects is added to the stored row (they are deltas, not totals).
+     * Both collections are written in one transaction.
+     * @param clickBuckets Per-minute and per-hour click counts to add
+     * @param referrerBuckets Per-hour referrer counts to add
+     */
+    void addClicks(Collection<ClickBucket> clickBuckets, Collection<ReferrerBucket> referrerBuckets);
+}
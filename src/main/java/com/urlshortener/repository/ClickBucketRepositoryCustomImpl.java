@@ -0,0 +1,100 @@
+package com.urlshortener.repository;
+
+import com.urlshortener.config.ClickProperties;
+import com.urlshortener.entity.ClickBucket;
+import com.urlshortener.entity.ReferrerBucket;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * JDBC implementation of ClickBucketRepositoryCustom
+ * 
+ * Update-then-insert: one batched UPDATE adds the deltas to existing buckets,
+ * then one batched INSERT creates the buckets the UPDATE didn't find.
+ * Most flushes only touch the current minute and hour, so after the first
+ * flush of a bucket nearly everything is an UPDATE.
+ * 
+ * Only one thread (the click consumer) writes buckets, so no other writer
+ * can insert the same bucket between the two statements.
+ */
+@RequiredArgsConstructor
+public class ClickBucketRepositoryCustomImpl implements ClickBucketRepositoryCustom {
+    
+    private static final String UPDATE_CLICK_BUCKET_SQL =
+            "UPDATE click_buckets SET clicks = clicks + ?, bot_clicks = bot_clicks + ?, "
+            + "mobile_clicks = mobile_clicks + ?, referred_clicks = referred_clicks + ? "
+            + "WHERE short_code = ? AND granularity = ? AND bucket_start = ?";
+    
+    private static final String INSERT_CLICK_BUCKET_SQL =
+            "INSERT INTO click_buckets (clicks, bot_clicks, mobile_clicks, referred_clicks, "
+            + "short_code, granularity, bucket_start) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    
+    private static final String UPDATE_REFERRER_BUCKET_SQL =
+            "UPDATE referrer_buckets SET clicks = clicks + ? "
+            + "WHERE short_code = ? AND bucket_start = ? AND referrer_host = ?";
+    
+    private static final String INSERT_REFERRER_BUCKET_SQL =
+            "INSERT INTO referrer_buckets (clicks, short_code, bucket_start, referrer_host) VALUES (?, ?, ?, ?)";
+    
+    // Both statements of a pair take the same parameters in the same order
+    private static final ParameterizedPreparedStatementSetter<ClickBucket> CLICK_BUCKET_SETTER = (ps, bucket) -> {
+        ps.setLong(1, bucket.getClicks());
+        ps.setLong(2, bucket.getBotClicks());
+        ps.setLong(3, bucket.getMobileClicks());
+        ps.setLong(4, bucket.getReferredClicks());
+        ps.setString(5, bucket.getId().getShortCode());
+        ps.setString(6, bucket.getId().getGranularity().name());
+        ps.setObject(7, bucket.getId().getBucketStart());
+    };
+    
+    private static final ParameterizedPreparedStatementSetter<ReferrerBucket> REFERRER_BUCKET_SETTER = (ps, bucket) -> {
+        ps.setLong(1, bucket.getClicks());
+        ps.setString(2, bucket.getId().getShortCode());
+        ps.setObject(3, bucket.getId().getBucketStart());
+        ps.setString(4, bucket.getId().getReferrerHost());
+    };
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final ClickProperties clickProperties;
+    
+    @Override
+    @Transactional
+    public void addClicks(Collection<ClickBucket> clickBuckets, Collection<ReferrerBucket> referrerBuckets) {
+        upsert(clickBuckets, UPDATE_CLICK_BUCKET_SQL, INSERT_CLICK_BUCKET_SQL, CLICK_BUCKET_SETTER);
+        upsert(referrerBuckets, UPDATE_REFERRER_BUCKET_SQL, INSERT_REFERRER_BUCKET_SQL, REFERRER_BUCKET_SETTER);
+    }
+    
+    private <T> void upsert(Collection<T> rows, String updateSql, String insertSql,
+                            ParameterizedPreparedStatementSetter<T> setter) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        
+        int batchSize = clickProperties.getBatchSize();
+        int[][] updateCounts = jdbcTemplate.batchUpdate(updateSql, rows, batchSize, setter);
+        
+        // Insert the rows whose UPDATE matched nothing
+        List<T> missing = new ArrayList<>();
+        int batch = 0;
+        int indexInBatch = 0;
+        for (T row : rows) {
+            if (updateCounts[batch][indexInBatch] == 0) {
+                missing.add(row);
+            }
+            if (++indexInBatch == updateCounts[batch].length) {
+                batch++;
+                indexInBatch = 0;
+            }
+        }
+        
+        if (!missing.isEmpty()) {
+            jdbcTemplate.batchUpdate(insertSql, missing, batchSize, setter);
+        }
+    }
+}
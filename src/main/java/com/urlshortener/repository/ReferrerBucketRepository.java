@@ -0,0 +1,43 @@
+package com.urlshortener.repository;
+
+import com.urlshortener.dto.ReferrerCount;
+import com.urlshortener.entity.ReferrerBucket;
+import com.urlshortener.entity.ReferrerBucketId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for per-hour referrer counts
+ * 
+ * Buckets are written through ClickBucketRepositoryCustom together with the click buckets
+ */
+@Repository
+public interface ReferrerBucketRepository extends JpaRepository<ReferrerBucket, ReferrerBucketId> {
+    
+    /**
+     * Referrer hosts of one short code in [from, to), most clicks first
+     * @param pageable Use PageRequest.of(0, n) for the top n
+     */
+    @Query("SELECT new com.urlshortener.dto.ReferrerCount(r.id.referrerHost, SUM(r.clicks)) "
+            + "FROM ReferrerBucket r WHERE r.id.shortCode = :shortCode "
+            + "AND r.id.bucketStart >= :from AND r.id.bucketStart < :to "
+            + "GROUP BY r.id.referrerHost ORDER BY SUM(r.clicks) DESC")
+    List<ReferrerCount> findTopReferrers(String shortCode, LocalDateTime from, LocalDateTime to, Pageable pageable);
+    
+    /**
+     * Delete all buckets of the given short codes (e.g. URLs that were reaped after expiring)
+     * @return The number of deleted buckets
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ReferrerBucket r WHERE r.id.shortCode IN :shortCodes")
+    int deleteByShortCodes(Collection<String> shortCodes);
+}
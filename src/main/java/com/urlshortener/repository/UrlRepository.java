@@ -1,13 +1,22 @@
 package com.urlshortener.repository;
 
+import com.urlshortener.dto.RedirectTarget;
+import com.urlshortener.dto.UrlSummary;
 import com.urlshortener.entity.Url;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for URL database operations
@@ -20,9 +29,14 @@ import java.util.Optional;
  * We can also define custom query methods:
  * - Spring generates the implementation based on method names
  * - Or we can use @Query for custom queries
+ * 
+ * Hand-written JDBC operations live in UrlRepositoryCustom (see UrlRepositoryCustomImpl)
  */
 @Repository
-public interface UrlRepository extends JpaRepository<Url, Long> {
+public interface UrlRepository extends JpaRepository<Url, Long>, UrlRepositoryCustom {
+    
+    // Rows fetched per round trip when streaming
+    int FETCH_SIZE = 1000;
     
     /**
      * Find a URL by its short code
@@ -30,6 +44,37 @@ public interface UrlRepository extends JpaRepository<Url, Long> {
      */
     Optional<Url> findByShortCode(String shortCode);
     
+    /**
+     * Find a read-only summary of a URL by its short code
+     * The constructor expression returns a plain record, not a managed entity
+     */
+    @Query("SELECT new com.urlshortener.dto.UrlSummary(u.shortCode, u.originalUrl, u.createdAt, u.hitCount, u.expiresAt, u.redirectType) "
+            + "FROM Url u WHERE u.shortCode = :shortCode")
+    Optional<UrlSummary> findSummaryByShortCode(String shortCode);
+    
+    /**
+     * Find a read-only summary of a URL by the hash of its original URL
+     * The hash column is indexed (unique), so the long URL itself is never compared
+     */
+    @Query("SELECT new com.urlshortener.dto.UrlSummary(u.shortCode, u.originalUrl, u.createdAt, u.hitCount, u.expiresAt, u.redirectType) "
+            + "FROM Url u WHERE u.urlHash = :urlHash")
+    Optional<UrlSummary> findSummaryByUrlHash(byte[] urlHash);
+    
+    /**
+     * Find the URLs for several hashes at once
+     * Returns the whole entity so the caller can match results to hashes
+     */
+    @Query("SELECT u FROM Url u WHERE u.urlHash IN :urlHashes")
+    List<Url> findByUrlHashIn(Collection<byte[]> urlHashes);
+    
+    /**
+     * Find only the original URL, expiry and redirect type for a short code (all a redirect needs)
+     * All three columns are in the covering index on short_code, so the table itself isn't read
+     */
+    @Query("SELECT new com.urlshortener.dto.RedirectTarget(u.originalUrl, u.expiresAt, u.redirectType) "
+            + "FROM Url u WHERE u.shortCode = :shortCode")
+    Optional<RedirectTarget> findRedirectTargetByShortCode(String shortCode);
+    
     /**
      * Check if a short code already exists
      * Spring automatically generates: SELECT COUNT(*) > 0 FROM urls WHERE short_code = ?
@@ -37,13 +82,51 @@ public interface UrlRepository extends JpaRepository<Url, Long> {
     boolean existsByShortCode(String shortCode);
     
     /**
-     * Increment hit count for a URL
-     * @Query allows us to write custom JPQL queries
-     * @Modifying marks this as an update/delete query
-     * @Transactional ensures this runs in a transaction
+     * Find which of the given short codes already exist
+     */
+    @Query("SELECT u.shortCode FROM Url u WHERE u.shortCode IN :shortCodes")
+    List<String> findExistingShortCodes(Collection<String> shortCodes);
+    
+    /**
+     * Find the next URLs after the given ID, in ID order (keyset pagination)
+     * @param pageable Use PageRequest.of(0, n) for the next n
+     */
+    @Query("SELECT u FROM Url u WHERE u.id > :afterId ORDER BY u.id")
+    List<Url> findPageAfter(long afterId, Pageable pageable);
+    
+    /**
+     * Find the short codes of URLs that expired before the given time, earliest expiry first
+     * Uses the index on expires_at, so only the returned rows are read
+     * @param pageable Use PageRequest.of(0, n) for at most n codes
+     */
+    @Query("SELECT u.shortCode FROM Url u WHERE u.expiresAt < :expiredBefore ORDER BY u.expiresAt")
+    List<String> findExpiredShortCodes(LocalDateTime expiredBefore, Pageable pageable);
+    
+    /**
+     * Delete the given URLs if they (still) expired before the given time
+     * @return Number of deleted rows
      */
     @Modifying
-    @Transactional
-    @Query("UPDATE Url u SET u.hitCount = u.hitCount + 1 WHERE u.shortCode = :shortCode")
-    void incrementHitCount(String shortCode);
-} 
\ No newline at end of file
+    @Query("DELETE FROM Url u WHERE u.shortCode IN :shortCodes AND u.expiresAt < :expiredBefore")
+    int deleteExpiredByShortCodes(Collection<String> shortCodes, LocalDateTime expiredBefore);
+    
+    /**
+     * Stream summaries of all URLs, in ID order
+     * 
+     * Rows are read with a forward-only cursor, FETCH_SIZE at a time, and
+     * summaries are not managed entities, so memory use stays constant.
+     * Must be called inside a transaction and the stream must be closed.
+     */
+    @Query("SELECT new com.urlshortener.dto.UrlSummary(u.shortCode, u.originalUrl, u.createdAt, u.hitCount, u.expiresAt, u.redirectType) "
+            + "FROM Url u ORDER BY u.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + FETCH_SIZE))
+    Stream<UrlSummary> streamAllSummaries();
+    
+    /**
+     * Stream all short codes (used to fill the short code Bloom filter)
+     * Same cursor rules as streamAllSummaries()
+     */
+    @Query("SELECT u.shortCode FROM Url u")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + FETCH_SIZE))
+    Stream<String> streamAllShortCodes();
+}
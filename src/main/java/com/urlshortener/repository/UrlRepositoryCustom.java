@@ -0,0 +1,20 @@
+package com.urlshortener.repository;
+
+import java.util.Map;
+
+/**
+ * Custom repository operations that are implemented by hand
+ * 
+ * Spring Data merges this "fragment" into UrlRepository and picks up
+ * the implementation from UrlRepositoryCustomImpl automatically.
+ * We use it for bulk statements that are faster through plain JDBC.
+ */
+public interface UrlRepositoryCustom {
+    
+    /**
+     * Add hit counts to many URLs at once
+     * Runs one batched "UPDATE urls SET hit_count = hit_count + ? WHERE short_code = ?"
+     * @param hitsByShortCode Number of hits to add, per short code
+     */
+    void addHitCounts(Map<String, Long> hitsByShortCode);
+}
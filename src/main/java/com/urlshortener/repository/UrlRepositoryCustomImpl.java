@@ -0,0 +1,43 @@
+package com.urlshortener.repository;
+
+import com.urlshortener.config.HitCountProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC implementation of UrlRepositoryCustom
+ * 
+ * Uses JdbcTemplate directly: a batched UPDATE doesn't need entities
+ * and avoids loading anything into the persistence context.
+ */
+@RequiredArgsConstructor
+public class UrlRepositoryCustomImpl implements UrlRepositoryCustom {
+    
+    private static final String ADD_HIT_COUNT_SQL =
+            "UPDATE urls SET hit_count = hit_count + ? WHERE short_code = ?";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final HitCountProperties hitCountProperties;
+    
+    @Override
+    @Transactional
+    public void addHitCounts(Map<String, Long> hitsByShortCode) {
+        if (hitsByShortCode.isEmpty()) {
+            return;
+        }
+        
+        List<Object[]> batchArgs = new ArrayList<>(hitsByShortCode.size());
+        hitsByShortCode.forEach((shortCode, hits) -> batchArgs.add(new Object[] {hits, shortCode}));
+        
+        jdbcTemplate.batchUpdate(ADD_HIT_COUNT_SQL, batchArgs, hitCountProperties.getBatchSize(),
+                (ps, args) -> {
+                    ps.setLong(1, (Long) args[0]);
+                    ps.setString(2, (String) args[1]);
+                });
+    }
+}
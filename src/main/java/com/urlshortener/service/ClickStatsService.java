@@ -0,0 +1,26 @@
+package com.urlshortener.service;
+
+import com.urlshortener.clicks.ClickGranularity;
+import com.urlshortener.dto.ClickStatsResponse;
+
+import java.time.LocalDateTime;
+
+/**
+ * Service interface for reading click statistics
+ * 
+ * Clicks are recorded by the redirect path (see ClickAggregator);
+ * this service only reads the stored buckets.
+ */
+public interface ClickStatsService {
+    
+    /**
+     * Get the click statistics of a short code
+     * @param shortCode The short code
+     * @param granularity Bucket size
+     * @param from Start of the range (UTC, inclusive), or null for a default window ending at "to"
+     * @param to End of the range (UTC, exclusive), or null for now
+     * @return Buckets with clicks in the range, plus the top referrer hosts
+     */
+    ClickStatsResponse getClickStats(String shortCode, ClickGranularity granularity,
+                                     LocalDateTime from, LocalDateTime to);
+}
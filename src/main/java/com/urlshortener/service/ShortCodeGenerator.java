@@ -0,0 +1,38 @@
+package com.urlshortener.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Strategy for generating new short codes
+ * 
+ * Implementations (see service.impl):
+ * - RandomShortCodeGenerator: random codes, checked against the database
+ * - SequenceShortCodeGenerator: Base62-encoded IDs from pre-allocated blocks,
+ *   unique by construction; one database check per block skips imported codes
+ * 
+ * The active strategy is chosen with urlshortener.short-code.strategy
+ */
+public interface ShortCodeGenerator {
+    
+    /**
+     * Generate a short code that is not used by any existing URL
+     * @return A new unique short code
+     */
+    String generate();
+    
+    /**
+     * Generate several short codes at once (e.g. for a bulk request)
+     * The codes are distinct from each other and from all existing URLs.
+     * Implementations that check the database do so for all of them together.
+     * @param count Number of codes
+     * @return count new unique short codes
+     */
+    default List<String> generate(int count) {
+        List<String> shortCodes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            shortCodes.add(generate());
+        }
+        return shortCodes;
+    }
+}
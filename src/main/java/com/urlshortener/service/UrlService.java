@@ -1,6 +1,12 @@
 package com.urlshortener.service;
 
-import com.urlshortener.entity.Url;
+import com.urlshortener.dto.RedirectResult;
+import com.urlshortener.dto.ShortenOptions;
+import com.urlshortener.dto.ShortenOutcome;
+import com.urlshortener.dto.UrlSummary;
+
+import java.util.List;
+import java.util.Optional;
 
 /**
  * Service interface defining business operations for URL shortening
@@ -18,29 +24,65 @@ public interface UrlService {
     
     /**
      * Shorten a long URL
+     * With deduplication enabled, an existing mapping for the same URL is returned instead
+     * @param originalUrl The original URL to shorten
+     * @return A summary of the created (or existing) URL with its short code
+     */
+    UrlSummary shortenUrl(String originalUrl);
+    
+    /**
+     * Shorten a long URL with its own expiry and/or redirect type
+     * Only URLs with default options are deduplicated; others always get a new mapping
      * @param originalUrl The original URL to shorten
-     * @return The created URL entity with short code
+     * @param options Expiry and redirect type (null fields: the configured defaults)
+     * @return A summary of the created (or existing) URL with its short code
+     */
+    UrlSummary shortenUrl(String originalUrl, ShortenOptions options);
+    
+    /**
+     * Shorten many URLs at once
+     * URLs are written in chunks with batched inserts; each chunk commits on its own
+     * @param originalUrls The original URLs to shorten (already validated)
+     * @return One outcome per URL, in the same order
      */
-    Url shortenUrl(String originalUrl);
+    List<ShortenOutcome> shortenUrls(List<String> originalUrls);
+    
+    /**
+     * Shorten many URLs at once, each with its own options
+     * @param originalUrls The original URLs to shorten (already validated)
+     * @param options One set of options per URL, in the same order
+     * @return One outcome per URL, in the same order
+     */
+    List<ShortenOutcome> shortenUrls(List<String> originalUrls, List<ShortenOptions> options);
     
     /**
      * Get the original URL from a short code
      * @param shortCode The short code
-     * @return The URL entity if found
+     * @return A read-only summary of the URL if found
      */
-    Url getUrlByShortCode(String shortCode);
+    UrlSummary getUrlByShortCode(String shortCode);
     
     /**
      * Get URL information without incrementing hit count
      * @param shortCode The short code
-     * @return The URL entity if found
+     * @return A read-only summary of the URL (including hits not yet written to the database)
      */
-    Url getUrlInfo(String shortCode);
+    UrlSummary getUrlInfo(String shortCode);
     
     /**
      * Redirect to original URL and increment hit count
+     * Unknown codes are a normal result here, not an error, so no exception is thrown
+     * @param shortCode The short code
+     * @return The original URL for redirection, or empty if the short code doesn't exist (or has expired)
+     */
+    Optional<String> redirectUrl(String shortCode);
+    
+    /**
+     * Redirect to original URL, increment hit count and record a click event
      * @param shortCode The short code
-     * @return The original URL for redirection
+     * @param referrer The Referer header of the request (may be null)
+     * @param userAgent The User-Agent header of the request (may be null)
+     * @return FOUND with the original URL and redirect type, EXPIRED, or NOT_FOUND
      */
-    String redirectUrl(String shortCode);
+    RedirectResult redirectUrl(String shortCode, String referrer, String userAgent);
 } 
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.urlshortener.service;
+
+import com.urlshortener.dto.ImportResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Service interface for bulk import and export of URLs
+ * 
+ * Both directions use newline-delimited JSON (one UrlSummary per line)
+ * and stream the data, so memory use doesn't depend on the table size.
+ */
+public interface UrlTransferService {
+    
+    /**
+     * Write every URL to the output stream, one JSON object per line
+     * @param out The stream to write to (not closed)
+     * @return The number of URLs written
+     */
+    long exportUrls(OutputStream out) throws IOException;
+    
+    /**
+     * Read URLs from the input stream, one JSON object per line, and store them
+     * Existing short codes are skipped; rows are committed in chunks
+     * @param in The stream to read from (not closed)
+     * @return Counts of imported, skipped, rejected and failed rows
+     */
+    ImportResult importUrls(InputStream in) throws IOException;
+}
@@ -0,0 +1,102 @@
+package com.urlshortener.service.impl;
+
+import com.urlshortener.clicks.ClickGranularity;
+import com.urlshortener.dto.ClickStatsBucket;
+import com.urlshortener.dto.ClickStatsResponse;
+import com.urlshortener.exception.InvalidRequestException;
+import com.urlshortener.exception.UrlNotFoundException;
+import com.urlshortener.repository.ClickBucketRepository;
+import com.urlshortener.repository.ReferrerBucketRepository;
+import com.urlshortener.service.ClickStatsService;
+import com.urlshortener.storage.UrlStorageEngine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Implementation of ClickStatsService
+ * 
+ * Ranges are widened to whole buckets, and referrers are always counted
+ * per hour, so their range is widened to whole hours.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ClickStatsServiceImpl implements ClickStatsService {
+    
+    // Buckets returned when no start is given
+    private static final int DEFAULT_MINUTE_BUCKETS = 60;
+    private static final int DEFAULT_HOUR_BUCKETS = 24;
+    
+    // Largest range one request may ask for
+    private static final int MAX_BUCKETS = 1440;
+    
+    private static final int TOP_REFERRERS = 10;
+    
+    private final UrlStorageEngine storageEngine;
+    private final ClickBucketRepository clickBucketRepository;
+    private final ReferrerBucketRepository referrerBucketRepository;
+    
+    @Override
+    public ClickStatsResponse getClickStats(String shortCode, ClickGranularity granularity,
+                                            LocalDateTime from, LocalDateTime to) {
+        log.debug("Getting {} click stats for short code: {}", granularity, shortCode);
+        
+        if (!storageEngine.exists(shortCode)) {
+            throw new UrlNotFoundException("URL not found for short code: " + shortCode);
+        }
+        
+        // Round "to" up and "from" down to bucket boundaries
+        LocalDateTime end = ceil(to == null ? LocalDateTime.now(ZoneOffset.UTC) : to, granularity);
+        int defaultBuckets = granularity == ClickGranularity.MINUTE ? DEFAULT_MINUTE_BUCKETS : DEFAULT_HOUR_BUCKETS;
+        LocalDateTime start = from == null
+                ? end.minusSeconds(defaultBuckets * granularity.getSeconds())
+                : floor(from, granularity);
+        
+        if (!start.isBefore(end)) {
+            throw new InvalidRequestException("'from' must be before 'to'");
+        }
+        if (end.toEpochSecond(ZoneOffset.UTC) - start.toEpochSecond(ZoneOffset.UTC)
+                > MAX_BUCKETS * granularity.getSeconds()) {
+            throw new InvalidRequestException("Range too large: at most " + MAX_BUCKETS + " "
+                    + granularity.name().toLowerCase(Locale.ROOT) + " buckets per request");
+        }
+        
+        List<ClickStatsBucket> buckets = clickBucketRepository.findBuckets(shortCode, granularity, start, end)
+                .stream()
+                .map(ClickStatsBucket::from)
+                .toList();
+        
+        long totalClicks = 0;
+        for (ClickStatsBucket bucket : buckets) {
+            totalClicks += bucket.clicks();
+        }
+        
+        return ClickStatsResponse.builder()
+                .shortCode(shortCode)
+                .granularity(granularity)
+                .from(start)
+                .to(end)
+                .totalClicks(totalClicks)
+                .buckets(buckets)
+                .topReferrers(referrerBucketRepository.findTopReferrers(shortCode,
+                        floor(start, ClickGranularity.HOUR), ceil(end, ClickGranularity.HOUR),
+                        PageRequest.of(0, TOP_REFERRERS)))
+                .build();
+    }
+    
+    private static LocalDateTime floor(LocalDateTime time, ClickGranularity granularity) {
+        return granularity.bucketStart(time.toInstant(ZoneOffset.UTC).toEpochMilli());
+    }
+    
+    private static LocalDateTime ceil(LocalDateTime time, ClickGranularity granularity) {
+        LocalDateTime start = floor(time, granularity);
+        return start.equals(time) ? start : start.plusSeconds(granularity.getSeconds());
+    }
+}
@@ -0,0 +1,113 @@
+package com.urlshortener.service.impl;
+
+import com.urlshortener.config.ShortCodeProperties;
+import com.urlshortener.metrics.UrlMetrics;
+import com.urlshortener.service.ShortCodeGenerator;
+import com.urlshortener.storage.UrlStorageEngine;
+import com.urlshortener.util.Base62;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Generates random short codes (the default strategy)
+ * 
+ * Uses SecureRandom for better randomness
+ * Checks each candidate against the storage engine and regenerates on collision
+ * (bulk requests check all candidates with one findExisting() call)
+ * The number of retries is recorded in urlshortener.short_code.collision_retries
+ */
+@Component
+@ConditionalOnProperty(name = "urlshortener.short-code.strategy", havingValue = "random", matchIfMissing = true)
+@Slf4j
+public class RandomShortCodeGenerator implements ShortCodeGenerator {
+    
+    private static final int MAX_ATTEMPTS = 10;
+    private static final SecureRandom RANDOM = new SecureRandom();
+    
+    private final UrlStorageEngine storageEngine;
+    private final UrlMetrics urlMetrics;
+    private final int length;
+    
+    public RandomShortCodeGenerator(UrlStorageEngine storageEngine, UrlMetrics urlMetrics,
+                                    ShortCodeProperties properties) {
+        this.storageEngine = storageEngine;
+        this.urlMetrics = urlMetrics;
+        this.length = properties.getLength();
+    }
+    
+    @Override
+    public String generate() {
+        String shortCode;
+        int attempts = 0;
+        
+        do {
+            shortCode = generateRandomString();
+            attempts++;
+            
+            // Prevent infinite loop in case of too many collisions
+            if (attempts > MAX_ATTEMPTS) {
+                throw new RuntimeException("Unable to generate unique short code");
+            }
+        } while (storageEngine.exists(shortCode));
+        
+        urlMetrics.recordCollisionRetries(attempts - 1);
+        log.debug("Generated unique short code: {} (attempts: {})", shortCode, attempts);
+        return shortCode;
+    }
+    
+    /**
+     * All candidates are checked with one query; only the ones that collide
+     * (with an existing URL or with another candidate) are drawn again
+     */
+    @Override
+    public List<String> generate(int count) {
+        Set<String> shortCodes = new LinkedHashSet<>(count * 4 / 3 + 1);
+        int attempts = 0;
+        
+        while (shortCodes.size() < count) {
+            attempts++;
+            if (attempts > MAX_ATTEMPTS) {
+                throw new RuntimeException("Unable to generate unique short codes");
+            }
+            
+            Set<String> candidates = new LinkedHashSet<>();
+            while (shortCodes.size() + candidates.size() < count) {
+                String candidate = generateRandomString();
+                if (!shortCodes.contains(candidate)) {
+                    candidates.add(candidate);
+                }
+            }
+            Set<String> taken = storageEngine.findExisting(candidates);
+            candidates.removeAll(taken);
+            shortCodes.addAll(candidates);
+            // One sample per code, like generate(): codes found in this round were redrawn attempts - 1 times
+            for (int i = 0; i < candidates.size(); i++) {
+                urlMetrics.recordCollisionRetries(attempts - 1);
+            }
+        }
+        
+        log.debug("Generated {} unique short codes (rounds: {})", count, attempts);
+        return new ArrayList<>(shortCodes);
+    }
+    
+    /**
+     * Generate a random string of the configured length
+     */
+    private String generateRandomString() {
+        StringBuilder sb = new StringBuilder(length);
+        
+        for (int i = 0; i < length; i++) {
+            int randomIndex = RANDOM.nextInt(Base62.BASE);
+            sb.append(Base62.ALPHABET.charAt(randomIndex));
+        }
+        
+        return sb.toString();
+    }
+}
@@ -0,0 +1,165 @@
+package com.urlshortener.service.impl;
+
+import com.urlshortener.config.ShortCodeProperties;
+import com.urlshortener.service.ShortCodeGenerator;
+import com.urlshortener.storage.UrlStorageEngine;
+import com.urlshortener.util.Base62;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Generates short codes from a counter (hi/lo style)
+ * 
+ * Each instance reserves a block of IDs from the storage engine (one
+ * round trip per urlshortener.short-code.block-size codes; a database
+ * sequence for JPA, a logged counter for the log engine) and hands them out from memory. Blocks never overlap, so codes are unique
+ * across instances without checking the database code by code.
+ * 
+ * Imports bring their own short codes, which may lie in a block this
+ * generator hands out later (e.g. a dump of another instance with the
+ * sequence strategy). So each new block is checked once with findExisting(),
+ * and codes that are already taken are skipped.
+ * 
+ * Each ID is turned into a code by:
+ * - Scrambling it within groups of 62^(minLength - 1) IDs (a bijection),
+ *   so consecutive codes don't look consecutive
+ * - Adding 62^(minLength - 1), so every code is at least minLength characters
+ *   long and never collides with shorter random codes
+ * - Base62-encoding the result
+ * 
+ * Codes get longer on their own as the keyspace fills up.
+ * The scrambling is not a security measure: codes remain guessable.
+ */
+@Component
+@ConditionalOnProperty(name = "urlshortener.short-code.strategy", havingValue = "sequence")
+@Slf4j
+public class SequenceShortCodeGenerator implements ShortCodeGenerator {
+    
+    // Fraction of the group size used as the scrambling multiplier (golden ratio spreads IDs well)
+    private static final double SCRAMBLE_RATIO = 0.6180339887;
+    
+    /**
+     * A reserved range of IDs [next, end) and the codes in it that are already taken
+     */
+    private static final class Block {
+        private final AtomicLong next;
+        private final long end;
+        private final Set<String> taken;
+        
+        Block(long start, long end, Set<String> taken) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+            this.taken = taken;
+        }
+    }
+    
+    private final UrlStorageEngine storageEngine;
+    private final int blockSize;
+    private final long groupSize;
+    private final long scrambleMultiplier;
+    
+    private volatile Block block = new Block(0, 0, Set.of());
+    private final ReentrantLock reserveLock = new ReentrantLock();
+    
+    public SequenceShortCodeGenerator(UrlStorageEngine storageEngine, ShortCodeProperties properties) {
+        this.storageEngine = storageEngine;
+        this.blockSize = properties.getBlockSize();
+        this.groupSize = Base62.pow(properties.getMinLength() - 1);
+        this.scrambleMultiplier = coprimeMultiplier(groupSize);
+    }
+    
+    /**
+     * Reserve the first block at startup, so a block size that doesn't fit the
+     * storage (see JpaStorageEngine) stops the start instead of failing requests
+     */
+    @PostConstruct
+    public void start() {
+        block = reserveBlock();
+    }
+    
+    /**
+     * Take the next free code from the current block
+     * Lock-free except when the block is used up and a new one must be reserved
+     */
+    @Override
+    public String generate() {
+        while (true) {
+            Block current = block;
+            long id = current.next.getAndIncrement();
+            if (id < current.end) {
+                String shortCode = encode(id);
+                if (!current.taken.contains(shortCode)) {
+                    return shortCode;
+                }
+                continue;
+            }
+            // A lock, not synchronized: reserving makes two database round trips,
+            // which would pin the carrier thread of a virtual thread (Java 21, "virtual" profile)
+            reserveLock.lock();
+            try {
+                if (block == current) {
+                    block = reserveBlock();
+                }
+            } finally {
+                reserveLock.unlock();
+            }
+        }
+    }
+    
+    private Block reserveBlock() {
+        long start = storageEngine.reserveIdBlock(blockSize);
+        
+        List<String> shortCodes = new ArrayList<>(blockSize);
+        for (long id = start; id < start + blockSize; id++) {
+            shortCodes.add(encode(id));
+        }
+        Set<String> taken = storageEngine.findExisting(shortCodes);
+        if (!taken.isEmpty()) {
+            log.info("Skipping {} imported short codes in block [{}, {})", taken.size(), start, start + blockSize);
+        }
+        
+        log.debug("Reserved short code block [{}, {})", start, start + blockSize);
+        return new Block(start, start + blockSize, taken);
+    }
+    
+    private String encode(long id) {
+        long group = id / groupSize;
+        long scrambled = multiplyMod(id % groupSize, scrambleMultiplier, groupSize);
+        return Base62.encode((group + 1) * groupSize + scrambled);
+    }
+    
+    /**
+     * Pick a multiplier near groupSize * SCRAMBLE_RATIO that is coprime with it
+     * 62 = 2 * 31, so the multiplier just has to be odd and not a multiple of 31
+     */
+    private static long coprimeMultiplier(long groupSize) {
+        long multiplier = Math.max(1, (long) (groupSize * SCRAMBLE_RATIO));
+        while (multiplier % 2 == 0 || multiplier % 31 == 0) {
+            multiplier++;
+        }
+        return multiplier;
+    }
+    
+    /**
+     * (a * b) mod m without overflowing, for a, b < m < 2^62
+     */
+    private static long multiplyMod(long a, long b, long m) {
+        long result = 0;
+        while (b > 0) {
+            if ((b & 1) == 1) {
+                result = (result + a) % m;
+            }
+            a = (a << 1) % m;
+            b >>= 1;
+        }
+        return result;
+    }
+}
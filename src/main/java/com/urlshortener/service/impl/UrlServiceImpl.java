@@ -1,15 +1,44 @@
 package com.urlshortener.service.impl;
 
+import com.urlshortener.cache.ShortCodeBloomFilter;
+import com.urlshortener.cache.ShortCodeCache;
+import com.urlshortener.clicks.ClickAggregator;
+import com.urlshortener.config.BulkProperties;
+import com.urlshortener.config.DedupeProperties;
+import com.urlshortener.config.ExpiryProperties;
+import com.urlshortener.dto.RedirectResult;
+import com.urlshortener.dto.RedirectTarget;
+import com.urlshortener.dto.ShortenOptions;
+import com.urlshortener.dto.ShortenOutcome;
+import com.urlshortener.dto.UrlSummary;
 import com.urlshortener.entity.Url;
 import com.urlshortener.exception.UrlNotFoundException;
-import com.urlshortener.repository.UrlRepository;
+import com.urlshortener.heavyhitters.HeavyHitterTracker;
+import com.urlshortener.hitcount.HitCountAggregator;
+import com.urlshortener.metrics.UrlMetrics;
+import com.urlshortener.offheap.OffHeapRedirectStore;
+import com.urlshortener.service.ShortCodeGenerator;
 import com.urlshortener.service.UrlService;
+import com.urlshortener.storage.UrlStorageEngine;
+import com.urlshortener.util.Base62;
+import com.urlshortener.util.RateLimitedLogger;
+import com.urlshortener.util.UrlHasher;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.security.SecureRandom;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Implementation of UrlService with business logic
@@ -17,107 +46,384 @@ import java.security.SecureRandom;
  * @Service - Marks this as a Spring service component
  * @RequiredArgsConstructor - Lombok generates constructor for final fields
  * @Slf4j - Lombok provides a logger instance
- * @Transactional - Ensures database operations run in transactions
+ * 
+ * All storage access goes through the UrlStorageEngine SPI (JPA or the
+ * embedded log engine). There is no service-level transaction: each engine
+ * call commits on its own (insertAll atomically per chunk). Lookups use
+ * read-only projections (UrlSummary, or just the original URL and expiry).
+ * 
+ * Expiring links: a URL with an expiry redirects until then, and answers
+ * EXPIRED (410 Gone) afterwards until ExpiredUrlReaper deletes it.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
-@Transactional
 public class UrlServiceImpl implements UrlService {
     
+    // Clients can request unknown codes as fast as they like, so don't log every one
+    private static final RateLimitedLogger NOT_FOUND_LOG = new RateLimitedLogger(log, 10, Duration.ofSeconds(1));
+    
+    // Fresh short codes tried when the generated one turns out to be taken (e.g. stored by an import meanwhile)
+    private static final int MAX_INSERT_ATTEMPTS = 3;
+    
     // Dependency injection through constructor (thanks to @RequiredArgsConstructor)
-    private final UrlRepository urlRepository;
+    private final UrlStorageEngine storageEngine;
+    private final ShortCodeCache shortCodeCache;
+    private final OffHeapRedirectStore offHeapRedirectStore;
+    private final ShortCodeBloomFilter shortCodeBloomFilter;
+    private final HitCountAggregator hitCountAggregator;
+    private final ClickAggregator clickAggregator;
+    private final HeavyHitterTracker heavyHitterTracker;
+    private final ShortCodeGenerator shortCodeGenerator;
+    private final BulkProperties bulkProperties;
+    private final DedupeProperties dedupeProperties;
+    private final ExpiryProperties expiryProperties;
+    private final UrlMetrics urlMetrics;
     
-    // Characters for generating short codes
-    private static final String CHARACTERS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
-    private static final int SHORT_CODE_LENGTH = 6;
-    private static final SecureRandom RANDOM = new SecureRandom();
+    /**
+     * Not @Transactional: insert() commits on its own, so with deduplication a
+     * unique-index violation (another request just stored the same URL) can be
+     * caught here and answered with the mapping that won the race.
+     */
+    @Override
+    public UrlSummary shortenUrl(String originalUrl) {
+        return shortenUrl(originalUrl, ShortenOptions.DEFAULTS);
+    }
     
     @Override
-    public Url shortenUrl(String originalUrl) {
+    public UrlSummary shortenUrl(String originalUrl, ShortenOptions options) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            UrlSummary result = doShortenUrl(originalUrl, withDefaultTtl(options));
+            success = true;
+            return result;
+        } finally {
+            urlMetrics.recordShorten(start, success);
+        }
+    }
+    
+    private UrlSummary doShortenUrl(String originalUrl, ShortenOptions options) {
         log.debug("Shortening URL: {}", originalUrl);
         
-        // Generate unique short code
-        String shortCode = generateUniqueShortCode();
+        byte[] urlHash = null;
+        if (dedupeProperties.isEnabled() && options.isDefault()) {
+            urlHash = UrlHasher.hash(originalUrl);
+            
+            // Return the existing mapping for this URL, if any
+            Optional<UrlSummary> existing = findByUrlHash(urlHash, originalUrl);
+            if (existing.isPresent()) {
+                log.debug("URL already shortened. Short code: {}", existing.get().shortCode());
+                return existing.get();
+            }
+        }
+        
+        // Create new URL entity with a unique short code and save it
+        UrlSummary savedUrl = null;
+        for (int attempt = 1; savedUrl == null; attempt++) {
+            Url url = newUrl(originalUrl, shortCodeGenerator.generate(), urlHash, options);
+            try {
+                savedUrl = storageEngine.insert(url);
+            } catch (DataIntegrityViolationException e) {
+                if (urlHash != null) {
+                    // A concurrent request stored the same URL first: use its mapping
+                    Optional<UrlSummary> existing = findByUrlHash(urlHash, originalUrl);
+                    if (existing.isPresent()) {
+                        return existing.get();
+                    }
+                }
+                // Otherwise only a short code stored since it was generated is worth another try
+                if (attempt >= MAX_INSERT_ATTEMPTS || !storageEngine.exists(url.getShortCode())) {
+                    throw e;
+                }
+                log.debug("Short code {} was taken meanwhile, generating another one", url.getShortCode());
+            }
+        }
+        
+        shortCodeCache.put(savedUrl.shortCode(),
+                new RedirectTarget(originalUrl, savedUrl.expiresAt(), savedUrl.redirectType()));
+        offHeapRedirectStore.put(savedUrl);
+        log.debug("URL shortened successfully. Short code: {}", savedUrl.shortCode());
+        
+        return savedUrl;
+    }
+    
+    /**
+     * Each chunk is stored with one insertAll() call (one transaction and
+     * JDBC batch with the JPA engine, one log append with the log engine),
+     * so no more than one chunk is held in memory.
+     * If a chunk fails, only its items are reported as failed.
+     */
+    @Override
+    public List<ShortenOutcome> shortenUrls(List<String> originalUrls) {
+        return shortenUrls(originalUrls, Collections.nCopies(originalUrls.size(), ShortenOptions.DEFAULTS));
+    }
+    
+    @Override
+    public List<ShortenOutcome> shortenUrls(List<String> originalUrls, List<ShortenOptions> options) {
+        log.debug("Shortening {} URLs in bulk", originalUrls.size());
+        
+        List<ShortenOptions> resolvedOptions = new ArrayList<>(options.size());
+        options.forEach(itemOptions -> resolvedOptions.add(withDefaultTtl(itemOptions)));
+        
+        List<ShortenOutcome> outcomes = new ArrayList<>(originalUrls.size());
+        int chunkSize = bulkProperties.getChunkSize();
+        
+        for (int start = 0; start < originalUrls.size(); start += chunkSize) {
+            int end = Math.min(start + chunkSize, originalUrls.size());
+            List<String> chunk = originalUrls.subList(start, end);
+            List<ShortenOptions> chunkOptions = resolvedOptions.subList(start, end);
+            
+            try {
+                List<UrlSummary> results = dedupeProperties.isEnabled()
+                        ? shortenChunkDeduplicated(chunk, chunkOptions)
+                        : shortenChunk(chunk, chunkOptions);
+                results.forEach(result -> outcomes.add(ShortenOutcome.success(result)));
+            } catch (RuntimeException e) {
+                log.error("Failed to shorten bulk chunk starting at item {}", start, e);
+                outcomes.addAll(Collections.nCopies(chunk.size(), ShortenOutcome.failure("Unable to shorten URL")));
+            }
+        }
+        
+        log.info("Bulk shortened {} URLs", originalUrls.size());
+        return outcomes;
+    }
+    
+    /**
+     * Insert one new URL per item
+     */
+    private List<UrlSummary> shortenChunk(List<String> originalUrls, List<ShortenOptions> options) {
+        List<String> shortCodes = shortCodeGenerator.generate(originalUrls.size());
+        List<Url> urls = new ArrayList<>(originalUrls.size());
+        for (int i = 0; i < originalUrls.size(); i++) {
+            urls.add(newUrl(originalUrls.get(i), shortCodes.get(i), null, options.get(i)));
+        }
+        
+        List<UrlSummary> results = storageEngine.insertAll(urls);
         
-        // Create new URL entity
+        // Forget any cached "not found" for the new codes
+        for (UrlSummary result : results) {
+            shortCodeCache.invalidate(result.shortCode());
+            offHeapRedirectStore.put(result);
+        }
+        return results;
+    }
+    
+    /**
+     * Insert only URLs that aren't stored yet (one lookup for the whole chunk)
+     * Repeated URLs within the chunk share one new mapping; URLs with their own
+     * options always get their own. If a concurrent request stores one of the
+     * URLs first, the chunk falls back to shortenUrl per item.
+     */
+    private List<UrlSummary> shortenChunkDeduplicated(List<String> originalUrls, List<ShortenOptions> options) {
+        // Hashes of the URLs with default options (null for the others)
+        List<byte[]> hashes = new ArrayList<>(originalUrls.size());
+        List<byte[]> lookupHashes = new ArrayList<>(originalUrls.size());
+        for (int i = 0; i < originalUrls.size(); i++) {
+            byte[] hash = options.get(i).isDefault() ? UrlHasher.hash(originalUrls.get(i)) : null;
+            hashes.add(hash);
+            if (hash != null) {
+                lookupHashes.add(hash);
+            }
+        }
+        Map<ByteBuffer, UrlSummary> byHash = lookupHashes.isEmpty()
+                ? new HashMap<>()
+                : new HashMap<>(storageEngine.findSummariesByUrlHashes(lookupHashes));
+        
+        // Items that need a new mapping, then one short code for each of them
+        Map<ByteBuffer, Integer> newItems = new LinkedHashMap<>();
+        List<Integer> itemsToInsert = new ArrayList<>();
+        for (int i = 0; i < originalUrls.size(); i++) {
+            if (hashes.get(i) == null) {
+                itemsToInsert.add(i);
+                continue;
+            }
+            ByteBuffer key = ByteBuffer.wrap(hashes.get(i));
+            if (!byHash.containsKey(key) && !newItems.containsKey(key)) {
+                newItems.put(key, i);
+                itemsToInsert.add(i);
+            }
+        }
+        
+        List<String> shortCodes = shortCodeGenerator.generate(itemsToInsert.size());
+        Url[] urlsByItem = new Url[originalUrls.size()];
+        List<Url> urlsToInsert = new ArrayList<>(itemsToInsert.size());
+        for (int i = 0; i < itemsToInsert.size(); i++) {
+            int item = itemsToInsert.get(i);
+            urlsByItem[item] = newUrl(originalUrls.get(item), shortCodes.get(i), hashes.get(item), options.get(item));
+            urlsToInsert.add(urlsByItem[item]);
+        }
+        
+        List<UrlSummary> savedUrls;
+        try {
+            savedUrls = storageEngine.insertAll(urlsToInsert);
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Concurrent insert of a bulk URL, retrying chunk item by item");
+            List<UrlSummary> results = new ArrayList<>(originalUrls.size());
+            for (int i = 0; i < originalUrls.size(); i++) {
+                results.add(shortenUrl(originalUrls.get(i), options.get(i)));
+            }
+            return results;
+        }
+        
+        // insertAll() keeps the order of urlsToInsert
+        Map<Url, UrlSummary> savedByUrl = new IdentityHashMap<>();
+        for (int i = 0; i < urlsToInsert.size(); i++) {
+            UrlSummary savedUrl = savedUrls.get(i);
+            shortCodeCache.invalidate(savedUrl.shortCode());
+            offHeapRedirectStore.put(savedUrl);
+            savedByUrl.put(urlsToInsert.get(i), savedUrl);
+        }
+        newItems.forEach((key, item) -> byHash.put(key, savedByUrl.get(urlsByItem[item])));
+        
+        List<UrlSummary> results = new ArrayList<>(originalUrls.size());
+        for (int i = 0; i < originalUrls.size(); i++) {
+            results.add(hashes.get(i) == null
+                    ? savedByUrl.get(urlsByItem[i])
+                    : byHash.get(ByteBuffer.wrap(hashes.get(i))));
+        }
+        return results;
+    }
+    
+    /**
+     * The options with now + the default TTL as expiry if none was requested
+     * (unchanged if no default TTL is configured: such URLs never expire)
+     */
+    private ShortenOptions withDefaultTtl(ShortenOptions options) {
+        if (options.expiresAt() != null || expiryProperties.getDefaultTtl().isZero()) {
+            return options;
+        }
+        return options.withExpiresAt(LocalDateTime.now().plus(expiryProperties.getDefaultTtl()));
+    }
+    
+    /**
+     * Create a new (unsaved) URL entity with a fresh short code from the generator
+     */
+    private Url newUrl(String originalUrl, String shortCode, byte[] urlHash, ShortenOptions options) {
         Url url = new Url();
         url.setOriginalUrl(originalUrl);
         url.setShortCode(shortCode);
+        // Known to the Bloom filter before the row exists, so redirects never miss it
+        shortCodeBloomFilter.add(url.getShortCode());
+        url.setUrlHash(urlHash);
         url.setHitCount(0L);
-        
-        // Save to database
-        Url savedUrl = urlRepository.save(url);
-        log.info("URL shortened successfully. Short code: {}", shortCode);
-        
-        return savedUrl;
+        url.setExpiresAt(options.expiresAt());
+        url.setRedirectType(options.redirectType());
+        return url;
+    }
+    
+    /**
+     * Look up a URL by hash, double-checking the URL itself
+     */
+    private Optional<UrlSummary> findByUrlHash(byte[] urlHash, String originalUrl) {
+        return storageEngine.findSummaryByUrlHash(urlHash)
+                .filter(existing -> existing.originalUrl().equals(originalUrl));
     }
     
     @Override
-    public Url getUrlByShortCode(String shortCode) {
+    public UrlSummary getUrlByShortCode(String shortCode) {
         log.debug("Getting URL for short code: {}", shortCode);
         
-        return urlRepository.findByShortCode(shortCode)
-                .orElseThrow(() -> {
-                    log.error("URL not found for short code: {}", shortCode);
-                    return new UrlNotFoundException("URL not found for short code: " + shortCode);
-                });
+        Optional<UrlSummary> url = isIssued(shortCode)
+                ? storageEngine.findSummary(shortCode)
+                : Optional.empty();
+        
+        return url.orElseThrow(() -> {
+            NOT_FOUND_LOG.info("URL not found for short code: {}", shortCode);
+            return new UrlNotFoundException("URL not found for short code: " + shortCode);
+        });
     }
     
     @Override
-    public Url getUrlInfo(String shortCode) {
-        // Same as getUrlByShortCode but doesn't increment hit count
-        return getUrlByShortCode(shortCode);
+    public UrlSummary getUrlInfo(String shortCode) {
+        long start = System.nanoTime();
+        boolean found = false;
+        try {
+            // Same as getUrlByShortCode but doesn't increment hit count
+            UrlSummary url = getUrlByShortCode(shortCode);
+            found = true;
+            
+            // Add hits that are counted but not yet written to the database
+            return url.withHitCount(url.hitCount() + hitCountAggregator.pendingHits(shortCode));
+        } finally {
+            urlMetrics.recordInfo(start, found);
+        }
     }
     
+    /**
+     * Same as redirectUrl(shortCode, null, null), with expired URLs reported as empty
+     */
     @Override
-    public String redirectUrl(String shortCode) {
-        log.debug("Redirecting for short code: {}", shortCode);
+    public Optional<String> redirectUrl(String shortCode) {
+        return Optional.ofNullable(redirectUrl(shortCode, null, null).originalUrl());
+    }
+    
+    /**
+     * Resolves through the off-heap store (if enabled), then the short code cache
+     * 
+     * The off-heap store holds every link and answers without allocating
+     * anything but the result. Codes it doesn't hold, and all codes when it is
+     * disabled, go through the usual path: codes that were never issued are
+     * rejected by the Bloom filter without a cache entry or a query. A cache
+     * hit never opens a JPA transaction.
+     * On a miss only the original URL and expiry columns are queried. The
+     * expiry is checked on every redirect, cached or not, against the clock.
+     * Hits are counted in memory and written to the database in batches by
+     * HitCountAggregator, and a click event is handed to ClickAggregator
+     * without waiting. HeavyHitterTracker counts the hit for the top-N of
+     * recent redirects. Redirects of expired URLs are not counted.
+     * 
+     * Not found and expired are plain results: no exception, no stack trace.
+     */
+    @Override
+    public RedirectResult redirectUrl(String shortCode, String referrer, String userAgent) {
+        long start = System.nanoTime();
         
-        // Get URL
-        Url url = getUrlByShortCode(shortCode);
+        RedirectResult stored = offHeapRedirectStore.find(shortCode);
+        if (stored != null) {
+            return completeRedirect(start, shortCode, stored, referrer, userAgent);
+        }
         
-        // Increment hit count
-        urlRepository.incrementHitCount(shortCode);
-        log.info("Hit count incremented for short code: {}", shortCode);
+        // Get URL (from cache, or from the database on a miss)
+        Optional<RedirectTarget> target = isIssued(shortCode)
+                ? shortCodeCache.get(shortCode, storageEngine::findRedirectTarget)
+                : Optional.empty();
         
-        return url.getOriginalUrl();
+        if (target.isEmpty()) {
+            urlMetrics.recordRedirect(start, RedirectResult.Status.NOT_FOUND);
+            NOT_FOUND_LOG.info("URL not found for short code: {}", shortCode);
+            return RedirectResult.NOT_FOUND;
+        }
+        return completeRedirect(start, shortCode, RedirectResult.found(target.get()), referrer, userAgent);
     }
     
     /**
-     * Generate a unique short code
-     * Uses SecureRandom for better randomness
-     * Checks for collisions and regenerates if needed
+     * Finish a redirect of a known code: answer EXPIRED, or count the hit and return the result
      */
-    private String generateUniqueShortCode() {
-        String shortCode;
-        int attempts = 0;
+    private RedirectResult completeRedirect(long start, String shortCode, RedirectResult found,
+                                            String referrer, String userAgent) {
+        if (System.currentTimeMillis() >= found.expiresAtMillis()) {
+            urlMetrics.recordRedirect(start, RedirectResult.Status.EXPIRED);
+            NOT_FOUND_LOG.info("URL expired for short code: {}", shortCode);
+            return RedirectResult.EXPIRED;
+        }
+        urlMetrics.recordRedirect(start, RedirectResult.Status.FOUND);
         
-        do {
-            shortCode = generateRandomString();
-            attempts++;
-            
-            // Prevent infinite loop in case of too many collisions
-            if (attempts > 10) {
-                throw new RuntimeException("Unable to generate unique short code");
-            }
-        } while (urlRepository.existsByShortCode(shortCode));
+        // Count the hit and publish the click (both written to the database in the background)
+        hitCountAggregator.record(shortCode);
+        heavyHitterTracker.record(shortCode);
+        clickAggregator.publish(shortCode, referrer, userAgent);
+        log.debug("Hit recorded for short code: {}", shortCode);
         
-        log.debug("Generated unique short code: {} (attempts: {})", shortCode, attempts);
-        return shortCode;
+        return found;
     }
     
     /**
-     * Generate a random string of specified length
+     * Cheap checks that rule out most unknown codes before any lookup:
+     * the code must be well-formed and known to the Bloom filter
      */
-    private String generateRandomString() {
-        StringBuilder sb = new StringBuilder(SHORT_CODE_LENGTH);
-        
-        for (int i = 0; i < SHORT_CODE_LENGTH; i++) {
-            int randomIndex = RANDOM.nextInt(CHARACTERS.length());
-            sb.append(CHARACTERS.charAt(randomIndex));
-        }
-        
-        return sb.toString();
+    private boolean isIssued(String shortCode) {
+        return Base62.isValid(shortCode, Url.MAX_SHORT_CODE_LENGTH)
+                && shortCodeBloomFilter.mightContain(shortCode);
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
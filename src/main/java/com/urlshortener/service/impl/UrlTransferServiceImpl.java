@@ -0,0 +1,230 @@
+package com.urlshortener.service.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.urlshortener.cache.ShortCodeBloomFilter;
+import com.urlshortener.cache.ShortCodeCache;
+import com.urlshortener.config.BulkProperties;
+import com.urlshortener.config.DedupeProperties;
+import com.urlshortener.dto.ImportResult;
+import com.urlshortener.dto.UrlRequest;
+import com.urlshortener.dto.UrlSummary;
+import com.urlshortener.entity.Url;
+import com.urlshortener.hitcount.HitCountAggregator;
+import com.urlshortener.offheap.OffHeapRedirectStore;
+import com.urlshortener.service.UrlTransferService;
+import com.urlshortener.storage.UrlStorageEngine;
+import com.urlshortener.util.Base62;
+import com.urlshortener.util.UrlHasher;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Implementation of UrlTransferService
+ *
+ * Export: visits UrlSummary projections one at a time through the storage
+ * engine and writes each one straight to the output stream.
+ * Import: parses one line at a time and writes rows in chunks of
+ * urlshortener.bulk.chunk-size, each chunk with one insertAll() call.
+ *
+ * Neither side keeps more than one chunk in memory or in the persistence context.
+ *
+ * With deduplication enabled, imported URLs without their own options get
+ * their URL hash, so later shorten requests find them. A URL that is already
+ * stored (or appears earlier in the chunk) is imported under its own short
+ * code without a hash: only one mapping per URL can be the deduplication target.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UrlTransferServiceImpl implements UrlTransferService {
+
+    // Push exported lines to the client every this many URLs
+    private static final int FLUSH_EVERY = 1000;
+
+    private final UrlStorageEngine storageEngine;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final ShortCodeCache shortCodeCache;
+    private final OffHeapRedirectStore offHeapRedirectStore;
+    private final ShortCodeBloomFilter shortCodeBloomFilter;
+    private final HitCountAggregator hitCountAggregator;
+    private final BulkProperties bulkProperties;
+    private final DedupeProperties dedupeProperties;
+
+    @Override
+    public long exportUrls(OutputStream out) throws IOException {
+        // Write buffered hits first so the exported hit counts are current
+        hitCountAggregator.flush();
+
+        AtomicLong count = new AtomicLong();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+
+            // Don't close the response stream when the generator is closed
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // We write our own newline between values instead of the default space
+            generator.setRootValueSeparator(null);
+
+            storageEngine.forEachSummary(url -> {
+                try {
+                    objectMapper.writeValue(generator, url);
+                    generator.writeRaw('\n');
+                    if (count.incrementAndGet() % FLUSH_EVERY == 0) {
+                        generator.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        log.info("Exported {} URLs", count.get());
+        return count.get();
+    }
+
+    @Override
+    public ImportResult importUrls(InputStream in) throws IOException {
+        ObjectReader reader = objectMapper.readerFor(UrlSummary.class);
+        ImportResult result = new ImportResult();
+        List<Url> chunk = new ArrayList<>(bulkProperties.getChunkSize());
+
+        BufferedReader lines = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = lines.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+
+            Url url = parseLine(reader, line);
+            if (url == null) {
+                result.setRejected(result.getRejected() + 1);
+                continue;
+            }
+
+            chunk.add(url);
+            if (chunk.size() >= bulkProperties.getChunkSize()) {
+                importChunk(chunk, result);
+                chunk.clear();
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, result);
+        }
+
+        log.info("Import finished: {}", result);
+        return result;
+    }
+
+    /**
+     * Parse and validate one NDJSON line
+     * @return A new (unsaved) Url entity, or null if the line is invalid
+     */
+    private Url parseLine(ObjectReader reader, String line) {
+        UrlSummary summary;
+        try {
+            summary = reader.readValue(line);
+        } catch (JsonProcessingException e) {
+            log.debug("Rejected unparseable import line: {}", e.getOriginalMessage());
+            return null;
+        }
+
+        if (summary.shortCode() == null
+                || !Base62.isValid(summary.shortCode(), Url.MAX_SHORT_CODE_LENGTH)
+                || !validator.validate(new UrlRequest(summary.originalUrl())).isEmpty()) {
+            log.debug("Rejected invalid import line for short code: {}", summary.shortCode());
+            return null;
+        }
+
+        Url url = new Url();
+        url.setShortCode(summary.shortCode());
+        url.setOriginalUrl(summary.originalUrl());
+        url.setCreatedAt(summary.createdAt());
+        url.setHitCount(summary.hitCount() == null ? 0L : summary.hitCount());
+        // Expired URLs are imported too; the reaper deletes them after the grace period
+        url.setExpiresAt(summary.expiresAt());
+        url.setRedirectType(summary.redirectType());
+        return url;
+    }
+
+    /**
+     * Write one chunk with one insertAll() call, skipping short codes that already exist
+     */
+    private void importChunk(List<Url> chunk, ImportResult result) {
+        try {
+            Set<String> taken = new HashSet<>(storageEngine.findExisting(
+                    chunk.stream().map(Url::getShortCode).toList()));
+
+            List<Url> newUrls = new ArrayList<>(chunk.size());
+            for (Url url : chunk) {
+                // add() also catches duplicates within the chunk
+                if (taken.add(url.getShortCode())) {
+                    newUrls.add(url);
+                }
+            }
+            if (dedupeProperties.isEnabled()) {
+                setUrlHashes(newUrls);
+            }
+            newUrls.forEach(url -> shortCodeBloomFilter.add(url.getShortCode()));
+            if (!newUrls.isEmpty()) {
+                storageEngine.insertAll(newUrls);
+            }
+            int imported = newUrls.size();
+
+            chunk.forEach(url -> shortCodeCache.invalidate(url.getShortCode()));
+            newUrls.forEach(url -> offHeapRedirectStore.put(UrlSummary.from(url)));
+            result.setImported(result.getImported() + imported);
+            result.setSkipped(result.getSkipped() + chunk.size() - imported);
+
+        } catch (RuntimeException e) {
+            log.error("Failed to import chunk of {} URLs", chunk.size(), e);
+            result.setFailed(result.getFailed() + chunk.size());
+        }
+    }
+
+    /**
+     * Give URLs without their own expiry or redirect type their URL hash,
+     * unless the URL is already stored or earlier in the list (one lookup for all)
+     */
+    private void setUrlHashes(List<Url> urls) {
+        List<byte[]> hashes = new ArrayList<>(urls.size());
+        for (Url url : urls) {
+            hashes.add(url.getExpiresAt() == null && url.getRedirectType() == null
+                    ? UrlHasher.hash(url.getOriginalUrl())
+                    : null);
+        }
+        List<byte[]> lookupHashes = hashes.stream().filter(hash -> hash != null).toList();
+        if (lookupHashes.isEmpty()) {
+            return;
+        }
+
+        Set<ByteBuffer> claimed = new HashSet<>(storageEngine.findSummariesByUrlHashes(lookupHashes).keySet());
+        for (int i = 0; i < urls.size(); i++) {
+            byte[] hash = hashes.get(i);
+            // add() also skips the second of two equal URLs in the chunk
+            if (hash != null && claimed.add(ByteBuffer.wrap(hash))) {
+                urls.get(i).setUrlHash(hash);
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.urlshortener.storage;
+
+import com.urlshortener.dto.RedirectTarget;
+import com.urlshortener.dto.UrlSummary;
+import com.urlshortener.entity.Url;
+import com.urlshortener.repository.UrlRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Storage engine backed by the relational database (the default)
+ * 
+ * A thin adapter over UrlRepository: lookups use its read-only projections,
+ * insertAll() runs in one transaction (Hibernate sends it as one JDBC batch)
+ * and the forEach methods stream through a read-only transaction.
+ * ID blocks come from the "short_code_seq" database sequence.
+ */
+@Component
+@ConditionalOnProperty(name = "urlshortener.storage.engine", havingValue = "jpa", matchIfMissing = true)
+@Slf4j
+public class JpaStorageEngine implements UrlStorageEngine {
+    
+    private static final String SEQUENCE_NAME = "short_code_seq";
+    
+    private final UrlRepository urlRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    
+    private volatile boolean sequenceChecked;
+    
+    public JpaStorageEngine(UrlRepository urlRepository,
+                            TransactionTemplate transactionTemplate,
+                            JdbcTemplate jdbcTemplate) {
+        this.urlRepository = urlRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.jdbcTemplate = jdbcTemplate;
+        log.info("Using the JPA storage engine");
+    }
+    
+    @Override
+    public Optional<RedirectTarget> findRedirectTarget(String shortCode) {
+        return urlRepository.findRedirectTargetByShortCode(shortCode);
+    }
+    
+    @Override
+    public Optional<UrlSummary> findSummary(String shortCode) {
+        return urlRepository.findSummaryByShortCode(shortCode);
+    }
+    
+    @Override
+    public Optional<UrlSummary> findSummaryByUrlHash(byte[] urlHash) {
+        return urlRepository.findSummaryByUrlHash(urlHash);
+    }
+    
+    @Override
+    public Map<ByteBuffer, UrlSummary> findSummariesByUrlHashes(Collection<byte[]> urlHashes) {
+        Map<ByteBuffer, UrlSummary> summaries = new HashMap<>();
+        for (Url url : urlRepository.findByUrlHashIn(urlHashes)) {
+            summaries.put(ByteBuffer.wrap(url.getUrlHash()), UrlSummary.from(url));
+        }
+        return summaries;
+    }
+    
+    @Override
+    public boolean exists(String shortCode) {
+        return urlRepository.existsByShortCode(shortCode);
+    }
+    
+    @Override
+    public Set<String> findExisting(Collection<String> shortCodes) {
+        return new HashSet<>(urlRepository.findExistingShortCodes(shortCodes));
+    }
+    
+    @Override
+    public UrlSummary insert(Url url) {
+        return UrlSummary.from(urlRepository.save(url));
+    }
+    
+    @Override
+    public List<UrlSummary> insertAll(List<Url> urls) {
+        List<Url> savedUrls = transactionTemplate.execute(status -> urlRepository.saveAll(urls));
+        
+        List<UrlSummary> summaries = new ArrayList<>(savedUrls.size());
+        for (Url savedUrl : savedUrls) {
+            summaries.add(UrlSummary.from(savedUrl));
+        }
+        return summaries;
+    }
+    
+    @Override
+    public void addHitCounts(Map<String, Long> hitsByShortCode) {
+        urlRepository.addHitCounts(hitsByShortCode);
+    }
+    
+    /**
+     * The codes are selected through the expires_at index and deleted by short code
+     * in the same transaction, so each call locks at most limit rows, briefly
+     */
+    @Override
+    public List<String> deleteExpired(LocalDateTime expiredBefore, int limit) {
+        return transactionTemplate.execute(status -> {
+            List<String> shortCodes = urlRepository.findExpiredShortCodes(expiredBefore, PageRequest.of(0, limit));
+            if (!shortCodes.isEmpty()) {
+                urlRepository.deleteExpiredByShortCodes(shortCodes, expiredBefore);
+            }
+            return shortCodes;
+        });
+    }
+    
+    @Override
+    public void forEachSummary(Consumer<UrlSummary> action) {
+        readOnlyTransactionTemplate.executeWithoutResult(status -> {
+            try (Stream<UrlSummary> summaries = urlRepository.streamAllSummaries()) {
+                summaries.forEach(action);
+            }
+        });
+    }
+    
+    @Override
+    public void forEachShortCode(Consumer<String> action) {
+        readOnlyTransactionTemplate.executeWithoutResult(status -> {
+            try (Stream<String> shortCodes = urlRepository.streamAllShortCodes()) {
+                shortCodes.forEach(action);
+            }
+        });
+    }
+    
+    /**
+     * Each value of the sequence is the first ID of a new block
+     * The sequence comes from the migrations, with the block size as its increment
+     */
+    @Override
+    public long reserveIdBlock(int blockSize) {
+        if (!sequenceChecked) {
+            checkSequenceIncrement(blockSize);
+            sequenceChecked = true;
+        }
+        return jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR " + SEQUENCE_NAME, Long.class);
+    }
+
+    /**
+     * The sequence's increment is the block size: a different block-size would hand out overlapping blocks
+     */
+    private void checkSequenceIncrement(int blockSize) {
+        List<Long> increments = jdbcTemplate.queryForList(
+                "SELECT INCREMENT FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = ?",
+                Long.class, SEQUENCE_NAME.toUpperCase());
+        if (increments.isEmpty()) {
+            throw new IllegalStateException("Sequence " + SEQUENCE_NAME
+                    + " doesn't exist, it is created by the Flyway migration V4");
+        }
+        if (increments.get(0) != blockSize) {
+            throw new IllegalStateException("urlshortener.short-code.block-size is " + blockSize
+                    + " but sequence " + SEQUENCE_NAME + " increments by " + increments.get(0)
+                    + ", so ID blocks would overlap. Set the block size to " + increments.get(0)
+                    + " or change the increment in a new migration");
+        }
+    }
+}
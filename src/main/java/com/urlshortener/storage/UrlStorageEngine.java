@@ -0,0 +1,113 @@
+package com.urlshortener.storage;
+
+import com.urlshortener.dto.RedirectTarget;
+import com.urlshortener.dto.UrlSummary;
+import com.urlshortener.entity.Url;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Storage engine SPI for URL mappings
+ * 
+ * Everything that reads or writes short code -> URL mappings goes through
+ * this interface, so the storage can be swapped without touching the services.
+ * 
+ * Implementations (chosen with urlshortener.storage.engine):
+ * - JpaStorageEngine ("jpa", default): the urls table through Spring Data JPA
+ * - LogStorageEngine ("log"): an embedded append-only log file with a
+ *   memory-mapped hash index, on local disk
+ * - ShardedStorageEngine ("sharded"): the urls table split over several
+ *   databases by a consistent hash of the short code
+ * 
+ * Conflicting writes (short code or URL hash already stored) throw
+ * DataIntegrityViolationException, whatever the engine.
+ */
+public interface UrlStorageEngine {
+    
+    /**
+     * Find only the original URL and expiry for a short code (all a redirect needs)
+     * Expired URLs are returned too, until they are deleted: the caller decides
+     */
+    Optional<RedirectTarget> findRedirectTarget(String shortCode);
+    
+    /**
+     * Find a read-only summary of a URL by its short code
+     */
+    Optional<UrlSummary> findSummary(String shortCode);
+    
+    /**
+     * Find a read-only summary of a URL by the SHA-256 hash of its original URL
+     * Only URLs stored with a hash (deduplication) can be found
+     */
+    Optional<UrlSummary> findSummaryByUrlHash(byte[] urlHash);
+    
+    /**
+     * Find the URLs for several hashes at once
+     * @return Summaries keyed by ByteBuffer.wrap(hash); hashes without a URL are missing
+     */
+    Map<ByteBuffer, UrlSummary> findSummariesByUrlHashes(Collection<byte[]> urlHashes);
+    
+    /**
+     * Check if a short code already exists
+     */
+    boolean exists(String shortCode);
+    
+    /**
+     * Find which of the given short codes already exist
+     */
+    Set<String> findExisting(Collection<String> shortCodes);
+    
+    /**
+     * Store a new URL
+     * @throws org.springframework.dao.DataIntegrityViolationException if the short code
+     *         (or the URL hash) is already stored
+     */
+    UrlSummary insert(Url url);
+    
+    /**
+     * Store several new URLs at once
+     * Either all of them are stored or (on a conflict) none are.
+     * @throws org.springframework.dao.DataIntegrityViolationException if any short code
+     *         (or URL hash) is already stored
+     */
+    List<UrlSummary> insertAll(List<Url> urls);
+    
+    /**
+     * Add hit counts to many URLs at once (unknown short codes are ignored)
+     * @param hitsByShortCode Number of hits to add, per short code
+     */
+    void addHitCounts(Map<String, Long> hitsByShortCode);
+    
+    /**
+     * Delete URLs that expired before the given time, earliest expiry first
+     * Called repeatedly by the expiry reaper; each call is one short transaction.
+     * @param limit Maximum number of URLs to delete in this call
+     * @return The short codes of the deleted URLs (fewer than limit once all are gone)
+     */
+    List<String> deleteExpired(LocalDateTime expiredBefore, int limit);
+    
+    /**
+     * Visit all URLs, oldest first, without loading them all into memory
+     */
+    void forEachSummary(Consumer<UrlSummary> action);
+    
+    /**
+     * Visit all short codes without loading them all into memory
+     */
+    void forEachShortCode(Consumer<String> action);
+    
+    /**
+     * Reserve a block of IDs for sequence-based short codes
+     * Blocks never overlap, also across restarts and instances sharing the storage.
+     * @param blockSize Size of the block (must be the same on every call)
+     * @return The first ID of the block; the block is [start, start + blockSize)
+     */
+    long reserveIdBlock(int blockSize);
+}
@@ -0,0 +1,1130 @@
+package com.urlshortener.storage.log;
+
+import com.urlshortener.config.MaintenanceScheduler;
+import com.urlshortener.config.StorageProperties;
+import com.urlshortener.dto.RedirectTarget;
+import com.urlshortener.dto.UrlSummary;
+import com.urlshortener.entity.RedirectType;
+import com.urlshortener.entity.Url;
+import com.urlshortener.storage.UrlStorageEngine;
+import com.urlshortener.util.StringHash;
+import com.urlshortener.util.UrlHasher;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Embedded storage engine: an append-only log plus memory-mapped hash indexes
+ *
+ * Files in urlshortener.storage.log.directory:
+ * - urls.log: every change, in order (see UrlLog)
+ *   PUT      a new URL (short code, created at, hit count, URL hash, expiry, redirect type, original URL)
+ *   HITS     hits added to a short code
+ *   ID_BLOCK the next unreserved ID after a reserveIdBlock() call
+ * - codes.idx: short code -> offset of its PUT record, and its total hit count
+ * - hashes.idx: URL hash -> offset of its PUT record (only URLs stored with a hash)
+ *
+ * A lookup is one probe of a memory-mapped index plus one positional read of
+ * the log, with no database, ORM or transaction involved.
+ *
+ * Durability and recovery:
+ * - New URLs and ID blocks are forced to disk before the call returns
+ *   (unless urlshortener.storage.log.fsync=false); hit counts are not
+ * - After a clean shutdown the indexes are reused as they are. After a crash
+ *   they are rebuilt by replaying the log, and a half-written record at the
+ *   end of the log is cut off. A crash in the middle of insertAll() can keep
+ *   the first URLs of the batch.
+ *
+ * Compaction: HITS and ID_BLOCK records pile up as garbage. When they make
+ * up urlshortener.storage.log.compaction-garbage-ratio of the log, the live
+ * URLs are copied into a new log with their hit counts folded in, and the
+ * new files replace the old ones. The copy runs up to the end of the log at
+ * the time it started, without blocking writers; only the records appended
+ * meanwhile (the tail) are copied while writes wait, right before the swap.
+ * Lookups keep using the old files until the swap.
+ *
+ * Expired URLs: records can't be deleted one by one, so deleteExpired() only
+ * remembers the cutoff it was given, and the next compaction leaves the URLs
+ * that expired before it out of the new log. Until then they stay readable
+ * (the service answers them with 410 Gone). The bytes of live URLs are kept
+ * per hour of expiry, so the ones that expired before the cutoff count as
+ * garbage and can trigger the compaction themselves.
+ *
+ * Locking:
+ * - writeMutex: one writer at a time (inserts, hit counts, ID blocks, the end of a compaction)
+ * - indexLock: lookups hold the read lock; writers take the write lock only
+ *   for the short moment they change the indexes or swap files
+ * - compactionLock: the forEach scans hold the read lock so compaction can't
+ *   replace the log under them
+ *
+ * Only one process may use a directory at a time.
+ */
+@Component
+@ConditionalOnProperty(name = "urlshortener.storage.engine", havingValue = "log")
+@Slf4j
+public class LogStorageEngine implements UrlStorageEngine {
+
+    private static final byte PUT = 1;
+    private static final byte HITS = 2;
+    private static final byte ID_BLOCK = 3;
+
+    // Flags byte of a PUT payload: which optional fields follow (older logs only use FLAG_URL_HASH)
+    private static final byte FLAG_URL_HASH = 1;
+    private static final byte FLAG_EXPIRES_AT = 2;
+    private static final byte FLAG_REDIRECT_TYPE = 4;
+
+    private static final String LOG_FILE = "urls.log";
+    private static final String CODE_INDEX_FILE = "codes.idx";
+    private static final String HASH_INDEX_FILE = "hashes.idx";
+    private static final String COMPACTING_SUFFIX = ".compacting";
+
+    // A PUT payload starts with the short code: [byte length][up to MAX_SHORT_CODE_LENGTH ASCII bytes]
+    private static final int SHORT_CODE_PREFIX = 1 + Url.MAX_SHORT_CODE_LENGTH;
+
+    // Compaction writes the new log in chunks of about this size
+    private static final int COMPACTION_CHUNK = 1 << 20;
+
+    private static final long SECONDS_PER_HOUR = 3600;
+
+    private final StorageProperties.Log properties;
+    private final MaintenanceScheduler maintenanceScheduler;
+    private final Path directory;
+
+    private final ReentrantLock writeMutex = new ReentrantLock();
+    private final ReentrantReadWriteLock indexLock = new ReentrantReadWriteLock();
+    private final ReentrantReadWriteLock compactionLock = new ReentrantReadWriteLock();
+
+    // Replaced by compaction (under indexLock's write lock)
+    private UrlLog urlLog;
+    private MappedIndex codeIndex;
+    private MappedIndex hashIndex;
+
+    // Only changed by writers (under writeMutex)
+    private long liveBytes;
+    private long nextId;
+
+    // Bytes of live PUT records with an expiry, by hour of expiry (under writeMutex)
+    // null until counted: after a clean start they aren't known until the first compaction check
+    private NavigableMap<Long, Long> expiringBytes;
+
+    // URLs that expired before this are left out by the next compaction (null: none)
+    private volatile LocalDateTime reapExpiredBefore;
+
+    private ScheduledFuture<?> scheduledCompactionCheck;
+
+    /**
+     * A decoded PUT record (urlHash, expiresAt and redirectType may be null)
+     */
+    private record PutRecord(String shortCode, LocalDateTime createdAt, long hitCount,
+                             byte[] urlHash, LocalDateTime expiresAt, RedirectType redirectType,
+                             String originalUrl) {
+    }
+
+    /**
+     * A PUT record of the old log as seen by compaction, and where it is
+     */
+    private record LoggedPut(long offset, int size, PutRecord put) {
+    }
+
+    /**
+     * A record of the old log with a copy of its payload (scans reuse their buffer)
+     */
+    private record LoggedRecord(long offset, int size, byte type, ByteBuffer payload) {
+
+        static LoggedRecord copyOf(long offset, int size, byte type, ByteBuffer payload) {
+            ByteBuffer copy = ByteBuffer.allocate(payload.remaining()).put(payload).flip();
+            return new LoggedRecord(offset, size, type, copy);
+        }
+    }
+
+    public LogStorageEngine(StorageProperties storageProperties, MaintenanceScheduler maintenanceScheduler) {
+        this.properties = storageProperties.getLog();
+        this.maintenanceScheduler = maintenanceScheduler;
+        this.directory = Paths.get(properties.getDirectory()).toAbsolutePath();
+    }
+
+    /**
+     * Open the files, rebuilding the indexes from the log if they can't be trusted
+     */
+    @PostConstruct
+    public void open() {
+        try {
+            openFiles();
+        } catch (IOException e) {
+            throw failure("open the URL storage", e);
+        }
+        scheduledCompactionCheck = maintenanceScheduler.scheduleWithFixedDelay(
+                this::compactIfNeeded, properties.getCompactionCheckInterval());
+    }
+
+    private void openFiles() throws IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(directory);
+        deleteLeftovers();
+
+        urlLog = UrlLog.open(directory.resolve(LOG_FILE));
+        codeIndex = MappedIndex.open(directory.resolve(CODE_INDEX_FILE), properties.getInitialIndexCapacity());
+        hashIndex = MappedIndex.open(directory.resolve(HASH_INDEX_FILE), properties.getInitialIndexCapacity());
+
+        boolean indexesUsable = codeIndex.isClean() && hashIndex.isClean()
+                && codeIndex.logSize() == urlLog.size() && hashIndex.logSize() == urlLog.size();
+        if (indexesUsable) {
+            liveBytes = codeIndex.liveBytes();
+            nextId = codeIndex.nextId();
+        } else {
+            expiringBytes = new TreeMap<>();
+            rebuildIndexes();
+        }
+        codeIndex.markDirty();
+        hashIndex.markDirty();
+
+        log.info("Using the log storage engine in {}: {} URLs, {} KB log, {} in {} ms",
+                directory, codeIndex.size(), urlLog.size() / 1024,
+                indexesUsable ? "indexes reused" : "indexes rebuilt from the log",
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Write the engine state into the indexes and mark them clean, so the next start skips the replay
+     */
+    @PreDestroy
+    public void close() {
+        if (scheduledCompactionCheck != null) {
+            scheduledCompactionCheck.cancel(false);
+        }
+        // Wait for a running compaction
+        compactionLock.writeLock().lock();
+        writeMutex.lock();
+        indexLock.writeLock().lock();
+        try {
+            urlLog.force();
+            codeIndex.markClean(urlLog.size(), liveBytes, nextId);
+            hashIndex.markClean(urlLog.size(), liveBytes, nextId);
+            codeIndex.close();
+            hashIndex.close();
+            urlLog.close();
+            log.info("Closed the log storage engine in {}", directory);
+        } catch (IOException e) {
+            throw failure("close the URL storage", e);
+        } finally {
+            indexLock.writeLock().unlock();
+            writeMutex.unlock();
+            compactionLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<RedirectTarget> findRedirectTarget(String shortCode) {
+        return lookup(shortCode, (put, hitCount) ->
+                new RedirectTarget(put.originalUrl(), put.expiresAt(), put.redirectType()));
+    }
+
+    @Override
+    public Optional<UrlSummary> findSummary(String shortCode) {
+        return lookup(shortCode, LogStorageEngine::toSummary);
+    }
+
+    @Override
+    public Optional<UrlSummary> findSummaryByUrlHash(byte[] urlHash) {
+        return Optional.ofNullable(findSummariesByUrlHashes(List.of(urlHash)).get(ByteBuffer.wrap(urlHash)));
+    }
+
+    @Override
+    public Map<ByteBuffer, UrlSummary> findSummariesByUrlHashes(Collection<byte[]> urlHashes) {
+        Map<ByteBuffer, UrlSummary> summaries = new HashMap<>();
+        indexLock.readLock().lock();
+        try {
+            for (byte[] urlHash : urlHashes) {
+                PutRecord record = findByUrlHash(urlHash);
+                if (record != null) {
+                    int slot = codeIndex.find(StringHash.hash64(record.shortCode()), isShortCode(record.shortCode()));
+                    summaries.put(ByteBuffer.wrap(urlHash), toSummary(record, slot < 0 ? 0 : codeIndex.value(slot)));
+                }
+            }
+            return summaries;
+        } catch (IOException e) {
+            throw failure("look up URL hashes", e);
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean exists(String shortCode) {
+        indexLock.readLock().lock();
+        try {
+            return findCodeSlot(shortCode) >= 0;
+        } catch (IOException e) {
+            throw failure("look up short code " + shortCode, e);
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Set<String> findExisting(Collection<String> shortCodes) {
+        Set<String> existing = new HashSet<>();
+        indexLock.readLock().lock();
+        try {
+            for (String shortCode : shortCodes) {
+                if (findCodeSlot(shortCode) >= 0) {
+                    existing.add(shortCode);
+                }
+            }
+            return existing;
+        } catch (IOException e) {
+            throw failure("look up short codes", e);
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public UrlSummary insert(Url url) {
+        return insertAll(List.of(url)).get(0);
+    }
+
+    @Override
+    public List<UrlSummary> insertAll(List<Url> urls) {
+        if (urls.isEmpty()) {
+            return List.of();
+        }
+        writeMutex.lock();
+        try {
+            // Only writers change the indexes and we are the only writer, so no read lock is needed here
+            checkNoConflicts(urls);
+
+            UrlLog.RecordBuffer records = new UrlLog.RecordBuffer();
+            int[] recordStarts = new int[urls.size()];
+            int[] recordSizes = new int[urls.size()];
+            List<PutRecord> puts = new ArrayList<>(urls.size());
+            for (int i = 0; i < urls.size(); i++) {
+                PutRecord put = toPutRecord(urls.get(i));
+                puts.add(put);
+                recordStarts[i] = records.begin(PUT);
+                writePut(records, put);
+                recordSizes[i] = records.end();
+            }
+
+            long start = urlLog.append(records.flip());
+            if (properties.isFsync()) {
+                urlLog.force();
+            }
+
+            List<UrlSummary> summaries = new ArrayList<>(puts.size());
+            indexLock.writeLock().lock();
+            try {
+                for (int i = 0; i < puts.size(); i++) {
+                    PutRecord put = puts.get(i);
+                    long offset = start + recordStarts[i];
+                    codeIndex.insert(StringHash.hash64(put.shortCode()), offset, put.hitCount());
+                    if (put.urlHash() != null) {
+                        hashIndex.insert(urlHashKey(put.urlHash()), offset, 0);
+                    }
+                    liveBytes += recordSizes[i];
+                    addExpiringBytes(expiringBytes, put, recordSizes[i]);
+                    summaries.add(toSummary(put, put.hitCount()));
+                }
+            } finally {
+                indexLock.writeLock().unlock();
+            }
+            return summaries;
+        } catch (IOException e) {
+            throw failure("store URLs", e);
+        } finally {
+            writeMutex.unlock();
+        }
+    }
+
+    @Override
+    public void addHitCounts(Map<String, Long> hitsByShortCode) {
+        if (hitsByShortCode.isEmpty()) {
+            return;
+        }
+        writeMutex.lock();
+        try {
+            UrlLog.RecordBuffer records = new UrlLog.RecordBuffer();
+            int[] slots = new int[hitsByShortCode.size()];
+            long[] deltas = new long[hitsByShortCode.size()];
+            int updates = 0;
+            for (Map.Entry<String, Long> entry : hitsByShortCode.entrySet()) {
+                int slot = findCodeSlot(entry.getKey());
+                if (slot < 0) {
+                    continue;
+                }
+                records.begin(HITS);
+                records.putShortAscii(entry.getKey()).putLong(entry.getValue());
+                records.end();
+                slots[updates] = slot;
+                deltas[updates] = entry.getValue();
+                updates++;
+            }
+            if (updates == 0) {
+                return;
+            }
+
+            // Hit counts are best effort: appended, but not forced to disk
+            urlLog.append(records.flip());
+
+            indexLock.writeLock().lock();
+            try {
+                for (int i = 0; i < updates; i++) {
+                    codeIndex.addToValue(slots[i], deltas[i]);
+                }
+            } finally {
+                indexLock.writeLock().unlock();
+            }
+        } catch (IOException e) {
+            throw failure("store hit counts", e);
+        } finally {
+            writeMutex.unlock();
+        }
+    }
+
+    @Override
+    public void forEachSummary(Consumer<UrlSummary> action) {
+        forEachLivePut((put, hitCount) -> action.accept(toSummary(put, hitCount)));
+    }
+
+    @Override
+    public void forEachShortCode(Consumer<String> action) {
+        forEachLivePut((put, hitCount) -> action.accept(put.shortCode()));
+    }
+
+    /**
+     * Each ID_BLOCK record holds the next unreserved ID, so blocks survive restarts
+     */
+    @Override
+    public long reserveIdBlock(int blockSize) {
+        writeMutex.lock();
+        try {
+            long blockStart = nextId;
+            UrlLog.RecordBuffer records = new UrlLog.RecordBuffer();
+            records.begin(ID_BLOCK);
+            records.putLong(blockStart + blockSize);
+            records.end();
+            urlLog.append(records.flip());
+            urlLog.force();
+            nextId = blockStart + blockSize;
+            return blockStart;
+        } catch (IOException e) {
+            throw failure("reserve an ID block", e);
+        } finally {
+            writeMutex.unlock();
+        }
+    }
+
+    /**
+     * Nothing is deleted right away: the next compaction drops the URLs that expired
+     * before the latest cutoff, so this always returns an empty list
+     */
+    @Override
+    public List<String> deleteExpired(LocalDateTime expiredBefore, int limit) {
+        reapExpiredBefore = expiredBefore;
+        return List.of();
+    }
+
+    /**
+     * Compact the log if enough of it is garbage (runs on the maintenance thread)
+     * URLs that expired before the deleteExpired() cutoff count as garbage too.
+     */
+    void compactIfNeeded() {
+        try {
+            if (expiringBytesUnknown()) {
+                countExpiringBytes();
+            }
+
+            long logSize;
+            long garbage;
+            LocalDateTime expiredBefore = reapExpiredBefore;
+            writeMutex.lock();
+            try {
+                logSize = urlLog.size();
+                garbage = logSize - UrlLog.HEADER_SIZE - liveBytes;
+                if (expiredBefore != null && expiringBytes != null) {
+                    // Whole hours before the cutoff only, so nothing is counted that hasn't expired
+                    long cutoffHour = Math.floorDiv(expiredBefore.toEpochSecond(ZoneOffset.UTC), SECONDS_PER_HOUR);
+                    for (long bytes : expiringBytes.headMap(cutoffHour, false).values()) {
+                        garbage += bytes;
+                    }
+                }
+            } finally {
+                writeMutex.unlock();
+            }
+            if (logSize < properties.getCompactionMinLogBytes()
+                    || garbage < logSize * properties.getCompactionGarbageRatio()) {
+                return;
+            }
+
+            compact();
+        } catch (IOException | RuntimeException e) {
+            log.error("Log compaction failed, the current log stays in use", e);
+            deleteLeftovers();
+        }
+    }
+
+    private boolean expiringBytesUnknown() {
+        writeMutex.lock();
+        try {
+            return expiringBytes == null;
+        } finally {
+            writeMutex.unlock();
+        }
+    }
+
+    /**
+     * Count the bytes of the live URLs with an expiry (once after a clean start)
+     * Inserts count their own URLs from the moment the scan end is taken.
+     */
+    private void countExpiringBytes() throws IOException {
+        compactionLock.readLock().lock();
+        try {
+            NavigableMap<Long, Long> counted = new TreeMap<>();
+            long end;
+            writeMutex.lock();
+            try {
+                end = urlLog.size();
+                expiringBytes = counted;
+            } finally {
+                writeMutex.unlock();
+            }
+
+            long position = UrlLog.HEADER_SIZE;
+            while (position < end) {
+                List<LoggedPut> puts = new ArrayList<>();
+                position = urlLog.scanValid(position, Math.min(end, position + COMPACTION_CHUNK), end,
+                        (offset, size, type, payload) -> {
+                            if (type == PUT) {
+                                PutRecord put = decodePut(payload);
+                                if (put.expiresAt() != null) {
+                                    puts.add(new LoggedPut(offset, size, put));
+                                }
+                            }
+                        });
+                writeMutex.lock();
+                try {
+                    for (LoggedPut logged : puts) {
+                        if (isLive(logged.put(), logged.offset())) {
+                            addExpiringBytes(counted, logged.put(), logged.size());
+                        }
+                    }
+                } finally {
+                    writeMutex.unlock();
+                }
+            }
+        } finally {
+            compactionLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copy the live URLs (with their current hit counts) into a new log and swap it in
+     * URLs that expired before the latest deleteExpired() cutoff are left out.
+     *
+     * The log up to its size at the start is copied without holding writeMutex.
+     * The hit counts of each chunk are read under writeMutex, together with the
+     * log size at that moment, so HITS records appended before it are already
+     * in the copy and only later ones are replayed from the tail.
+     */
+    public void compact() throws IOException {
+        compactionLock.writeLock().lock();
+        try {
+            long start = System.nanoTime();
+            LocalDateTime expiredBefore = reapExpiredBefore;
+            long copyEnd;
+            writeMutex.lock();
+            try {
+                copyEnd = urlLog.size();
+            } finally {
+                writeMutex.unlock();
+            }
+
+            Path newLogPath = directory.resolve(LOG_FILE + COMPACTING_SUFFIX);
+            Files.deleteIfExists(newLogPath);
+            UrlLog newLog = UrlLog.open(newLogPath);
+            MappedIndex newCodeIndex = MappedIndex.create(directory.resolve(CODE_INDEX_FILE + COMPACTING_SUFFIX),
+                    Math.max(properties.getInitialIndexCapacity(), MappedIndex.capacityForKeys(codeIndex.size())));
+            MappedIndex newHashIndex = MappedIndex.create(directory.resolve(HASH_INDEX_FILE + COMPACTING_SUFFIX),
+                    Math.max(properties.getInitialIndexCapacity(), MappedIndex.capacityForKeys(hashIndex.size())));
+
+            try {
+                Compaction compaction = new Compaction(newLog, newCodeIndex, newHashIndex, expiredBefore);
+                compaction.copy(copyEnd);
+
+                writeMutex.lock();
+                try {
+                    long oldSize = urlLog.size();
+                    compaction.copyTail(copyEnd, oldSize);
+                    compaction.finish(nextId);
+
+                    indexLock.writeLock().lock();
+                    try {
+                        // The log goes first: if we crash in between, the (dirty) indexes are rebuilt from it
+                        urlLog.close();
+                        codeIndex.close();
+                        hashIndex.close();
+                        Path logPath = directory.resolve(LOG_FILE);
+                        Files.move(newLogPath, logPath, StandardCopyOption.REPLACE_EXISTING,
+                                StandardCopyOption.ATOMIC_MOVE);
+                        newCodeIndex.moveTo(directory.resolve(CODE_INDEX_FILE));
+                        newHashIndex.moveTo(directory.resolve(HASH_INDEX_FILE));
+                        newLog.close();
+
+                        urlLog = UrlLog.open(logPath);
+                        codeIndex = newCodeIndex;
+                        hashIndex = newHashIndex;
+                        liveBytes = compaction.liveBytes;
+                        expiringBytes = compaction.expiringBytes;
+                    } finally {
+                        indexLock.writeLock().unlock();
+                    }
+
+                    log.info("Compacted the URL log from {} KB to {} KB ({} URLs, {} expired URLs dropped) "
+                                    + "in {} ms, writes waited {} ms for the last {} KB",
+                            oldSize / 1024, urlLog.size() / 1024, codeIndex.size(), compaction.reaped,
+                            (System.nanoTime() - start) / 1_000_000,
+                            (System.nanoTime() - compaction.tailStart) / 1_000_000, (oldSize - copyEnd) / 1024);
+                } finally {
+                    writeMutex.unlock();
+                }
+            } catch (IOException | RuntimeException e) {
+                newLog.close();
+                newCodeIndex.close();
+                newHashIndex.close();
+                throw e;
+            }
+        } finally {
+            compactionLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * State of one compaction: the new files and what has been copied into them
+     */
+    private final class Compaction {
+        private final UrlLog newLog;
+        private final MappedIndex newCodeIndex;
+        private final MappedIndex newHashIndex;
+        private final LocalDateTime expiredBefore;
+
+        private final UrlLog.RecordBuffer chunk = new UrlLog.RecordBuffer();
+        private final List<PutRecord> chunkPuts = new ArrayList<>();
+        private final List<long[]> chunkPositions = new ArrayList<>(); // [start in chunk, size]
+
+        // Per copied chunk: its end in the new log and the old log size when its hit counts were read
+        private final List<long[]> copiedChunks = new ArrayList<>();
+
+        private final NavigableMap<Long, Long> expiringBytes = new TreeMap<>();
+        private long liveBytes;
+        private long reaped;
+        private long tailStart;
+
+        Compaction(UrlLog newLog, MappedIndex newCodeIndex, MappedIndex newHashIndex, LocalDateTime expiredBefore) {
+            this.newLog = newLog;
+            this.newCodeIndex = newCodeIndex;
+            this.newHashIndex = newHashIndex;
+            this.expiredBefore = expiredBefore;
+        }
+
+        /**
+         * Copy the live URLs of [HEADER_SIZE, copyEnd) (writers keep running)
+         */
+        void copy(long copyEnd) throws IOException {
+            long scanned = UrlLog.HEADER_SIZE;
+            while (scanned < copyEnd) {
+                List<LoggedPut> puts = new ArrayList<>();
+                scanned = urlLog.scanValid(scanned, Math.min(copyEnd, scanned + COMPACTION_CHUNK), copyEnd,
+                        (offset, size, type, payload) -> {
+                            if (type == PUT) {
+                                puts.add(new LoggedPut(offset, size, decodePut(payload)));
+                            }
+                        });
+
+                long hitsReadAt;
+                long[] hitCounts = new long[puts.size()];
+                writeMutex.lock();
+                try {
+                    // Nothing is appended meanwhile, so these counts include exactly the HITS before hitsReadAt
+                    hitsReadAt = urlLog.size();
+                    for (int i = 0; i < puts.size(); i++) {
+                        PutRecord put = puts.get(i).put();
+                        int slot = codeIndex.find(StringHash.hash64(put.shortCode()), isShortCode(put.shortCode()));
+                        boolean live = slot >= 0 && codeIndex.offset(slot) == puts.get(i).offset();
+                        hitCounts[i] = live ? codeIndex.value(slot) : -1;
+                    }
+                } finally {
+                    writeMutex.unlock();
+                }
+                for (int i = 0; i < puts.size(); i++) {
+                    if (hitCounts[i] >= 0) {
+                        add(puts.get(i).put(), hitCounts[i]);
+                    }
+                }
+                appendChunk(hitsReadAt);
+            }
+        }
+
+        /**
+         * Copy what was appended to the old log during copy() (the caller holds writeMutex)
+         * New URLs are copied as they are; HITS records are replayed for URLs whose
+         * counts were read before them.
+         */
+        void copyTail(long from, long to) throws IOException {
+            tailStart = System.nanoTime();
+            List<LoggedRecord> records = new ArrayList<>();
+            urlLog.scanValid(from, to, to, (offset, size, type, payload) ->
+                    records.add(LoggedRecord.copyOf(offset, size, type, payload)));
+
+            // New URLs first, so the HITS records after them find them in the new index
+            for (LoggedRecord record : records) {
+                if (record.type() == PUT) {
+                    PutRecord put = decodePut(record.payload());
+                    if (isLive(put, record.offset())) {
+                        add(put, put.hitCount());
+                    }
+                }
+            }
+            appendChunk(from);
+
+            for (LoggedRecord record : records) {
+                if (record.type() != HITS) {
+                    continue;
+                }
+                ByteBuffer payload = record.payload();
+                String shortCode = UrlLog.getShortAscii(payload);
+                long hits = payload.getLong();
+                int slot = newCodeIndex.find(StringHash.hash64(shortCode), isShortCode(newLog, shortCode));
+                if (slot < 0 || record.offset() < hitsReadAt(newCodeIndex.offset(slot))) {
+                    // Dropped as expired, or already counted in the copy
+                    continue;
+                }
+                chunk.begin(HITS);
+                chunk.putShortAscii(shortCode).putLong(hits);
+                chunk.end();
+                newCodeIndex.addToValue(slot, hits);
+            }
+            if (!chunk.isEmpty()) {
+                newLog.append(chunk.flip());
+                chunk.clear();
+            }
+        }
+
+        /**
+         * Write the ID block state and force the new files to disk
+         */
+        void finish(long nextId) throws IOException {
+            if (nextId > 0) {
+                chunk.begin(ID_BLOCK);
+                chunk.putLong(nextId);
+                chunk.end();
+                newLog.append(chunk.flip());
+                chunk.clear();
+            }
+            newLog.force();
+            newCodeIndex.force();
+            newHashIndex.force();
+        }
+
+        private void add(PutRecord put, long hitCount) {
+            if (expiredBefore != null && put.expiresAt() != null && put.expiresAt().isBefore(expiredBefore)) {
+                reaped++;
+                return;
+            }
+            PutRecord folded = new PutRecord(put.shortCode(), put.createdAt(), hitCount,
+                    put.urlHash(), put.expiresAt(), put.redirectType(), put.originalUrl());
+            int recordStart = chunk.begin(PUT);
+            writePut(chunk, folded);
+            int recordSize = chunk.end();
+            chunkPuts.add(folded);
+            chunkPositions.add(new long[] {recordStart, recordSize});
+            addExpiringBytes(expiringBytes, folded, recordSize);
+        }
+
+        private void appendChunk(long hitsReadAt) throws IOException {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            liveBytes += LogStorageEngine.appendChunk(newLog, newCodeIndex, newHashIndex,
+                    chunk, chunkPuts, chunkPositions);
+            copiedChunks.add(new long[] {newLog.size(), hitsReadAt});
+        }
+
+        /**
+         * The old log size at which the hit count of the URL at this new log offset was read
+         */
+        private long hitsReadAt(long newOffset) {
+            int low = 0;
+            int high = copiedChunks.size() - 1;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (copiedChunks.get(middle)[0] > newOffset) {
+                    high = middle;
+                } else {
+                    low = middle + 1;
+                }
+            }
+            return copiedChunks.get(low)[1];
+        }
+    }
+
+    // ========== Internals ==========
+
+    @FunctionalInterface
+    private interface LivePutVisitor {
+        void visit(PutRecord put, long hitCount) throws IOException;
+    }
+
+    /**
+     * Visit the live PUT records (those the code index points at) in log order
+     */
+    private void forEachLivePut(LivePutVisitor visitor) {
+        compactionLock.readLock().lock();
+        try {
+            long end = urlLog.size();
+            long position = UrlLog.HEADER_SIZE;
+            List<PutRecord> puts = new ArrayList<>();
+            List<Long> hits = new ArrayList<>();
+            while (position < end) {
+                puts.clear();
+                hits.clear();
+                position = scanLivePuts(position, Math.min(end, position + COMPACTION_CHUNK), end, puts, hits);
+                for (int i = 0; i < puts.size(); i++) {
+                    visitor.visit(puts.get(i), hits.get(i));
+                }
+            }
+        } catch (IOException e) {
+            throw failure("scan the URL log", e);
+        } finally {
+            compactionLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Collect the live PUT records that start in [from, to) with their current hit counts
+     * @param end End of the log to scan (a record starting before "to" may end after it)
+     * @return The offset after the last record visited
+     */
+    private long scanLivePuts(long from, long to, long end, List<PutRecord> puts, List<Long> hits) throws IOException {
+        List<Long> offsets = new ArrayList<>();
+        List<PutRecord> records = new ArrayList<>();
+        long next = urlLog.scanValid(from, to, end, (offset, size, type, payload) -> {
+            if (type == PUT) {
+                offsets.add(offset);
+                records.add(decodePut(payload));
+            }
+        });
+
+        indexLock.readLock().lock();
+        try {
+            for (int i = 0; i < records.size(); i++) {
+                PutRecord record = records.get(i);
+                long offset = offsets.get(i);
+                int slot = codeIndex.find(StringHash.hash64(record.shortCode()), isShortCode(record.shortCode()));
+                if (slot >= 0 && codeIndex.offset(slot) == offset) {
+                    puts.add(record);
+                    hits.add(codeIndex.value(slot));
+                }
+            }
+        } finally {
+            indexLock.readLock().unlock();
+        }
+        return next;
+    }
+
+    /**
+     * Append the PUT records collected for compaction to the new log and index them
+     * @return The number of bytes appended
+     */
+    private static long appendChunk(UrlLog newLog, MappedIndex newCodeIndex, MappedIndex newHashIndex,
+                                    UrlLog.RecordBuffer chunk, List<PutRecord> puts, List<long[]> positions)
+            throws IOException {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        long start = newLog.append(chunk.flip());
+        long appended = 0;
+        for (int i = 0; i < puts.size(); i++) {
+            PutRecord put = puts.get(i);
+            long offset = start + positions.get(i)[0];
+            newCodeIndex.insert(StringHash.hash64(put.shortCode()), offset, put.hitCount());
+            if (put.urlHash() != null) {
+                newHashIndex.insert(urlHashKey(put.urlHash()), offset, 0);
+            }
+            appended += positions.get(i)[1];
+        }
+        chunk.clear();
+        puts.clear();
+        positions.clear();
+        return appended;
+    }
+
+    /**
+     * Rebuild both indexes (and the engine state) by replaying the whole log
+     */
+    private void rebuildIndexes() throws IOException {
+        codeIndex.close();
+        hashIndex.close();
+        codeIndex = MappedIndex.create(codeIndex.path(), properties.getInitialIndexCapacity());
+        hashIndex = MappedIndex.create(hashIndex.path(), properties.getInitialIndexCapacity());
+        liveBytes = 0;
+        nextId = 0;
+
+        IOException[] error = new IOException[1];
+        urlLog.recover((offset, size, type, payload) -> {
+            if (error[0] != null) {
+                return;
+            }
+            try {
+                replay(offset, size, type, payload);
+            } catch (IOException e) {
+                error[0] = e;
+            }
+        });
+        if (error[0] != null) {
+            throw error[0];
+        }
+    }
+
+    private void replay(long offset, int size, byte type, ByteBuffer payload) throws IOException {
+        switch (type) {
+            case PUT -> {
+                PutRecord put = decodePut(payload);
+                // A short code is only ever written once, but stay safe if a log has it twice
+                if (findCodeSlot(put.shortCode()) >= 0) {
+                    return;
+                }
+                codeIndex.insert(StringHash.hash64(put.shortCode()), offset, put.hitCount());
+                if (put.urlHash() != null) {
+                    hashIndex.insert(urlHashKey(put.urlHash()), offset, 0);
+                }
+                liveBytes += size;
+                addExpiringBytes(expiringBytes, put, size);
+            }
+            case HITS -> {
+                int slot = findCodeSlot(UrlLog.getShortAscii(payload));
+                if (slot >= 0) {
+                    codeIndex.addToValue(slot, payload.getLong());
+                }
+            }
+            case ID_BLOCK -> nextId = Math.max(nextId, payload.getLong());
+            default -> log.warn("Skipping unknown record type {} at offset {}", type, offset);
+        }
+    }
+
+    private void checkNoConflicts(List<Url> urls) throws IOException {
+        Set<String> batchCodes = new HashSet<>();
+        Set<ByteBuffer> batchHashes = new HashSet<>();
+        for (Url url : urls) {
+            String shortCode = url.getShortCode();
+            if (!batchCodes.add(shortCode) || findCodeSlot(shortCode) >= 0) {
+                throw new DuplicateKeyException("Short code already exists: " + shortCode);
+            }
+            byte[] urlHash = url.getUrlHash();
+            if (urlHash != null && (!batchHashes.add(ByteBuffer.wrap(urlHash)) || findByUrlHash(urlHash) != null)) {
+                throw new DuplicateKeyException("URL already stored: " + url.getOriginalUrl());
+            }
+        }
+    }
+
+    /**
+     * Find the PUT record and hit count of a short code, reading the log once
+     */
+    private <T> Optional<T> lookup(String shortCode, BiFunction<PutRecord, Long, T> mapper) {
+        indexLock.readLock().lock();
+        try {
+            PutRecord[] found = new PutRecord[1];
+            int slot = codeIndex.find(StringHash.hash64(shortCode), offset -> {
+                PutRecord record = readPut(offset);
+                found[0] = record;
+                return record.shortCode().equals(shortCode);
+            });
+            return slot < 0 ? Optional.empty() : Optional.of(mapper.apply(found[0], codeIndex.value(slot)));
+        } catch (IOException e) {
+            throw failure("look up short code " + shortCode, e);
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    private int findCodeSlot(String shortCode) throws IOException {
+        return codeIndex.find(StringHash.hash64(shortCode), isShortCode(shortCode));
+    }
+
+    private PutRecord findByUrlHash(byte[] urlHash) throws IOException {
+        PutRecord[] found = new PutRecord[1];
+        int slot = hashIndex.find(urlHashKey(urlHash), offset -> {
+            PutRecord record = readPut(offset);
+            found[0] = record;
+            return Arrays.equals(record.urlHash(), urlHash);
+        });
+        return slot < 0 ? null : found[0];
+    }
+
+    /**
+     * Whether the code index points at this PUT record (and not at another one for the same code)
+     */
+    private boolean isLive(PutRecord put, long offset) throws IOException {
+        int slot = codeIndex.find(StringHash.hash64(put.shortCode()), isShortCode(put.shortCode()));
+        return slot >= 0 && codeIndex.offset(slot) == offset;
+    }
+
+    /**
+     * Matcher that only reads the short code at the start of a PUT record
+     */
+    private MappedIndex.SlotMatcher isShortCode(String shortCode) {
+        return isShortCode(urlLog, shortCode);
+    }
+
+    private static MappedIndex.SlotMatcher isShortCode(UrlLog urlLog, String shortCode) {
+        return offset -> {
+            ByteBuffer payload = urlLog.readPayload(offset, SHORT_CODE_PREFIX);
+            int length = payload.get() & 0xFF;
+            if (length != shortCode.length()) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (payload.get() != shortCode.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+
+    private PutRecord readPut(long offset) throws IOException {
+        return decodePut(urlLog.readPayload(offset, Integer.MAX_VALUE));
+    }
+
+    private static PutRecord toPutRecord(Url url) {
+        if (url.getShortCode().length() > Url.MAX_SHORT_CODE_LENGTH
+                || !StandardCharsets.US_ASCII.newEncoder().canEncode(url.getShortCode())) {
+            throw new IllegalArgumentException("Invalid short code: " + url.getShortCode());
+        }
+        // Same defaults as the Url entity gets when it is persisted
+        LocalDateTime createdAt = url.getCreatedAt() != null ? url.getCreatedAt() : LocalDateTime.now();
+        long hitCount = url.getHitCount() != null ? url.getHitCount() : 0L;
+        return new PutRecord(url.getShortCode(), createdAt, hitCount, url.getUrlHash(), url.getExpiresAt(),
+                url.getRedirectType(), url.getOriginalUrl());
+    }
+
+    private static void writePut(UrlLog.RecordBuffer records, PutRecord put) {
+        records.putShortAscii(put.shortCode())
+                .putLong(put.createdAt().toEpochSecond(ZoneOffset.UTC))
+                .putInt(put.createdAt().getNano())
+                .putLong(put.hitCount());
+        byte flags = 0;
+        if (put.urlHash() != null) {
+            flags |= FLAG_URL_HASH;
+        }
+        if (put.expiresAt() != null) {
+            flags |= FLAG_EXPIRES_AT;
+        }
+        if (put.redirectType() != null) {
+            flags |= FLAG_REDIRECT_TYPE;
+        }
+        records.put(flags);
+        if (put.urlHash() != null) {
+            records.put(put.urlHash());
+        }
+        if (put.expiresAt() != null) {
+            records.putLong(put.expiresAt().toEpochSecond(ZoneOffset.UTC))
+                    .putInt(put.expiresAt().getNano());
+        }
+        if (put.redirectType() != null) {
+            records.putInt(put.redirectType().status().value());
+        }
+        records.putUtf8(put.originalUrl());
+    }
+
+    private static PutRecord decodePut(ByteBuffer payload) {
+        String shortCode = UrlLog.getShortAscii(payload);
+        LocalDateTime createdAt = LocalDateTime.ofEpochSecond(payload.getLong(), payload.getInt(), ZoneOffset.UTC);
+        long hitCount = payload.getLong();
+        byte flags = payload.get();
+        byte[] urlHash = null;
+        if ((flags & FLAG_URL_HASH) != 0) {
+            urlHash = new byte[UrlHasher.HASH_LENGTH];
+            payload.get(urlHash);
+        }
+        LocalDateTime expiresAt = null;
+        if ((flags & FLAG_EXPIRES_AT) != 0) {
+            expiresAt = LocalDateTime.ofEpochSecond(payload.getLong(), payload.getInt(), ZoneOffset.UTC);
+        }
+        RedirectType redirectType = null;
+        if ((flags & FLAG_REDIRECT_TYPE) != 0) {
+            redirectType = RedirectType.ofStatus(payload.getInt());
+        }
+        String originalUrl = UrlLog.getUtf8(payload);
+        return new PutRecord(shortCode, createdAt, hitCount, urlHash, expiresAt, redirectType, originalUrl);
+    }
+
+    /**
+     * Count a live PUT record in the expiring bytes, if it has an expiry (map may be null: not counted)
+     */
+    private static void addExpiringBytes(NavigableMap<Long, Long> expiringBytes, PutRecord put, long size) {
+        if (expiringBytes != null && put.expiresAt() != null) {
+            long hour = Math.floorDiv(put.expiresAt().toEpochSecond(ZoneOffset.UTC), SECONDS_PER_HOUR);
+            expiringBytes.merge(hour, size, Long::sum);
+        }
+    }
+
+    private static UrlSummary toSummary(PutRecord put, long hitCount) {
+        return new UrlSummary(put.shortCode(), put.originalUrl(), put.createdAt(), hitCount, put.expiresAt(),
+                put.redirectType());
+    }
+
+    /**
+     * Index key for a URL hash: its first 8 bytes (it is a SHA-256, so already well mixed)
+     */
+    private static long urlHashKey(byte[] urlHash) {
+        return ByteBuffer.wrap(urlHash).getLong();
+    }
+
+    private void deleteLeftovers() {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(COMPACTING_SUFFIX) || name.endsWith(".resize")) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not clean up leftover files in {}", directory, e);
+        }
+    }
+
+    private DataAccessResourceFailureException failure(String action, IOException e) {
+        return new DataAccessResourceFailureException("Could not " + action + " in " + directory, e);
+    }
+}
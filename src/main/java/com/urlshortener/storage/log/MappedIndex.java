@@ -0,0 +1,314 @@
+package com.urlshortener.storage.log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Hash index in a memory-mapped file
+ *
+ * Open addressing with linear probing over fixed-size slots:
+ * [long key][long log offset][long value]
+ *
+ * The key is a 64-bit hash of the real key (a short code or URL hash). Two
+ * different keys can still have the same hash, so find() hands every slot
+ * with a matching hash to a SlotMatcher, which reads the record at that log
+ * offset and compares the real key. Key 0 marks an empty slot.
+ *
+ * File layout:
+ * [64-byte header][capacity * 24-byte slots]
+ *
+ * The header also holds a few numbers the engine needs after a restart (log
+ * size, live bytes, next ID) and a "clean" flag. The engine clears the flag
+ * when it opens the index and sets it after a clean shutdown, so a crashed
+ * process leaves an index that isn't trusted and is rebuilt from the log.
+ *
+ * When the index gets 70% full it is rebuilt with twice the capacity into a
+ * new file, which then replaces the old one.
+ *
+ * A MappedByteBuffer is limited to 2 GB, so an index holds at most 2^26 slots
+ * (about 47 million keys at the 70% load limit).
+ *
+ * Not thread-safe: the engine guards it with a read/write lock.
+ */
+final class MappedIndex implements Closeable {
+
+    static final int MAX_CAPACITY = 1 << 26;
+
+    private static final int MAGIC = 0x55524C49; // "URLI"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int SLOT_SIZE = 24;
+    private static final double MAX_LOAD = 0.7;
+
+    // Header fields
+    private static final int MAGIC_AT = 0;
+    private static final int VERSION_AT = 4;
+    private static final int CAPACITY_AT = 8;
+    private static final int SIZE_AT = 12;
+    private static final int CLEAN_AT = 16;
+    private static final int LOG_SIZE_AT = 24;
+    private static final int LIVE_BYTES_AT = 32;
+    private static final int NEXT_ID_AT = 40;
+
+    // Slot fields
+    private static final int KEY_AT = 0;
+    private static final int OFFSET_AT = 8;
+    private static final int VALUE_AT = 16;
+
+    /**
+     * Decides whether the record at a log offset has the key being looked up
+     */
+    @FunctionalInterface
+    interface SlotMatcher {
+        boolean matches(long offset) throws IOException;
+    }
+
+    private Path path;
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private int mask;
+    private int size;
+
+    private MappedIndex(Path path, MappedByteBuffer buffer) {
+        this.path = path;
+        this.buffer = buffer;
+        this.capacity = buffer.getInt(CAPACITY_AT);
+        this.mask = capacity - 1;
+        this.size = buffer.getInt(SIZE_AT);
+    }
+
+    /**
+     * Open an index file, or create an empty one if it doesn't exist or isn't valid
+     * @param initialCapacity Number of slots for a new index (rounded up to a power of 2)
+     */
+    static MappedIndex open(Path path, int initialCapacity) throws IOException {
+        if (Files.exists(path)) {
+            MappedByteBuffer existing = tryMapExisting(path);
+            if (existing != null) {
+                return new MappedIndex(path, existing);
+            }
+        }
+        return create(path, initialCapacity);
+    }
+
+    /**
+     * Create an empty index, replacing any existing file
+     */
+    static MappedIndex create(Path path, int initialCapacity) throws IOException {
+        return new MappedIndex(path, createFile(path, capacityFor(initialCapacity)));
+    }
+
+    /**
+     * Smallest power-of-2 capacity that holds the given number of keys below the load limit
+     */
+    static int capacityForKeys(long keys) {
+        return capacityFor((int) Math.min(MAX_CAPACITY, (long) Math.ceil(keys / MAX_LOAD) + 1));
+    }
+
+    Path path() {
+        return path;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Find the slot for a key
+     * @param hash 64-bit hash of the key
+     * @param matcher Checks candidate slots (same hash) against the real key
+     * @return The slot, or -1 if the key isn't in the index
+     */
+    int find(long hash, SlotMatcher matcher) throws IOException {
+        long key = normalize(hash);
+        for (int slot = (int) key & mask; ; slot = (slot + 1) & mask) {
+            long slotKey = buffer.getLong(slotAt(slot) + KEY_AT);
+            if (slotKey == 0) {
+                return -1;
+            }
+            if (slotKey == key && matcher.matches(offset(slot))) {
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * Add a key (the caller has checked that it isn't in the index yet)
+     * Grows the index first if it is full.
+     */
+    void insert(long hash, long offset, long value) throws IOException {
+        if (size + 1 > capacity * MAX_LOAD) {
+            grow();
+        }
+        put(normalize(hash), offset, value);
+        size++;
+        buffer.putInt(SIZE_AT, size);
+    }
+
+    long offset(int slot) {
+        return buffer.getLong(slotAt(slot) + OFFSET_AT);
+    }
+
+    long value(int slot) {
+        return buffer.getLong(slotAt(slot) + VALUE_AT);
+    }
+
+    void addToValue(int slot, long delta) {
+        int at = slotAt(slot) + VALUE_AT;
+        buffer.putLong(at, buffer.getLong(at) + delta);
+    }
+
+    boolean isClean() {
+        return buffer.getInt(CLEAN_AT) != 0;
+    }
+
+    long logSize() {
+        return buffer.getLong(LOG_SIZE_AT);
+    }
+
+    long liveBytes() {
+        return buffer.getLong(LIVE_BYTES_AT);
+    }
+
+    long nextId() {
+        return buffer.getLong(NEXT_ID_AT);
+    }
+
+    /**
+     * Mark the index as in use (not trusted after a crash) and write that to disk
+     */
+    void markDirty() {
+        buffer.putInt(CLEAN_AT, 0);
+        buffer.force();
+    }
+
+    /**
+     * Record the engine state that matches this index, mark it clean and write it to disk
+     */
+    void markClean(long logSize, long liveBytes, long nextId) {
+        buffer.putLong(LOG_SIZE_AT, logSize);
+        buffer.putLong(LIVE_BYTES_AT, liveBytes);
+        buffer.putLong(NEXT_ID_AT, nextId);
+        buffer.force();
+        buffer.putInt(CLEAN_AT, 1);
+        buffer.force();
+    }
+
+    /**
+     * Write all changes to disk
+     */
+    void force() {
+        buffer.force();
+    }
+
+    /**
+     * Move the index file (e.g. a freshly built one over the current one)
+     */
+    void moveTo(Path target) throws IOException {
+        Files.move(path, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        path = target;
+    }
+
+    @Override
+    public void close() {
+        buffer.force();
+        // The mapping itself is released when the buffer is garbage collected
+        buffer = null;
+    }
+
+    /**
+     * Rebuild into a file with twice the capacity, then replace the current file with it
+     */
+    private void grow() throws IOException {
+        if (capacity >= MAX_CAPACITY) {
+            throw new IOException("Index " + path + " is full (" + size + " keys)");
+        }
+        MappedByteBuffer oldBuffer = buffer;
+        int oldCapacity = capacity;
+
+        Path resizePath = path.resolveSibling(path.getFileName() + ".resize");
+        buffer = createFile(resizePath, oldCapacity * 2);
+        capacity = oldCapacity * 2;
+        mask = capacity - 1;
+        for (int slot = 0; slot < oldCapacity; slot++) {
+            int at = HEADER_SIZE + slot * SLOT_SIZE;
+            long key = oldBuffer.getLong(at + KEY_AT);
+            if (key != 0) {
+                put(key, oldBuffer.getLong(at + OFFSET_AT), oldBuffer.getLong(at + VALUE_AT));
+            }
+        }
+        buffer.putInt(SIZE_AT, size);
+        buffer.force();
+
+        Files.move(resizePath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void put(long key, long offset, long value) {
+        int slot = (int) key & mask;
+        while (buffer.getLong(slotAt(slot) + KEY_AT) != 0) {
+            slot = (slot + 1) & mask;
+        }
+        int at = slotAt(slot);
+        // Key last: a slot only counts as used once it is complete
+        buffer.putLong(at + OFFSET_AT, offset);
+        buffer.putLong(at + VALUE_AT, value);
+        buffer.putLong(at + KEY_AT, key);
+    }
+
+    private static int slotAt(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    private static long normalize(long hash) {
+        return hash == 0 ? 1 : hash;
+    }
+
+    private static int capacityFor(int slots) {
+        int capacity = Integer.highestOneBit(Math.max(16, Math.min(MAX_CAPACITY, slots)) - 1) << 1;
+        return Math.min(capacity, MAX_CAPACITY);
+    }
+
+    private static MappedByteBuffer createFile(Path path, int capacity) throws IOException {
+        long fileSize = HEADER_SIZE + (long) capacity * SLOT_SIZE;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Sparse file: the slots read as zero (empty) until written
+            channel.write(ByteBuffer.allocate(1), fileSize - 1);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+            buffer.putInt(MAGIC_AT, MAGIC);
+            buffer.putInt(VERSION_AT, VERSION);
+            buffer.putInt(CAPACITY_AT, capacity);
+            buffer.putInt(SIZE_AT, 0);
+            buffer.putInt(CLEAN_AT, 0);
+            return buffer;
+        }
+    }
+
+    private static MappedByteBuffer tryMapExisting(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE) {
+                return null;
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(header, 0);
+            int capacity = header.getInt(CAPACITY_AT);
+            boolean valid = header.getInt(MAGIC_AT) == MAGIC
+                    && header.getInt(VERSION_AT) == VERSION
+                    && capacity > 0 && capacity <= MAX_CAPACITY && Integer.bitCount(capacity) == 1
+                    && fileSize == HEADER_SIZE + (long) capacity * SLOT_SIZE;
+            return valid ? channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize) : null;
+        }
+    }
+}
@@ -0,0 +1,384 @@
+package com.urlshortener.storage.log;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log file of checksummed records
+ *
+ * File layout:
+ * [int magic][int version]                      file header
+ * [int length][int crc][byte type][payload]...  records
+ *
+ * length covers type + payload; crc is the CRC32C of type + payload.
+ * Records are only ever appended. A crash can leave a half-written record
+ * at the end; recover() finds the first record that is incomplete or fails
+ * its checksum and cuts the file off there.
+ *
+ * Reads are positional (FileChannel.read(buffer, position)), so any number
+ * of threads can read while one thread appends.
+ */
+@Slf4j
+final class UrlLog implements Closeable {
+
+    static final int HEADER_SIZE = 8;
+    static final int RECORD_HEADER_SIZE = 9;
+
+    // Records are small (a URL is at most 2048 characters); anything bigger is corruption
+    static final int MAX_RECORD_SIZE = 64 * 1024;
+
+    private static final int MAGIC = 0x55524C4C; // "URLL"
+    private static final int VERSION = 1;
+    private static final int SCAN_BUFFER_SIZE = 1 << 20;
+
+    /**
+     * One record, as handed to a RecordVisitor
+     */
+    @FunctionalInterface
+    interface RecordVisitor {
+        /**
+         * @param offset File offset of the record
+         * @param size Size of the record including its header
+         * @param type Record type
+         * @param payload The payload (position at its start, limit at its end)
+         */
+        void visit(long offset, int size, byte type, ByteBuffer payload);
+    }
+
+    private final Path path;
+    private final FileChannel channel;
+
+    // Only the appending thread (under LogStorageEngine's write mutex) writes it; readers and
+    // scans read it without that mutex. append() publishes it after the bytes are written,
+    // so a reader that sees a new size also sees the records up to it
+    private volatile long size;
+
+    private UrlLog(Path path, FileChannel channel, long size) {
+        this.path = path;
+        this.channel = channel;
+        this.size = size;
+    }
+
+    /**
+     * Open a log file, creating it if it doesn't exist
+     */
+    static UrlLog open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size();
+
+        if (size < HEADER_SIZE) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip();
+            channel.truncate(0);
+            channel.write(header, 0);
+            channel.force(true);
+            size = HEADER_SIZE;
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(header, 0);
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                channel.close();
+                throw new IOException("Not a URL log file (or unsupported version): " + path);
+            }
+        }
+        return new UrlLog(path, channel, size);
+    }
+
+    Path path() {
+        return path;
+    }
+
+    long size() {
+        return size;
+    }
+
+    /**
+     * Append framed records (see RecordBuffer) in one write
+     * @return The file offset of the first appended byte
+     */
+    long append(ByteBuffer records) throws IOException {
+        long start = size;
+        long position = start;
+        while (records.hasRemaining()) {
+            position += channel.write(records, position);
+        }
+        size = position;
+        return start;
+    }
+
+    /**
+     * Flush appended records to the storage device
+     */
+    void force() throws IOException {
+        channel.force(false);
+    }
+
+    /**
+     * Read (the start of) the payload of the record at the given offset
+     * The checksum isn't verified here; recover() already did that for every record.
+     * @param maxBytes Read at most this many payload bytes (lookups often only need the key)
+     */
+    ByteBuffer readPayload(long offset, int maxBytes) throws IOException {
+        ByteBuffer length = ByteBuffer.allocate(4);
+        readFully(length, offset);
+        int payloadLength = length.getInt(0) - 1;
+
+        ByteBuffer payload = ByteBuffer.allocate(Math.min(payloadLength, maxBytes));
+        readFully(payload, offset + RECORD_HEADER_SIZE);
+        return payload.flip();
+    }
+
+    /**
+     * Visit every valid record from the start of the log
+     * The first incomplete or corrupt record and everything after it is cut off.
+     * @return The number of bytes cut off (0 after a clean shutdown)
+     */
+    long recover(RecordVisitor visitor) throws IOException {
+        long end = scan(HEADER_SIZE, size, size, visitor);
+        long truncated = size - end;
+        if (truncated > 0) {
+            log.warn("Truncating {} bytes of incomplete or corrupt records at offset {} of {}", truncated, end, path);
+            channel.truncate(end);
+            channel.force(true);
+            size = end;
+        }
+        return truncated;
+    }
+
+    /**
+     * Visit the records that start in [from, startBefore), which must all be valid
+     * Lets a caller walk a large log in chunks of whole records.
+     * @param from Offset of a record
+     * @param startBefore Stop at the first record that starts at or after this offset
+     * @param end End of the valid records (a record may continue past startBefore up to here)
+     * @return The offset after the last visited record, where the next chunk starts
+     */
+    long scanValid(long from, long startBefore, long end, RecordVisitor visitor) throws IOException {
+        long next = scan(from, startBefore, end, visitor);
+        if (next < Math.min(startBefore, end)) {
+            throw new IOException("Corrupt record at offset " + next + " of " + path);
+        }
+        return next;
+    }
+
+    /**
+     * Visit records from "from" until one starts at or after startBefore, or a bad record is found
+     * @return The offset after the last valid record visited
+     */
+    private long scan(long from, long startBefore, long to, RecordVisitor visitor) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        CRC32C crc = new CRC32C();
+        long bufferOffset = from;   // file offset of buffer[0]
+        long position = from;       // file offset of the next record
+
+        buffer.limit(0);
+        while (position < startBefore && position < to) {
+            // Make sure the next record header is in the buffer
+            if (buffer.remaining() < RECORD_HEADER_SIZE || buffer.remaining() < recordSize(buffer)) {
+                buffer.compact();
+                bufferOffset = position;
+                int read = fill(buffer, bufferOffset + buffer.position(), to);
+                buffer.flip();
+                if (read <= 0 && buffer.remaining() < RECORD_HEADER_SIZE) {
+                    return position;
+                }
+            }
+
+            if (buffer.remaining() < RECORD_HEADER_SIZE) {
+                return position;
+            }
+            int start = buffer.position();
+            int length = buffer.getInt(start);
+            if (length < 1 || length > MAX_RECORD_SIZE) {
+                return position;
+            }
+            int recordSize = RECORD_HEADER_SIZE - 1 + length;
+            if (buffer.remaining() < recordSize) {
+                // Not enough data even after a refill: torn record at the end
+                if (bufferOffset + buffer.limit() >= to) {
+                    return position;
+                }
+                continue;
+            }
+
+            int storedCrc = buffer.getInt(start + 4);
+            crc.reset();
+            crc.update(buffer.slice(start + 8, length));
+            if ((int) crc.getValue() != storedCrc) {
+                return position;
+            }
+
+            byte type = buffer.get(start + 8);
+            ByteBuffer payload = buffer.slice(start + RECORD_HEADER_SIZE, length - 1);
+            visitor.visit(position, recordSize, type, payload);
+
+            buffer.position(start + recordSize);
+            position += recordSize;
+        }
+        return position;
+    }
+
+    /**
+     * Size of the record at the buffer position, or 0 if its header isn't complete
+     */
+    private static int recordSize(ByteBuffer buffer) {
+        if (buffer.remaining() < RECORD_HEADER_SIZE) {
+            return 0;
+        }
+        int length = buffer.getInt(buffer.position());
+        return length < 1 || length > MAX_RECORD_SIZE ? 0 : RECORD_HEADER_SIZE - 1 + length;
+    }
+
+    private int fill(ByteBuffer buffer, long fileOffset, long to) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining() && fileOffset < to) {
+            int limit = buffer.limit();
+            buffer.limit((int) Math.min(limit, buffer.position() + (to - fileOffset)));
+            int read = channel.read(buffer, fileOffset);
+            buffer.limit(limit);
+            if (read < 0) {
+                break;
+            }
+            fileOffset += read;
+            total += read;
+        }
+        return total;
+    }
+
+    private void readFully(ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, offset + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of " + path + " at offset " + offset);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Growable buffer that frames records for append()
+     *
+     * Usage:
+     * buffer.begin(type); buffer.putLong(...); ...; buffer.end();
+     */
+    static final class RecordBuffer {
+
+        private ByteBuffer buffer = ByteBuffer.allocate(4096);
+        private final CRC32C crc = new CRC32C();
+        private int recordStart = -1;
+
+        /**
+         * Start a record
+         * @return The offset of the record within this buffer
+         */
+        int begin(byte type) {
+            ensure(RECORD_HEADER_SIZE);
+            recordStart = buffer.position();
+            buffer.putInt(0).putInt(0).put(type);
+            return recordStart;
+        }
+
+        /**
+         * Finish the current record (fills in its length and checksum)
+         * @return The size of the record including its header
+         */
+        int end() {
+            int length = buffer.position() - recordStart - 8;
+            crc.reset();
+            crc.update(buffer.slice(recordStart + 8, length));
+            buffer.putInt(recordStart, length);
+            buffer.putInt(recordStart + 4, (int) crc.getValue());
+            int size = buffer.position() - recordStart;
+            recordStart = -1;
+            return size;
+        }
+
+        RecordBuffer put(byte value) {
+            ensure(1);
+            buffer.put(value);
+            return this;
+        }
+
+        RecordBuffer putInt(int value) {
+            ensure(4);
+            buffer.putInt(value);
+            return this;
+        }
+
+        RecordBuffer putLong(long value) {
+            ensure(8);
+            buffer.putLong(value);
+            return this;
+        }
+
+        RecordBuffer put(byte[] value) {
+            ensure(value.length);
+            buffer.put(value);
+            return this;
+        }
+
+        /**
+         * A string of at most 255 ASCII characters (short codes), prefixed with its length
+         */
+        RecordBuffer putShortAscii(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+            return put((byte) bytes.length).put(bytes);
+        }
+
+        /**
+         * A UTF-8 string, prefixed with its length in bytes
+         */
+        RecordBuffer putUtf8(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            return putInt(bytes.length).put(bytes);
+        }
+
+        boolean isEmpty() {
+            return buffer.position() == 0;
+        }
+
+        /**
+         * The framed records, ready to append
+         */
+        ByteBuffer flip() {
+            return buffer.duplicate().flip();
+        }
+
+        void clear() {
+            buffer.clear();
+        }
+
+        private void ensure(int bytes) {
+            if (buffer.remaining() < bytes) {
+                ByteBuffer bigger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+                bigger.put(buffer.flip());
+                buffer = bigger;
+            }
+        }
+    }
+
+    static String getShortAscii(ByteBuffer payload) {
+        byte[] bytes = new byte[payload.get() & 0xFF];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    static String getUtf8(ByteBuffer payload) {
+        byte[] bytes = new byte[payload.getInt()];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
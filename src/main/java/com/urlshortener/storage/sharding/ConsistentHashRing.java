@@ -0,0 +1,72 @@
+package com.urlshortener.storage.sharding;
+
+import com.urlshortener.util.StringHash;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Consistent hash ring that maps routing keys to shard names
+ *
+ * Every shard is placed on the ring at virtualNodes points (hashes of
+ * "name#0", "name#1", ...). A key belongs to the first point at or after its
+ * own hash, wrapping around at the end. Adding a shard therefore only moves
+ * the keys that now fall just before one of its points: about 1/N of them,
+ * all taken from the existing shards in roughly equal parts.
+ *
+ * The ring is immutable. Points are kept in two parallel sorted arrays, so a
+ * lookup is one hash plus a binary search, without allocation.
+ */
+public final class ConsistentHashRing {
+
+    private final long[] points;
+    private final String[] owners;
+    private final List<String> shards;
+
+    public ConsistentHashRing(Collection<String> shardNames, int virtualNodes) {
+        if (shardNames.isEmpty()) {
+            throw new IllegalArgumentException("A hash ring needs at least one shard");
+        }
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("virtualNodes must be at least 1");
+        }
+        this.shards = List.copyOf(shardNames);
+
+        long[][] entries = new long[shards.size() * virtualNodes][];
+        int n = 0;
+        for (int shard = 0; shard < shards.size(); shard++) {
+            for (int node = 0; node < virtualNodes; node++) {
+                entries[n++] = new long[] {StringHash.hash64(shards.get(shard) + "#" + node), shard};
+            }
+        }
+        // Ties (practically impossible with 64-bit hashes) go to the shard listed first
+        Arrays.sort(entries, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+
+        this.points = new long[entries.length];
+        this.owners = new String[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            points[i] = entries[i][0];
+            owners[i] = shards.get((int) entries[i][1]);
+        }
+    }
+
+    /**
+     * The shard that owns a routing key
+     */
+    public String shardFor(CharSequence routingKey) {
+        long hash = StringHash.hash64(routingKey);
+        int index = Arrays.binarySearch(points, hash);
+        if (index < 0) {
+            index = -index - 1;   // first point after the hash
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    /**
+     * The shards on this ring, in configuration order
+     */
+    public List<String> shards() {
+        return shards;
+    }
+}
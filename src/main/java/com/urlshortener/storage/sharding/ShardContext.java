@@ -0,0 +1,53 @@
+package com.urlshortener.storage.sharding;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+/**
+ * The shard that database calls on the current thread go to
+ *
+ * ShardRoutingDataSource reads it whenever a connection is opened. A
+ * transaction keeps its connection until it ends, so the shard can only be
+ * chosen before a transaction starts: switching to another shard inside one
+ * would silently keep using the old connection, and is refused.
+ *
+ * Usage:
+ * ShardContext.call("shard-b", () -> urlRepository.findSummaryByShortCode(code));
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    // Private constructor to prevent instantiation
+    private ShardContext() {
+        throw new AssertionError("ShardContext class should not be instantiated");
+    }
+
+    /**
+     * Run an action with its database calls routed to the given shard
+     */
+    public static <T> T call(String shard, Supplier<T> action) {
+        String previous = CURRENT.get();
+        if (!shard.equals(previous) && TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Can't switch to shard " + shard + " inside a transaction");
+        }
+        CURRENT.set(shard);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * The shard set by call(), or null outside of it
+     */
+    static String current() {
+        return CURRENT.get();
+    }
+}
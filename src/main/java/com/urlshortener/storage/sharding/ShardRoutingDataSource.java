@@ -0,0 +1,37 @@
+package com.urlshortener.storage.sharding;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.io.Closeable;
+import javax.sql.DataSource;
+
+/**
+ * DataSource that opens connections to the shard set in ShardContext
+ *
+ * Outside of ShardContext.call() connections go to the primary shard, which
+ * holds everything that isn't split up (click statistics, sequences). So
+ * JPA, JdbcTemplate and the other repositories work on it unchanged.
+ *
+ * Closing it closes the connection pools of all shards.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        // null: the default target (the primary shard)
+        return ShardContext.current();
+    }
+
+    @Override
+    public void close() {
+        for (DataSource dataSource : getResolvedDataSources().values()) {
+            if (dataSource instanceof Closeable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    logger.warn("Could not close the connection pool of a shard", e);
+                }
+            }
+        }
+    }
+}
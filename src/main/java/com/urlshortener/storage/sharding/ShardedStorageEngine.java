@@ -0,0 +1,559 @@
+package com.urlshortener.storage.sharding;
+
+import com.urlshortener.config.MaintenanceScheduler;
+import com.urlshortener.config.StorageProperties;
+import com.urlshortener.dto.RedirectTarget;
+import com.urlshortener.dto.UrlSummary;
+import com.urlshortener.entity.Url;
+import com.urlshortener.repository.UrlRepository;
+import com.urlshortener.storage.UrlStorageEngine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Storage engine that splits the urls table over several databases (shards)
+ *
+ * Every short code belongs to one shard, picked by a consistent hash ring
+ * (see ConsistentHashRing) over the code, or over its first
+ * routingPrefixLength characters. Each operation sets the shard in
+ * ShardContext and then calls UrlRepository as usual; ShardRoutingDataSource
+ * hands the repository a connection to that shard.
+ *
+ * - Lookups and writes by short code go to one shard
+ * - Lookups by URL hash ask every shard (the hash doesn't say where the URL is)
+ * - insertAll() writes one transaction per shard; if a later shard fails, the
+ *   URLs already written to other shards are deleted again
+ * - The forEach methods visit the shards one after the other (so "oldest
+ *   first" only holds within a shard)
+ * - ID blocks come from a sequence on the primary (first) shard
+ *
+ * Adding a shard (online rebalancing):
+ * A new shard is configured with joining=true. New URLs go straight to their
+ * owner on the ring with the new shard ("target ring"), while a background
+ * task walks the existing shards and moves every URL whose owner changed.
+ * Until it is done, lookups ask the new owner first and then the old one.
+ * Each step of the walk moves one batch under the write lock of moveLock;
+ * everything that reads or writes more than one shard for a code holds the
+ * read lock meanwhile, so no operation sees a URL in the middle of a move.
+ * When the walk is finished the target ring becomes the ring, and the engine
+ * stops locking. Removing shards isn't supported.
+ *
+ * Only consistent as long as nothing else writes the shards, and no
+ * transaction may be open on the calling thread (see ShardContext).
+ */
+@Component
+@ConditionalOnProperty(name = "urlshortener.storage.engine", havingValue = "sharded")
+@Slf4j
+public class ShardedStorageEngine implements UrlStorageEngine {
+
+    private static final String SEQUENCE_NAME = "short_code_seq";
+
+    private final UrlRepository urlRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final MaintenanceScheduler maintenanceScheduler;
+    private final StorageProperties.Sharding properties;
+    private final String primaryShard;
+
+    // Where URLs are looked up, and where they go (the same ring unless shards are joining)
+    private volatile ConsistentHashRing ring;
+    private volatile ConsistentHashRing targetRing;
+
+    // Readers: operations that touch both owners of a code; writer: a rebalancing step
+    private final ReentrantReadWriteLock moveLock = new ReentrantReadWriteLock();
+
+    // Rebalancing progress (only used by the rebalancing task)
+    private List<String> sourceShards;
+    private int sourceIndex;
+    private long afterId;
+    private long scannedUrls;
+    private long movedUrls;
+    private long rebalanceStart;
+
+    private volatile boolean sequenceChecked;
+    private ScheduledFuture<?> scheduledRebalance;
+
+    public ShardedStorageEngine(UrlRepository urlRepository,
+                                TransactionTemplate transactionTemplate,
+                                JdbcTemplate jdbcTemplate,
+                                MaintenanceScheduler maintenanceScheduler,
+                                StorageProperties storageProperties) {
+        this.urlRepository = urlRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.jdbcTemplate = jdbcTemplate;
+        this.maintenanceScheduler = maintenanceScheduler;
+        this.properties = storageProperties.getSharding();
+
+        List<String> allShards = new ArrayList<>();
+        List<String> activeShards = new ArrayList<>();
+        for (StorageProperties.Sharding.Shard shard : properties.getShards()) {
+            allShards.add(shard.getName());
+            if (!shard.isJoining()) {
+                activeShards.add(shard.getName());
+            }
+        }
+        this.primaryShard = allShards.get(0);
+        this.ring = new ConsistentHashRing(activeShards, properties.getVirtualNodes());
+        this.targetRing = activeShards.size() == allShards.size()
+                ? ring
+                : new ConsistentHashRing(allShards, properties.getVirtualNodes());
+    }
+
+    /**
+     * Start moving URLs to the joining shards, if there are any
+     */
+    @PostConstruct
+    public void start() {
+        if (!isRebalancing()) {
+            log.info("Using the sharded storage engine with shards {}", ring.shards());
+            return;
+        }
+        List<String> joining = new ArrayList<>(targetRing.shards());
+        joining.removeAll(ring.shards());
+        log.info("Using the sharded storage engine with shards {}; moving URLs to joining shards {}",
+                ring.shards(), joining);
+
+        sourceShards = ring.shards();
+        rebalanceStart = System.nanoTime();
+        scheduledRebalance = maintenanceScheduler.scheduleWithFixedDelay(
+                this::rebalanceStep, properties.getRebalanceInterval());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduledRebalance != null) {
+            scheduledRebalance.cancel(false);
+        }
+    }
+
+    @Override
+    public Optional<RedirectTarget> findRedirectTarget(String shortCode) {
+        return find(shortCode, () -> urlRepository.findRedirectTargetByShortCode(shortCode));
+    }
+
+    @Override
+    public Optional<UrlSummary> findSummary(String shortCode) {
+        return find(shortCode, () -> urlRepository.findSummaryByShortCode(shortCode));
+    }
+
+    @Override
+    public Optional<UrlSummary> findSummaryByUrlHash(byte[] urlHash) {
+        return whileNotMoving(() -> {
+            for (String shard : targetRing.shards()) {
+                Optional<UrlSummary> summary = onShard(shard, () -> urlRepository.findSummaryByUrlHash(urlHash));
+                if (summary.isPresent()) {
+                    return summary;
+                }
+            }
+            return Optional.empty();
+        });
+    }
+
+    @Override
+    public Map<ByteBuffer, UrlSummary> findSummariesByUrlHashes(Collection<byte[]> urlHashes) {
+        return whileNotMoving(() -> {
+            Map<ByteBuffer, UrlSummary> summaries = new HashMap<>();
+            for (String shard : targetRing.shards()) {
+                for (Url url : onShard(shard, () -> urlRepository.findByUrlHashIn(urlHashes))) {
+                    summaries.put(ByteBuffer.wrap(url.getUrlHash()), UrlSummary.from(url));
+                }
+            }
+            return summaries;
+        });
+    }
+
+    @Override
+    public boolean exists(String shortCode) {
+        return find(shortCode, () -> Optional.of(shortCode).filter(urlRepository::existsByShortCode)).isPresent();
+    }
+
+    @Override
+    public Set<String> findExisting(Collection<String> shortCodes) {
+        return whileNotMoving(() -> {
+            Set<String> existing = new HashSet<>();
+            groupByAnyOwner(shortCodes).forEach((shard, codes) ->
+                    existing.addAll(onShard(shard, () -> urlRepository.findExistingShortCodes(codes))));
+            return existing;
+        });
+    }
+
+    @Override
+    public UrlSummary insert(Url url) {
+        return whileNotMoving(() -> {
+            checkNotOnOldOwners(List.of(url));
+            return onShard(targetOwner(url.getShortCode()), () -> UrlSummary.from(urlRepository.save(url)));
+        });
+    }
+
+    /**
+     * One transaction per shard
+     * If a shard fails, the URLs already committed to other shards are deleted again.
+     */
+    @Override
+    public List<UrlSummary> insertAll(List<Url> urls) {
+        return whileNotMoving(() -> {
+            checkNotOnOldOwners(urls);
+
+            Map<String, List<Url>> urlsByShard = new LinkedHashMap<>();
+            for (Url url : urls) {
+                urlsByShard.computeIfAbsent(targetOwner(url.getShortCode()), shard -> new ArrayList<>()).add(url);
+            }
+
+            Map<String, List<Long>> committedIds = new LinkedHashMap<>();
+            try {
+                for (Map.Entry<String, List<Url>> entry : urlsByShard.entrySet()) {
+                    List<Url> saved = onShard(entry.getKey(),
+                            () -> transactionTemplate.execute(status -> urlRepository.saveAll(entry.getValue())));
+                    committedIds.put(entry.getKey(), saved.stream().map(Url::getId).toList());
+                }
+            } catch (RuntimeException e) {
+                committedIds.forEach((shard, ids) -> onShard(shard, () -> {
+                    urlRepository.deleteAllByIdInBatch(ids);
+                    return null;
+                }));
+                throw e;
+            }
+
+            // Return the summaries in the order of the given URLs (saveAll() updated them in place)
+            List<UrlSummary> summaries = new ArrayList<>(urls.size());
+            for (Url url : urls) {
+                summaries.add(UrlSummary.from(url));
+            }
+            return summaries;
+        });
+    }
+
+    /**
+     * While URLs are being moved, a code's hits go to whichever owner has the URL right now
+     */
+    @Override
+    public void addHitCounts(Map<String, Long> hitsByShortCode) {
+        whileNotMoving(() -> {
+            Map<String, Map<String, Long>> hitsByShard = new HashMap<>();
+            Map<String, List<String>> movingCodesByTarget = new HashMap<>();
+            hitsByShortCode.forEach((shortCode, hits) -> {
+                String target = targetOwner(shortCode);
+                hitsByShard.computeIfAbsent(target, shard -> new HashMap<>()).put(shortCode, hits);
+                if (!target.equals(currentOwner(shortCode))) {
+                    movingCodesByTarget.computeIfAbsent(target, shard -> new ArrayList<>()).add(shortCode);
+                }
+            });
+
+            // Codes that haven't been moved yet are still counted on their old shard
+            movingCodesByTarget.forEach((target, codes) -> {
+                Set<String> moved = new HashSet<>(onShard(target, () -> urlRepository.findExistingShortCodes(codes)));
+                for (String shortCode : codes) {
+                    if (!moved.contains(shortCode)) {
+                        Long hits = hitsByShard.get(target).remove(shortCode);
+                        hitsByShard.computeIfAbsent(currentOwner(shortCode), shard -> new HashMap<>())
+                                .put(shortCode, hits);
+                    }
+                }
+            });
+
+            hitsByShard.forEach((shard, hits) -> onShard(shard, () -> {
+                urlRepository.addHitCounts(hits);
+                return null;
+            }));
+            return null;
+        });
+    }
+
+    /**
+     * Shard by shard, in the configured order, until limit URLs are deleted
+     * (one transaction per shard, under the read lock while URLs are being moved)
+     */
+    @Override
+    public List<String> deleteExpired(LocalDateTime expiredBefore, int limit) {
+        return whileNotMoving(() -> {
+            List<String> deleted = new ArrayList<>();
+            for (String shard : targetRing.shards()) {
+                int remaining = limit - deleted.size();
+                if (remaining <= 0) {
+                    break;
+                }
+                deleted.addAll(onShard(shard, () -> transactionTemplate.execute(status -> {
+                    List<String> shortCodes = urlRepository.findExpiredShortCodes(expiredBefore,
+                            PageRequest.of(0, remaining));
+                    if (!shortCodes.isEmpty()) {
+                        urlRepository.deleteExpiredByShortCodes(shortCodes, expiredBefore);
+                    }
+                    return shortCodes;
+                })));
+            }
+            return deleted;
+        });
+    }
+
+    /**
+     * Shard by shard, in the configured order
+     * While URLs are being moved this holds the read lock for the whole walk
+     * (rebalancing pauses), so no URL is visited twice or skipped.
+     */
+    @Override
+    public void forEachSummary(Consumer<UrlSummary> action) {
+        forEachShard(() -> {
+            try (Stream<UrlSummary> summaries = urlRepository.streamAllSummaries()) {
+                summaries.forEach(action);
+            }
+        });
+    }
+
+    @Override
+    public void forEachShortCode(Consumer<String> action) {
+        forEachShard(() -> {
+            try (Stream<String> shortCodes = urlRepository.streamAllShortCodes()) {
+                shortCodes.forEach(action);
+            }
+        });
+    }
+
+    /**
+     * Each value of the sequence (on the primary shard) is the first ID of a new block
+     * The sequence comes from the migrations, with the block size as its increment
+     */
+    @Override
+    public long reserveIdBlock(int blockSize) {
+        return onShard(primaryShard, () -> {
+            if (!sequenceChecked) {
+                checkSequenceIncrement(blockSize);
+                sequenceChecked = true;
+            }
+            return jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR " + SEQUENCE_NAME, Long.class);
+        });
+    }
+
+    /**
+     * The sequence's increment is the block size: a different block-size would hand out overlapping blocks
+     */
+    private void checkSequenceIncrement(int blockSize) {
+        List<Long> increments = jdbcTemplate.queryForList(
+                "SELECT INCREMENT FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = ?",
+                Long.class, SEQUENCE_NAME.toUpperCase());
+        if (increments.isEmpty()) {
+            throw new IllegalStateException("Sequence " + SEQUENCE_NAME
+                    + " doesn't exist, it is created by the Flyway migration V4");
+        }
+        if (increments.get(0) != blockSize) {
+            throw new IllegalStateException("urlshortener.short-code.block-size is " + blockSize
+                    + " but sequence " + SEQUENCE_NAME + " increments by " + increments.get(0)
+                    + ", so ID blocks would overlap. Set the block size to " + increments.get(0)
+                    + " or change the increment in a new migration");
+        }
+    }
+
+    /**
+     * Move the next batch of URLs whose owner changed (runs on the maintenance thread)
+     *
+     * Reads the next rebalanceBatchSize URLs of the current source shard in ID
+     * order, copies the ones that belong elsewhere to their new shard and
+     * deletes them from the source, all under the write lock. A copy that is
+     * already there (the process stopped between copy and delete) isn't copied
+     * again: the copy on the new shard is the one that has been counting hits.
+     */
+    private void rebalanceStep() {
+        if (!isRebalancing()) {
+            return;
+        }
+        if (sourceIndex == sourceShards.size()) {
+            finishRebalancing();
+            return;
+        }
+
+        String source = sourceShards.get(sourceIndex);
+        ConsistentHashRing target = targetRing;
+        moveLock.writeLock().lock();
+        try {
+            List<Url> page = onShard(source, () -> urlRepository.findPageAfter(afterId,
+                    PageRequest.of(0, properties.getRebalanceBatchSize())));
+            if (page.isEmpty()) {
+                log.info("Rebalancing: finished shard {} ({} URLs scanned, {} moved so far)",
+                        source, scannedUrls, movedUrls);
+                sourceIndex++;
+                afterId = 0;
+                return;
+            }
+            afterId = page.get(page.size() - 1).getId();
+            scannedUrls += page.size();
+
+            Map<String, List<Url>> movingByShard = new HashMap<>();
+            for (Url url : page) {
+                String owner = target.shardFor(routingKey(url.getShortCode()));
+                if (!owner.equals(source)) {
+                    movingByShard.computeIfAbsent(owner, shard -> new ArrayList<>()).add(url);
+                }
+            }
+            movingByShard.forEach((shard, urls) -> {
+                move(source, shard, urls);
+                movedUrls += urls.size();
+            });
+        } finally {
+            moveLock.writeLock().unlock();
+        }
+    }
+
+    private void move(String source, String target, List<Url> urls) {
+        List<String> shortCodes = urls.stream().map(Url::getShortCode).toList();
+        Set<String> alreadyCopied = new HashSet<>(onShard(target, () -> urlRepository.findExistingShortCodes(shortCodes)));
+
+        // New entities: the target shard assigns its own IDs
+        List<Url> copies = new ArrayList<>(urls.size());
+        for (Url url : urls) {
+            if (!alreadyCopied.contains(url.getShortCode())) {
+                copies.add(new Url(null, url.getOriginalUrl(), url.getShortCode(), url.getUrlHash(),
+                        url.getCreatedAt(), url.getHitCount(), url.getExpiresAt(), url.getRedirectType()));
+            }
+        }
+        List<Long> ids = urls.stream().map(Url::getId).toList();
+
+        onShard(target, () -> transactionTemplate.execute(status -> urlRepository.saveAll(copies)));
+        onShard(source, () -> {
+            urlRepository.deleteAllByIdInBatch(ids);
+            return null;
+        });
+    }
+
+    private void finishRebalancing() {
+        moveLock.writeLock().lock();
+        try {
+            ring = targetRing;
+        } finally {
+            moveLock.writeLock().unlock();
+        }
+        scheduledRebalance.cancel(false);
+        log.info("Rebalancing finished: {} URLs scanned, {} moved in {} s. "
+                        + "Set joining=false on the new shards before the next restart.",
+                scannedUrls, movedUrls, (System.nanoTime() - rebalanceStart) / 1_000_000_000);
+    }
+
+    private boolean isRebalancing() {
+        return ring != targetRing;
+    }
+
+    /**
+     * Look a code up on its owner; while it may be moving, on the new owner first and then the old one
+     */
+    private <T> Optional<T> find(String shortCode, Supplier<Optional<T>> query) {
+        if (!isRebalancing()) {
+            return onShard(currentOwner(shortCode), query);
+        }
+        return whileNotMoving(() -> {
+            String target = targetOwner(shortCode);
+            Optional<T> result = onShard(target, query);
+            String current = currentOwner(shortCode);
+            return result.isPresent() || current.equals(target) ? result : onShard(current, query);
+        });
+    }
+
+    /**
+     * While rebalancing, a new code must not exist on its old owner either
+     * (the unique index of the new owner doesn't see it there)
+     */
+    private void checkNotOnOldOwners(List<Url> urls) {
+        if (!isRebalancing()) {
+            return;
+        }
+        Map<String, List<String>> codesByOldOwner = new HashMap<>();
+        for (Url url : urls) {
+            String current = currentOwner(url.getShortCode());
+            if (!current.equals(targetOwner(url.getShortCode()))) {
+                codesByOldOwner.computeIfAbsent(current, shard -> new ArrayList<>()).add(url.getShortCode());
+            }
+        }
+        codesByOldOwner.forEach((shard, codes) -> {
+            List<String> existing = onShard(shard, () -> urlRepository.findExistingShortCodes(codes));
+            if (!existing.isEmpty()) {
+                throw new DuplicateKeyException("Short code already exists: " + existing.get(0));
+            }
+        });
+    }
+
+    /**
+     * Group codes by every shard that may have them (the old and the new owner while rebalancing)
+     */
+    private Map<String, List<String>> groupByAnyOwner(Collection<String> shortCodes) {
+        Map<String, List<String>> codesByShard = new HashMap<>();
+        for (String shortCode : shortCodes) {
+            String target = targetOwner(shortCode);
+            codesByShard.computeIfAbsent(target, shard -> new ArrayList<>()).add(shortCode);
+            String current = currentOwner(shortCode);
+            if (!current.equals(target)) {
+                codesByShard.computeIfAbsent(current, shard -> new ArrayList<>()).add(shortCode);
+            }
+        }
+        return codesByShard;
+    }
+
+    private void forEachShard(Runnable streamAll) {
+        whileNotMoving(() -> {
+            for (String shard : targetRing.shards()) {
+                onShard(shard, () -> {
+                    readOnlyTransactionTemplate.executeWithoutResult(status -> streamAll.run());
+                    return null;
+                });
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Run an action under the read lock of moveLock if URLs are being moved (without it otherwise)
+     */
+    private <T> T whileNotMoving(Supplier<T> action) {
+        if (!isRebalancing()) {
+            return action.get();
+        }
+        moveLock.readLock().lock();
+        try {
+            return action.get();
+        } finally {
+            moveLock.readLock().unlock();
+        }
+    }
+
+    private String currentOwner(String shortCode) {
+        return ring.shardFor(routingKey(shortCode));
+    }
+
+    private String targetOwner(String shortCode) {
+        return targetRing.shardFor(routingKey(shortCode));
+    }
+
+    private CharSequence routingKey(String shortCode) {
+        int prefixLength = properties.getRoutingPrefixLength();
+        return prefixLength > 0 && shortCode.length() > prefixLength
+                ? shortCode.subSequence(0, prefixLength)
+                : shortCode;
+    }
+
+    private static <T> T onShard(String shard, Supplier<T> action) {
+        return ShardContext.call(shard, action);
+    }
+}
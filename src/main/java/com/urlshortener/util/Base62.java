@@ -0,0 +1,95 @@
+package com.urlshortener.util;
+
+import java.util.Arrays;
+
+/**
+ * Base62 encoding for short codes
+ * 
+ * Uses the same alphabet as random short codes (a-z, A-Z, 0-9),
+ * so encoded numbers look just like any other short code.
+ */
+public final class Base62 {
+    
+    public static final String ALPHABET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+    public static final int BASE = ALPHABET.length();
+    
+    // Long.MAX_VALUE needs 11 Base62 digits
+    private static final int MAX_ENCODED_LENGTH = 11;
+    
+    // Lookup table: DIGITS[c] is the value of c, or -1 if c is not in the alphabet (ASCII only)
+    private static final byte[] DIGITS = new byte[128];
+    
+    static {
+        Arrays.fill(DIGITS, (byte) -1);
+        for (int i = 0; i < ALPHABET.length(); i++) {
+            DIGITS[ALPHABET.charAt(i)] = (byte) i;
+        }
+    }
+    
+    // Private constructor to prevent instantiation
+    private Base62() {
+        throw new AssertionError("Base62 class should not be instantiated");
+    }
+    
+    /**
+     * Encode a non-negative number (most significant digit first, no padding)
+     */
+    public static String encode(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Cannot encode a negative number: " + value);
+        }
+        
+        char[] buffer = new char[MAX_ENCODED_LENGTH];
+        int position = buffer.length;
+        do {
+            buffer[--position] = ALPHABET.charAt((int) (value % BASE));
+            value /= BASE;
+        } while (value > 0);
+        
+        return new String(buffer, position, buffer.length - position);
+    }
+    
+    /**
+     * Check that a string is a non-empty Base62 string of at most maxLength characters
+     */
+    public static boolean isValid(CharSequence value, int maxLength) {
+        return isValid(value, 0, maxLength);
+    }
+    
+    /**
+     * Check that the characters from offset to the end of value are a non-empty
+     * Base62 string of at most maxLength characters
+     * 
+     * Lets callers check part of a string (e.g. a request path) without copying it
+     */
+    public static boolean isValid(CharSequence value, int offset, int maxLength) {
+        int length = value.length() - offset;
+        if (length <= 0 || length > maxLength) {
+            return false;
+        }
+        for (int i = offset; i < value.length(); i++) {
+            if (digit(value.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Value of one Base62 character (0 to 61), or -1 if it isn't one
+     */
+    public static int digit(char c) {
+        return c < DIGITS.length ? DIGITS[c] : -1;
+    }
+    
+    /**
+     * BASE raised to the given power (e.g. the number of codes of that length)
+     */
+    public static long pow(int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result = Math.multiplyExact(result, BASE);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,69 @@
+package com.urlshortener.util;
+
+import org.slf4j.Logger;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Logs at most a fixed number of messages per time window
+ *
+ * For messages that clients can trigger at will (e.g. unknown short codes),
+ * so a flood of bad requests can't turn into a flood of log writes.
+ * Messages over the limit are only counted; the count is logged when the
+ * next window opens.
+ *
+ * Usage:
+ * private static final RateLimitedLogger NOT_FOUND_LOG =
+ *         new RateLimitedLogger(log, 10, Duration.ofSeconds(1));
+ * NOT_FOUND_LOG.info("URL not found for short code: {}", shortCode);
+ */
+public final class RateLimitedLogger {
+
+    private final Logger logger;
+    private final int maxPerWindow;
+    private final long windowNanos;
+
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    private final AtomicInteger loggedInWindow = new AtomicInteger();
+    private final LongAdder suppressed = new LongAdder();
+
+    public RateLimitedLogger(Logger logger, int maxPerWindow, Duration window) {
+        this.logger = logger;
+        this.maxPerWindow = maxPerWindow;
+        this.windowNanos = window.toNanos();
+    }
+
+    public void info(String format, Object arg) {
+        if (logger.isInfoEnabled() && tryAcquire()) {
+            logger.info(format, arg);
+        }
+    }
+
+    public void warn(String format, Object arg) {
+        if (logger.isWarnEnabled() && tryAcquire()) {
+            logger.warn(format, arg);
+        }
+    }
+
+    private boolean tryAcquire() {
+        long now = System.nanoTime();
+        long start = windowStart.get();
+        if (now - start >= windowNanos && windowStart.compareAndSet(start, now)) {
+            // This thread opened the new window
+            loggedInWindow.set(0);
+            long dropped = suppressed.sumThenReset();
+            if (dropped > 0) {
+                logger.info("Suppressed {} similar log messages", dropped);
+            }
+        }
+
+        if (loggedInWindow.incrementAndGet() <= maxPerWindow) {
+            return true;
+        }
+        suppressed.increment();
+        return false;
+    }
+}
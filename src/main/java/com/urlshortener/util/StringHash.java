@@ -0,0 +1,37 @@
+package com.urlshortener.util;
+
+/**
+ * Fast 64-bit hash of a string
+ * 
+ * 64-bit FNV-1a over the characters, finished with the MurmurHash3 mixing
+ * step so every input bit affects every output bit. Works on the string
+ * directly, so nothing is allocated. Not a cryptographic hash.
+ */
+public final class StringHash {
+    
+    // Private constructor to prevent instantiation
+    private StringHash() {
+        throw new AssertionError("StringHash class should not be instantiated");
+    }
+    
+    public static long hash64(CharSequence value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+    
+    /**
+     * MurmurHash3 64-bit finalizer
+     */
+    public static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
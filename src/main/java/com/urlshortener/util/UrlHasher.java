@@ -0,0 +1,34 @@
+package com.urlshortener.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Fixed-size hashes of original URLs
+ * 
+ * Used to find an existing mapping for a URL through a small indexed
+ * column instead of comparing the (up to 2048 character) URL itself.
+ */
+public final class UrlHasher {
+    
+    public static final String ALGORITHM = "SHA-256";
+    public static final int HASH_LENGTH = 32;
+    
+    // Private constructor to prevent instantiation
+    private UrlHasher() {
+        throw new AssertionError("UrlHasher class should not be instantiated");
+    }
+    
+    /**
+     * SHA-256 of the URL's UTF-8 bytes
+     */
+    public static byte[] hash(String url) {
+        try {
+            return MessageDigest.getInstance(ALGORITHM).digest(url.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(ALGORITHM + " not available", e);
+        }
+    }
+}
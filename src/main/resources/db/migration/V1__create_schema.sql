@@ -0,0 +1,52 @@
+-- Initial schema (prod profile, applied by Flyway)
+-- Must match the JPA entities: Hibernate validates it at startup (ddl-auto=validate)
+
+-- IDs for new URLs; Hibernate takes 50 at a time (see Url.id)
+CREATE SEQUENCE urls_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE urls (
+    id            BIGINT        NOT NULL,
+    original_url  VARCHAR(2048) NOT NULL,
+    short_code    VARCHAR(16)   NOT NULL,
+    url_hash      VARBINARY(32),
+    created_at    TIMESTAMP(6)  NOT NULL,
+    hit_count     BIGINT        DEFAULT 0 NOT NULL,
+    CONSTRAINT pk_urls PRIMARY KEY (id)
+);
+
+-- Short codes are unique; lookups by code (exists checks, info, hit count updates) use this index
+CREATE UNIQUE INDEX ux_urls_short_code ON urls (short_code);
+
+-- Covering index for the redirect query (SELECT original_url FROM urls WHERE short_code = ?):
+-- the answer is read from the index entry, without a second lookup in the table
+CREATE INDEX ix_urls_short_code_original_url ON urls (short_code, original_url);
+
+-- Deduplication lookups by URL hash (NULL when deduplication is off, which the index allows any number of)
+CREATE UNIQUE INDEX ux_urls_url_hash ON urls (url_hash);
+
+-- Range scans by creation time (e.g. URLs created in the last day, oldest URLs first)
+CREATE INDEX ix_urls_created_at ON urls (created_at);
+
+-- Click statistics: the key starts with the short code, because every stats query is for one code
+CREATE TABLE click_buckets (
+    short_code       VARCHAR(16)  NOT NULL,
+    granularity      VARCHAR(8)   NOT NULL,
+    bucket_start     TIMESTAMP(6) NOT NULL,
+    clicks           BIGINT       NOT NULL,
+    bot_clicks       BIGINT       NOT NULL,
+    mobile_clicks    BIGINT       NOT NULL,
+    referred_clicks  BIGINT       NOT NULL,
+    CONSTRAINT pk_click_buckets PRIMARY KEY (short_code, granularity, bucket_start),
+    CONSTRAINT ck_click_buckets_granularity CHECK (granularity IN ('MINUTE', 'HOUR'))
+);
+
+-- Retention cleanup deletes old per-minute buckets of all codes
+CREATE INDEX ix_click_buckets_granularity_start ON click_buckets (granularity, bucket_start);
+
+CREATE TABLE referrer_buckets (
+    short_code     VARCHAR(16)  NOT NULL,
+    bucket_start   TIMESTAMP(6) NOT NULL,
+    referrer_host  VARCHAR(255) NOT NULL,
+    clicks         BIGINT       NOT NULL,
+    CONSTRAINT pk_referrer_buckets PRIMARY KEY (short_code, bucket_start, referrer_host)
+);
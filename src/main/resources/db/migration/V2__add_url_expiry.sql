@@ -0,0 +1,12 @@
+-- Expiring links: URLs with an expiry redirect until expires_at, then answer 410 Gone
+-- until the background reaper deletes them (see ExpiredUrlReaper)
+
+ALTER TABLE urls ADD COLUMN expires_at TIMESTAMP(6);
+
+-- The redirect query now also reads expires_at, so the covering index must include it
+DROP INDEX ix_urls_short_code_original_url;
+CREATE INDEX ix_urls_short_code_original_url_expires_at ON urls (short_code, original_url, expires_at);
+
+-- The reaper deletes the earliest expired URLs first, in small batches
+-- (NULL, for URLs that never expire, sorts first and is skipped by the range condition)
+CREATE INDEX ix_urls_expires_at ON urls (expires_at);
@@ -0,0 +1,9 @@
+-- Per-link redirect type (301/302/307/308); NULL uses urlshortener.redirect.default-type
+
+ALTER TABLE urls ADD COLUMN redirect_type VARCHAR(20);
+ALTER TABLE urls ADD CONSTRAINT ck_urls_redirect_type
+    CHECK (redirect_type IN ('MOVED_PERMANENTLY', 'FOUND', 'TEMPORARY_REDIRECT', 'PERMANENT_REDIRECT'));
+
+-- The redirect query now also reads redirect_type, so the covering index must include it
+DROP INDEX ix_urls_short_code_original_url_expires_at;
+CREATE INDEX ix_urls_redirect_target ON urls (short_code, original_url, expires_at, redirect_type);
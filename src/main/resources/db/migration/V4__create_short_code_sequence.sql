@@ -0,0 +1,7 @@
+-- ID blocks of the sequence short code strategy: each value is the first ID of a block,
+-- so the increment is the block size and must equal urlshortener.short-code.block-size
+-- (checked on first use). To change it, ALTER SEQUENCE ... INCREMENT BY in a new migration
+-- and deploy the new block size with it.
+-- IF NOT EXISTS: older versions created the sequence at runtime with the same definition
+
+CREATE SEQUENCE IF NOT EXISTS short_code_seq START WITH 0 MINVALUE 0 INCREMENT BY 1000;
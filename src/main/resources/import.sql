@@ -0,0 +1,3 @@
+-- Run by Hibernate only when it creates the schema itself (ddl-auto=create/create-drop, the default
+-- profile without Flyway), for what the entities don't describe. Keep in sync with db/migration
+CREATE SEQUENCE short_code_seq START WITH 0 MINVALUE 0 INCREMENT BY 1000;